@@ -0,0 +1,10 @@
+#!/usr/bin/env bash
+# Starts kewe-core from the extracted fast-start layout produced by `./gradlew cdsArchive -PfastStart`.
+set -euo pipefail
+
+dir="$(cd "$(dirname "$0")/.." && pwd)/build/fast-start"
+jar="$(ls "$dir"/*.jar | head -n 1)"
+# The CDS archive only matches the JDK that wrote it; cdsArchive records that JDK's home next to it.
+java_home="$(cat "$dir/java-home")"
+
+exec "$java_home/bin/java" -XX:SharedArchiveFile="$dir/application.jsa" -Dspring.aot.enabled=true "$@" -jar "$jar"
@@ -0,0 +1,41 @@
+#!/usr/bin/env bash
+# Measures time from JVM launch until /actuator/health/readiness reports UP, for the plain boot jar
+# and for the fast-start (AOT + AppCDS) layout. Needs a reachable MongoDB (MONGO_URI, default localhost).
+#
+#   ./scripts/startup-benchmark.sh [runs]
+set -euo pipefail
+
+root="$(cd "$(dirname "$0")/.." && pwd)"
+runs="${1:-5}"
+port="${BENCH_PORT:-18080}"
+
+cd "$root"
+./gradlew -q clean cdsArchive -PfastStart
+plain_jar="$(ls build/libs/*-SNAPSHOT.jar | grep -v plain | head -n 1)"
+fast_dir="build/fast-start"
+fast_jar="$(ls "$fast_dir"/*.jar | head -n 1)"
+java="$(cat "$fast_dir/java-home")/bin/java"
+
+now_ms() { date +%s%3N; }
+
+measure() {
+    local label="$1"; shift
+    local total=0
+    for i in $(seq 1 "$runs"); do
+        local started; started="$(now_ms)"
+        "$@" --server.port="$port" >/dev/null 2>&1 &
+        local pid=$!
+        until curl -fs "http://localhost:$port/actuator/health/readiness" >/dev/null 2>&1; do
+            kill -0 "$pid" 2>/dev/null || { echo "$label: application exited before becoming ready" >&2; exit 1; }
+            sleep 0.05
+        done
+        local elapsed=$(( $(now_ms) - started ))
+        kill "$pid"; wait "$pid" 2>/dev/null || true
+        echo "$label run $i: ${elapsed} ms"
+        total=$(( total + elapsed ))
+    done
+    echo "$label mean: $(( total / runs )) ms"
+}
+
+measure "jar" "$java" -jar "$plain_jar"
+measure "aot+cds" "$java" -XX:SharedArchiveFile="$fast_dir/application.jsa" -Dspring.aot.enabled=true -jar "$fast_jar"
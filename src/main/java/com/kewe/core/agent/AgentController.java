@@ -1,15 +1,26 @@
 package com.kewe.core.agent;
 
+import com.kewe.core.funding.FundingService;
 import jakarta.validation.constraints.NotBlank;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.MediaType;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.concurrent.CompletableFuture;
 
 @RestController
 @RequestMapping("/api/agent")
 public class AgentController {
+    private static final Logger log = LoggerFactory.getLogger(AgentController.class);
+    private static final long STREAM_TIMEOUT_MS = 60_000;
+
     private final AgentSearchService searchService;
 
     public AgentController(AgentSearchService searchService) {
@@ -17,8 +28,42 @@ public class AgentController {
     }
 
     @PostMapping("/requisition-draft")
-    public AgentSearchService.AgentDraftResponse draft(@RequestBody AgentPromptRequest request) {
-        return searchService.createDraft(request.prompt());
+    public CompletableFuture<AgentSearchService.AgentDraftResponse> draft(@RequestBody AgentPromptRequest request) {
+        return searchService.createDraftAsync(request.prompt(), true, AgentSearchService.DraftListener.NONE);
+    }
+
+    /**
+     * Streams the draft as Server-Sent Events: {@code parsed}, then {@code charging}, then one {@code supplier}
+     * event per source as it finishes, then the ranked {@code draft}.
+     */
+    @PostMapping(path = "/requisition-draft/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter draftStream(@RequestBody AgentPromptRequest request) {
+        SseEmitter emitter = new SseEmitter(STREAM_TIMEOUT_MS);
+        searchService.createDraftAsync(request.prompt(), true, new AgentSearchService.DraftListener() {
+            @Override
+            public void onParsed(PromptParser.ParsedPrompt parsed) {
+                send(emitter, "parsed", parsed);
+            }
+
+            @Override
+            public void onChargingSuggestion(FundingService.ChargingLocationDto suggested) {
+                send(emitter, "charging", new ChargingEvent(suggested));
+            }
+
+            @Override
+            public void onSupplierCompleted(String supplierKey, SupplierSearchOutcome outcome) {
+                send(emitter, "supplier", new SupplierEvent(supplierKey, outcome));
+            }
+        }).whenComplete((draft, ex) -> {
+            if (ex != null) {
+                log.warn("Streaming draft failed", ex);
+                emitter.completeWithError(ex);
+                return;
+            }
+            send(emitter, "draft", draft);
+            emitter.complete();
+        });
+        return emitter;
     }
 
     @GetMapping("/capabilities")
@@ -29,5 +74,18 @@ public class AgentController {
     @GetMapping("/ping")
     public String ping() { return "ok"; }
 
+    private static void send(SseEmitter emitter, String name, Object data) {
+        try {
+            emitter.send(SseEmitter.event().name(name).data(data, MediaType.APPLICATION_JSON));
+        } catch (IOException | IllegalStateException ex) {
+            // client went away or the stream already completed; the remaining events have nowhere to go
+            log.debug("Dropping '{}' event for closed draft stream", name, ex);
+        }
+    }
+
     public record AgentPromptRequest(@NotBlank String prompt) {}
+
+    public record ChargingEvent(FundingService.ChargingLocationDto suggestedChargingLocation) {}
+
+    public record SupplierEvent(String supplier, SupplierSearchOutcome outcome) {}
 }
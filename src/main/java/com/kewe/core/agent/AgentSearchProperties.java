@@ -13,6 +13,19 @@ public class AgentSearchProperties {
     private int websearchCount = 10;
     private int websearchTimeoutMs = 7000;
     private int websearchCacheTtlSeconds = 3600;
+    private long websearchCacheMaxBytes = 16L * 1024 * 1024;
+    private int supplierSearchDeadlineMs = 8000;
+    private int playwrightPoolSize = 2;
+    private int playwrightMaxQueued = 16;
+    private int playwrightAcquireTimeoutMs = 3000;
+    private int playwrightRecycleAfterPages = 200;
+    private boolean playwrightBlockResources = true;
+    private int supplierBreakerFailureThreshold = 3;
+    private long supplierBreakerOpenMs = 60_000;
+    private int supplierMaxConcurrency = 4;
+    private long supplierLatencyTargetMs = 4000;
+    private boolean localCatalogEnabled = true;
+    private double localCatalogMinCoverage = 0.6;
 
     public String getWebsearchProvider() {
         return websearchProvider == null || websearchProvider.isBlank() ? "none" : websearchProvider;
@@ -70,6 +83,110 @@ public class AgentSearchProperties {
         this.websearchCacheTtlSeconds = websearchCacheTtlSeconds;
     }
 
+    public long getWebsearchCacheMaxBytes() {
+        return websearchCacheMaxBytes;
+    }
+
+    public void setWebsearchCacheMaxBytes(long websearchCacheMaxBytes) {
+        this.websearchCacheMaxBytes = websearchCacheMaxBytes;
+    }
+
+    public int getSupplierSearchDeadlineMs() {
+        return supplierSearchDeadlineMs;
+    }
+
+    public void setSupplierSearchDeadlineMs(int supplierSearchDeadlineMs) {
+        this.supplierSearchDeadlineMs = supplierSearchDeadlineMs;
+    }
+
+    public int getPlaywrightPoolSize() {
+        return playwrightPoolSize;
+    }
+
+    public void setPlaywrightPoolSize(int playwrightPoolSize) {
+        this.playwrightPoolSize = playwrightPoolSize;
+    }
+
+    public int getPlaywrightMaxQueued() {
+        return playwrightMaxQueued;
+    }
+
+    public void setPlaywrightMaxQueued(int playwrightMaxQueued) {
+        this.playwrightMaxQueued = playwrightMaxQueued;
+    }
+
+    public int getPlaywrightAcquireTimeoutMs() {
+        return playwrightAcquireTimeoutMs;
+    }
+
+    public void setPlaywrightAcquireTimeoutMs(int playwrightAcquireTimeoutMs) {
+        this.playwrightAcquireTimeoutMs = playwrightAcquireTimeoutMs;
+    }
+
+    public int getPlaywrightRecycleAfterPages() {
+        return playwrightRecycleAfterPages;
+    }
+
+    public void setPlaywrightRecycleAfterPages(int playwrightRecycleAfterPages) {
+        this.playwrightRecycleAfterPages = playwrightRecycleAfterPages;
+    }
+
+    public boolean isPlaywrightBlockResources() {
+        return playwrightBlockResources;
+    }
+
+    public void setPlaywrightBlockResources(boolean playwrightBlockResources) {
+        this.playwrightBlockResources = playwrightBlockResources;
+    }
+
+    public int getSupplierBreakerFailureThreshold() {
+        return supplierBreakerFailureThreshold;
+    }
+
+    public void setSupplierBreakerFailureThreshold(int supplierBreakerFailureThreshold) {
+        this.supplierBreakerFailureThreshold = supplierBreakerFailureThreshold;
+    }
+
+    public long getSupplierBreakerOpenMs() {
+        return supplierBreakerOpenMs;
+    }
+
+    public void setSupplierBreakerOpenMs(long supplierBreakerOpenMs) {
+        this.supplierBreakerOpenMs = supplierBreakerOpenMs;
+    }
+
+    public int getSupplierMaxConcurrency() {
+        return supplierMaxConcurrency;
+    }
+
+    public void setSupplierMaxConcurrency(int supplierMaxConcurrency) {
+        this.supplierMaxConcurrency = supplierMaxConcurrency;
+    }
+
+    public long getSupplierLatencyTargetMs() {
+        return supplierLatencyTargetMs;
+    }
+
+    public void setSupplierLatencyTargetMs(long supplierLatencyTargetMs) {
+        this.supplierLatencyTargetMs = supplierLatencyTargetMs;
+    }
+
+    public boolean isLocalCatalogEnabled() {
+        return localCatalogEnabled;
+    }
+
+    public void setLocalCatalogEnabled(boolean localCatalogEnabled) {
+        this.localCatalogEnabled = localCatalogEnabled;
+    }
+
+    public double getLocalCatalogMinCoverage() {
+        return localCatalogMinCoverage;
+    }
+
+    public void setLocalCatalogMinCoverage(double localCatalogMinCoverage) {
+        this.localCatalogMinCoverage = localCatalogMinCoverage;
+    }
+
     public boolean hasSearchKey() {
         return "serpapi".equalsIgnoreCase(getWebsearchProvider()) && serpapiKey != null && !serpapiKey.isBlank();
     }
@@ -7,27 +7,46 @@ import java.math.BigDecimal;
 import java.net.URI;
 import java.net.URLEncoder;
 import java.nio.charset.StandardCharsets;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
 import java.util.Comparator;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Supplier;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
 
 @Service
 public class AgentSearchService {
+    private static final Pattern PRICE_PATTERN = Pattern.compile("\\$(\\d+[\\d,]*(?:\\.\\d{2})?)");
+    private static final Pattern SKU_PATTERN = Pattern.compile("(?:sku|model|part)[:#\\s]*([A-Za-z0-9-]+)", Pattern.CASE_INSENSITIVE);
+
     private final PromptParser parser;
     private final FundingService fundingService;
     private final WebSearchProvider webSearchProvider;
     private final AgentSearchProperties properties;
+    private final SupplierSearchOrchestrator supplierSearchOrchestrator;
+    private final ProductResultCache productResultCache;
+    private final LocalCatalogIndex localCatalogIndex;
 
     public AgentSearchService(PromptParser parser,
                               FundingService fundingService,
                               WebSearchProvider webSearchProvider,
-                              AgentSearchProperties properties) {
+                              AgentSearchProperties properties,
+                              SupplierSearchOrchestrator supplierSearchOrchestrator,
+                              ProductResultCache productResultCache,
+                              LocalCatalogIndex localCatalogIndex) {
         this.parser = parser;
         this.fundingService = fundingService;
         this.webSearchProvider = webSearchProvider;
         this.properties = properties;
+        this.supplierSearchOrchestrator = supplierSearchOrchestrator;
+        this.productResultCache = productResultCache;
+        this.localCatalogIndex = localCatalogIndex;
     }
 
     public CapabilitiesResponse capabilities() {
@@ -35,19 +54,116 @@ public class AgentSearchService {
                 properties.getWebsearchProvider().toLowerCase(Locale.ROOT),
                 properties.hasSearchKey(),
                 properties.getSerpapiEngine(),
-                properties.getWebsearchCount());
+                properties.getWebsearchCount(),
+                supplierSearchOrchestrator.circuitStatuses());
     }
 
     public AgentDraftResponse createDraft(String prompt) {
+        return createDraftAsync(prompt, true, DraftListener.NONE).join();
+    }
+
+    public AgentDraftResponse createDraft(String prompt, boolean includeSuppliers, DraftListener listener) {
+        return createDraftAsync(prompt, includeSuppliers, listener).join();
+    }
+
+    /**
+     * Builds a draft without holding the calling thread: the charging-location lookup, the web search and (when
+     * {@code includeSuppliers} is set) the supplier fan-out run concurrently on virtual threads. The listener is
+     * called in a fixed order: the parsed prompt (before this method returns), then the charging suggestion, then
+     * each supplier outcome as it completes; supplier outcomes that finish first are held back until the charging
+     * suggestion has been delivered. The returned future completes after the last listener call.
+     * When the local catalog of past purchases matches the prompt, no external search runs at all.
+     */
+    public CompletableFuture<AgentDraftResponse> createDraftAsync(String prompt, boolean includeSuppliers, DraftListener listener) {
         PromptParser.ParsedPrompt parsed = parser.parse(prompt);
-        List<FundingService.ChargingLocationDto> chargingLocations = fundingService.findChargingLocations(null);
-        FundingService.ChargingLocationDto suggested = suggestCharging(parsed, chargingLocations);
+        listener.onParsed(parsed);
         Map<String, String> searchLinks = buildSearchLinks(parsed.item());
+        SequencedListener sequenced = new SequencedListener(listener);
+        CompletableFuture<FundingService.ChargingLocationDto> suggested = supplierSearchOrchestrator.supplyAsync(
+                        () -> suggestCharging(parsed, fundingService.findChargingLocations(null)))
+                .thenApply(charging -> {
+                    sequenced.chargingReady(charging);
+                    return charging;
+                });
+
+        List<ProductSuggestion> purchasedBefore = localSuggestions(parsed);
+        if (!purchasedBefore.isEmpty()) {
+            return suggested.thenApply(charging ->
+                    new AgentDraftResponse(parsed, searchLinks, purchasedBefore, List.of(), charging, List.of()));
+        }
+
+        WebSearchRequest webRequest = new WebSearchRequest(parsed.normalizedQuery(), properties.getWebsearchCount());
+        Supplier<WebSearchResponse> webSearch = () -> productResultCache.web(webRequest.query(),
+                () -> webSearchProvider.search(webRequest));
+        if (!includeSuppliers) {
+            return supplierSearchOrchestrator.supplyAsync(webSearch)
+                    .thenCombine(suggested, (response, charging) -> {
+                        List<ProductSuggestion> top = prioritize(response.results(), parsed.keywords()).stream().limit(5).toList();
+                        return new AgentDraftResponse(parsed, searchLinks, top, response.warnings(), charging, List.of());
+                    });
+        }
+
+        return supplierSearchOrchestrator.searchAsync(SupplierSearchQuery.of(parsed.normalizedQuery()),
+                        webSearch, sequenced)
+                .thenCombine(suggested, (fanOut, charging) -> toDraftResponse(parsed, searchLinks, fanOut, charging));
+    }
+
+    private AgentDraftResponse toDraftResponse(PromptParser.ParsedPrompt parsed,
+                                               Map<String, String> searchLinks,
+                                               SupplierSearchOrchestrator.FanOutResult fanOut,
+                                               FundingService.ChargingLocationDto suggested) {
+        List<ProductSuggestion> top = prioritize(mergeResults(fanOut), parsed.keywords()).stream().limit(5).toList();
+        List<String> warnings = new ArrayList<>(fanOut.webResponse().warnings());
+        warnings.addAll(fanOut.warnings());
+        fanOut.supplierOutcomes().values().forEach(outcome -> warnings.addAll(outcome.warnings()));
+        List<SupplierStatus> suppliers = fanOut.supplierOutcomes().entrySet().stream()
+                .map(entry -> new SupplierStatus(entry.getKey(), fanOut.supplierNames().get(entry.getKey()),
+                        entry.getValue().results().size(), entry.getValue().blockedOrFailed(), entry.getValue().elapsedMs()))
+                .toList();
+        return new AgentDraftResponse(parsed, searchLinks, top, warnings, suggested, suppliers);
+    }
+
+    private List<ProductSuggestion> localSuggestions(PromptParser.ParsedPrompt parsed) {
+        if (!properties.isLocalCatalogEnabled()) {
+            return List.of();
+        }
+        // "for biology" names who pays, not what to buy
+        List<String> orgWords = parsed.orgHint() == null ? List.of() : PromptParser.tokenize(parsed.orgHint().toLowerCase(Locale.ROOT));
+        List<String> keywords = parsed.keywords().stream().filter(keyword -> !orgWords.contains(keyword)).toList();
+        return localCatalogIndex.search(keywords, properties.getLocalCatalogMinCoverage(), 5).stream()
+                .map(hit -> fromCatalogItem(hit.item()))
+                .toList();
+    }
+
+    private static ProductSuggestion fromCatalogItem(LocalCatalogIndex.CatalogItem item) {
+        BigDecimal price = item.lastUnitPrice() == null ? null : BigDecimal.valueOf(item.lastUnitPrice());
+        StringBuilder snippet = new StringBuilder("Purchased ").append(item.purchaseCount())
+                .append(item.purchaseCount() == 1 ? " time" : " times");
+        if (item.lastPurchasedAt() != null) {
+            snippet.append(", last on ").append(item.lastPurchasedAt().atZone(ZoneOffset.UTC).toLocalDate());
+        }
+        if (price != null) {
+            snippet.append(" at ").append(price.toPlainString()).append(item.uom() == null ? "" : " / " + item.uom());
+        }
+        if (item.supplierSku() != null) {
+            snippet.append(" (SKU ").append(item.supplierSku()).append(')');
+        }
+        return new ProductSuggestion(item.description(), item.supplierUrl(), snippet.toString(), null, price,
+                price == null ? null : "USD", item.supplierName() != null ? item.supplierName() : supplierFromUrl(item.supplierUrl()));
+    }
 
-        WebSearchResponse response = webSearchProvider.search(new WebSearchRequest(parsed.normalizedQuery(), properties.getWebsearchCount()));
-        List<ProductSuggestion> top = prioritize(response.results(), parsed.keywords()).stream().limit(5).toList();
+    /** Supplier results first, then web results; the first occurrence of a URL wins. */
+    static List<WebSearchResult> mergeResults(SupplierSearchOrchestrator.FanOutResult fanOut) {
+        Map<String, WebSearchResult> byUrl = new LinkedHashMap<>();
+        fanOut.supplierOutcomes().forEach((key, outcome) -> outcome.results().forEach(result ->
+                byUrl.putIfAbsent(result.url(), fromSupplierResult(key, result))));
+        fanOut.webResponse().results().forEach(result -> byUrl.putIfAbsent(result.url(), result));
+        return List.copyOf(byUrl.values());
+    }
 
-        return new AgentDraftResponse(parsed, searchLinks, top, response.warnings(), suggested);
+    private static WebSearchResult fromSupplierResult(String supplierKey, SupplierSearchResult result) {
+        return new WebSearchResult(result.title(), result.url(), result.snippet(), supplierKey, result.supplierName(),
+                null, result.price(), result.price() == null ? null : "USD");
     }
 
     static List<ProductSuggestion> prioritize(List<WebSearchResult> results, List<String> keywords) {
@@ -139,16 +255,55 @@ public class AgentSearchService {
 
     private record ScoredSuggestion(ProductSuggestion suggestion, int score) {}
 
+    /** Receives the pieces of a draft as they become available; see {@link #createDraftAsync}. */
+    public interface DraftListener extends SupplierSearchOrchestrator.Listener {
+        DraftListener NONE = new DraftListener() { };
+
+        default void onParsed(PromptParser.ParsedPrompt parsed) { }
+
+        default void onChargingSuggestion(FundingService.ChargingLocationDto suggested) { }
+
+        @Override
+        default void onSupplierCompleted(String supplierKey, SupplierSearchOutcome outcome) { }
+    }
+
+    /** Holds supplier outcomes back until the charging suggestion has been delivered. */
+    private static final class SequencedListener implements SupplierSearchOrchestrator.Listener {
+        private final DraftListener delegate;
+        private final List<Map.Entry<String, SupplierSearchOutcome>> held = new ArrayList<>();
+        private boolean chargingDelivered;
+
+        private SequencedListener(DraftListener delegate) {
+            this.delegate = delegate;
+        }
+
+        synchronized void chargingReady(FundingService.ChargingLocationDto suggested) {
+            delegate.onChargingSuggestion(suggested);
+            chargingDelivered = true;
+            held.forEach(entry -> delegate.onSupplierCompleted(entry.getKey(), entry.getValue()));
+            held.clear();
+        }
+
+        @Override
+        public synchronized void onSupplierCompleted(String supplierKey, SupplierSearchOutcome outcome) {
+            if (chargingDelivered) {
+                delegate.onSupplierCompleted(supplierKey, outcome);
+            } else {
+                held.add(Map.entry(supplierKey, outcome));
+            }
+        }
+    }
+
     public static BigDecimal extractPrice(String text) {
         if (text == null) return null;
-        java.util.regex.Matcher matcher = java.util.regex.Pattern.compile("\\$(\\d+[\\d,]*(?:\\.\\d{2})?)").matcher(text);
+        Matcher matcher = PRICE_PATTERN.matcher(text);
         if (!matcher.find()) return null;
         return BigDecimal.valueOf(Double.parseDouble(matcher.group(1).replace(",", "")));
     }
 
     public static String extractSku(String text) {
         if (text == null) return null;
-        java.util.regex.Matcher matcher = java.util.regex.Pattern.compile("(?:sku|model|part)[:#\\s]*([A-Za-z0-9-]+)", java.util.regex.Pattern.CASE_INSENSITIVE).matcher(text);
+        Matcher matcher = SKU_PATTERN.matcher(text);
         return matcher.find() ? matcher.group(1) : null;
     }
 
@@ -161,11 +316,18 @@ public class AgentSearchService {
                                     String supplier) {
     }
 
-    public record CapabilitiesResponse(String provider, boolean hasKey, String engine, int count) {}
+    public record CapabilitiesResponse(String provider,
+                                       boolean hasKey,
+                                       String engine,
+                                       int count,
+                                       List<SupplierCircuitBreaker.CircuitStatus> suppliers) {}
 
     public record AgentDraftResponse(PromptParser.ParsedPrompt parsed,
                                      Map<String, String> searchLinks,
                                      List<ProductSuggestion> results,
                                      List<String> warnings,
-                                     FundingService.ChargingLocationDto suggestedChargingLocation) {}
+                                     FundingService.ChargingLocationDto suggestedChargingLocation,
+                                     List<SupplierStatus> suppliers) {}
+
+    public record SupplierStatus(String key, String name, int resultCount, boolean blockedOrFailed, long elapsedMs) {}
 }
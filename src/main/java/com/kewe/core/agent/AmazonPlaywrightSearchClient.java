@@ -2,13 +2,20 @@ package com.kewe.core.agent;
 
 import com.microsoft.playwright.ElementHandle;
 import com.microsoft.playwright.Page;
+import org.springframework.context.annotation.Lazy;
 import org.springframework.stereotype.Component;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Set;
 
 @Component
+@Lazy
 public class AmazonPlaywrightSearchClient extends PlaywrightSupplierSearchClient {
+    private static final ResourceBlockingPolicy POLICY = ResourceBlockingPolicy.forSupplier(
+            Set.of("amazon.com", "media-amazon.com", "ssl-images-amazon.com"),
+            Set.of());
+
     public AmazonPlaywrightSearchClient(PlaywrightBrowserManager browserManager, AgentSearchProperties properties) {
         super(browserManager, properties);
     }
@@ -24,6 +31,11 @@ public class AmazonPlaywrightSearchClient extends PlaywrightSupplierSearchClient
         return "https://www.amazon.com/s?k=" + encoded(query);
     }
 
+    @Override
+    protected ResourceBlockingPolicy blockingPolicy() {
+        return POLICY;
+    }
+
     @Override
     protected void waitForResultSelector(Page page) {
         page.waitForSelector("div.s-result-item h2 a", new Page.WaitForSelectorOptions().setTimeout(5000));
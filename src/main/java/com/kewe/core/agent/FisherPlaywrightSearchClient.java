@@ -2,13 +2,20 @@ package com.kewe.core.agent;
 
 import com.microsoft.playwright.ElementHandle;
 import com.microsoft.playwright.Page;
+import org.springframework.context.annotation.Lazy;
 import org.springframework.stereotype.Component;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Set;
 
 @Component
+@Lazy
 public class FisherPlaywrightSearchClient extends PlaywrightSupplierSearchClient {
+    private static final ResourceBlockingPolicy POLICY = ResourceBlockingPolicy.forSupplier(
+            Set.of("fishersci.com", "thermofisher.com"),
+            Set.of("cloudflare.com", "jquery.com"));
+
     public FisherPlaywrightSearchClient(PlaywrightBrowserManager browserManager, AgentSearchProperties properties) {
         super(browserManager, properties);
     }
@@ -24,6 +31,11 @@ public class FisherPlaywrightSearchClient extends PlaywrightSupplierSearchClient
         return "https://www.fishersci.com/us/en/catalog/search/products?keyword=" + encoded(query);
     }
 
+    @Override
+    protected ResourceBlockingPolicy blockingPolicy() {
+        return POLICY;
+    }
+
     @Override
     protected void waitForResultSelector(Page page) {
         page.waitForSelector("a[href*='/shop/products/']", new Page.WaitForSelectorOptions().setTimeout(5000));
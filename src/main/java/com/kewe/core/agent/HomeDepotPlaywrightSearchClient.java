@@ -2,13 +2,20 @@ package com.kewe.core.agent;
 
 import com.microsoft.playwright.ElementHandle;
 import com.microsoft.playwright.Page;
+import org.springframework.context.annotation.Lazy;
 import org.springframework.stereotype.Component;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Set;
 
 @Component
+@Lazy
 public class HomeDepotPlaywrightSearchClient extends PlaywrightSupplierSearchClient {
+    private static final ResourceBlockingPolicy POLICY = ResourceBlockingPolicy.forSupplier(
+            Set.of("homedepot.com", "thdstatic.com"),
+            Set.of("akamaihd.net"));
+
     public HomeDepotPlaywrightSearchClient(PlaywrightBrowserManager browserManager, AgentSearchProperties properties) {
         super(browserManager, properties);
     }
@@ -24,6 +31,11 @@ public class HomeDepotPlaywrightSearchClient extends PlaywrightSupplierSearchCli
         return "https://www.homedepot.com/s/" + query.trim().replace(" ", "%20");
     }
 
+    @Override
+    protected ResourceBlockingPolicy blockingPolicy() {
+        return POLICY;
+    }
+
     @Override
     protected void waitForResultSelector(Page page) {
         page.waitForSelector("a[href*='/p/']", new Page.WaitForSelectorOptions().setTimeout(5000));
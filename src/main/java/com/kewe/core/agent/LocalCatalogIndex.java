@@ -0,0 +1,255 @@
+package com.kewe.core.agent;
+
+import com.kewe.core.events.ChangeSource;
+import com.kewe.core.events.EntityChangedEvent;
+import com.kewe.core.requisition.RequisitionDraft;
+import com.kewe.core.requisition.RequisitionLine;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * In-process catalog of items already bought, built from the lines of every purchased requisition and searched
+ * with BM25 over the same keywords {@link PromptParser} produces. One entry per supplier SKU (or URL, or
+ * description when neither is known) carries the price paid on the most recent requisition. The index is an
+ * immutable snapshot swapped in whole. Only changes that can alter it mark it stale: a requisition that is indexed,
+ * or one whose change puts it in a {@link RequisitionDraft#PURCHASED_STATUSES purchased status}. Edits to drafts are
+ * ignored. A stale index is rebuilt in the background while searches keep reading the previous snapshot.
+ */
+@Component
+public class LocalCatalogIndex {
+    private static final Logger log = LoggerFactory.getLogger(LocalCatalogIndex.class);
+    private static final double K1 = 1.2;
+    private static final double B = 0.75;
+
+    private final MongoTemplate mongoTemplate;
+    private final AtomicLong generation = new AtomicLong();
+    private final AtomicBoolean rebuildQueued = new AtomicBoolean();
+    private final ExecutorService rebuilder = Executors.newSingleThreadExecutor(
+            Thread.ofPlatform().name("local-catalog-rebuild").daemon().factory());
+    private volatile Snapshot snapshot = Snapshot.EMPTY;
+
+    public LocalCatalogIndex(MongoTemplate mongoTemplate) {
+        this.mongoTemplate = mongoTemplate;
+    }
+
+    @EventListener
+    public void onEntityChanged(EntityChangedEvent event) {
+        if (event.affects(ChangeSource.REQUISITION_DRAFTS) && mayChangeIndex(event)) {
+            generation.incrementAndGet();
+            queueRebuild();
+        }
+    }
+
+    @PreDestroy
+    void shutdown() {
+        rebuilder.shutdownNow();
+    }
+
+    /** Rebuilds the index from Mongo and returns the number of catalog items. */
+    public synchronized int rebuild() {
+        long observed = generation.get();
+        Query query = new Query(Criteria.where("status").in(RequisitionDraft.PURCHASED_STATUSES)).with(Sort.by(Sort.Direction.ASC, "updatedAt"));
+        query.fields().include("lines").include("updatedAt");
+        Map<String, CatalogItem> items = new LinkedHashMap<>();
+        Set<String> requisitionIds = new HashSet<>();
+        for (RequisitionDraft requisition : mongoTemplate.find(query, RequisitionDraft.class)) {
+            requisitionIds.add(requisition.getId());
+            Instant purchasedAt = requisition.getUpdatedAt();
+            for (RequisitionLine line : requisition.getLines()) {
+                if (line.getDescription() == null || line.getDescription().isBlank()) {
+                    continue;
+                }
+                // requisitions are read oldest first, so the last line seen for an item carries the last-paid price
+                items.merge(itemKey(line), CatalogItem.of(line, purchasedAt),
+                        (previous, latest) -> latest.withPurchaseCount(previous.purchaseCount() + 1));
+            }
+        }
+        snapshot = Snapshot.build(List.copyOf(items.values()), Set.copyOf(requisitionIds), observed);
+        log.debug("local-catalog: indexed {} items", items.size());
+        return items.size();
+    }
+
+    /**
+     * Items ranked by BM25 over {@code keywords}, best first. Only items matching at least {@code minCoverage} of the
+     * distinct keywords are returned.
+     */
+    public List<CatalogHit> search(List<String> keywords, double minCoverage, int limit) {
+        Snapshot current = snapshot;
+        if (current == Snapshot.EMPTY) {
+            // nothing to serve yet: the first search builds the index itself
+            try {
+                rebuild();
+            } catch (DataAccessException ex) {
+                log.warn("local-catalog: initial build failed; searching an empty catalog", ex);
+            }
+            current = snapshot;
+        } else if (current.generation() != generation.get()) {
+            queueRebuild();
+        }
+        Set<String> terms = new LinkedHashSet<>();
+        keywords.forEach(keyword -> terms.add(stem(keyword.toLowerCase(Locale.ROOT))));
+        if (terms.isEmpty() || current.items().isEmpty()) {
+            return List.of();
+        }
+        double[] scores = new double[current.items().size()];
+        int[] matched = new int[current.items().size()];
+        for (String term : terms) {
+            List<Posting> postings = current.postings().get(term);
+            if (postings == null) {
+                continue;
+            }
+            double idf = Math.log(1 + (current.items().size() - postings.size() + 0.5) / (postings.size() + 0.5));
+            for (Posting posting : postings) {
+                double norm = 1 - B + B * current.lengths()[posting.item()] / current.averageLength();
+                scores[posting.item()] += idf * posting.frequency() * (K1 + 1) / (posting.frequency() + K1 * norm);
+                matched[posting.item()]++;
+            }
+        }
+        int required = (int) Math.ceil(terms.size() * minCoverage - 1e-9);
+        List<CatalogHit> hits = new ArrayList<>();
+        for (int i = 0; i < scores.length; i++) {
+            if (matched[i] > 0 && matched[i] >= required) {
+                hits.add(new CatalogHit(current.items().get(i), scores[i]));
+            }
+        }
+        hits.sort(Comparator.comparingDouble(CatalogHit::score).reversed());
+        return hits.size() > limit ? List.copyOf(hits.subList(0, limit)) : hits;
+    }
+
+    public int size() {
+        return snapshot.items().size();
+    }
+
+    /** Whether the snapshot reflects every change seen so far. */
+    public boolean isCurrent() {
+        return snapshot.generation() == generation.get();
+    }
+
+    /**
+     * Decided from the event alone: a change without an id (resync) may touch anything, a change to an indexed
+     * requisition may drop or alter it, and any other requisition only matters once the change puts it in a purchased
+     * status. Draft autosaves carry neither, so they never queue a rebuild.
+     */
+    private boolean mayChangeIndex(EntityChangedEvent event) {
+        return event.documentId() == null
+                || snapshot.requisitionIds().contains(event.documentId())
+                || event.status() != null && RequisitionDraft.PURCHASED_STATUSES.contains(event.status());
+    }
+
+    /** At most one rebuild waits at a time; a change during a rebuild queues the next one. */
+    private void queueRebuild() {
+        if (!rebuildQueued.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            rebuilder.execute(() -> {
+                rebuildQueued.set(false);
+                try {
+                    rebuild();
+                } catch (DataAccessException ex) {
+                    log.warn("local-catalog: rebuild failed; searching the previous snapshot", ex);
+                }
+            });
+        } catch (RejectedExecutionException ex) {
+            rebuildQueued.set(false);
+        }
+    }
+
+    private static String itemKey(RequisitionLine line) {
+        String supplier = line.getSupplierName() == null ? "" : line.getSupplierName().trim().toLowerCase(Locale.ROOT);
+        if (line.getSupplierSku() != null && !line.getSupplierSku().isBlank()) {
+            return supplier + "|sku|" + line.getSupplierSku().trim().toLowerCase(Locale.ROOT);
+        }
+        if (line.getSupplierUrl() != null && !line.getSupplierUrl().isBlank()) {
+            return "url|" + line.getSupplierUrl().trim();
+        }
+        return supplier + "|desc|" + String.join(" ", PromptParser.tokenize(line.getDescription().toLowerCase(Locale.ROOT)));
+    }
+
+    /** Folds plain English plurals so "beakers" finds "beaker"; applied to both the index and the query. */
+    static String stem(String token) {
+        if (token.length() > 4 && token.endsWith("ies")) {
+            return token.substring(0, token.length() - 3) + "y";
+        }
+        if (token.endsWith("xes") || token.endsWith("ches") || token.endsWith("shes") || token.endsWith("sses")) {
+            return token.substring(0, token.length() - 2);
+        }
+        if (token.length() > 3 && token.endsWith("s") && !token.endsWith("ss")) {
+            return token.substring(0, token.length() - 1);
+        }
+        return token;
+    }
+
+    public record CatalogItem(String description,
+                              String supplierName,
+                              String supplierUrl,
+                              String supplierSku,
+                              Double lastUnitPrice,
+                              String uom,
+                              Instant lastPurchasedAt,
+                              int purchaseCount) {
+        static CatalogItem of(RequisitionLine line, Instant purchasedAt) {
+            return new CatalogItem(line.getDescription(), line.getSupplierName(), line.getSupplierUrl(), line.getSupplierSku(),
+                    line.getUnitPrice(), line.getUom(), purchasedAt, 1);
+        }
+
+        CatalogItem withPurchaseCount(int count) {
+            return new CatalogItem(description, supplierName, supplierUrl, supplierSku, lastUnitPrice, uom, lastPurchasedAt, count);
+        }
+    }
+
+    public record CatalogHit(CatalogItem item, double score) {}
+
+    private record Posting(int item, int frequency) {}
+
+    private record Snapshot(List<CatalogItem> items, Map<String, List<Posting>> postings, int[] lengths,
+                            double averageLength, Set<String> requisitionIds, long generation) {
+        static final Snapshot EMPTY = new Snapshot(List.of(), Map.of(), new int[0], 1, Set.of(), -1);
+
+        static Snapshot build(List<CatalogItem> items, Set<String> requisitionIds, long generation) {
+            Map<String, List<Posting>> postings = new HashMap<>();
+            int[] lengths = new int[items.size()];
+            long totalLength = 0;
+            for (int i = 0; i < items.size(); i++) {
+                CatalogItem item = items.get(i);
+                Map<String, Integer> frequencies = new HashMap<>();
+                String text = item.description() + " " + (item.supplierSku() == null ? "" : item.supplierSku());
+                for (String token : PromptParser.allTokens(text.toLowerCase(Locale.ROOT))) {
+                    frequencies.merge(stem(token), 1, Integer::sum);
+                    lengths[i]++;
+                }
+                totalLength += lengths[i];
+                int index = i;
+                frequencies.forEach((term, frequency) ->
+                        postings.computeIfAbsent(term, key -> new ArrayList<>()).add(new Posting(index, frequency)));
+            }
+            double averageLength = items.isEmpty() ? 1 : Math.max(1, (double) totalLength / items.size());
+            return new Snapshot(items, postings, lengths, averageLength, requisitionIds, generation);
+        }
+    }
+}
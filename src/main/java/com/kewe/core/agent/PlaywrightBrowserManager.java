@@ -1,29 +1,248 @@
 package com.kewe.core.agent;
 
 import com.microsoft.playwright.Browser;
+import com.microsoft.playwright.BrowserContext;
 import com.microsoft.playwright.BrowserType;
+import com.microsoft.playwright.Page;
 import com.microsoft.playwright.Playwright;
+import com.microsoft.playwright.PlaywrightException;
+import com.microsoft.playwright.Route;
 import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.annotation.Lazy;
 import org.springframework.stereotype.Component;
 
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+/**
+ * Bounded pool of Playwright workers. Playwright's Java API is not thread-safe, so every worker owns its own
+ * {@link Playwright} and {@link Browser} and only touches them from its dedicated thread. Each worker keeps one
+ * warm page (in its own context) per supplier, re-creates them after a recycle, and restarts its browser after
+ * {@code playwrightRecycleAfterPages} pages or when a health check fails. Callers beyond the pool size wait up to
+ * {@code playwrightAcquireTimeoutMs}; beyond {@code playwrightMaxQueued} waiters they are rejected immediately.
+ * Each supplier page routes its requests through that supplier's {@link ResourceBlockingPolicy}.
+ */
 @Component
+@Lazy
 public class PlaywrightBrowserManager {
-    private Playwright playwright;
-    private Browser browser;
+    private static final Logger log = LoggerFactory.getLogger(PlaywrightBrowserManager.class);
+    private static final String USER_AGENT = "Mozilla/5.0 (X11; Linux x86_64) AppleWebKit/537.36 (KHTML, like Gecko) Chrome/124.0.0.0 Safari/537.36";
 
-    public synchronized Browser browser() {
-        if (browser == null) {
-            playwright = Playwright.create();
-            browser = playwright.chromium().launch(new BrowserType.LaunchOptions().setHeadless(true));
+    private final AgentSearchProperties properties;
+    private final List<Worker> workers = new ArrayList<>();
+    private final BlockingQueue<Worker> idle = new LinkedBlockingQueue<>();
+    private final Semaphore admission;
+    private final Map<String, ResourceBlockingPolicy> knownSuppliers = new ConcurrentHashMap<>();
+    private final AtomicLong rejected = new AtomicLong();
+    private final AtomicLong recycled = new AtomicLong();
+    private final AtomicLong blockedRequests = new AtomicLong();
+
+    public PlaywrightBrowserManager(AgentSearchProperties properties) {
+        this.properties = properties;
+        int size = Math.max(1, properties.getPlaywrightPoolSize());
+        for (int i = 0; i < size; i++) {
+            Worker worker = new Worker(i);
+            workers.add(worker);
+            idle.add(worker);
         }
-        return browser;
+        this.admission = new Semaphore(size + Math.max(0, properties.getPlaywrightMaxQueued()));
+    }
+
+    /**
+     * Runs {@code task} against the warm page this pool keeps for {@code supplierKey}. The page is reused across
+     * calls, so tasks must navigate before reading it.
+     */
+    public <T> T withPage(String supplierKey, ResourceBlockingPolicy policy, Function<Page, T> task) {
+        if (!admission.tryAcquire()) {
+            rejected.incrementAndGet();
+            throw new PoolBusyException("Browser pool queue is full");
+        }
+        Worker worker = null;
+        try {
+            worker = idle.poll(properties.getPlaywrightAcquireTimeoutMs(), TimeUnit.MILLISECONDS);
+            if (worker == null) {
+                rejected.incrementAndGet();
+                throw new PoolBusyException("No browser worker became free within " + properties.getPlaywrightAcquireTimeoutMs() + " ms");
+            }
+            knownSuppliers.put(supplierKey, policy);
+            return worker.execute(supplierKey, task);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new PoolBusyException("Interrupted while waiting for a browser worker");
+        } finally {
+            if (worker != null) {
+                idle.offer(worker);
+            }
+            admission.release();
+        }
+    }
+
+    public PoolStats stats() {
+        int size = workers.size();
+        int available = idle.size();
+        int permits = size + Math.max(0, properties.getPlaywrightMaxQueued());
+        int queued = Math.max(0, permits - admission.availablePermits() - (size - available));
+        return new PoolStats(size, size - available, queued, rejected.get(), recycled.get(), blockedRequests.get());
     }
 
     @PreDestroy
-    public synchronized void close() {
-        if (browser != null) browser.close();
-        if (playwright != null) playwright.close();
-        browser = null;
-        playwright = null;
+    public void close() {
+        workers.forEach(Worker::shutdown);
+    }
+
+    public record PoolStats(int workers, int busy, int queued, long rejected, long recycled, long blockedRequests) {}
+
+    public static class PoolBusyException extends RuntimeException {
+        public PoolBusyException(String message) {
+            super(message);
+        }
+    }
+
+    private final class Worker {
+        private final int index;
+        private final ExecutorService thread;
+        private final Map<String, Page> pages = new LinkedHashMap<>();
+        private Playwright playwright;
+        private Browser browser;
+        private int pagesServed;
+
+        private Worker(int index) {
+            this.index = index;
+            this.thread = Executors.newSingleThreadExecutor(runnable -> {
+                Thread worker = new Thread(runnable, "playwright-worker-" + index);
+                worker.setDaemon(true);
+                return worker;
+            });
+        }
+
+        private <T> T execute(String supplierKey, Function<Page, T> task) throws InterruptedException {
+            try {
+                return thread.submit(() -> runOnWorkerThread(supplierKey, task)).get();
+            } catch (ExecutionException ex) {
+                if (ex.getCause() instanceof RuntimeException runtime) {
+                    throw runtime;
+                }
+                throw new PlaywrightException("Browser worker " + index + " failed", ex.getCause());
+            }
+        }
+
+        private <T> T runOnWorkerThread(String supplierKey, Function<Page, T> task) {
+            ensureHealthy();
+            Page page = pages.get(supplierKey);
+            if (page == null || page.isClosed()) {
+                page = newPage(knownSuppliers.getOrDefault(supplierKey, ResourceBlockingPolicy.ALLOW_ALL));
+                pages.put(supplierKey, page);
+            }
+            try {
+                return task.apply(page);
+            } catch (PlaywrightException ex) {
+                discardPage(supplierKey);
+                throw ex;
+            } finally {
+                if (++pagesServed >= Math.max(1, properties.getPlaywrightRecycleAfterPages())) {
+                    recycle();
+                }
+            }
+        }
+
+        private void ensureHealthy() {
+            if (browser != null && !browser.isConnected()) {
+                log.warn("Browser worker {} lost its browser; restarting", index);
+                recycled.incrementAndGet();
+                stop();
+            }
+            if (browser == null) {
+                start();
+            }
+        }
+
+        private void start() {
+            playwright = Playwright.create();
+            browser = playwright.chromium().launch(new BrowserType.LaunchOptions().setHeadless(true));
+            pagesServed = 0;
+            knownSuppliers.forEach((supplierKey, policy) -> pages.put(supplierKey, newPage(policy)));
+        }
+
+        private Page newPage(ResourceBlockingPolicy policy) {
+            BrowserContext context = browser.newContext(new Browser.NewContextOptions()
+                    .setUserAgent(USER_AGENT)
+                    .setLocale("en-US"));
+            if (policy != ResourceBlockingPolicy.ALLOW_ALL) {
+                context.route("**/*", route -> routeThrough(policy, route));
+            }
+            return context.newPage();
+        }
+
+        private void routeThrough(ResourceBlockingPolicy policy, Route route) {
+            if (policy.shouldBlock(route.request().resourceType(), route.request().url())) {
+                blockedRequests.incrementAndGet();
+                route.abort("blockedbyclient");
+            } else {
+                route.resume();
+            }
+        }
+
+        private void discardPage(String supplierKey) {
+            Page page = pages.remove(supplierKey);
+            if (page != null) {
+                closeQuietly(() -> page.context().close());
+            }
+        }
+
+        private void recycle() {
+            recycled.incrementAndGet();
+            stop();
+            // relaunch right after the current task so the next caller finds warm pages again
+            thread.execute(() -> {
+                try {
+                    ensureHealthy();
+                } catch (RuntimeException ex) {
+                    log.warn("Browser worker {} could not relaunch; will retry on next use", index, ex);
+                }
+            });
+        }
+
+        private void stop() {
+            pages.clear();
+            closeQuietly(() -> {
+                if (browser != null) browser.close();
+            });
+            closeQuietly(() -> {
+                if (playwright != null) playwright.close();
+            });
+            browser = null;
+            playwright = null;
+        }
+
+        private void shutdown() {
+            try {
+                thread.submit(this::stop).get(5, TimeUnit.SECONDS);
+            } catch (Exception ex) {
+                log.debug("Browser worker {} did not shut down cleanly", index, ex);
+            }
+            thread.shutdownNow();
+        }
+
+        private void closeQuietly(Runnable action) {
+            try {
+                action.run();
+            } catch (PlaywrightException ex) {
+                log.debug("Ignoring error while closing browser worker {}", index, ex);
+            }
+        }
     }
 }
@@ -1,7 +1,5 @@
 package com.kewe.core.agent;
 
-import com.microsoft.playwright.Browser;
-import com.microsoft.playwright.BrowserContext;
 import com.microsoft.playwright.Page;
 import com.microsoft.playwright.PlaywrightException;
 import com.microsoft.playwright.options.LoadState;
@@ -15,8 +13,6 @@ import java.net.URLEncoder;
 import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 import java.util.List;
-import java.util.concurrent.CompletableFuture;
-import java.util.concurrent.TimeUnit;
 
 public abstract class PlaywrightSupplierSearchClient implements SupplierSearchClient {
     private static final Logger log = LoggerFactory.getLogger(PlaywrightSupplierSearchClient.class);
@@ -34,12 +30,11 @@ public abstract class PlaywrightSupplierSearchClient implements SupplierSearchCl
         if (!properties.isPlaywrightEnabled()) {
             return SupplierSearchOutcome.empty(System.currentTimeMillis() - start, true, "Playwright disabled by config.");
         }
+        // Runs on the orchestrator's virtual thread: its deadline bounds the wait and the browser manager's admission
+        // limit bounds concurrent pages, so there is no second pool (or queue) in between.
         try {
-            return CompletableFuture.supplyAsync(() -> scrape(query))
-                    .orTimeout(6, TimeUnit.SECONDS)
-                    .exceptionally(ex -> SupplierSearchOutcome.empty(System.currentTimeMillis() - start, true, supplierName() + " fetch failed: " + ex.getMessage()))
-                    .join();
-        } catch (Exception ex) {
+            return scrape(query);
+        } catch (RuntimeException ex) {
             log.warn("Playwright search failed for {}", supplierName(), ex);
             return SupplierSearchOutcome.empty(System.currentTimeMillis() - start, true, supplierName() + " fetch failed.");
         }
@@ -47,34 +42,37 @@ public abstract class PlaywrightSupplierSearchClient implements SupplierSearchCl
 
     private SupplierSearchOutcome scrape(SupplierSearchQuery query) {
         long start = System.currentTimeMillis();
-        List<String> warnings = new ArrayList<>();
         try {
-            Browser browser = browserManager.browser();
-            try (BrowserContext context = browser.newContext(new Browser.NewContextOptions()
-                    .setUserAgent("Mozilla/5.0 (X11; Linux x86_64) AppleWebKit/537.36 (KHTML, like Gecko) Chrome/124.0.0.0 Safari/537.36")
-                    .setLocale("en-US"))) {
-                Page page = context.newPage();
-                page.navigate(searchLink(query.keywords()), new Page.NavigateOptions().setTimeout(6000));
-                page.waitForLoadState(LoadState.DOMCONTENTLOADED, new Page.WaitForLoadStateOptions().setTimeout(6000));
-                waitForResultSelector(page);
-                String body = page.content().toLowerCase();
-                if (isBlocked(body)) {
-                    warnings.add(blockedWarning());
-                    return new SupplierSearchOutcome(List.of(), warnings, true, System.currentTimeMillis() - start);
-                }
-                List<SupplierSearchResult> results = extract(page, query.limit());
-                boolean blockedOrFailed = results.isEmpty();
-                if (blockedOrFailed) {
-                    warnings.add("No " + supplierName() + " results captured from Playwright.");
-                }
-                return new SupplierSearchOutcome(results, warnings, blockedOrFailed, System.currentTimeMillis() - start);
-            }
+            ResourceBlockingPolicy policy = properties.isPlaywrightBlockResources() ? blockingPolicy() : ResourceBlockingPolicy.ALLOW_ALL;
+            return browserManager.withPage(supplierKey(), policy, page -> scrapePage(page, query, start));
+        } catch (PlaywrightBrowserManager.PoolBusyException ex) {
+            return SupplierSearchOutcome.empty(System.currentTimeMillis() - start, true, supplierName() + " skipped: " + ex.getMessage() + ".");
         } catch (PlaywrightException ex) {
-            warnings.add(supplierName() + " fetch failed: " + ex.getMessage());
+            return SupplierSearchOutcome.empty(System.currentTimeMillis() - start, true, supplierName() + " fetch failed: " + ex.getMessage());
+        }
+    }
+
+    private SupplierSearchOutcome scrapePage(Page page, SupplierSearchQuery query, long start) {
+        List<String> warnings = new ArrayList<>();
+        page.navigate(searchLink(query.keywords()), new Page.NavigateOptions().setTimeout(6000));
+        page.waitForLoadState(LoadState.DOMCONTENTLOADED, new Page.WaitForLoadStateOptions().setTimeout(6000));
+        waitForResultSelector(page);
+        String body = page.content().toLowerCase();
+        if (isBlocked(body)) {
+            warnings.add(blockedWarning());
             return new SupplierSearchOutcome(List.of(), warnings, true, System.currentTimeMillis() - start);
         }
+        List<SupplierSearchResult> results = extract(page, query.limit());
+        boolean blockedOrFailed = results.isEmpty();
+        if (blockedOrFailed) {
+            warnings.add("No " + supplierName() + " results captured from Playwright.");
+        }
+        return new SupplierSearchOutcome(results, warnings, blockedOrFailed, System.currentTimeMillis() - start);
     }
 
+    /** Which sub-resources this supplier's result pages may load; see {@link ResourceBlockingPolicy}. */
+    protected abstract ResourceBlockingPolicy blockingPolicy();
+
     protected abstract void waitForResultSelector(Page page);
 
     protected abstract boolean isBlocked(String pageContentLower);
@@ -0,0 +1,85 @@
+package com.kewe.core.agent;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+@Component
+@ConfigurationProperties(prefix = "kewe.product-cache")
+public class ProductCacheProperties {
+    /**
+     * LIVE reads and writes Mongo; RECORD also writes each fresh result to fixtureDir; REPLAY serves only fixtureDir.
+     * fixtureDir has no default and must be set for RECORD and REPLAY.
+     */
+    public enum Mode { LIVE, RECORD, REPLAY }
+
+    private boolean enabled = true;
+    private Mode mode = Mode.LIVE;
+    private int defaultTtlSeconds = 21600;
+    private Map<String, Integer> ttlSeconds = new LinkedHashMap<>();
+    private int maxStaleSeconds = 86400;
+    private boolean staleWhileRevalidate = true;
+    private String fixtureDir;
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public Mode getMode() {
+        return mode;
+    }
+
+    public void setMode(Mode mode) {
+        this.mode = mode;
+    }
+
+    public int getDefaultTtlSeconds() {
+        return defaultTtlSeconds;
+    }
+
+    public void setDefaultTtlSeconds(int defaultTtlSeconds) {
+        this.defaultTtlSeconds = defaultTtlSeconds;
+    }
+
+    public Map<String, Integer> getTtlSeconds() {
+        return ttlSeconds;
+    }
+
+    public void setTtlSeconds(Map<String, Integer> ttlSeconds) {
+        this.ttlSeconds = ttlSeconds;
+    }
+
+    public int ttlSecondsFor(String source) {
+        return ttlSeconds.getOrDefault(source, defaultTtlSeconds);
+    }
+
+    public int getMaxStaleSeconds() {
+        return maxStaleSeconds;
+    }
+
+    public void setMaxStaleSeconds(int maxStaleSeconds) {
+        this.maxStaleSeconds = maxStaleSeconds;
+    }
+
+    public boolean isStaleWhileRevalidate() {
+        return staleWhileRevalidate;
+    }
+
+    public void setStaleWhileRevalidate(boolean staleWhileRevalidate) {
+        this.staleWhileRevalidate = staleWhileRevalidate;
+    }
+
+    public String getFixtureDir() {
+        return fixtureDir;
+    }
+
+    public void setFixtureDir(String fixtureDir) {
+        this.fixtureDir = fixtureDir;
+    }
+}
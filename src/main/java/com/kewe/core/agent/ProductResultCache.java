@@ -0,0 +1,199 @@
+package com.kewe.core.agent;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.util.StringUtils;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.List;
+import java.util.Locale;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.regex.Pattern;
+
+/**
+ * Second-tier cache for web and supplier search results, persisted in {@code product_result_cache} so it survives
+ * restarts and is shared by every instance. Entries are keyed by source and normalized query and are fresh for the
+ * source's TTL; after that they may still be served for {@code maxStaleSeconds} while one background refresh runs.
+ * Only successful, non-empty results are stored. In REPLAY mode nothing upstream is called and results come from
+ * the JSON fixtures under {@code fixtureDir}, which RECORD mode writes.
+ */
+@Service
+public class ProductResultCache {
+    public static final String WEB_SOURCE = "web";
+
+    private static final Logger log = LoggerFactory.getLogger(ProductResultCache.class);
+    private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+    private static final Pattern NON_SLUG_CHARS = Pattern.compile("[^a-z0-9]+");
+
+    private final MongoTemplate mongoTemplate;
+    private final ProductCacheProperties properties;
+    private final ObjectMapper objectMapper;
+    private final Set<String> refreshing = ConcurrentHashMap.newKeySet();
+    private final ExecutorService refresher = Executors.newVirtualThreadPerTaskExecutor();
+
+    public ProductResultCache(MongoTemplate mongoTemplate, ProductCacheProperties properties, ObjectMapper objectMapper) {
+        this.mongoTemplate = mongoTemplate;
+        this.properties = properties;
+        this.objectMapper = objectMapper;
+        if (properties.isEnabled() && properties.getMode() != ProductCacheProperties.Mode.LIVE
+                && !StringUtils.hasText(properties.getFixtureDir())) {
+            throw new IllegalStateException("kewe.product-cache.fixture-dir must be set in " + properties.getMode() + " mode");
+        }
+    }
+
+    public WebSearchResponse web(String query, Supplier<WebSearchResponse> upstream) {
+        return lookup(WEB_SOURCE, query, upstream,
+                response -> response.results().isEmpty() ? null : new Recorded(WEB_SOURCE, null, response.results(), List.of()),
+                recorded -> new WebSearchResponse(recorded.webResults(), List.of()),
+                () -> new WebSearchResponse(List.of(), List.of("No recorded web results for this query.")));
+    }
+
+    public SupplierSearchOutcome supplier(String supplierKey, String query, Supplier<SupplierSearchOutcome> upstream) {
+        return lookup(supplierKey, query, upstream,
+                outcome -> outcome.blockedOrFailed() || outcome.results().isEmpty() ? null
+                        : new Recorded(supplierKey, null, List.of(), outcome.results()),
+                recorded -> new SupplierSearchOutcome(recorded.supplierResults(), List.of(), false, 0),
+                () -> SupplierSearchOutcome.empty(0, true, "No recorded " + supplierKey + " results for this query."));
+    }
+
+    private <T> T lookup(String source, String query, Supplier<T> upstream,
+                         Function<T, Recorded> toRecorded, Function<Recorded, T> fromRecorded, Supplier<T> replayMiss) {
+        if (!properties.isEnabled()) {
+            return upstream.get();
+        }
+        String normalized = normalize(query);
+        if (properties.getMode() == ProductCacheProperties.Mode.REPLAY) {
+            return readFixture(source, normalized).map(fromRecorded).orElseGet(replayMiss);
+        }
+
+        ProductResultCacheEntry entry = find(source, normalized);
+        Instant now = Instant.now();
+        if (entry != null && now.isBefore(entry.getFreshUntil())) {
+            return fromRecorded.apply(Recorded.of(entry));
+        }
+        if (entry != null && properties.isStaleWhileRevalidate() && now.isBefore(entry.getExpiresAt())) {
+            refreshInBackground(source, normalized, upstream, toRecorded);
+            return fromRecorded.apply(Recorded.of(entry));
+        }
+        T fresh = upstream.get();
+        store(source, normalized, fresh, toRecorded);
+        return fresh;
+    }
+
+    private <T> void refreshInBackground(String source, String query, Supplier<T> upstream, Function<T, Recorded> toRecorded) {
+        String id = idOf(source, query);
+        if (!refreshing.add(id)) {
+            return;
+        }
+        refresher.execute(() -> {
+            try {
+                store(source, query, upstream.get(), toRecorded);
+            } catch (RuntimeException ex) {
+                log.warn("Background refresh failed for {} '{}'", source, query, ex);
+            } finally {
+                refreshing.remove(id);
+            }
+        });
+    }
+
+    private ProductResultCacheEntry find(String source, String query) {
+        try {
+            return mongoTemplate.findById(idOf(source, query), ProductResultCacheEntry.class);
+        } catch (DataAccessException ex) {
+            log.warn("Product result cache read failed for {}", source, ex);
+            return null;
+        }
+    }
+
+    private <T> void store(String source, String query, T fresh, Function<T, Recorded> toRecorded) {
+        Recorded recorded = fresh == null ? null : toRecorded.apply(fresh);
+        if (recorded == null) {
+            return;
+        }
+        Instant now = Instant.now();
+        Instant freshUntil = now.plusSeconds(properties.ttlSecondsFor(source));
+        ProductResultCacheEntry entry = new ProductResultCacheEntry();
+        entry.setId(idOf(source, query));
+        entry.setSource(source);
+        entry.setQuery(query);
+        entry.setWebResults(recorded.webResults());
+        entry.setSupplierResults(recorded.supplierResults());
+        entry.setFetchedAt(now);
+        entry.setFreshUntil(freshUntil);
+        entry.setExpiresAt(freshUntil.plusSeconds(Math.max(0, properties.getMaxStaleSeconds())));
+        try {
+            mongoTemplate.save(entry);
+        } catch (DataAccessException ex) {
+            log.warn("Product result cache write failed for {}", source, ex);
+        }
+        if (properties.getMode() == ProductCacheProperties.Mode.RECORD) {
+            writeFixture(new Recorded(source, query, recorded.webResults(), recorded.supplierResults()));
+        }
+    }
+
+    private Optional<Recorded> readFixture(String source, String query) {
+        Path file = fixturePath(source, query);
+        if (!Files.isRegularFile(file)) {
+            return Optional.empty();
+        }
+        try {
+            return Optional.of(objectMapper.readValue(file.toFile(), Recorded.class));
+        } catch (IOException ex) {
+            log.warn("Unreadable product cache fixture {}", file, ex);
+            return Optional.empty();
+        }
+    }
+
+    private void writeFixture(Recorded recorded) {
+        Path file = fixturePath(recorded.source(), recorded.query());
+        try {
+            Files.createDirectories(file.getParent());
+            objectMapper.writerWithDefaultPrettyPrinter().writeValue(file.toFile(), recorded);
+        } catch (IOException ex) {
+            log.warn("Could not record product cache fixture {}", file, ex);
+        }
+    }
+
+    private Path fixturePath(String source, String query) {
+        return Path.of(properties.getFixtureDir()).resolve(source + "__" + NON_SLUG_CHARS.matcher(query).replaceAll("-") + ".json");
+    }
+
+    @PreDestroy
+    public void close() {
+        refresher.shutdownNow();
+    }
+
+    static String normalize(String query) {
+        return query == null ? "" : WHITESPACE.matcher(query.trim()).replaceAll(" ").toLowerCase(Locale.ROOT);
+    }
+
+    private static String idOf(String source, String query) {
+        return source + "|" + query;
+    }
+
+    /** Cached payload for one source and query; also the fixture file format. */
+    record Recorded(String source, String query, List<WebSearchResult> webResults, List<SupplierSearchResult> supplierResults) {
+        Recorded {
+            webResults = webResults == null ? List.of() : List.copyOf(webResults);
+            supplierResults = supplierResults == null ? List.of() : List.copyOf(supplierResults);
+        }
+
+        static Recorded of(ProductResultCacheEntry entry) {
+            return new Recorded(entry.getSource(), entry.getQuery(), entry.getWebResults(), entry.getSupplierResults());
+        }
+    }
+}
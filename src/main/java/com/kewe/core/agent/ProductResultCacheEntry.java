@@ -0,0 +1,44 @@
+package com.kewe.core.agent;
+
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.Indexed;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * One cached search per source (web or supplier key) and normalized query. {@code expiresAt} carries the TTL
+ * index, so Mongo removes the entry once it is past both its freshness window and the allowed staleness.
+ */
+@Document(collection = "product_result_cache")
+public class ProductResultCacheEntry {
+    @Id
+    private String id;
+    private String source;
+    private String query;
+    private List<WebSearchResult> webResults = new ArrayList<>();
+    private List<SupplierSearchResult> supplierResults = new ArrayList<>();
+    private Instant fetchedAt;
+    private Instant freshUntil;
+    @Indexed(name = "expiresAt_ttl", expireAfter = "0s")
+    private Instant expiresAt;
+
+    public String getId() { return id; }
+    public void setId(String id) { this.id = id; }
+    public String getSource() { return source; }
+    public void setSource(String source) { this.source = source; }
+    public String getQuery() { return query; }
+    public void setQuery(String query) { this.query = query; }
+    public List<WebSearchResult> getWebResults() { return webResults; }
+    public void setWebResults(List<WebSearchResult> webResults) { this.webResults = webResults == null ? new ArrayList<>() : webResults; }
+    public List<SupplierSearchResult> getSupplierResults() { return supplierResults; }
+    public void setSupplierResults(List<SupplierSearchResult> supplierResults) { this.supplierResults = supplierResults == null ? new ArrayList<>() : supplierResults; }
+    public Instant getFetchedAt() { return fetchedAt; }
+    public void setFetchedAt(Instant fetchedAt) { this.fetchedAt = fetchedAt; }
+    public Instant getFreshUntil() { return freshUntil; }
+    public void setFreshUntil(Instant freshUntil) { this.freshUntil = freshUntil; }
+    public Instant getExpiresAt() { return expiresAt; }
+    public void setExpiresAt(Instant expiresAt) { this.expiresAt = expiresAt; }
+}
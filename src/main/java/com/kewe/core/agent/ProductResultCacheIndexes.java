@@ -0,0 +1,33 @@
+package com.kewe.core.agent;
+
+import com.kewe.core.common.MongoIndexes;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.CommandLineRunner;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.dao.DataAccessException;
+
+/**
+ * Creates the TTL index declared on {@link ProductResultCacheEntry}. REPLAY mode never touches the collection, so it
+ * is skipped there; without the index expired entries are still ignored on read, so a failure only warns.
+ */
+@Configuration
+public class ProductResultCacheIndexes {
+
+    private static final Logger log = LoggerFactory.getLogger(ProductResultCacheIndexes.class);
+
+    @Bean
+    CommandLineRunner ensureProductResultCacheIndexes(MongoIndexes mongoIndexes, ProductCacheProperties properties) {
+        return args -> {
+            if (!properties.isEnabled() || properties.getMode() == ProductCacheProperties.Mode.REPLAY) {
+                return;
+            }
+            try {
+                log.info("product-result-cache-indexes: ensured={}", mongoIndexes.ensure(ProductResultCacheEntry.class));
+            } catch (DataAccessException ex) {
+                log.warn("Could not ensure the product_result_cache TTL index; expired entries are skipped on read", ex);
+            }
+        };
+    }
+}
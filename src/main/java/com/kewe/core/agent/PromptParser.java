@@ -2,8 +2,10 @@ package com.kewe.core.agent;
 
 import org.springframework.stereotype.Component;
 
-import java.util.Arrays;
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Set;
 import java.util.regex.Matcher;
@@ -29,14 +31,7 @@ public class PromptParser {
             orgHint = forMatcher.group(1).trim();
         }
 
-        String cleaned = safePrompt.toLowerCase();
-        cleaned = cleaned.replaceAll("\\b\\d+\\b", " ");
-        cleaned = cleaned.replaceAll("[^a-z0-9\\s]", " ");
-        List<String> keywords = Arrays.stream(cleaned.split("\\s+"))
-                .filter(token -> !token.isBlank())
-                .filter(token -> !STOPWORDS.contains(token))
-                .distinct()
-                .toList();
+        List<String> keywords = tokenize(safePrompt.toLowerCase());
 
         String item = String.join(" ", keywords);
         if (item.isBlank()) {
@@ -46,5 +41,63 @@ public class PromptParser {
         return new ParsedPrompt(quantity, item.trim(), keywords, orgHint, item.trim());
     }
 
+    /**
+     * Single pass over the lowercased prompt: words are runs of {@code [a-z0-9_]}; a word made only of digits is
+     * dropped (it is the quantity or another bare number), the rest split on {@code _} into {@code [a-z0-9]+}
+     * tokens. Stopwords and repeats are skipped, first occurrence order is kept.
+     */
+    static List<String> tokenize(String lowered) {
+        Set<String> tokens = new LinkedHashSet<>();
+        tokenizeInto(lowered, tokens);
+        return List.copyOf(tokens);
+    }
+
+    /** Like {@link #tokenize} but keeps repeats, for term frequencies. */
+    static List<String> allTokens(String lowered) {
+        List<String> tokens = new ArrayList<>();
+        tokenizeInto(lowered, tokens);
+        return tokens;
+    }
+
+    private static void tokenizeInto(String lowered, Collection<String> tokens) {
+        int length = lowered.length();
+        int i = 0;
+        while (i < length) {
+            if (!isWordChar(lowered.charAt(i))) {
+                i++;
+                continue;
+            }
+            int wordStart = i;
+            boolean digitsOnly = true;
+            while (i < length && isWordChar(lowered.charAt(i))) {
+                digitsOnly &= isDigit(lowered.charAt(i));
+                i++;
+            }
+            if (digitsOnly) {
+                continue;
+            }
+            int tokenStart = wordStart;
+            for (int j = wordStart; j <= i; j++) {
+                if (j == i || lowered.charAt(j) == '_') {
+                    if (j > tokenStart) {
+                        String token = lowered.substring(tokenStart, j);
+                        if (!STOPWORDS.contains(token)) {
+                            tokens.add(token);
+                        }
+                    }
+                    tokenStart = j + 1;
+                }
+            }
+        }
+    }
+
+    private static boolean isWordChar(char c) {
+        return (c >= 'a' && c <= 'z') || isDigit(c) || c == '_';
+    }
+
+    private static boolean isDigit(char c) {
+        return c >= '0' && c <= '9';
+    }
+
     public record ParsedPrompt(int quantity, String item, List<String> keywords, String orgHint, String normalizedQuery) {}
 }
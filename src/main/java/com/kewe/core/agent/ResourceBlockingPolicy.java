@@ -0,0 +1,76 @@
+package com.kewe.core.agent;
+
+import java.net.URI;
+import java.util.Locale;
+import java.util.Set;
+
+/**
+ * Decides which sub-resources a supplier scrape may load. Result cards only need the document and the supplier's
+ * own scripts, so images, media and fonts are always aborted, as are known ad/analytics hosts and any third-party
+ * script that is not on the supplier's allowlist. Hosts match by domain suffix.
+ */
+public record ResourceBlockingPolicy(Set<String> firstPartyDomains,
+                                     Set<String> allowedScriptDomains,
+                                     Set<String> blockedDomains) {
+
+    public static final Set<String> BLOCKED_RESOURCE_TYPES = Set.of("image", "media", "font");
+
+    public static final Set<String> TRACKER_DOMAINS = Set.of(
+            "google-analytics.com", "googletagmanager.com", "googlesyndication.com", "doubleclick.net",
+            "googleadservices.com", "facebook.net", "facebook.com", "amazon-adsystem.com", "criteo.com",
+            "criteo.net", "adnxs.com", "scorecardresearch.com", "quantserve.com", "hotjar.com", "newrelic.com",
+            "nr-data.net", "optimizely.com", "bing.com", "clarity.ms", "tiktok.com", "pinterest.com",
+            "taboola.com", "outbrain.com", "branch.io", "demdex.net", "omtrdc.net", "everesttech.net");
+
+    /** Loads everything; used when blocking is switched off. */
+    public static final ResourceBlockingPolicy ALLOW_ALL = new ResourceBlockingPolicy(Set.of(), Set.of(), Set.of());
+
+    public ResourceBlockingPolicy {
+        firstPartyDomains = Set.copyOf(firstPartyDomains);
+        allowedScriptDomains = Set.copyOf(allowedScriptDomains);
+        blockedDomains = Set.copyOf(blockedDomains);
+    }
+
+    public static ResourceBlockingPolicy forSupplier(Set<String> firstPartyDomains, Set<String> allowedScriptDomains) {
+        return new ResourceBlockingPolicy(firstPartyDomains, allowedScriptDomains, TRACKER_DOMAINS);
+    }
+
+    public boolean shouldBlock(String resourceType, String url) {
+        if (this == ALLOW_ALL) {
+            return false;
+        }
+        String type = resourceType == null ? "" : resourceType.toLowerCase(Locale.ROOT);
+        if (BLOCKED_RESOURCE_TYPES.contains(type)) {
+            return true;
+        }
+        String host = hostOf(url);
+        if (host == null) {
+            return false;
+        }
+        if (matches(host, blockedDomains)) {
+            return true;
+        }
+        if ("script".equals(type)) {
+            return !matches(host, firstPartyDomains) && !matches(host, allowedScriptDomains);
+        }
+        return false;
+    }
+
+    private static boolean matches(String host, Set<String> domains) {
+        for (String domain : domains) {
+            if (host.equals(domain) || host.endsWith("." + domain)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static String hostOf(String url) {
+        try {
+            String host = URI.create(url).getHost();
+            return host == null ? null : host.toLowerCase(Locale.ROOT);
+        } catch (IllegalArgumentException ex) {
+            return null;
+        }
+    }
+}
@@ -1,35 +1,69 @@
 package com.kewe.core.agent;
 
 import com.fasterxml.jackson.annotation.JsonProperty;
+import com.github.benmanes.caffeine.cache.AsyncCache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.stereotype.Component;
 import org.springframework.web.reactive.function.client.WebClient;
 import org.springframework.web.util.UriComponentsBuilder;
+import reactor.core.publisher.Mono;
 
 import java.math.BigDecimal;
 import java.net.URI;
 import java.time.Duration;
-import java.time.Instant;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Locale;
-import java.util.Map;
-import java.util.concurrent.ConcurrentHashMap;
-
+import java.util.concurrent.CompletionException;
+import java.util.regex.Pattern;
+
+/**
+ * SerpApi-backed web search. Results are kept in a Caffeine cache (W-TinyLFU eviction) bounded by an estimated
+ * size in bytes and expired after {@code websearchCacheTtlSeconds}. Concurrent searches for the same key share one
+ * upstream call, and failed calls are not cached.
+ */
 @Component
 public class SerpApiWebSearchProvider implements WebSearchProvider {
+    private static final Logger log = LoggerFactory.getLogger(SerpApiWebSearchProvider.class);
     private static final String NOT_CONFIGURED_WARNING = "Search provider not configured; showing search links only.";
+    private static final String FAILED_WARNING = "Web search failed; showing search links only.";
+    private static final String ENDPOINT = "https://serpapi.com/search.json";
+    private static final Pattern NON_PRICE_CHARS = Pattern.compile("[^\\d.]");
 
     private final AgentSearchProperties properties;
     private final WebClient client;
-    private final Map<String, CacheEntry> cache = new ConcurrentHashMap<>();
+    private final String endpoint;
+    private final AsyncCache<String, List<WebSearchResult>> cache;
+
+    @Autowired
+    public SerpApiWebSearchProvider(AgentSearchProperties properties, ObjectProvider<MeterRegistry> meterRegistry) {
+        this(properties, meterRegistry.getIfAvailable(), ENDPOINT);
+    }
 
-    public SerpApiWebSearchProvider(AgentSearchProperties properties) {
+    SerpApiWebSearchProvider(AgentSearchProperties properties, MeterRegistry meterRegistry, String endpoint) {
         this.properties = properties;
+        this.endpoint = endpoint;
         this.client = WebClient.builder()
                 .defaultHeader(HttpHeaders.ACCEPT, MediaType.APPLICATION_JSON_VALUE)
                 .build();
+        this.cache = Caffeine.newBuilder()
+                .maximumWeight(properties.getWebsearchCacheMaxBytes())
+                .weigher((String key, List<WebSearchResult> results) -> estimateBytes(key, results))
+                .expireAfterWrite(Duration.ofSeconds(properties.getWebsearchCacheTtlSeconds()))
+                .recordStats()
+                .buildAsync();
+        if (meterRegistry != null) {
+            CaffeineCacheMetrics.monitor(meterRegistry, cache.synchronous(), "websearch");
+        }
     }
 
     @Override
@@ -40,28 +74,44 @@ public class SerpApiWebSearchProvider implements WebSearchProvider {
 
         int count = request.count() <= 0 ? properties.getWebsearchCount() : request.count();
         String cacheKey = String.join("|", properties.getSerpapiEngine(), request.query(), String.valueOf(count));
-        CacheEntry cached = cache.get(cacheKey);
-        if (cached != null && cached.expiresAt().isAfter(Instant.now())) {
-            return new WebSearchResponse(cached.results(), List.of());
+        try {
+            List<WebSearchResult> results = cache.get(cacheKey, (key, executor) -> fetch(request.query(), count).toFuture()).join();
+            return new WebSearchResponse(results, List.of());
+        } catch (CompletionException ex) {
+            log.warn("SerpApi search failed for '{}'", request.query(), ex.getCause());
+            return new WebSearchResponse(List.of(), List.of(FAILED_WARNING));
         }
+    }
+
+    public CacheStats cacheStats() {
+        return cache.synchronous().stats();
+    }
 
-        String uri = UriComponentsBuilder.fromUriString("https://serpapi.com/search.json")
+    public long cacheWeightBytes() {
+        cache.synchronous().cleanUp();
+        return cache.synchronous().policy().eviction().map(eviction -> eviction.weightedSize().orElse(0L)).orElse(0L);
+    }
+
+    private Mono<List<WebSearchResult>> fetch(String query, int count) {
+        String uri = UriComponentsBuilder.fromUriString(endpoint)
                 .queryParam("api_key", properties.getSerpapiKey())
                 .queryParam("engine", properties.getSerpapiEngine())
-                .queryParam("q", request.query())
+                .queryParam("q", query)
                 .queryParam("num", count)
                 .toUriString();
 
-        SerpApiResponse response = client.get()
+        return client.get()
                 .uri(uri)
                 .retrieve()
                 .bodyToMono(SerpApiResponse.class)
                 .timeout(Duration.ofMillis(properties.getWebsearchTimeoutMs()))
-                .onErrorReturn(new SerpApiResponse())
-                .block();
+                .map(this::toResults)
+                .defaultIfEmpty(List.of());
+    }
 
+    private List<WebSearchResult> toResults(SerpApiResponse response) {
         List<WebSearchResult> results = new ArrayList<>();
-        if (response != null && response.organicResults != null) {
+        if (response.organicResults != null) {
             for (OrganicResult item : response.organicResults) {
                 if (item == null || isBlank(item.link) || isBlank(item.title)) {
                     continue;
@@ -75,9 +125,24 @@ public class SerpApiWebSearchProvider implements WebSearchProvider {
                 results.add(new WebSearchResult(item.title, item.link, item.snippet, "serpapi", domain, image, price, currency));
             }
         }
+        return List.copyOf(results);
+    }
+
+    /** Rough retained size: UTF-16 string payloads plus a fixed per-object overhead. */
+    static int estimateBytes(String key, List<WebSearchResult> results) {
+        long bytes = 64 + 2L * key.length();
+        for (WebSearchResult result : results) {
+            bytes += 96 + 2L * (length(result.title()) + length(result.url()) + length(result.snippet())
+                    + length(result.source()) + length(result.domain()) + length(result.imageUrl()) + length(result.currency()));
+            if (result.price() != null) {
+                bytes += 40;
+            }
+        }
+        return (int) Math.min(Integer.MAX_VALUE, bytes);
+    }
 
-        cache.put(cacheKey, new CacheEntry(results, Instant.now().plusSeconds(properties.getWebsearchCacheTtlSeconds())));
-        return new WebSearchResponse(results, List.of());
+    private static int length(String value) {
+        return value == null ? 0 : value.length();
     }
 
     static String deriveDomain(String url) {
@@ -101,7 +166,7 @@ public class SerpApiWebSearchProvider implements WebSearchProvider {
         String value = item.richSnippet.top.detectedExtensions.price;
         if (isBlank(value)) return null;
         try {
-            return new BigDecimal(value.replaceAll("[^\\d.]", ""));
+            return new BigDecimal(NON_PRICE_CHARS.matcher(value).replaceAll(""));
         } catch (Exception ignored) {
             return null;
         }
@@ -111,8 +176,6 @@ public class SerpApiWebSearchProvider implements WebSearchProvider {
         return value == null || value.isBlank();
     }
 
-    private record CacheEntry(List<WebSearchResult> results, Instant expiresAt) {}
-
     private static class SerpApiResponse {
         @JsonProperty("organic_results")
         public List<OrganicResult> organicResults;
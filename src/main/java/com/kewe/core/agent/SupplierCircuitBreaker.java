@@ -0,0 +1,114 @@
+package com.kewe.core.agent;
+
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.LongSupplier;
+
+/**
+ * Per-supplier circuit breaker with an adaptive concurrency limit. A supplier opens after
+ * {@code supplierBreakerFailureThreshold} consecutive blocked or failed outcomes and is skipped without a browser
+ * for {@code supplierBreakerOpenMs}; then a single probe is let through (half-open) and its outcome closes or
+ * re-opens the circuit. While closed, the number of concurrent searches follows AIMD: the limit grows by one after
+ * each success within {@code supplierLatencyTargetMs} and halves after a failure or a slow success.
+ */
+@Component
+public class SupplierCircuitBreaker {
+    public enum State { CLOSED, OPEN, HALF_OPEN }
+
+    private final AgentSearchProperties properties;
+    private final LongSupplier clock;
+    private final Map<String, Circuit> circuits = new ConcurrentHashMap<>();
+
+    public SupplierCircuitBreaker(AgentSearchProperties properties) {
+        this(properties, System::currentTimeMillis);
+    }
+
+    SupplierCircuitBreaker(AgentSearchProperties properties, LongSupplier clock) {
+        this.properties = properties;
+        this.clock = clock;
+    }
+
+    /** Returns false when the supplier must be skipped: its circuit is open, a probe is running, or it is at its limit. */
+    public boolean tryAcquire(String supplierKey) {
+        return circuit(supplierKey).tryAcquire(clock.getAsLong());
+    }
+
+    /** Records the outcome of a search admitted by {@link #tryAcquire}. */
+    public void release(String supplierKey, boolean blockedOrFailed, long elapsedMs) {
+        circuit(supplierKey).release(clock.getAsLong(), blockedOrFailed, elapsedMs);
+    }
+
+    public CircuitStatus status(String supplierKey) {
+        return circuit(supplierKey).status(supplierKey, clock.getAsLong());
+    }
+
+    private Circuit circuit(String supplierKey) {
+        return circuits.computeIfAbsent(supplierKey, key -> new Circuit(maxConcurrency()));
+    }
+
+    private int maxConcurrency() {
+        return Math.max(1, properties.getSupplierMaxConcurrency());
+    }
+
+    public record CircuitStatus(String supplierKey,
+                                State state,
+                                int consecutiveFailures,
+                                int concurrencyLimit,
+                                int inFlight,
+                                long retryInMs) {}
+
+    private final class Circuit {
+        private State state = State.CLOSED;
+        private int consecutiveFailures;
+        private int limit;
+        private int inFlight;
+        private long openedAt;
+
+        private Circuit(int limit) {
+            this.limit = limit;
+        }
+
+        private synchronized boolean tryAcquire(long now) {
+            if (state == State.OPEN) {
+                if (now - openedAt < properties.getSupplierBreakerOpenMs()) {
+                    return false;
+                }
+                state = State.HALF_OPEN;
+                inFlight++;
+                return true;
+            }
+            if (state == State.HALF_OPEN || inFlight >= limit) {
+                return false;
+            }
+            inFlight++;
+            return true;
+        }
+
+        private synchronized void release(long now, boolean blockedOrFailed, long elapsedMs) {
+            inFlight = Math.max(0, inFlight - 1);
+            if (blockedOrFailed) {
+                consecutiveFailures++;
+                limit = Math.max(1, limit / 2);
+                if (state == State.HALF_OPEN || consecutiveFailures >= Math.max(1, properties.getSupplierBreakerFailureThreshold())) {
+                    state = State.OPEN;
+                    openedAt = now;
+                }
+                return;
+            }
+            consecutiveFailures = 0;
+            state = State.CLOSED;
+            if (elapsedMs <= properties.getSupplierLatencyTargetMs()) {
+                limit = Math.min(maxConcurrency(), limit + 1);
+            } else {
+                limit = Math.max(1, limit / 2);
+            }
+        }
+
+        private synchronized CircuitStatus status(String supplierKey, long now) {
+            long retryInMs = state == State.OPEN ? Math.max(0, openedAt + properties.getSupplierBreakerOpenMs() - now) : 0;
+            return new CircuitStatus(supplierKey, state, consecutiveFailures, limit, inFlight, retryInMs);
+        }
+    }
+}
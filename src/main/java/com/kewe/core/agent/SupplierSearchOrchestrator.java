@@ -0,0 +1,188 @@
+package com.kewe.core.agent;
+
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Runs the web search and every enabled {@link SupplierSearchClient} concurrently on virtual threads under one
+ * deadline, so a draft waits for the slowest source within budget rather than the sum of all of them.
+ * Sources still running at the deadline are reported as timed out and their late results are ignored.
+ */
+@Service
+public class SupplierSearchOrchestrator {
+    private static final Logger log = LoggerFactory.getLogger(SupplierSearchOrchestrator.class);
+
+    private final ObjectProvider<SupplierSearchClient> clients;
+    private final AgentSearchProperties properties;
+    private final ProductResultCache productResultCache;
+    private final SupplierCircuitBreaker circuitBreaker;
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+
+    @Autowired
+    public SupplierSearchOrchestrator(ObjectProvider<SupplierSearchClient> clients,
+                                      AgentSearchProperties properties,
+                                      ProductResultCache productResultCache,
+                                      SupplierCircuitBreaker circuitBreaker) {
+        this.clients = clients;
+        this.properties = properties;
+        this.productResultCache = productResultCache;
+        this.circuitBreaker = circuitBreaker;
+    }
+
+    /** Uncached; for tests. */
+    SupplierSearchOrchestrator(ObjectProvider<SupplierSearchClient> clients, AgentSearchProperties properties) {
+        this(clients, properties, null, new SupplierCircuitBreaker(properties));
+    }
+
+    /** Clients are resolved per call so the lazy Playwright beans are only created once Playwright is enabled. */
+    public List<SupplierSearchClient> enabledClients() {
+        if (!properties.isPlaywrightEnabled()) {
+            return List.of();
+        }
+        return clients.orderedStream().toList();
+    }
+
+    public FanOutResult search(SupplierSearchQuery query, Supplier<WebSearchResponse> webSearch, Listener listener) {
+        return searchAsync(query, webSearch, listener).join();
+    }
+
+    /**
+     * Non-blocking variant: the returned future completes once every source has finished or the deadline has passed.
+     * The listener may be called concurrently from the threads completing each supplier.
+     */
+    public CompletableFuture<FanOutResult> searchAsync(SupplierSearchQuery query, Supplier<WebSearchResponse> webSearch, Listener listener) {
+        long start = System.nanoTime();
+        long deadlineMs = properties.getSupplierSearchDeadlineMs();
+        List<SupplierSearchClient> suppliers = enabledClients();
+
+        CompletableFuture<WebSearchResponse> web = supplyAsync(() -> runWebSearch(webSearch))
+                .completeOnTimeout(null, deadlineMs, TimeUnit.MILLISECONDS);
+
+        Map<String, String> names = new LinkedHashMap<>();
+        Map<String, SupplierSearchOutcome> outcomes = Collections.synchronizedMap(new LinkedHashMap<>());
+        List<CompletableFuture<?>> all = new ArrayList<>();
+        all.add(web);
+        for (SupplierSearchClient client : suppliers) {
+            String key = client.supplierKey();
+            names.put(key, client.supplierName());
+            all.add(supplyAsync(() -> runSupplier(client, query, start))
+                    .completeOnTimeout(null, deadlineMs, TimeUnit.MILLISECONDS)
+                    .thenApply(outcome -> {
+                        SupplierSearchOutcome result = outcome != null ? outcome
+                                : SupplierSearchOutcome.empty(elapsedSince(start), true, timeoutWarning(client.supplierName()));
+                        outcomes.put(key, result);
+                        notify(listener, key, result);
+                        return result;
+                    }));
+        }
+
+        return CompletableFuture.allOf(all.toArray(CompletableFuture[]::new)).thenApply(ignored -> {
+            WebSearchResponse webResponse = web.join();
+            List<String> warnings = new ArrayList<>();
+            if (webResponse == null) {
+                warnings.add(timeoutWarning("Web search"));
+                webResponse = new WebSearchResponse(List.of(), List.of());
+            }
+            Map<String, SupplierSearchOutcome> completed;
+            synchronized (outcomes) {
+                completed = new LinkedHashMap<>(outcomes);
+            }
+            return new FanOutResult(webResponse, completed, names, warnings, elapsedSince(start));
+        });
+    }
+
+    /** Runs a blocking task on a virtual thread. */
+    public <T> CompletableFuture<T> supplyAsync(Supplier<T> task) {
+        return CompletableFuture.supplyAsync(task, executor);
+    }
+
+    @PreDestroy
+    public void close() {
+        executor.shutdownNow();
+    }
+
+    private WebSearchResponse runWebSearch(Supplier<WebSearchResponse> webSearch) {
+        try {
+            WebSearchResponse response = webSearch.get();
+            return response == null ? new WebSearchResponse(List.of(), List.of()) : response;
+        } catch (RuntimeException ex) {
+            log.warn("Web search failed during fan-out", ex);
+            return new WebSearchResponse(List.of(), List.of("Web search failed."));
+        }
+    }
+
+    private SupplierSearchOutcome runSupplier(SupplierSearchClient client, SupplierSearchQuery query, long start) {
+        try {
+            SupplierSearchOutcome outcome = productResultCache == null ? guardedSearch(client, query)
+                    : productResultCache.supplier(client.supplierKey(), query.keywords(), () -> guardedSearch(client, query));
+            return outcome == null ? SupplierSearchOutcome.empty(elapsedSince(start), true, null) : outcome;
+        } catch (RuntimeException ex) {
+            log.warn("Supplier search failed for {}", client.supplierName(), ex);
+            return SupplierSearchOutcome.empty(elapsedSince(start), true, client.supplierName() + " fetch failed.");
+        }
+    }
+
+    /** Cached results are served even while a supplier's circuit is open; only live searches pass the breaker. */
+    private SupplierSearchOutcome guardedSearch(SupplierSearchClient client, SupplierSearchQuery query) {
+        String key = client.supplierKey();
+        if (!circuitBreaker.tryAcquire(key)) {
+            return SupplierSearchOutcome.empty(0, true, client.supplierName() + " skipped: repeatedly blocked or at its concurrency limit.");
+        }
+        SupplierSearchOutcome outcome = null;
+        long start = System.nanoTime();
+        try {
+            outcome = client.search(query);
+            return outcome;
+        } finally {
+            circuitBreaker.release(key, outcome == null || outcome.blockedOrFailed(), elapsedSince(start));
+        }
+    }
+
+    public List<SupplierCircuitBreaker.CircuitStatus> circuitStatuses() {
+        return enabledClients().stream().map(client -> circuitBreaker.status(client.supplierKey())).toList();
+    }
+
+    private void notify(Listener listener, String supplierKey, SupplierSearchOutcome outcome) {
+        try {
+            listener.onSupplierCompleted(supplierKey, outcome);
+        } catch (RuntimeException ex) {
+            log.warn("Supplier search listener failed for {}", supplierKey, ex);
+        }
+    }
+
+    private String timeoutWarning(String sourceName) {
+        return sourceName + " did not finish within " + properties.getSupplierSearchDeadlineMs() + " ms.";
+    }
+
+    private static long elapsedSince(long startNanos) {
+        return TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos);
+    }
+
+    @FunctionalInterface
+    public interface Listener {
+        Listener NONE = (supplierKey, outcome) -> { };
+
+        void onSupplierCompleted(String supplierKey, SupplierSearchOutcome outcome);
+    }
+
+    public record FanOutResult(WebSearchResponse webResponse,
+                               Map<String, SupplierSearchOutcome> supplierOutcomes,
+                               Map<String, String> supplierNames,
+                               List<String> warnings,
+                               long elapsedMs) {}
+}
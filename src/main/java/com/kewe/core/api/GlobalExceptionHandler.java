@@ -32,6 +32,9 @@ public class GlobalExceptionHandler {
         body.put("message", message);
         body.put("path", request.getRequestURI());
         body.put("timestamp", Instant.now());
+        if (exception.getBody().getProperties() != null) {
+            body.putAll(exception.getBody().getProperties());
+        }
         return body;
     }
 
@@ -1,10 +1,12 @@
 package com.kewe.core.businessobjects;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.kewe.core.common.CanonicalObject;
+import org.springframework.data.annotation.Transient;
 
 import java.time.Instant;
 import java.util.ArrayList;
-import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 
@@ -22,7 +24,7 @@ public abstract class BusinessObject extends CanonicalObject {
     private String visibility;
     private List<HierarchyAssignment> hierarchies = new ArrayList<>();
     private List<RoleAssignment> roles = new ArrayList<>();
-    private Map<String, BusinessObjectFieldOverride> accountingBudgetOverrides = new HashMap<>();
+    private List<BusinessObjectOverrideEntry> accountingBudgetOverrideEntries = new ArrayList<>();
 
     public String getObjectKind() { return objectKind; }
     public void setObjectKind(String objectKind) { this.objectKind = objectKind; }
@@ -50,6 +52,41 @@ public abstract class BusinessObject extends CanonicalObject {
     public void setHierarchies(List<HierarchyAssignment> hierarchies) { this.hierarchies = hierarchies; }
     public List<RoleAssignment> getRoles() { return roles; }
     public void setRoles(List<RoleAssignment> roles) { this.roles = roles; }
-    public Map<String, BusinessObjectFieldOverride> getAccountingBudgetOverrides() { return accountingBudgetOverrides; }
-    public void setAccountingBudgetOverrides(Map<String, BusinessObjectFieldOverride> accountingBudgetOverrides) { this.accountingBudgetOverrides = accountingBudgetOverrides; }
+
+    @JsonIgnore
+    public List<BusinessObjectOverrideEntry> getAccountingBudgetOverrideEntries() { return accountingBudgetOverrideEntries; }
+    @JsonIgnore
+    public void setAccountingBudgetOverrideEntries(List<BusinessObjectOverrideEntry> accountingBudgetOverrideEntries) {
+        this.accountingBudgetOverrideEntries = accountingBudgetOverrideEntries;
+    }
+
+    /**
+     * API view of the overrides keyed by field. Storage uses {@link #getAccountingBudgetOverrideEntries()}
+     * so the array can carry a multikey index on field/value.
+     */
+    @Transient
+    public Map<String, BusinessObjectFieldOverride> getAccountingBudgetOverrides() {
+        Map<String, BusinessObjectFieldOverride> overrides = new LinkedHashMap<>();
+        if (accountingBudgetOverrideEntries == null) {
+            return overrides;
+        }
+        for (BusinessObjectOverrideEntry entry : accountingBudgetOverrideEntries) {
+            BusinessObjectFieldOverride override = new BusinessObjectFieldOverride();
+            override.setValue(entry.getValue());
+            override.setOverrideReason(entry.getReason());
+            overrides.put(entry.getField(), override);
+        }
+        return overrides;
+    }
+
+    public void setAccountingBudgetOverrides(Map<String, BusinessObjectFieldOverride> accountingBudgetOverrides) {
+        List<BusinessObjectOverrideEntry> entries = new ArrayList<>();
+        if (accountingBudgetOverrides != null) {
+            accountingBudgetOverrides.forEach((field, override) -> entries.add(new BusinessObjectOverrideEntry(
+                    field,
+                    override == null ? null : override.getValue(),
+                    override == null ? null : override.getOverrideReason())));
+        }
+        this.accountingBudgetOverrideEntries = entries;
+    }
 }
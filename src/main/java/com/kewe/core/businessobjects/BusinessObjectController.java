@@ -2,8 +2,11 @@ package com.kewe.core.businessobjects;
 
 import com.kewe.core.businessobjects.dto.AccountingBudgetDefaultsRequest;
 import com.kewe.core.businessobjects.dto.AccountingBudgetOverrideRequest;
+import com.kewe.core.businessobjects.dto.BusinessObjectBulkUpsertRequest;
+import com.kewe.core.businessobjects.dto.BusinessObjectBulkUpsertResponse;
 import com.kewe.core.businessobjects.dto.BusinessObjectRequest;
 import com.kewe.core.businessobjects.dto.BusinessObjectTypeRequest;
+import com.kewe.core.businessobjects.dto.OverrideDensityResponse;
 import jakarta.validation.Valid;
 import org.springframework.http.HttpStatus;
 import org.springframework.web.bind.annotation.*;
@@ -46,6 +49,16 @@ public class BusinessObjectController {
         return service.getObjects(typeCode);
     }
 
+    @GetMapping("/objects/overrides")
+    public List<BusinessObjectInstance> getObjectsByOverride(@RequestParam String field,
+                                                             @RequestParam(required = false) String value,
+                                                             @RequestParam(required = false) String typeCode) {
+        return service.findObjectsByOverride(field, value, typeCode);
+    }
+
+    @GetMapping("/objects/overrides/density")
+    public OverrideDensityResponse getOverrideDensity() { return service.overrideDensity(); }
+
     @GetMapping("/objects/{id}")
     public BusinessObjectInstance getObjectById(@PathVariable String id) { return service.getObjectById(id); }
 
@@ -55,6 +68,11 @@ public class BusinessObjectController {
         return service.createObject(request);
     }
 
+    @PostMapping("/objects/bulk-upsert")
+    public BusinessObjectBulkUpsertResponse bulkUpsertObjects(@Valid @RequestBody BusinessObjectBulkUpsertRequest request) {
+        return service.bulkUpsertObjects(request.getObjects());
+    }
+
     @PutMapping("/objects/{id}")
     public BusinessObjectInstance updateObject(@PathVariable String id,
                                                @Valid @RequestBody BusinessObjectRequest request) {
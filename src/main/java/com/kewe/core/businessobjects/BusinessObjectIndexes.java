@@ -0,0 +1,27 @@
+package com.kewe.core.businessobjects;
+
+import com.kewe.core.common.MongoIndexes;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.CommandLineRunner;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Creates the indexes declared on {@link BusinessObjectType} and {@link BusinessObjectInstance}. The unique
+ * (typeCode, code) keys are what turn a concurrent create or a bulk upsert race into a 409 instead of a second copy.
+ */
+@Configuration
+public class BusinessObjectIndexes {
+
+    private static final Logger log = LoggerFactory.getLogger(BusinessObjectIndexes.class);
+
+    @Bean
+    CommandLineRunner ensureBusinessObjectIndexes(MongoIndexes mongoIndexes) {
+        return args -> {
+            int types = mongoIndexes.ensure(BusinessObjectType.class);
+            int objects = mongoIndexes.ensure(BusinessObjectInstance.class);
+            log.info("business-object-indexes: types={} objects={}", types, objects);
+        };
+    }
+}
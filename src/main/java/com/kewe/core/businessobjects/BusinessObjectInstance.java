@@ -7,7 +7,10 @@ import org.springframework.data.mongodb.core.mapping.Document;
 @Document(collection = "business_objects")
 @CompoundIndexes({
         @CompoundIndex(name = "uk_bo_type_code", def = "{'typeCode': 1, 'code': 1}", unique = true),
-        @CompoundIndex(name = "idx_bo_kind_status", def = "{'objectKind': 1, 'status': 1}")
+        @CompoundIndex(name = "idx_bo_kind_status", def = "{'objectKind': 1, 'status': 1}"),
+        @CompoundIndex(name = "idx_bo_override_field_value",
+                def = "{'accountingBudgetOverrideEntries.field': 1, 'accountingBudgetOverrideEntries.value': 1}"),
+        @CompoundIndex(name = "idx_bo_type_override_field", def = "{'typeCode': 1, 'accountingBudgetOverrideEntries.field': 1}")
 })
 public class BusinessObjectInstance extends BusinessObject {
 }
@@ -0,0 +1,24 @@
+package com.kewe.core.businessobjects;
+
+public class BusinessObjectOverrideEntry {
+
+    private String field;
+    private Object value;
+    private String reason;
+
+    public BusinessObjectOverrideEntry() {
+    }
+
+    public BusinessObjectOverrideEntry(String field, Object value, String reason) {
+        this.field = field;
+        this.value = value;
+        this.reason = reason;
+    }
+
+    public String getField() { return field; }
+    public void setField(String field) { this.field = field; }
+    public Object getValue() { return value; }
+    public void setValue(Object value) { this.value = value; }
+    public String getReason() { return reason; }
+    public void setReason(String reason) { this.reason = reason; }
+}
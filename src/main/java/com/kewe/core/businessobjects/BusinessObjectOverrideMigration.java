@@ -0,0 +1,83 @@
+package com.kewe.core.businessobjects;
+
+import com.kewe.core.common.MigrationMarkers;
+import org.bson.Document;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.CommandLineRunner;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Moves documents written with the legacy {@code accountingBudgetOverrides} map into the indexed
+ * {@code accountingBudgetOverrideEntries} array, in batches so a large backlog is never loaded at once. Nothing writes
+ * the legacy field any more, so once both collections are done that is recorded in {@link MigrationMarkers} and later
+ * starts skip the migration without querying the unindexed legacy field. The indexes on the entries are created by
+ * {@link BusinessObjectIndexes}.
+ */
+@Configuration
+public class BusinessObjectOverrideMigration {
+
+    private static final Logger log = LoggerFactory.getLogger(BusinessObjectOverrideMigration.class);
+    private static final String LEGACY_FIELD = "accountingBudgetOverrides";
+    private static final String ENTRIES_FIELD = "accountingBudgetOverrideEntries";
+    private static final List<String> COLLECTIONS = List.of("business_objects", "dimension_nodes");
+    private static final int BATCH_SIZE = 500;
+    private static final String MIGRATION = "business-object-override-entries";
+
+    @Bean
+    CommandLineRunner migrateAccountingBudgetOverrides(MongoTemplate mongoTemplate, MigrationMarkers migrations) {
+        return args -> {
+            if (migrations.isComplete(MIGRATION)) {
+                log.debug("override-migration: already complete");
+                return;
+            }
+            for (String collection : COLLECTIONS) {
+                int migrated = 0;
+                int batch;
+                while ((batch = migrateBatch(mongoTemplate, collection)) > 0) {
+                    migrated += batch;
+                }
+                log.info("override-migration: collection={}, migrated={}", collection, migrated);
+            }
+            migrations.markComplete(MIGRATION);
+        };
+    }
+
+    private int migrateBatch(MongoTemplate mongoTemplate, String collection) {
+        Query legacy = Query.query(Criteria.where(LEGACY_FIELD).exists(true)).limit(BATCH_SIZE);
+        legacy.fields().include(LEGACY_FIELD);
+        List<Document> documents = mongoTemplate.find(legacy, Document.class, collection);
+        if (documents.isEmpty()) {
+            return 0;
+        }
+
+        BulkOperations bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, collection);
+        for (Document document : documents) {
+            List<Document> entries = new ArrayList<>();
+            Object legacyValue = document.get(LEGACY_FIELD);
+            if (legacyValue instanceof Map<?, ?> overrides) {
+                overrides.forEach((field, override) -> {
+                    Document entry = new Document("field", String.valueOf(field));
+                    if (override instanceof Map<?, ?> values) {
+                        entry.append("value", values.get("value")).append("reason", values.get("overrideReason"));
+                    }
+                    entries.add(entry);
+                });
+            }
+            bulk.updateOne(Query.query(Criteria.where("_id").is(document.get("_id"))),
+                    new Update().set(ENTRIES_FIELD, entries).unset(LEGACY_FIELD));
+        }
+        bulk.execute();
+        return documents.size();
+    }
+}
@@ -1,9 +1,27 @@
 package com.kewe.core.businessobjects;
 
 import com.kewe.core.businessobjects.dto.AccountingBudgetDefaultsRequest;
+import com.kewe.core.businessobjects.dto.BusinessObjectBulkUpsertResponse;
 import com.kewe.core.businessobjects.dto.BusinessObjectRequest;
 import com.kewe.core.businessobjects.dto.BusinessObjectTypeRequest;
+import com.kewe.core.businessobjects.dto.OverrideDensityResponse;
+import com.kewe.core.events.ChangeOperation;
+import com.kewe.core.events.ChangeSource;
+import com.kewe.core.events.EntityChangedEvent;
+import com.mongodb.bulk.BulkWriteError;
+import com.mongodb.bulk.BulkWriteResult;
+import com.mongodb.bulk.BulkWriteUpsert;
+import org.bson.BsonValue;
+import org.bson.Document;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.mongodb.BulkOperationException;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
 import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
 import org.springframework.util.StringUtils;
@@ -11,20 +29,40 @@ import org.springframework.web.server.ResponseStatusException;
 
 import java.time.Instant;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
 
 @Service
 public class BusinessObjectService {
 
     private static final String SYSTEM_USER = "system";
+    private static final String OVERRIDE_ENTRIES = "accountingBudgetOverrideEntries";
+    private static final int MAX_BULK_ROWS = 10_000;
+    private static final int DUPLICATE_KEY_ERROR_CODE = 11000;
+    private static final Set<String> INSERT_ONLY_FIELDS = Set.of("createdAt", "createdBy", "type", "status");
+    private static final List<String> CLEARABLE_FIELDS = List.of("description", "effectiveDate", "visibility",
+            "hierarchies", "roles", "accountingBudgetOverrideEntries");
 
     private final BusinessObjectTypeRepository typeRepository;
     private final BusinessObjectRepository objectRepository;
+    private final MongoTemplate mongoTemplate;
+    private final ApplicationEventPublisher eventPublisher;
 
-    public BusinessObjectService(BusinessObjectTypeRepository typeRepository, BusinessObjectRepository objectRepository) {
+    public BusinessObjectService(BusinessObjectTypeRepository typeRepository,
+                                 BusinessObjectRepository objectRepository,
+                                 MongoTemplate mongoTemplate,
+                                 ApplicationEventPublisher eventPublisher) {
         this.typeRepository = typeRepository;
         this.objectRepository = objectRepository;
+        this.mongoTemplate = mongoTemplate;
+        this.eventPublisher = eventPublisher;
     }
 
     public BusinessObjectType createType(BusinessObjectTypeRequest request) {
@@ -91,24 +129,7 @@ public class BusinessObjectService {
 
     public BusinessObjectInstance createObject(BusinessObjectRequest request) {
         BusinessObjectType type = getType(request.getTypeCode());
-        BusinessObjectInstance object = new BusinessObjectInstance();
-        object.setType("BusinessObject");
-        object.setStatus("Active");
-        object.setObjectKind(type.getObjectKind());
-        object.setTypeCode(type.getCode());
-        object.setCode(normalizeCode(request.getCode()));
-        object.setName(request.getName().trim());
-        object.setDescription(request.getDescription());
-        object.setRequiredOnFinancialTransactions(Boolean.TRUE.equals(request.getRequiredOnFinancialTransactions()));
-        object.setRequiredBalancing(Boolean.TRUE.equals(request.getRequiredBalancing()));
-        object.setBudgetControlEnabled(Boolean.TRUE.equals(request.getBudgetControlEnabled()));
-        object.setEffectiveDate(request.getEffectiveDate());
-        object.setVisibility(request.getVisibility());
-        object.setHierarchies(request.getHierarchies());
-        object.setRoles(request.getRoles());
-
-        validateAndApplyOverrides(type, object, request.getAccountingBudgetOverride());
-
+        BusinessObjectInstance object = buildObject(type, request);
         touchCreate(object);
         try {
             return objectRepository.save(object);
@@ -117,6 +138,66 @@ public class BusinessObjectService {
         }
     }
 
+    /**
+     * Creates or updates many objects keyed on (typeCode, code) with a single unordered bulk write.
+     * An existing object is replaced like a PUT: optional fields and lists a row leaves out are cleared.
+     * Rows that fail validation or hit a unique-key conflict are reported individually and never abort the batch.
+     */
+    public BusinessObjectBulkUpsertResponse bulkUpsertObjects(List<BusinessObjectRequest> requests) {
+        if (requests.size() > MAX_BULK_ROWS) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Bulk upsert accepts at most " + MAX_BULK_ROWS + " objects per request");
+        }
+        Map<String, BusinessObjectType> typesByCode = loadTypesForBulk(requests);
+        Map<String, String> existingIds = loadExistingIdsForBulk(requests);
+
+        BusinessObjectBulkUpsertResponse.RowResult[] rows = new BusinessObjectBulkUpsertResponse.RowResult[requests.size()];
+        List<Integer> operationRows = new ArrayList<>();
+        Set<String> batchKeys = new HashSet<>();
+        BulkOperations bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, BusinessObjectInstance.class);
+
+        for (int i = 0; i < requests.size(); i++) {
+            BusinessObjectRequest request = requests.get(i);
+            String typeCode = request == null ? null : normalizeCode(request.getTypeCode());
+            String code = request == null ? null : normalizeCode(request.getCode());
+            try {
+                requireBulkFields(request);
+                BusinessObjectType type = typesByCode.get(typeCode);
+                if (type == null) {
+                    throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Business object type not found");
+                }
+                BusinessObjectInstance object = buildObject(type, request);
+                if (!batchKeys.add(bulkKey(typeCode, code))) {
+                    rows[i] = bulkRow(i, typeCode, code, BusinessObjectBulkUpsertResponse.Outcome.CONFLICT, null,
+                            "Duplicate typeCode/code earlier in this batch");
+                    continue;
+                }
+                touchCreate(object);
+                bulk.upsert(Query.query(Criteria.where("typeCode").is(typeCode).and("code").is(code)), toUpsertUpdate(object));
+                operationRows.add(i);
+            } catch (ResponseStatusException ex) {
+                rows[i] = bulkRow(i, typeCode, code, BusinessObjectBulkUpsertResponse.Outcome.INVALID, null, ex.getReason());
+            }
+        }
+
+        if (!operationRows.isEmpty()) {
+            try {
+                executeBulkUpsert(bulk, operationRows, requests, existingIds, rows);
+            } finally {
+                // bulk writes bypass the mapping lifecycle events, so announce them for local caches
+                eventPublisher.publishEvent(new EntityChangedEvent(ChangeSource.BUSINESS_OBJECTS, ChangeOperation.UPDATE,
+                        null, null, null, Instant.now()));
+            }
+        }
+
+        int created = 0;
+        int updated = 0;
+        for (BusinessObjectBulkUpsertResponse.RowResult row : rows) {
+            if (row.outcome() == BusinessObjectBulkUpsertResponse.Outcome.CREATED) created++;
+            if (row.outcome() == BusinessObjectBulkUpsertResponse.Outcome.UPDATED) updated++;
+        }
+        return new BusinessObjectBulkUpsertResponse(requests.size(), created, updated, requests.size() - created - updated, List.of(rows));
+    }
+
     public BusinessObjectInstance updateObject(String id, BusinessObjectRequest request) {
         BusinessObjectInstance object = getObjectById(id);
         if (StringUtils.hasText(request.getTypeCode()) && !object.getTypeCode().equals(normalizeCode(request.getTypeCode()))) {
@@ -148,6 +229,221 @@ public class BusinessObjectService {
         return objectRepository.save(object);
     }
 
+    public List<BusinessObjectInstance> findObjectsByOverride(String field, String value, String typeCode) {
+        if (!StringUtils.hasText(field)) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "field is required");
+        }
+        Criteria entry = Criteria.where("field").is(field.trim());
+        if (value != null) {
+            entry = entry.and("value").in(overrideValueCandidates(value));
+        }
+        Criteria criteria = Criteria.where(OVERRIDE_ENTRIES).elemMatch(entry);
+        if (StringUtils.hasText(typeCode)) {
+            criteria = Criteria.where("typeCode").is(normalizeCode(typeCode)).and(OVERRIDE_ENTRIES).elemMatch(entry);
+        }
+        return mongoTemplate.find(Query.query(criteria), BusinessObjectInstance.class);
+    }
+
+    /**
+     * Override statistics per type without scanning {@code business_objects}: object counts are index-only counts on
+     * the typeCode prefix of {@code uk_bo_type_code}, and only objects that carry overrides are read, found through
+     * the override field indexes.
+     */
+    public OverrideDensityResponse overrideDensity() {
+        Criteria hasOverrides = Criteria.where(OVERRIDE_ENTRIES + ".field").gte("");
+        Aggregation perField = Aggregation.newAggregation(
+                Aggregation.match(hasOverrides),
+                Aggregation.unwind(OVERRIDE_ENTRIES),
+                Aggregation.group("typeCode", OVERRIDE_ENTRIES + ".field").count().as("count"));
+
+        Map<String, Map<String, Long>> fieldCountsByType = new HashMap<>();
+        for (Document row : mongoTemplate.aggregate(perField, BusinessObjectInstance.class, Document.class)) {
+            Document id = row.get("_id", Document.class);
+            fieldCountsByType.computeIfAbsent(id.getString("typeCode"), key -> new TreeMap<>())
+                    .put(id.getString("field"), ((Number) row.get("count")).longValue());
+        }
+
+        List<String> typeCodes = new ArrayList<>(
+                mongoTemplate.findDistinct(new Query(), "typeCode", BusinessObjectInstance.class, String.class));
+        Collections.sort(typeCodes);
+        List<OverrideDensityResponse.TypeDensity> types = new ArrayList<>(typeCodes.size());
+        for (String typeCode : typeCodes) {
+            Map<String, Long> fieldCounts = fieldCountsByType.getOrDefault(typeCode, Map.of());
+            long objectCount = mongoTemplate.count(Query.query(Criteria.where("typeCode").is(typeCode)), BusinessObjectInstance.class);
+            long overrideCount = fieldCounts.values().stream().mapToLong(Long::longValue).sum();
+            long objectsWithOverrides = fieldCounts.isEmpty() ? 0 : mongoTemplate.count(Query.query(
+                    Criteria.where("typeCode").is(typeCode).and(OVERRIDE_ENTRIES + ".field").gte("")), BusinessObjectInstance.class);
+            types.add(new OverrideDensityResponse.TypeDensity(
+                    typeCode,
+                    objectCount,
+                    objectsWithOverrides,
+                    overrideCount,
+                    objectCount == 0 ? 0 : (double) overrideCount / objectCount,
+                    fieldCounts));
+        }
+        return new OverrideDensityResponse(types);
+    }
+
+    private List<Object> overrideValueCandidates(String value) {
+        List<Object> candidates = new ArrayList<>();
+        candidates.add(value);
+        if ("true".equalsIgnoreCase(value) || "false".equalsIgnoreCase(value)) {
+            candidates.add(Boolean.parseBoolean(value));
+        }
+        try {
+            candidates.add(Long.parseLong(value));
+        } catch (NumberFormatException ignored) {
+            // not an integral override value
+        }
+        try {
+            candidates.add(Double.parseDouble(value));
+        } catch (NumberFormatException ignored) {
+            // not a numeric override value
+        }
+        return candidates;
+    }
+
+    private BusinessObjectInstance buildObject(BusinessObjectType type, BusinessObjectRequest request) {
+        BusinessObjectInstance object = new BusinessObjectInstance();
+        object.setType("BusinessObject");
+        object.setStatus("Active");
+        object.setObjectKind(type.getObjectKind());
+        object.setTypeCode(type.getCode());
+        object.setCode(normalizeCode(request.getCode()));
+        object.setName(request.getName().trim());
+        object.setDescription(request.getDescription());
+        object.setRequiredOnFinancialTransactions(Boolean.TRUE.equals(request.getRequiredOnFinancialTransactions()));
+        object.setRequiredBalancing(Boolean.TRUE.equals(request.getRequiredBalancing()));
+        object.setBudgetControlEnabled(Boolean.TRUE.equals(request.getBudgetControlEnabled()));
+        object.setEffectiveDate(request.getEffectiveDate());
+        object.setVisibility(request.getVisibility());
+        object.setHierarchies(request.getHierarchies());
+        object.setRoles(request.getRoles());
+
+        validateAndApplyOverrides(type, object, request.getAccountingBudgetOverride());
+        return object;
+    }
+
+    private void executeBulkUpsert(BulkOperations bulk,
+                                   List<Integer> operationRows,
+                                   List<BusinessObjectRequest> requests,
+                                   Map<String, String> existingIds,
+                                   BusinessObjectBulkUpsertResponse.RowResult[] rows) {
+        BulkWriteResult result;
+        Map<Integer, BulkWriteError> errorsByOperation = new HashMap<>();
+        try {
+            result = bulk.execute();
+        } catch (BulkOperationException ex) {
+            result = ex.getResult();
+            for (BulkWriteError error : ex.getErrors()) {
+                errorsByOperation.put(error.getIndex(), error);
+            }
+        }
+
+        Map<Integer, String> upsertedIds = new HashMap<>();
+        for (BulkWriteUpsert upsert : result.getUpserts()) {
+            upsertedIds.put(upsert.getIndex(), toIdString(upsert.getId()));
+        }
+
+        for (int op = 0; op < operationRows.size(); op++) {
+            int index = operationRows.get(op);
+            String typeCode = normalizeCode(requests.get(index).getTypeCode());
+            String code = normalizeCode(requests.get(index).getCode());
+            BulkWriteError error = errorsByOperation.get(op);
+            if (error != null) {
+                boolean duplicate = error.getCode() == DUPLICATE_KEY_ERROR_CODE;
+                rows[index] = bulkRow(index, typeCode, code,
+                        duplicate ? BusinessObjectBulkUpsertResponse.Outcome.CONFLICT : BusinessObjectBulkUpsertResponse.Outcome.INVALID,
+                        null,
+                        duplicate ? "Business object code already exists for this type" : error.getMessage());
+            } else if (upsertedIds.containsKey(op)) {
+                rows[index] = bulkRow(index, typeCode, code, BusinessObjectBulkUpsertResponse.Outcome.CREATED, upsertedIds.get(op), null);
+            } else {
+                rows[index] = bulkRow(index, typeCode, code, BusinessObjectBulkUpsertResponse.Outcome.UPDATED,
+                        existingIds.get(bulkKey(typeCode, code)), null);
+            }
+        }
+    }
+
+    private Update toUpsertUpdate(BusinessObjectInstance object) {
+        Document document = new Document();
+        mongoTemplate.getConverter().write(object, document);
+        document.remove("_id");
+
+        Update update = new Update();
+        document.forEach((field, value) -> {
+            if (INSERT_ONLY_FIELDS.contains(field)) {
+                update.setOnInsert(field, value);
+            } else {
+                update.set(field, value);
+            }
+        });
+        for (String field : CLEARABLE_FIELDS) {
+            if (!document.containsKey(field)) {
+                update.unset(field);
+            }
+        }
+        return update;
+    }
+
+    private Map<String, BusinessObjectType> loadTypesForBulk(List<BusinessObjectRequest> requests) {
+        Set<String> typeCodes = new LinkedHashSet<>();
+        for (BusinessObjectRequest request : requests) {
+            if (request != null && StringUtils.hasText(request.getTypeCode())) {
+                typeCodes.add(normalizeCode(request.getTypeCode()));
+            }
+        }
+        Map<String, BusinessObjectType> typesByCode = new HashMap<>();
+        if (!typeCodes.isEmpty()) {
+            typeRepository.findByCodeIn(typeCodes).forEach(type -> typesByCode.put(type.getCode(), type));
+        }
+        return typesByCode;
+    }
+
+    private Map<String, String> loadExistingIdsForBulk(List<BusinessObjectRequest> requests) {
+        Map<String, Set<String>> codesByType = new LinkedHashMap<>();
+        for (BusinessObjectRequest request : requests) {
+            if (request != null && StringUtils.hasText(request.getTypeCode()) && StringUtils.hasText(request.getCode())) {
+                codesByType.computeIfAbsent(normalizeCode(request.getTypeCode()), key -> new HashSet<>())
+                        .add(normalizeCode(request.getCode()));
+            }
+        }
+        Map<String, String> idsByKey = new HashMap<>();
+        codesByType.forEach((typeCode, codes) -> {
+            Query query = Query.query(Criteria.where("typeCode").is(typeCode).and("code").in(codes));
+            query.fields().include("typeCode", "code");
+            mongoTemplate.find(query, BusinessObjectInstance.class)
+                    .forEach(existing -> idsByKey.put(bulkKey(existing.getTypeCode(), existing.getCode()), existing.getId()));
+        });
+        return idsByKey;
+    }
+
+    private void requireBulkFields(BusinessObjectRequest request) {
+        if (request == null
+                || !StringUtils.hasText(request.getTypeCode())
+                || !StringUtils.hasText(request.getCode())
+                || !StringUtils.hasText(request.getName())) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "typeCode, code and name are required");
+        }
+    }
+
+    private BusinessObjectBulkUpsertResponse.RowResult bulkRow(int index,
+                                                               String typeCode,
+                                                               String code,
+                                                               BusinessObjectBulkUpsertResponse.Outcome outcome,
+                                                               String id,
+                                                               String message) {
+        return new BusinessObjectBulkUpsertResponse.RowResult(index, typeCode, code, outcome, id, message);
+    }
+
+    private String bulkKey(String typeCode, String code) {
+        return typeCode + "|" + code;
+    }
+
+    private String toIdString(BsonValue id) {
+        return id.isObjectId() ? id.asObjectId().getValue().toHexString() : id.asString().getValue();
+    }
+
     private void validateAndApplyOverrides(BusinessObjectType type,
                                            BusinessObjectInstance object,
                                            Map<String, BusinessObjectFieldOverride> overrides) {
@@ -2,8 +2,11 @@ package com.kewe.core.businessobjects;
 
 import org.springframework.data.mongodb.repository.MongoRepository;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 public interface BusinessObjectTypeRepository extends MongoRepository<BusinessObjectType, String> {
     Optional<BusinessObjectType> findByCode(String code);
+    List<BusinessObjectType> findByCodeIn(Collection<String> codes);
 }
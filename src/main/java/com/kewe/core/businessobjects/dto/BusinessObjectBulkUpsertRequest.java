@@ -0,0 +1,15 @@
+package com.kewe.core.businessobjects.dto;
+
+import jakarta.validation.constraints.NotNull;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public class BusinessObjectBulkUpsertRequest {
+
+    @NotNull
+    private List<BusinessObjectRequest> objects = new ArrayList<>();
+
+    public List<BusinessObjectRequest> getObjects() { return objects; }
+    public void setObjects(List<BusinessObjectRequest> objects) { this.objects = objects; }
+}
@@ -0,0 +1,14 @@
+package com.kewe.core.businessobjects.dto;
+
+import java.util.List;
+
+public record BusinessObjectBulkUpsertResponse(int received,
+                                               int created,
+                                               int updated,
+                                               int failed,
+                                               List<RowResult> rows) {
+
+    public enum Outcome { CREATED, UPDATED, INVALID, CONFLICT }
+
+    public record RowResult(int index, String typeCode, String code, Outcome outcome, String id, String message) {}
+}
@@ -0,0 +1,14 @@
+package com.kewe.core.businessobjects.dto;
+
+import java.util.List;
+import java.util.Map;
+
+public record OverrideDensityResponse(List<TypeDensity> types) {
+
+    public record TypeDensity(String typeCode,
+                              long objectCount,
+                              long objectsWithOverrides,
+                              long overrideCount,
+                              double overridesPerObject,
+                              Map<String, Long> overridesByField) {}
+}
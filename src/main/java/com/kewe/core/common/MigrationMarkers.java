@@ -0,0 +1,34 @@
+package com.kewe.core.common;
+
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Component;
+
+import java.util.Date;
+
+/**
+ * Records one-time data migrations in {@code migrations}, one document per migration keyed by name, so a startup
+ * runner can skip a backfill that has already finished instead of probing (and scanning) the collection it fixes.
+ */
+@Component
+public class MigrationMarkers {
+
+    static final String COLLECTION = "migrations";
+
+    private final MongoTemplate mongoTemplate;
+
+    public MigrationMarkers(MongoTemplate mongoTemplate) {
+        this.mongoTemplate = mongoTemplate;
+    }
+
+    public boolean isComplete(String name) {
+        return mongoTemplate.exists(Query.query(Criteria.where("_id").is(name)), COLLECTION);
+    }
+
+    public void markComplete(String name) {
+        mongoTemplate.upsert(Query.query(Criteria.where("_id").is(name)),
+                new Update().setOnInsert("completedAt", new Date()), COLLECTION);
+    }
+}
@@ -0,0 +1,35 @@
+package com.kewe.core.common;
+
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.index.IndexOperations;
+import org.springframework.data.mongodb.core.index.IndexResolver;
+import org.springframework.data.mongodb.core.mapping.MongoMappingContext;
+import org.springframework.stereotype.Component;
+
+/**
+ * Creates the indexes declared on a document class. Automatic index creation is off, so every collection that
+ * relies on its {@code @Indexed}/{@code @CompoundIndex} declarations ensures them from a startup runner through
+ * this. Existing indexes are left as they are.
+ */
+@Component
+public class MongoIndexes {
+
+    private final MongoTemplate mongoTemplate;
+    private final MongoMappingContext mappingContext;
+
+    public MongoIndexes(MongoTemplate mongoTemplate, MongoMappingContext mappingContext) {
+        this.mongoTemplate = mongoTemplate;
+        this.mappingContext = mappingContext;
+    }
+
+    /** Ensures every index declared on {@code documentType} and returns how many were ensured. */
+    public int ensure(Class<?> documentType) {
+        IndexOperations indexOps = mongoTemplate.indexOps(documentType);
+        int ensured = 0;
+        for (var index : IndexResolver.create(mappingContext).resolveIndexFor(documentType)) {
+            indexOps.ensureIndex(index);
+            ensured++;
+        }
+        return ensured;
+    }
+}
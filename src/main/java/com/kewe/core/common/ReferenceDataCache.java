@@ -0,0 +1,69 @@
+package com.kewe.core.common;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+/**
+ * Small read-through cache for reference data that is invalidated wholesale on change events.
+ * A load that races with {@link #invalidateAll()} is returned to its caller but never stored.
+ * When the events cannot be trusted to cover every writer, a max age bounds how stale an entry can get.
+ */
+public class ReferenceDataCache<K, V> {
+
+    private final Map<K, Entry<V>> values = new ConcurrentHashMap<>();
+    private final AtomicLong generation = new AtomicLong();
+    private final long maxAgeNanos;
+
+    /** A cache whose entries live until the next invalidation. */
+    public ReferenceDataCache() {
+        this(Duration.ZERO);
+    }
+
+    /** A cache whose entries are also reloaded once older than {@code maxAge}; zero means no age limit. */
+    public ReferenceDataCache(Duration maxAge) {
+        this.maxAgeNanos = maxAge.toNanos();
+    }
+
+    public V get(K key, Function<K, V> loader) {
+        Entry<V> cached = values.get(key);
+        if (cached != null && !isExpired(cached)) {
+            return cached.value();
+        }
+        long observed = generation.get();
+        V loaded = loader.apply(key);
+        if (loaded != null) {
+            putIfCurrent(key, loaded, observed);
+        }
+        return loaded;
+    }
+
+    public void putAll(Map<K, V> entries) {
+        long observed = generation.get();
+        entries.forEach((key, value) -> putIfCurrent(key, value, observed));
+    }
+
+    public synchronized void invalidateAll() {
+        generation.incrementAndGet();
+        values.clear();
+    }
+
+    public int size() {
+        return values.size();
+    }
+
+    private boolean isExpired(Entry<V> entry) {
+        return maxAgeNanos > 0 && System.nanoTime() - entry.loadedNanos() > maxAgeNanos;
+    }
+
+    private synchronized void putIfCurrent(K key, V value, long observed) {
+        if (generation.get() == observed) {
+            values.put(key, new Entry<>(value, System.nanoTime()));
+        }
+    }
+
+    private record Entry<V>(V value, long loadedNanos) {
+    }
+}
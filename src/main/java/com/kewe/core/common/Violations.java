@@ -0,0 +1,54 @@
+package com.kewe.core.common;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Collects every validation failure of a request so they can be reported together. The first
+ * {@link #MAX_REPORTED} messages are kept; past that violations are only counted and their messages never built.
+ */
+public final class Violations {
+
+    public static final int MAX_REPORTED = 100;
+
+    private List<String> messages;
+    private int count;
+
+    public void add(String message) {
+        if (record()) {
+            messages.add(message);
+        }
+    }
+
+    /** Adds {@code "line <lineNumber> <problem>"}. */
+    public void addLine(int lineNumber, String problem) {
+        if (record()) {
+            messages.add("line " + lineNumber + " " + problem);
+        }
+    }
+
+    /**
+     * Throws a 400 whose message is the first violation, with the reported messages under {@code violations} and the
+     * total under {@code violationCount}.
+     */
+    public void throwIfAny() {
+        if (count == 0) {
+            return;
+        }
+        ResponseStatusException ex = new ResponseStatusException(HttpStatus.BAD_REQUEST, messages.get(0));
+        ex.getBody().setProperty("violations", messages);
+        ex.getBody().setProperty("violationCount", count);
+        throw ex;
+    }
+
+    private boolean record() {
+        count++;
+        if (messages == null) {
+            messages = new ArrayList<>();
+        }
+        return messages.size() < MAX_REPORTED;
+    }
+}
@@ -1,6 +1,11 @@
 package com.kewe.core.dimensions;
 
+import com.kewe.core.common.ReferenceDataCache;
 import com.kewe.core.dimensions.dto.DimensionTypeRequest;
+import com.kewe.core.events.ChangeEventProperties;
+import com.kewe.core.events.ChangeSource;
+import com.kewe.core.events.EntityChangedEvent;
+import org.springframework.context.event.EventListener;
 import org.springframework.dao.DuplicateKeyException;
 import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
@@ -8,6 +13,8 @@ import org.springframework.web.server.ResponseStatusException;
 
 import java.time.Instant;
 import java.util.List;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 @Service
 public class DimensionTypeService {
@@ -17,9 +24,11 @@ public class DimensionTypeService {
     private static final String SYSTEM_USER = "system";
 
     private final DimensionTypeRepository repository;
+    private final ReferenceDataCache<String, DimensionType> typesByCode;
 
-    public DimensionTypeService(DimensionTypeRepository repository) {
+    public DimensionTypeService(DimensionTypeRepository repository, ChangeEventProperties changeEventProperties) {
         this.repository = repository;
+        this.typesByCode = new ReferenceDataCache<>(changeEventProperties.referenceCacheMaxAge());
     }
 
     public List<DimensionType> getAll() {
@@ -27,8 +36,25 @@ public class DimensionTypeService {
     }
 
     public DimensionType getByCode(String code) {
-        return repository.findByCode(normalizeCode(code))
-                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Dimension type not found"));
+        DimensionType type = typesByCode.get(normalizeCode(code), key -> repository.findByCode(key).orElse(null));
+        if (type == null) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Dimension type not found");
+        }
+        return type;
+    }
+
+    public int preload() {
+        typesByCode.putAll(repository.findAll().stream()
+                .filter(type -> type.getCode() != null)
+                .collect(Collectors.toMap(DimensionType::getCode, Function.identity(), (first, second) -> first)));
+        return typesByCode.size();
+    }
+
+    @EventListener
+    public void onEntityChanged(EntityChangedEvent event) {
+        if (event.affects(ChangeSource.DIMENSION_TYPES)) {
+            typesByCode.invalidateAll();
+        }
     }
 
     public DimensionType create(DimensionTypeRequest request) {
@@ -42,7 +68,8 @@ public class DimensionTypeService {
     }
 
     public DimensionType update(String code, DimensionTypeRequest request) {
-        DimensionType existing = getByCode(code);
+        DimensionType existing = repository.findByCode(normalizeCode(code))
+                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Dimension type not found"));
         if (!existing.getCode().equals(normalizeCode(request.getCode()))) {
             throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Dimension type code cannot be changed");
         }
@@ -1,9 +1,14 @@
 package com.kewe.core.dimensions;
 
+import com.kewe.core.common.ReferenceDataCache;
 import com.kewe.core.dimensions.dto.AwardDriverToFundMappingRequest;
 import com.kewe.core.dimensions.dto.CostCenterToOrgMappingRequest;
 import com.kewe.core.dimensions.dto.DefaultFunctionMappingRequest;
 import com.kewe.core.dimensions.dto.ItemToLedgerMappingRequest;
+import com.kewe.core.events.ChangeEventProperties;
+import com.kewe.core.events.ChangeSource;
+import com.kewe.core.events.EntityChangedEvent;
+import org.springframework.context.event.EventListener;
 import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
 import org.springframework.util.StringUtils;
@@ -28,10 +33,14 @@ public class MappingService {
 
     private final DimensionMappingRepository mappingRepository;
     private final DimensionNodeService nodeService;
+    private final ReferenceDataCache<MappingKey, Optional<String>> targetsByKey;
 
-    public MappingService(DimensionMappingRepository mappingRepository, DimensionNodeService nodeService) {
+    public MappingService(DimensionMappingRepository mappingRepository,
+                          DimensionNodeService nodeService,
+                          ChangeEventProperties changeEventProperties) {
         this.mappingRepository = mappingRepository;
         this.nodeService = nodeService;
+        this.targetsByKey = new ReferenceDataCache<>(changeEventProperties.referenceCacheMaxAge());
     }
 
     public List<DimensionMapping> getItemToLedgerMappings() { return mappingRepository.findByMappingType(MappingType.ITEM_TO_LEDGER); }
@@ -115,24 +124,18 @@ public class MappingService {
     }
 
     public Optional<String> deriveLedgerAccountFromItem(String itemTypeCode, String itemNodeId) {
-        return mappingRepository.findByMappingTypeAndSourceTypeCodeAndSourceNodeIdAndSourceKey(
-                MappingType.ITEM_TO_LEDGER, normalize(itemTypeCode), itemNodeId, null
-        ).map(DimensionMapping::getTargetNodeId);
+        return lookupTarget(MappingType.ITEM_TO_LEDGER, normalize(itemTypeCode), itemNodeId, null);
     }
 
     public Optional<String> deriveOrganizationFromCostCenter(String costCenterNodeId) {
-        return mappingRepository.findByMappingTypeAndSourceTypeCodeAndSourceNodeIdAndSourceKey(
-                MappingType.COSTCENTER_TO_ORG, "COST_CENTER", costCenterNodeId, null
-        ).map(DimensionMapping::getTargetNodeId);
+        return lookupTarget(MappingType.COSTCENTER_TO_ORG, "COST_CENTER", costCenterNodeId, null);
     }
 
     public Optional<String> deriveFundFromAwardDriver(String driverTypeCode, String driverId) {
         String type = normalize(driverTypeCode);
         String sourceKey = "NONE".equals(type) ? "NONE" : null;
         String sourceNodeId = "NONE".equals(type) ? null : driverId;
-        return mappingRepository.findByMappingTypeAndSourceTypeCodeAndSourceNodeIdAndSourceKey(
-                MappingType.AWARDDRIVER_TO_FUND, type, sourceNodeId, sourceKey
-        ).map(DimensionMapping::getTargetNodeId);
+        return lookupTarget(MappingType.AWARDDRIVER_TO_FUND, type, sourceNodeId, sourceKey);
     }
 
     public Optional<String> deriveFunctionDefault(String programNodeId, String orgNodeId, String ledgerAccountNodeId) {
@@ -151,9 +154,31 @@ public class MappingService {
     }
 
     private Optional<String> findDefaultFunction(String sourceTypeCode, String sourceNodeId) {
-        return mappingRepository.findByMappingTypeAndSourceTypeCodeAndSourceNodeIdAndSourceKey(
-                MappingType.DEFAULT_FUNCTION, sourceTypeCode, sourceNodeId, null
-        ).map(DimensionMapping::getTargetNodeId);
+        return lookupTarget(MappingType.DEFAULT_FUNCTION, sourceTypeCode, sourceNodeId, null);
+    }
+
+    public int preload() {
+        Map<MappingKey, Optional<String>> entries = new LinkedHashMap<>();
+        for (DimensionMapping mapping : mappingRepository.findAll()) {
+            entries.putIfAbsent(new MappingKey(mapping.getMappingType(), mapping.getSourceTypeCode(),
+                    mapping.getSourceNodeId(), mapping.getSourceKey()), Optional.ofNullable(mapping.getTargetNodeId()));
+        }
+        targetsByKey.putAll(entries);
+        return targetsByKey.size();
+    }
+
+    @EventListener
+    public void onEntityChanged(EntityChangedEvent event) {
+        if (event.affects(ChangeSource.DIMENSION_MAPPINGS)) {
+            targetsByKey.invalidateAll();
+        }
+    }
+
+    private Optional<String> lookupTarget(MappingType mappingType, String sourceTypeCode, String sourceNodeId, String sourceKey) {
+        return targetsByKey.get(new MappingKey(mappingType, sourceTypeCode, sourceNodeId, sourceKey),
+                key -> mappingRepository.findByMappingTypeAndSourceTypeCodeAndSourceNodeIdAndSourceKey(
+                        key.mappingType(), key.sourceTypeCode(), key.sourceNodeId(), key.sourceKey()
+                ).map(DimensionMapping::getTargetNodeId));
     }
 
     private DimensionMapping upsert(MappingType mappingType,
@@ -197,4 +222,6 @@ public class MappingService {
         value.setUpdatedAt(Instant.now());
         value.setUpdatedBy(SYSTEM_USER);
     }
+
+    private record MappingKey(MappingType mappingType, String sourceTypeCode, String sourceNodeId, String sourceKey) {}
 }
@@ -0,0 +1,55 @@
+package com.kewe.core.events;
+
+import java.time.Duration;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+@Component
+@ConfigurationProperties(prefix = "kewe.change-events")
+public class ChangeEventProperties {
+    private boolean enabled = false;
+    private int maxAwaitMs = 1000;
+    private int reconnectBackoffMs = 2000;
+    private long referenceCacheMaxAgeMs = 60000;
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public int getMaxAwaitMs() {
+        return maxAwaitMs;
+    }
+
+    public void setMaxAwaitMs(int maxAwaitMs) {
+        this.maxAwaitMs = maxAwaitMs;
+    }
+
+    public int getReconnectBackoffMs() {
+        return reconnectBackoffMs;
+    }
+
+    public void setReconnectBackoffMs(int reconnectBackoffMs) {
+        this.reconnectBackoffMs = reconnectBackoffMs;
+    }
+
+    public long getReferenceCacheMaxAgeMs() {
+        return referenceCacheMaxAgeMs;
+    }
+
+    public void setReferenceCacheMaxAgeMs(long referenceCacheMaxAgeMs) {
+        this.referenceCacheMaxAgeMs = referenceCacheMaxAgeMs;
+    }
+
+    /**
+     * How long a reference-data cache entry may be served. With change streams off, writes from other instances
+     * are never seen, so entries age out; with them on, invalidation covers every writer and entries don't expire.
+     */
+    public Duration referenceCacheMaxAge() {
+        return enabled ? Duration.ZERO : Duration.ofMillis(referenceCacheMaxAgeMs);
+    }
+}
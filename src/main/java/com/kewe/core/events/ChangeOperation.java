@@ -0,0 +1,10 @@
+package com.kewe.core.events;
+
+public enum ChangeOperation {
+    INSERT,
+    UPDATE,
+    REPLACE,
+    DELETE,
+    /** The stream could not resume; listeners must drop everything they hold for the source. */
+    RESYNC
+}
@@ -0,0 +1,31 @@
+package com.kewe.core.events;
+
+import java.util.Optional;
+
+public enum ChangeSource {
+    BUSINESS_OBJECTS("business_objects"),
+    BUSINESS_OBJECT_TYPES("business_object_types"),
+    DIMENSION_TYPES("dimension_types"),
+    DIMENSION_NODES("dimension_nodes"),
+    DIMENSION_MAPPINGS("dimension_mappings"),
+    BUDGETS("budgets"),
+    ALLOCATIONS("allocations"),
+    REQUISITION_DRAFTS("requisition_drafts");
+
+    private final String collection;
+
+    ChangeSource(String collection) {
+        this.collection = collection;
+    }
+
+    public String collection() { return collection; }
+
+    public static Optional<ChangeSource> fromCollection(String collection) {
+        for (ChangeSource source : values()) {
+            if (source.collection.equals(collection)) {
+                return Optional.of(source);
+            }
+        }
+        return Optional.empty();
+    }
+}
@@ -0,0 +1,178 @@
+package com.kewe.core.events;
+
+import com.mongodb.MongoCommandException;
+import com.mongodb.MongoException;
+import com.mongodb.client.ChangeStreamIterable;
+import com.mongodb.client.MongoChangeStreamCursor;
+import com.mongodb.client.model.changestream.ChangeStreamDocument;
+import com.mongodb.client.model.changestream.OperationType;
+import org.bson.BsonDocument;
+import org.bson.BsonValue;
+import org.bson.Document;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Tails a MongoDB change stream per {@link ChangeSource} and republishes every change as an
+ * {@link EntityChangedEvent}, so in-memory indexes on every instance see writes made by any instance.
+ * Requires a replica set; enable with {@code kewe.change-events.enabled}.
+ * <p>
+ * Dropping or renaming a watched collection invalidates its stream; the stream is reopened with {@code startAfter}
+ * the invalidate event, since the server refuses to resume after one. When the server cannot resume from the token
+ * held (history rolled off the oplog, an unusable token, a fatal stream error) the token is dropped, the stream
+ * restarts from now and listeners get a RESYNC for the changes they may have missed.
+ */
+@Component
+public class ChangeStreamEventPublisher implements SmartLifecycle {
+    private static final Logger log = LoggerFactory.getLogger(ChangeStreamEventPublisher.class);
+    private static final Set<Integer> RESTART_FROM_NOW_ERRORS = Set.of(
+            260, // InvalidResumeToken
+            280, // ChangeStreamFatalError
+            286  // ChangeStreamHistoryLost
+    );
+
+    private final MongoTemplate mongoTemplate;
+    private final ApplicationEventPublisher eventPublisher;
+    private final ChangeEventProperties properties;
+    private final List<Thread> watchers = new ArrayList<>();
+    private volatile boolean running;
+
+    public ChangeStreamEventPublisher(MongoTemplate mongoTemplate,
+                                      ApplicationEventPublisher eventPublisher,
+                                      ChangeEventProperties properties) {
+        this.mongoTemplate = mongoTemplate;
+        this.eventPublisher = eventPublisher;
+        this.properties = properties;
+    }
+
+    @Override
+    public synchronized void start() {
+        if (running || !properties.isEnabled()) {
+            return;
+        }
+        running = true;
+        for (ChangeSource source : ChangeSource.values()) {
+            watchers.add(Thread.ofVirtual().name("change-stream-" + source.collection()).start(() -> watch(source)));
+        }
+    }
+
+    @Override
+    public synchronized void stop() {
+        running = false;
+        watchers.forEach(Thread::interrupt);
+        watchers.clear();
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    private void watch(ChangeSource source) {
+        BsonDocument resumeToken = null;
+        boolean afterInvalidate = false;
+        while (running) {
+            ChangeStreamIterable<Document> stream = mongoTemplate.getCollection(source.collection()).watch()
+                    .maxAwaitTime(properties.getMaxAwaitMs(), TimeUnit.MILLISECONDS);
+            if (resumeToken != null) {
+                stream = afterInvalidate ? stream.startAfter(resumeToken) : stream.resumeAfter(resumeToken);
+            }
+            try (MongoChangeStreamCursor<ChangeStreamDocument<Document>> cursor = stream.cursor()) {
+                while (running) {
+                    ChangeStreamDocument<Document> change = cursor.tryNext();
+                    if (change != null) {
+                        resumeToken = change.getResumeToken();
+                        afterInvalidate = change.getOperationType() == OperationType.INVALIDATE;
+                        publish(source, change);
+                        if (afterInvalidate) {
+                            // the server has closed this cursor; reopen after the invalidate event
+                            break;
+                        }
+                    } else if (cursor.getResumeToken() != null) {
+                        resumeToken = cursor.getResumeToken();
+                        afterInvalidate = false;
+                    }
+                }
+            } catch (MongoException ex) {
+                if (!running) {
+                    return;
+                }
+                if (ex instanceof MongoCommandException command && RESTART_FROM_NOW_ERRORS.contains(command.getErrorCode())) {
+                    resumeToken = null;
+                    afterInvalidate = false;
+                    publishSafely(new EntityChangedEvent(source, ChangeOperation.RESYNC, null, null, null, Instant.now()));
+                }
+                log.warn("change-stream: collection={} failed, reconnecting in {}ms: {}",
+                        source.collection(), properties.getReconnectBackoffMs(), ex.getMessage());
+                if (!sleepBeforeReconnect()) {
+                    return;
+                }
+            }
+        }
+    }
+
+    private void publish(ChangeSource source, ChangeStreamDocument<Document> change) {
+        OperationType type = change.getOperationType();
+        ChangeOperation operation = switch (type) {
+            case INSERT -> ChangeOperation.INSERT;
+            case UPDATE -> ChangeOperation.UPDATE;
+            case REPLACE -> ChangeOperation.REPLACE;
+            case DELETE -> ChangeOperation.DELETE;
+            default -> ChangeOperation.RESYNC;
+        };
+        String documentId = operation == ChangeOperation.RESYNC || change.getDocumentKey() == null
+                ? null
+                : idString(change.getDocumentKey().get("_id"));
+        Instant clusterTime = change.getClusterTime() == null
+                ? Instant.now()
+                : Instant.ofEpochSecond(change.getClusterTime().getTime());
+        publishSafely(new EntityChangedEvent(source, operation, documentId, status(change),
+                change.getResumeToken().toJson(), clusterTime));
+    }
+
+    private static String status(ChangeStreamDocument<Document> change) {
+        if (change.getFullDocument() != null) {
+            return change.getFullDocument().get("status") instanceof String status ? status : null;
+        }
+        if (change.getUpdateDescription() != null && change.getUpdateDescription().getUpdatedFields() != null) {
+            BsonValue status = change.getUpdateDescription().getUpdatedFields().get("status");
+            return status != null && status.isString() ? status.asString().getValue() : null;
+        }
+        return null;
+    }
+
+    private void publishSafely(EntityChangedEvent event) {
+        try {
+            eventPublisher.publishEvent(event);
+        } catch (RuntimeException ex) {
+            log.warn("change-stream: listener failed for source={}, operation={}", event.source(), event.operation(), ex);
+        }
+    }
+
+    private boolean sleepBeforeReconnect() {
+        try {
+            Thread.sleep(properties.getReconnectBackoffMs());
+            return true;
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    private String idString(BsonValue id) {
+        if (id == null) return null;
+        if (id.isObjectId()) return id.asObjectId().getValue().toHexString();
+        if (id.isString()) return id.asString().getValue();
+        return id.toString();
+    }
+}
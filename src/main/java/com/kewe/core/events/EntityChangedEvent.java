@@ -0,0 +1,21 @@
+package com.kewe.core.events;
+
+import java.time.Instant;
+
+/**
+ * Published on the Spring application event bus for every change observed on a watched collection,
+ * regardless of which instance performed the write. {@code documentId} is null for {@link ChangeOperation#RESYNC}.
+ * {@code status} is the document's {@code status} after the change when the change carries it (an insert, a replace,
+ * or an update that set it); null when it is unknown or the update left it alone.
+ */
+public record EntityChangedEvent(ChangeSource source,
+                                 ChangeOperation operation,
+                                 String documentId,
+                                 String status,
+                                 String resumeToken,
+                                 Instant clusterTime) {
+
+    public boolean affects(ChangeSource candidate) {
+        return source == candidate;
+    }
+}
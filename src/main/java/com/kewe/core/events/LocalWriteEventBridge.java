@@ -0,0 +1,43 @@
+package com.kewe.core.events;
+
+import org.bson.Document;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.mongodb.core.mapping.event.AbstractMongoEventListener;
+import org.springframework.data.mongodb.core.mapping.event.AfterDeleteEvent;
+import org.springframework.data.mongodb.core.mapping.event.AfterSaveEvent;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+
+/**
+ * Publishes an {@link EntityChangedEvent} for writes made through this instance's repositories, so local
+ * caches stay read-your-writes consistent even before (or without) the change stream delivering the write.
+ * Deletes carry no document id and therefore invalidate the whole source.
+ */
+@Component
+public class LocalWriteEventBridge extends AbstractMongoEventListener<Object> {
+
+    private final ApplicationEventPublisher eventPublisher;
+
+    public LocalWriteEventBridge(ApplicationEventPublisher eventPublisher) {
+        this.eventPublisher = eventPublisher;
+    }
+
+    @Override
+    public void onAfterSave(AfterSaveEvent<Object> event) {
+        Document document = event.getDocument();
+        Object id = document == null ? null : document.get("_id");
+        String status = document != null && document.get("status") instanceof String value ? value : null;
+        publish(event.getCollectionName(), ChangeOperation.UPDATE, id == null ? null : id.toString(), status);
+    }
+
+    @Override
+    public void onAfterDelete(AfterDeleteEvent<Object> event) {
+        publish(event.getCollectionName(), ChangeOperation.DELETE, null, null);
+    }
+
+    private void publish(String collection, ChangeOperation operation, String documentId, String status) {
+        ChangeSource.fromCollection(collection).ifPresent(source ->
+                eventPublisher.publishEvent(new EntityChangedEvent(source, operation, documentId, status, null, Instant.now())));
+    }
+}
@@ -4,12 +4,18 @@ import com.kewe.core.businessobjects.BusinessObjectInstance;
 import com.kewe.core.businessobjects.BusinessObjectRepository;
 import com.kewe.core.businessobjects.BusinessObjectType;
 import com.kewe.core.businessobjects.BusinessObjectTypeRepository;
+import com.kewe.core.common.ReferenceDataCache;
+import com.kewe.core.events.ChangeEventProperties;
+import com.kewe.core.events.ChangeSource;
+import com.kewe.core.events.EntityChangedEvent;
 import org.bson.Document;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.context.event.EventListener;
 import org.springframework.stereotype.Service;
 
 import java.util.Collection;
+import java.util.Collections;
 import java.util.Comparator;
 import java.util.HashMap;
 import java.util.HashSet;
@@ -23,22 +29,43 @@ import java.util.Set;
 @Service
 public class FundingService {
     private static final Logger log = LoggerFactory.getLogger(FundingService.class);
+    private static final String ALL_TYPES = "*";
     private final BudgetRecordRepository budgetRepository;
     private final AllocationRecordRepository allocationRepository;
     private final BusinessObjectRepository businessObjectRepository;
     private final BusinessObjectTypeRepository businessObjectTypeRepository;
+    private final ReferenceDataCache<String, Map<String, String>> typeNamesCache;
+    private final ReferenceDataCache<String, List<ChargingLocationDto>> chargingLocationsCache;
 
     public FundingService(BudgetRecordRepository budgetRepository,
                           AllocationRecordRepository allocationRepository,
                           BusinessObjectRepository businessObjectRepository,
-                          BusinessObjectTypeRepository businessObjectTypeRepository) {
+                          BusinessObjectTypeRepository businessObjectTypeRepository,
+                          ChangeEventProperties changeEventProperties) {
         this.budgetRepository = budgetRepository;
         this.allocationRepository = allocationRepository;
         this.businessObjectRepository = businessObjectRepository;
         this.businessObjectTypeRepository = businessObjectTypeRepository;
+        this.typeNamesCache = new ReferenceDataCache<>(changeEventProperties.referenceCacheMaxAge());
+        this.chargingLocationsCache = new ReferenceDataCache<>(changeEventProperties.referenceCacheMaxAge());
     }
 
     public List<ChargingLocationDto> findChargingLocations(String budgetPlanId) {
+        return chargingLocationsCache.get(normalizePlanKey(budgetPlanId), key -> loadChargingLocations(budgetPlanId));
+    }
+
+    @EventListener
+    public void onEntityChanged(EntityChangedEvent event) {
+        if (event.affects(ChangeSource.BUSINESS_OBJECT_TYPES)) {
+            typeNamesCache.invalidateAll();
+        }
+        if (event.affects(ChangeSource.BUSINESS_OBJECTS) || event.affects(ChangeSource.BUSINESS_OBJECT_TYPES)
+                || event.affects(ChangeSource.BUDGETS) || event.affects(ChangeSource.ALLOCATIONS)) {
+            chargingLocationsCache.invalidateAll();
+        }
+    }
+
+    private List<ChargingLocationDto> loadChargingLocations(String budgetPlanId) {
         ChargingLocationDebugDto debug = collectChargingLocationDebug(budgetPlanId);
         Set<String> ids = new HashSet<>();
         ids.addAll(debug.eligibleFromBudgetIds());
@@ -173,6 +200,34 @@ public class FundingService {
 
 
 
+    /**
+     * What each charging dimension can still spend, worked out the way {@link #fundingSnapshot} does without a plan:
+     * the dimension's budget less what it allocates onwards, or what is allocated to it less that when it has no
+     * budget. Three queries however many dimensions are asked for.
+     */
+    public Map<String, Double> availableByDimension(Collection<String> dimensionIds) {
+        Map<String, Double> budgetById = new HashMap<>();
+        for (BudgetRecord budget : budgetRepository.findByBusinessDimensionIdIn(dimensionIds)) {
+            budgetById.putIfAbsent(budget.getBusinessDimensionId(), budget.getAmount());
+        }
+        Map<String, Double> allocatedFrom = new HashMap<>();
+        for (AllocationRecord allocation : allocationRepository.findByAllocatedFromDimensionIdIn(dimensionIds)) {
+            allocatedFrom.merge(allocation.getAllocatedFromDimensionId(), allocation.getAmount(), Double::sum);
+        }
+        Map<String, Double> allocatedTo = new HashMap<>();
+        for (AllocationRecord allocation : allocationRepository.findByAllocatedToDimensionIdIn(dimensionIds)) {
+            allocatedTo.merge(allocation.getAllocatedToDimensionId(), allocation.getAmount(), Double::sum);
+        }
+        Map<String, Double> available = new HashMap<>();
+        for (String dimensionId : dimensionIds) {
+            double funded = budgetById.containsKey(dimensionId)
+                    ? budgetById.get(dimensionId)
+                    : allocatedTo.getOrDefault(dimensionId, 0.0);
+            available.put(dimensionId, funded - allocatedFrom.getOrDefault(dimensionId, 0.0));
+        }
+        return available;
+    }
+
     private Double budgetRemainingBeforeReq(String businessDimensionId, String budgetPlanId) {
         Optional<BudgetRecord> budget = resolveBudgetByPlan(
                 budgetRepository.findByBusinessDimensionId(businessDimensionId),
@@ -228,7 +283,7 @@ public class FundingService {
     }
 
     private List<ChargingLocationDto> toDimensionDtos(Collection<BusinessObjectInstance> dimensions, Set<String> selectedIds) {
-        Map<String, String> typeNames = loadTypeNames();
+        Map<String, String> typeNames = typeNames();
         return dimensions.stream()
                 .filter(item -> selectedIds.contains(item.getId()))
                 .map(item -> new ChargingLocationDto(item.getId(), item.getCode(), item.getName(), typeNames.getOrDefault(item.getTypeCode(), item.getTypeCode())))
@@ -239,16 +294,20 @@ public class FundingService {
         if (item == null) {
             return null;
         }
-        Map<String, String> typeNames = loadTypeNames();
+        Map<String, String> typeNames = typeNames();
         return new ChargingLocationDto(item.getId(), item.getCode(), item.getName(), typeNames.getOrDefault(item.getTypeCode(), item.getTypeCode()));
     }
 
+    private Map<String, String> typeNames() {
+        return typeNamesCache.get(ALL_TYPES, key -> loadTypeNames());
+    }
+
     private Map<String, String> loadTypeNames() {
         Map<String, String> result = new HashMap<>();
         for (BusinessObjectType type : businessObjectTypeRepository.findAll()) {
             result.put(type.getCode(), type.getName());
         }
-        return result;
+        return Collections.unmodifiableMap(result);
     }
 
     private String normalizePlanKey(String value) {
@@ -0,0 +1,94 @@
+package com.kewe.core.matching;
+
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.index.CompoundIndexes;
+import org.springframework.data.mongodb.core.mapping.Document;
+import org.springframework.data.mongodb.core.mapping.Field;
+import org.springframework.data.mongodb.core.mapping.FieldType;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The latest match result for one supplier invoice, keyed by the invoice id so matching again replaces it. Each
+ * invoice line records the requisition line it was matched to and how it compared; amounts are Decimal128 so the
+ * amount already billed against a requisition line can be summed in the database.
+ */
+@Document(collection = "invoice_matches")
+@CompoundIndexes({
+        @CompoundIndex(name = "idx_im_status_matched_at", def = "{'status': 1, 'matchedAt': -1}"),
+        @CompoundIndex(name = "idx_im_requisition_line", def = "{'lines.requisitionId': 1, 'lines.requisitionLineNumber': 1}")
+})
+public class InvoiceMatch {
+
+    public static final String STATUS_MATCHED = "MATCHED";
+    public static final String STATUS_EXCEPTION = "EXCEPTION";
+
+    public enum Outcome { MATCHED, NO_REQUISITION_LINE, PRICE_VARIANCE, OVER_BILLED }
+
+    @Id
+    private String invoiceId;
+    private String supplierId;
+    private String invoiceNumber;
+    private LocalDate accountingDate;
+    private String status;
+    private int exceptionCount;
+    private List<LineMatch> lines = new ArrayList<>();
+    private Instant matchedAt;
+
+    public String getInvoiceId() { return invoiceId; }
+    public void setInvoiceId(String invoiceId) { this.invoiceId = invoiceId; }
+    public String getSupplierId() { return supplierId; }
+    public void setSupplierId(String supplierId) { this.supplierId = supplierId; }
+    public String getInvoiceNumber() { return invoiceNumber; }
+    public void setInvoiceNumber(String invoiceNumber) { this.invoiceNumber = invoiceNumber; }
+    public LocalDate getAccountingDate() { return accountingDate; }
+    public void setAccountingDate(LocalDate accountingDate) { this.accountingDate = accountingDate; }
+    public String getStatus() { return status; }
+    public void setStatus(String status) { this.status = status; }
+    public int getExceptionCount() { return exceptionCount; }
+    public void setExceptionCount(int exceptionCount) { this.exceptionCount = exceptionCount; }
+    public List<LineMatch> getLines() { return lines; }
+    public void setLines(List<LineMatch> lines) { this.lines = lines; }
+    public Instant getMatchedAt() { return matchedAt; }
+    public void setMatchedAt(Instant matchedAt) { this.matchedAt = matchedAt; }
+
+    public static class LineMatch {
+        private int invoiceLineIndex;
+        private Outcome outcome;
+        private String requisitionId;
+        private Integer requisitionLineNumber;
+        @Field(targetType = FieldType.DECIMAL128)
+        private BigDecimal invoicedAmount;
+        @Field(targetType = FieldType.DECIMAL128)
+        private BigDecimal remainingAmount;
+        @Field(targetType = FieldType.DECIMAL128)
+        private BigDecimal invoicedUnitPrice;
+        private Double requisitionUnitPrice;
+        private String message;
+
+        public int getInvoiceLineIndex() { return invoiceLineIndex; }
+        public void setInvoiceLineIndex(int invoiceLineIndex) { this.invoiceLineIndex = invoiceLineIndex; }
+        public Outcome getOutcome() { return outcome; }
+        public void setOutcome(Outcome outcome) { this.outcome = outcome; }
+        public String getRequisitionId() { return requisitionId; }
+        public void setRequisitionId(String requisitionId) { this.requisitionId = requisitionId; }
+        public Integer getRequisitionLineNumber() { return requisitionLineNumber; }
+        public void setRequisitionLineNumber(Integer requisitionLineNumber) { this.requisitionLineNumber = requisitionLineNumber; }
+        public BigDecimal getInvoicedAmount() { return invoicedAmount; }
+        public void setInvoicedAmount(BigDecimal invoicedAmount) { this.invoicedAmount = invoicedAmount; }
+        /** What was left unbilled on the requisition line before this invoice line. */
+        public BigDecimal getRemainingAmount() { return remainingAmount; }
+        public void setRemainingAmount(BigDecimal remainingAmount) { this.remainingAmount = remainingAmount; }
+        public BigDecimal getInvoicedUnitPrice() { return invoicedUnitPrice; }
+        public void setInvoicedUnitPrice(BigDecimal invoicedUnitPrice) { this.invoicedUnitPrice = invoicedUnitPrice; }
+        public Double getRequisitionUnitPrice() { return requisitionUnitPrice; }
+        public void setRequisitionUnitPrice(Double requisitionUnitPrice) { this.requisitionUnitPrice = requisitionUnitPrice; }
+        public String getMessage() { return message; }
+        public void setMessage(String message) { this.message = message; }
+    }
+}
@@ -0,0 +1,6 @@
+package com.kewe.core.matching;
+
+import org.springframework.data.mongodb.repository.MongoRepository;
+
+public interface InvoiceMatchRepository extends MongoRepository<InvoiceMatch, String> {
+}
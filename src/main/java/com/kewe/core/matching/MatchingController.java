@@ -0,0 +1,46 @@
+package com.kewe.core.matching;
+
+import com.kewe.core.matching.dto.MatchRunRequest;
+import com.kewe.core.matching.dto.MatchRunResponse;
+import jakarta.validation.Valid;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.List;
+
+@RestController
+@RequestMapping("/api")
+public class MatchingController {
+
+    private final MatchingEngine matchingEngine;
+
+    public MatchingController(MatchingEngine matchingEngine) {
+        this.matchingEngine = matchingEngine;
+    }
+
+    @PostMapping("/invoice-match-runs")
+    public MatchRunResponse run(@Valid @RequestBody MatchRunRequest request) {
+        return matchingEngine.run(request.getAccountingDate(), request.getSupplierIds());
+    }
+
+    @PostMapping("/supplier-invoices/{id}/match")
+    public InvoiceMatch matchInvoice(@PathVariable String id) {
+        return matchingEngine.matchInvoice(id);
+    }
+
+    @GetMapping("/invoice-matches/{invoiceId}")
+    public InvoiceMatch getMatch(@PathVariable String invoiceId) {
+        return matchingEngine.getMatch(invoiceId);
+    }
+
+    @GetMapping("/invoice-matches")
+    public List<InvoiceMatch> findByStatus(@RequestParam(defaultValue = InvoiceMatch.STATUS_EXCEPTION) String status,
+                                           @RequestParam(defaultValue = "100") int limit) {
+        return matchingEngine.findByStatus(status, limit);
+    }
+}
@@ -0,0 +1,267 @@
+package com.kewe.core.matching;
+
+import com.kewe.core.matching.dto.MatchRunResponse;
+import com.kewe.core.supplierinvoice.SupplierInvoice;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.bson.Document;
+import org.bson.types.Decimal128;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.FindAndReplaceOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.aggregation.Fields;
+import org.springframework.data.mongodb.core.aggregation.TypedAggregation;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Matches supplier invoice lines against submitted requisition lines. An invoice line is looked up by supplier and
+ * SKU (falling back to description) in the {@link RequisitionLineIndex}, then checked against the requisitioned unit
+ * price and against what is still unbilled on that requisition line, both within the configured tolerances. Results
+ * replace any earlier match of the same invoice. A run matches a day's intake in keyset batches: one invoice read,
+ * one aggregation for what other invoices already billed, and one unordered bulk write per batch.
+ */
+@Service
+public class MatchingEngine {
+
+    private static final Logger log = LoggerFactory.getLogger(MatchingEngine.class);
+    private static final List<String> MATCHABLE_STATUSES = List.of("Submitted", "Approved", "Posted");
+
+    private final MongoTemplate mongoTemplate;
+    private final RequisitionLineIndex requisitionLineIndex;
+    private final MatchingProperties properties;
+    private final Timer batchTimer;
+
+    public MatchingEngine(MongoTemplate mongoTemplate,
+                          RequisitionLineIndex requisitionLineIndex,
+                          MatchingProperties properties,
+                          ObjectProvider<MeterRegistry> meterRegistry) {
+        this.mongoTemplate = mongoTemplate;
+        this.requisitionLineIndex = requisitionLineIndex;
+        this.properties = properties;
+        MeterRegistry registry = meterRegistry.getIfAvailable();
+        this.batchTimer = registry == null ? null : Timer.builder("kewe.matching.batch").register(registry);
+    }
+
+    public InvoiceMatch matchInvoice(String invoiceId) {
+        SupplierInvoice invoice = mongoTemplate.findById(invoiceId, SupplierInvoice.class);
+        if (invoice == null) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Supplier invoice not found: " + invoiceId);
+        }
+        return matchBatch(List.of(invoice), requisitionLineIndex.snapshot()).get(0);
+    }
+
+    public MatchRunResponse run(LocalDate accountingDate, List<String> supplierIds) {
+        long started = System.nanoTime();
+        RequisitionLineIndex.Snapshot snapshot = requisitionLineIndex.snapshot();
+        Criteria criteria = Criteria.where("status").in(MATCHABLE_STATUSES).and("accountingDate").is(accountingDate);
+        if (supplierIds != null && !supplierIds.isEmpty()) {
+            criteria.and("supplierId").in(supplierIds);
+        }
+        int invoices = 0;
+        int matched = 0;
+        int lines = 0;
+        int batches = 0;
+        String lastId = null;
+        while (true) {
+            Query query = new Query(lastId == null ? criteria
+                    : new Criteria().andOperator(criteria, Criteria.where("id").gt(lastId)))
+                    .with(Sort.by("id")).limit(Math.max(1, properties.getBatchSize()));
+            query.fields().include("supplierId", "invoiceNumber", "accountingDate", "lines");
+            List<SupplierInvoice> batch = mongoTemplate.find(query, SupplierInvoice.class);
+            if (batch.isEmpty()) {
+                break;
+            }
+            for (InvoiceMatch match : matchBatch(batch, snapshot)) {
+                invoices++;
+                lines += match.getLines().size();
+                if (InvoiceMatch.STATUS_MATCHED.equals(match.getStatus())) {
+                    matched++;
+                }
+            }
+            batches++;
+            lastId = batch.get(batch.size() - 1).getId();
+        }
+        long elapsedMs = (System.nanoTime() - started) / 1_000_000;
+        log.info("matching: accountingDate={} invoices={} matched={} batches={} elapsedMs={}",
+                accountingDate, invoices, matched, batches, elapsedMs);
+        return new MatchRunResponse(accountingDate, invoices, matched, invoices - matched, lines, batches, elapsedMs);
+    }
+
+    public InvoiceMatch getMatch(String invoiceId) {
+        InvoiceMatch match = mongoTemplate.findById(invoiceId, InvoiceMatch.class);
+        if (match == null) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "No match result for supplier invoice: " + invoiceId);
+        }
+        return match;
+    }
+
+    public List<InvoiceMatch> findByStatus(String status, int limit) {
+        Query query = Query.query(Criteria.where("status").is(status))
+                .with(Sort.by(Sort.Direction.DESC, "matchedAt"))
+                .limit(Math.min(Math.max(1, limit), 500));
+        return mongoTemplate.find(query, InvoiceMatch.class);
+    }
+
+    private List<InvoiceMatch> matchBatch(List<SupplierInvoice> invoices, RequisitionLineIndex.Snapshot snapshot) {
+        long started = System.nanoTime();
+        List<String> invoiceIds = new ArrayList<>(invoices.size());
+        Set<String> requisitionIds = new HashSet<>();
+        for (SupplierInvoice invoice : invoices) {
+            invoiceIds.add(invoice.getId());
+            for (SupplierInvoice.Line line : invoice.getLines()) {
+                for (RequisitionLineIndex.Candidate candidate
+                        : snapshot.candidates(invoice.getSupplierId(), line.getSupplierSku(), line.getDescription())) {
+                    requisitionIds.add(candidate.requisitionId());
+                }
+            }
+        }
+        Map<String, BigDecimal> billed = billedByOtherInvoices(requisitionIds, invoiceIds);
+
+        Instant now = Instant.now();
+        List<InvoiceMatch> matches = new ArrayList<>(invoices.size());
+        BulkOperations bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, InvoiceMatch.class);
+        for (SupplierInvoice invoice : invoices) {
+            InvoiceMatch match = matchInvoice(invoice, snapshot, billed);
+            match.setMatchedAt(now);
+            matches.add(match);
+            bulk.replaceOne(Query.query(Criteria.where("invoiceId").is(invoice.getId())), match,
+                    FindAndReplaceOptions.options().upsert());
+        }
+        bulk.execute();
+        if (batchTimer != null) {
+            batchTimer.record(System.nanoTime() - started, TimeUnit.NANOSECONDS);
+        }
+        return matches;
+    }
+
+    /**
+     * Matches every line of one invoice. {@code billed} holds the amount already billed per requisition line and is
+     * updated as lines are matched, so later invoices in the batch see what earlier ones consumed.
+     */
+    InvoiceMatch matchInvoice(SupplierInvoice invoice, RequisitionLineIndex.Snapshot snapshot, Map<String, BigDecimal> billed) {
+        InvoiceMatch match = new InvoiceMatch();
+        match.setInvoiceId(invoice.getId());
+        match.setSupplierId(invoice.getSupplierId());
+        match.setInvoiceNumber(invoice.getInvoiceNumber());
+        match.setAccountingDate(invoice.getAccountingDate());
+        List<SupplierInvoice.Line> lines = invoice.getLines();
+        List<InvoiceMatch.LineMatch> results = new ArrayList<>(lines.size());
+        int exceptions = 0;
+        for (int i = 0; i < lines.size(); i++) {
+            InvoiceMatch.LineMatch result = matchLine(invoice.getSupplierId(), lines.get(i), snapshot, billed);
+            result.setInvoiceLineIndex(i);
+            if (result.getOutcome() != InvoiceMatch.Outcome.MATCHED) {
+                exceptions++;
+            }
+            results.add(result);
+        }
+        match.setLines(results);
+        match.setExceptionCount(exceptions);
+        match.setStatus(exceptions == 0 && !results.isEmpty() ? InvoiceMatch.STATUS_MATCHED : InvoiceMatch.STATUS_EXCEPTION);
+        return match;
+    }
+
+    private InvoiceMatch.LineMatch matchLine(String supplierId, SupplierInvoice.Line line,
+                                             RequisitionLineIndex.Snapshot snapshot, Map<String, BigDecimal> billed) {
+        InvoiceMatch.LineMatch result = new InvoiceMatch.LineMatch();
+        BigDecimal invoiced = line.getAmount() == null ? BigDecimal.ZERO : line.getAmount();
+        result.setInvoicedAmount(invoiced);
+        result.setInvoicedUnitPrice(line.getUnitPrice());
+
+        List<RequisitionLineIndex.Candidate> candidates = snapshot.candidates(supplierId, line.getSupplierSku(), line.getDescription());
+        if (candidates.isEmpty()) {
+            result.setOutcome(InvoiceMatch.Outcome.NO_REQUISITION_LINE);
+            result.setMessage("No submitted requisition line for this supplier and item");
+            return result;
+        }
+        // the first line with enough left to cover this one, else the one with the most left
+        RequisitionLineIndex.Candidate chosen = null;
+        BigDecimal chosenRemaining = null;
+        for (RequisitionLineIndex.Candidate candidate : candidates) {
+            BigDecimal remaining = candidate.amount().subtract(billed.getOrDefault(candidate.lineKey(), BigDecimal.ZERO));
+            if (remaining.compareTo(invoiced) >= 0) {
+                chosen = candidate;
+                chosenRemaining = remaining;
+                break;
+            }
+            if (chosenRemaining == null || remaining.compareTo(chosenRemaining) > 0) {
+                chosen = candidate;
+                chosenRemaining = remaining;
+            }
+        }
+        result.setRequisitionId(chosen.requisitionId());
+        result.setRequisitionLineNumber(chosen.lineNumber());
+        result.setRequisitionUnitPrice(chosen.unitPrice());
+        result.setRemainingAmount(chosenRemaining);
+        billed.merge(chosen.lineKey(), invoiced, BigDecimal::add);
+
+        if (line.getUnitPrice() != null && chosen.unitPrice() != null && !withinPriceTolerance(line.getUnitPrice(), chosen.unitPrice())) {
+            result.setOutcome(InvoiceMatch.Outcome.PRICE_VARIANCE);
+            result.setMessage("Unit price " + line.getUnitPrice().toPlainString() + " differs from the requisitioned "
+                    + BigDecimal.valueOf(chosen.unitPrice()).toPlainString());
+        } else if (invoiced.compareTo(allowedAmount(chosenRemaining)) > 0) {
+            result.setOutcome(InvoiceMatch.Outcome.OVER_BILLED);
+            result.setMessage("Amount " + invoiced.toPlainString() + " exceeds the " + chosenRemaining.toPlainString()
+                    + " left on the requisition line");
+        } else {
+            result.setOutcome(InvoiceMatch.Outcome.MATCHED);
+        }
+        return result;
+    }
+
+    private boolean withinPriceTolerance(BigDecimal invoicedUnitPrice, double requisitionUnitPrice) {
+        BigDecimal expected = BigDecimal.valueOf(requisitionUnitPrice);
+        BigDecimal allowed = expected.abs().multiply(BigDecimal.valueOf(properties.getPriceTolerance()));
+        return invoicedUnitPrice.subtract(expected).abs().compareTo(allowed) <= 0;
+    }
+
+    private BigDecimal allowedAmount(BigDecimal remaining) {
+        return remaining.max(BigDecimal.ZERO)
+                .multiply(BigDecimal.ONE.add(BigDecimal.valueOf(properties.getAmountTolerance())))
+                .setScale(2, RoundingMode.HALF_UP);
+    }
+
+    /** Amount already billed per requisition line by invoices outside this batch, keyed {@code requisitionId#lineNumber}. */
+    private Map<String, BigDecimal> billedByOtherInvoices(Set<String> requisitionIds, List<String> invoiceIds) {
+        Map<String, BigDecimal> billed = new HashMap<>();
+        if (requisitionIds.isEmpty()) {
+            return billed;
+        }
+        TypedAggregation<InvoiceMatch> aggregation = Aggregation.newAggregation(InvoiceMatch.class,
+                Aggregation.match(Criteria.where("lines.requisitionId").in(requisitionIds).and("invoiceId").nin(invoiceIds)),
+                Aggregation.unwind("lines"),
+                Aggregation.match(Criteria.where("lines.requisitionId").in(requisitionIds)),
+                Aggregation.group(Fields.from(Fields.field("requisitionId", "lines.requisitionId"),
+                                Fields.field("lineNumber", "lines.requisitionLineNumber")))
+                        .sum("lines.invoicedAmount").as("amount"));
+        for (Document row : mongoTemplate.aggregate(aggregation, Document.class).getMappedResults()) {
+            Document key = row.get("_id", Document.class);
+            Object amount = row.get("amount");
+            BigDecimal value = amount instanceof Decimal128 decimal ? decimal.bigDecimalValue()
+                    : amount instanceof Number number ? new BigDecimal(number.toString()) : BigDecimal.ZERO;
+            billed.put(key.getString("requisitionId") + "#" + key.get("lineNumber"), value);
+        }
+        return billed;
+    }
+}
@@ -0,0 +1,23 @@
+package com.kewe.core.matching;
+
+import com.kewe.core.common.MongoIndexes;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.CommandLineRunner;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Creates the indexes declared on {@link InvoiceMatch}: the exception worklist reads by status, and every matching
+ * batch sums what was already billed per requisition line.
+ */
+@Configuration
+public class MatchingIndexes {
+
+    private static final Logger log = LoggerFactory.getLogger(MatchingIndexes.class);
+
+    @Bean
+    CommandLineRunner ensureInvoiceMatchIndexes(MongoIndexes mongoIndexes) {
+        return args -> log.info("invoice-match-indexes: ensured={}", mongoIndexes.ensure(InvoiceMatch.class));
+    }
+}
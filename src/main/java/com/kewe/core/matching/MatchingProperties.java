@@ -0,0 +1,23 @@
+package com.kewe.core.matching;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+@Component
+@ConfigurationProperties(prefix = "kewe.matching")
+public class MatchingProperties {
+
+    /** Invoices read, matched and written per round trip during a run. */
+    private int batchSize = 1000;
+    /** Allowed relative difference between the invoiced and the requisitioned unit price. */
+    private double priceTolerance = 0.02;
+    /** Allowed overrun of an invoice line over what is left unbilled on its requisition line. */
+    private double amountTolerance = 0.05;
+
+    public int getBatchSize() { return batchSize; }
+    public void setBatchSize(int batchSize) { this.batchSize = batchSize; }
+    public double getPriceTolerance() { return priceTolerance; }
+    public void setPriceTolerance(double priceTolerance) { this.priceTolerance = priceTolerance; }
+    public double getAmountTolerance() { return amountTolerance; }
+    public void setAmountTolerance(double amountTolerance) { this.amountTolerance = amountTolerance; }
+}
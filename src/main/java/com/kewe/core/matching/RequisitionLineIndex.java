@@ -0,0 +1,202 @@
+package com.kewe.core.matching;
+
+import com.kewe.core.events.ChangeSource;
+import com.kewe.core.events.EntityChangedEvent;
+import com.kewe.core.requisition.RequisitionDraft;
+import com.kewe.core.requisition.RequisitionLine;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Lines of every submitted requisition, keyed by supplier and SKU and by supplier and description, for matching
+ * invoice lines against. Held as an immutable snapshot. As in {@code LocalCatalogIndex}, only changes to indexed
+ * requisitions, or ones that move into a purchased status, mark it stale. A stale snapshot is rebuilt in the background while lookups keep reading
+ * the previous one.
+ */
+@Component
+public class RequisitionLineIndex {
+    private static final Logger log = LoggerFactory.getLogger(RequisitionLineIndex.class);
+
+    private final MongoTemplate mongoTemplate;
+    private final AtomicLong generation = new AtomicLong();
+    private final AtomicBoolean rebuildQueued = new AtomicBoolean();
+    private final ExecutorService rebuilder = Executors.newSingleThreadExecutor(
+            Thread.ofPlatform().name("requisition-line-index-rebuild").daemon().factory());
+    private volatile Snapshot snapshot = Snapshot.EMPTY;
+
+    public RequisitionLineIndex(MongoTemplate mongoTemplate) {
+        this.mongoTemplate = mongoTemplate;
+    }
+
+    @EventListener
+    public void onEntityChanged(EntityChangedEvent event) {
+        if (event.affects(ChangeSource.REQUISITION_DRAFTS) && mayChangeIndex(event)) {
+            generation.incrementAndGet();
+            queueRebuild();
+        }
+    }
+
+    @PreDestroy
+    void shutdown() {
+        rebuilder.shutdownNow();
+    }
+
+    /** The current snapshot; built in place only the first time, otherwise a stale one is served while it rebuilds. */
+    public Snapshot snapshot() {
+        Snapshot current = snapshot;
+        if (current == Snapshot.EMPTY) {
+            return rebuild();
+        }
+        if (current.generation() != generation.get()) {
+            queueRebuild();
+        }
+        return current;
+    }
+
+    /** Whether the snapshot reflects every change seen so far. */
+    public boolean isCurrent() {
+        return snapshot.generation() == generation.get();
+    }
+
+    public synchronized Snapshot rebuild() {
+        long observed = generation.get();
+        Query query = new Query(Criteria.where("status").in(RequisitionDraft.PURCHASED_STATUSES));
+        query.fields().include("lines.lineNumber", "lines.description", "lines.supplierId", "lines.supplierName",
+                "lines.supplierSku", "lines.unitPrice", "lines.amount");
+        Map<String, List<Candidate>> byKey = new HashMap<>();
+        Set<String> requisitionIds = new HashSet<>();
+        int lines = 0;
+        for (RequisitionDraft requisition : mongoTemplate.find(query, RequisitionDraft.class)) {
+            requisitionIds.add(requisition.getId());
+            for (RequisitionLine line : requisition.getLines()) {
+                Candidate candidate = new Candidate(requisition.getId(), line.getLineNumber(), line.getUnitPrice(),
+                        BigDecimal.valueOf(line.getAmount()));
+                String supplier = supplierOf(line);
+                String skuKey = skuKey(supplier, line.getSupplierSku());
+                String descriptionKey = descriptionKey(supplier, line.getDescription());
+                if (skuKey != null) {
+                    byKey.computeIfAbsent(skuKey, ignored -> new ArrayList<>()).add(candidate);
+                }
+                if (descriptionKey != null) {
+                    byKey.computeIfAbsent(descriptionKey, ignored -> new ArrayList<>()).add(candidate);
+                }
+                lines++;
+            }
+        }
+        snapshot = new Snapshot(byKey, Set.copyOf(requisitionIds), observed);
+        log.debug("requisition-line-index: indexed {} lines under {} keys", lines, byKey.size());
+        return snapshot;
+    }
+
+    /**
+     * Decided from the event alone: a change without an id (resync) may touch anything, a change to an indexed
+     * requisition may drop or alter it, and any other requisition only matters once the change puts it in a purchased
+     * status. Draft autosaves carry neither, so they never queue a rebuild.
+     */
+    private boolean mayChangeIndex(EntityChangedEvent event) {
+        return event.documentId() == null
+                || snapshot.requisitionIds().contains(event.documentId())
+                || event.status() != null && RequisitionDraft.PURCHASED_STATUSES.contains(event.status());
+    }
+
+    /** At most one rebuild waits at a time; a change during a rebuild queues the next one. */
+    private void queueRebuild() {
+        if (!rebuildQueued.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            rebuilder.execute(() -> {
+                rebuildQueued.set(false);
+                try {
+                    rebuild();
+                } catch (DataAccessException ex) {
+                    log.warn("requisition-line-index: rebuild failed; matching against the previous snapshot", ex);
+                }
+            });
+        } catch (RejectedExecutionException ex) {
+            rebuildQueued.set(false);
+        }
+    }
+
+    /**
+     * Invoices carry the supplier id, so lines are keyed on theirs. Lines written before requisitions recorded a
+     * supplier id fall back to the supplier name, which only matches an invoice whose id spells the same name.
+     */
+    static String supplierOf(RequisitionLine line) {
+        return StringUtils.hasText(line.getSupplierId()) ? line.getSupplierId() : line.getSupplierName();
+    }
+
+    /**
+     * Supplier, SKU and description are all reduced to upper-case letters and digits before comparing.
+     * Null when a part is missing.
+     */
+    static String skuKey(String supplier, String sku) {
+        String normalizedSupplier = normalize(supplier);
+        String normalizedSku = normalize(sku);
+        return normalizedSupplier.isEmpty() || normalizedSku.isEmpty() ? null : normalizedSupplier + "|sku|" + normalizedSku;
+    }
+
+    static String descriptionKey(String supplier, String description) {
+        String normalizedSupplier = normalize(supplier);
+        String normalizedDescription = normalize(description);
+        return normalizedSupplier.isEmpty() || normalizedDescription.isEmpty() ? null
+                : normalizedSupplier + "|desc|" + normalizedDescription;
+    }
+
+    static String normalize(String value) {
+        if (value == null) {
+            return "";
+        }
+        StringBuilder normalized = new StringBuilder(value.length());
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (Character.isLetterOrDigit(c)) {
+                normalized.append(c);
+            }
+        }
+        return normalized.toString().toUpperCase(Locale.ROOT);
+    }
+
+    public record Candidate(String requisitionId, int lineNumber, Double unitPrice, BigDecimal amount) {
+        String lineKey() {
+            return requisitionId + "#" + lineNumber;
+        }
+    }
+
+    public record Snapshot(Map<String, List<Candidate>> byKey, Set<String> requisitionIds, long generation) {
+        static final Snapshot EMPTY = new Snapshot(Map.of(), Set.of(), -1);
+
+        /** Lines with the same supplier and SKU, else with the same supplier and description. */
+        public List<Candidate> candidates(String supplier, String sku, String description) {
+            String skuKey = skuKey(supplier, sku);
+            List<Candidate> bySku = skuKey == null ? List.of() : byKey.getOrDefault(skuKey, List.of());
+            if (!bySku.isEmpty()) {
+                return bySku;
+            }
+            String descriptionKey = descriptionKey(supplier, description);
+            return descriptionKey == null ? List.of() : byKey.getOrDefault(descriptionKey, List.of());
+        }
+    }
+}
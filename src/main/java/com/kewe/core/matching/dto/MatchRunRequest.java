@@ -0,0 +1,18 @@
+package com.kewe.core.matching.dto;
+
+import jakarta.validation.constraints.NotNull;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+public class MatchRunRequest {
+    @NotNull
+    private LocalDate accountingDate;
+    private List<String> supplierIds = new ArrayList<>();
+
+    public LocalDate getAccountingDate() { return accountingDate; }
+    public void setAccountingDate(LocalDate accountingDate) { this.accountingDate = accountingDate; }
+    public List<String> getSupplierIds() { return supplierIds; }
+    public void setSupplierIds(List<String> supplierIds) { this.supplierIds = supplierIds; }
+}
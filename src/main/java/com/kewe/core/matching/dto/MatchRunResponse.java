@@ -0,0 +1,11 @@
+package com.kewe.core.matching.dto;
+
+import java.time.LocalDate;
+
+public record MatchRunResponse(LocalDate accountingDate,
+                               int invoices,
+                               int matched,
+                               int exceptions,
+                               int lines,
+                               int batches,
+                               long elapsedMs) {}
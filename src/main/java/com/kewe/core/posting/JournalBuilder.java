@@ -0,0 +1,108 @@
+package com.kewe.core.posting;
+
+import com.kewe.core.dimensions.MappingService;
+import com.kewe.core.supplierinvoice.SupplierInvoice;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Derives the journal for a supplier invoice: one debit per invoice line and one accounts-payable credit for the
+ * invoice total. Each debit's accounts come from the dimension mappings: item to ledger account, cost center to
+ * organization, award driver to fund (the NONE mapping when the line has no driver) and the default function for
+ * the program, organization or ledger account. Lines whose item has no ledger mapping are debited to the suspense
+ * account and flagged.
+ */
+@Component
+public class JournalBuilder {
+
+    public static final String SOURCE_SUPPLIER_INVOICE = "SupplierInvoice";
+    private static final String DEFAULT_ITEM_TYPE = "SPEND_ITEM";
+    private static final String NO_AWARD_DRIVER = "NONE";
+    private static final String SYSTEM_USER = "system";
+
+    private final MappingService mappingService;
+    private final PostingProperties properties;
+
+    public JournalBuilder(MappingService mappingService, PostingProperties properties) {
+        this.mappingService = mappingService;
+        this.properties = properties;
+    }
+
+    public static String idempotencyKey(String sourceType, String sourceId) {
+        return sourceType + ":" + sourceId;
+    }
+
+    public JournalEntry build(SupplierInvoice invoice, String postingRunId) {
+        if (invoice.getLines() == null || invoice.getLines().isEmpty()) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Invoice has no lines to post");
+        }
+        List<JournalEntry.JournalLine> lines = new ArrayList<>(invoice.getLines().size() + 1);
+        BigDecimal totalDebit = BigDecimal.ZERO;
+        for (SupplierInvoice.Line invoiceLine : invoice.getLines()) {
+            if (invoiceLine.getAmount() == null) {
+                throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Invoice line " + (lines.size() + 1) + " has no amount");
+            }
+            JournalEntry.JournalLine debit = debitFor(invoiceLine);
+            debit.setLineNumber(lines.size() + 1);
+            lines.add(debit);
+            totalDebit = totalDebit.add(invoiceLine.getAmount());
+        }
+
+        JournalEntry.JournalLine credit = new JournalEntry.JournalLine();
+        credit.setLineNumber(lines.size() + 1);
+        credit.setSide(JournalEntry.Side.CREDIT);
+        credit.setLedgerAccountNodeId(properties.getAccountsPayableLedgerAccount());
+        credit.setAmount(totalDebit);
+        credit.setDescription("Accounts payable " + invoice.getSupplierId() + " " + invoice.getInvoiceNumber());
+        lines.add(credit);
+
+        JournalEntry journal = new JournalEntry();
+        journal.setIdempotencyKey(idempotencyKey(SOURCE_SUPPLIER_INVOICE, invoice.getId()));
+        journal.setPostingRunId(postingRunId);
+        journal.setSourceType(SOURCE_SUPPLIER_INVOICE);
+        journal.setSourceId(invoice.getId());
+        journal.setSupplierId(invoice.getSupplierId());
+        journal.setInvoiceNumber(invoice.getInvoiceNumber());
+        journal.setAccountingDate(invoice.getAccountingDate());
+        journal.setCurrency(invoice.getCurrency());
+        journal.setTotalDebit(totalDebit);
+        journal.setTotalCredit(totalDebit);
+        journal.setLines(lines);
+        journal.setCreatedAt(Instant.now());
+        journal.setCreatedBy(SYSTEM_USER);
+        return journal;
+    }
+
+    private JournalEntry.JournalLine debitFor(SupplierInvoice.Line invoiceLine) {
+        String ledger = null;
+        if (StringUtils.hasText(invoiceLine.getItemNodeId())) {
+            String itemType = StringUtils.hasText(invoiceLine.getItemTypeCode()) ? invoiceLine.getItemTypeCode() : DEFAULT_ITEM_TYPE;
+            ledger = mappingService.deriveLedgerAccountFromItem(itemType, invoiceLine.getItemNodeId()).orElse(null);
+        }
+        String organization = StringUtils.hasText(invoiceLine.getCostCenterNodeId())
+                ? mappingService.deriveOrganizationFromCostCenter(invoiceLine.getCostCenterNodeId()).orElse(null)
+                : null;
+        String fund = StringUtils.hasText(invoiceLine.getAwardDriverTypeCode())
+                ? mappingService.deriveFundFromAwardDriver(invoiceLine.getAwardDriverTypeCode(), invoiceLine.getAwardDriverNodeId()).orElse(null)
+                : mappingService.deriveFundFromAwardDriver(NO_AWARD_DRIVER, null).orElse(null);
+        String function = mappingService.deriveFunctionDefault(invoiceLine.getProgramNodeId(), organization, ledger).orElse(null);
+
+        JournalEntry.JournalLine debit = new JournalEntry.JournalLine();
+        debit.setSide(JournalEntry.Side.DEBIT);
+        debit.setSuspense(ledger == null);
+        debit.setLedgerAccountNodeId(ledger == null ? properties.getSuspenseLedgerAccount() : ledger);
+        debit.setOrganizationNodeId(organization);
+        debit.setFundNodeId(fund);
+        debit.setFunctionNodeId(function);
+        debit.setAmount(invoiceLine.getAmount());
+        debit.setDescription(invoiceLine.getDescription());
+        return debit;
+    }
+}
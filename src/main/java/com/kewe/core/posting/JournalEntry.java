@@ -0,0 +1,110 @@
+package com.kewe.core.posting;
+
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.index.CompoundIndexes;
+import org.springframework.data.mongodb.core.mapping.Document;
+import org.springframework.data.mongodb.core.mapping.Field;
+import org.springframework.data.mongodb.core.mapping.FieldType;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * One balanced journal for one posted source document. Journals are only ever inserted; the unique idempotency key
+ * makes a repeated insert for the same source fail instead of posting it twice. Amounts are stored as Decimal128
+ * so ledger totals can be summed in the database.
+ */
+@Document(collection = "journal_entries")
+@CompoundIndexes({
+        @CompoundIndex(name = "uk_je_idempotency_key", def = "{'idempotencyKey': 1}", unique = true),
+        @CompoundIndex(name = "idx_je_source", def = "{'sourceType': 1, 'sourceId': 1}"),
+        @CompoundIndex(name = "idx_je_posting_run", def = "{'postingRunId': 1}"),
+        @CompoundIndex(name = "idx_je_accounting_date", def = "{'accountingDate': 1}")
+})
+public class JournalEntry {
+
+    public enum Side { DEBIT, CREDIT }
+
+    @Id
+    private String id;
+    private String idempotencyKey;
+    private String postingRunId;
+    private String sourceType;
+    private String sourceId;
+    private String supplierId;
+    private String invoiceNumber;
+    private LocalDate accountingDate;
+    private String currency;
+    @Field(targetType = FieldType.DECIMAL128)
+    private BigDecimal totalDebit;
+    @Field(targetType = FieldType.DECIMAL128)
+    private BigDecimal totalCredit;
+    private List<JournalLine> lines = new ArrayList<>();
+    private Instant createdAt;
+    private String createdBy;
+
+    public String getId() { return id; }
+    public void setId(String id) { this.id = id; }
+    public String getIdempotencyKey() { return idempotencyKey; }
+    public void setIdempotencyKey(String idempotencyKey) { this.idempotencyKey = idempotencyKey; }
+    public String getPostingRunId() { return postingRunId; }
+    public void setPostingRunId(String postingRunId) { this.postingRunId = postingRunId; }
+    public String getSourceType() { return sourceType; }
+    public void setSourceType(String sourceType) { this.sourceType = sourceType; }
+    public String getSourceId() { return sourceId; }
+    public void setSourceId(String sourceId) { this.sourceId = sourceId; }
+    public String getSupplierId() { return supplierId; }
+    public void setSupplierId(String supplierId) { this.supplierId = supplierId; }
+    public String getInvoiceNumber() { return invoiceNumber; }
+    public void setInvoiceNumber(String invoiceNumber) { this.invoiceNumber = invoiceNumber; }
+    public LocalDate getAccountingDate() { return accountingDate; }
+    public void setAccountingDate(LocalDate accountingDate) { this.accountingDate = accountingDate; }
+    public String getCurrency() { return currency; }
+    public void setCurrency(String currency) { this.currency = currency; }
+    public BigDecimal getTotalDebit() { return totalDebit; }
+    public void setTotalDebit(BigDecimal totalDebit) { this.totalDebit = totalDebit; }
+    public BigDecimal getTotalCredit() { return totalCredit; }
+    public void setTotalCredit(BigDecimal totalCredit) { this.totalCredit = totalCredit; }
+    public List<JournalLine> getLines() { return lines; }
+    public void setLines(List<JournalLine> lines) { this.lines = lines; }
+    public Instant getCreatedAt() { return createdAt; }
+    public void setCreatedAt(Instant createdAt) { this.createdAt = createdAt; }
+    public String getCreatedBy() { return createdBy; }
+    public void setCreatedBy(String createdBy) { this.createdBy = createdBy; }
+
+    public static class JournalLine {
+        private int lineNumber;
+        private Side side;
+        private String ledgerAccountNodeId;
+        private String organizationNodeId;
+        private String fundNodeId;
+        private String functionNodeId;
+        @Field(targetType = FieldType.DECIMAL128)
+        private BigDecimal amount;
+        private String description;
+        private boolean suspense;
+
+        public int getLineNumber() { return lineNumber; }
+        public void setLineNumber(int lineNumber) { this.lineNumber = lineNumber; }
+        public Side getSide() { return side; }
+        public void setSide(Side side) { this.side = side; }
+        public String getLedgerAccountNodeId() { return ledgerAccountNodeId; }
+        public void setLedgerAccountNodeId(String ledgerAccountNodeId) { this.ledgerAccountNodeId = ledgerAccountNodeId; }
+        public String getOrganizationNodeId() { return organizationNodeId; }
+        public void setOrganizationNodeId(String organizationNodeId) { this.organizationNodeId = organizationNodeId; }
+        public String getFundNodeId() { return fundNodeId; }
+        public void setFundNodeId(String fundNodeId) { this.fundNodeId = fundNodeId; }
+        public String getFunctionNodeId() { return functionNodeId; }
+        public void setFunctionNodeId(String functionNodeId) { this.functionNodeId = functionNodeId; }
+        public BigDecimal getAmount() { return amount; }
+        public void setAmount(BigDecimal amount) { this.amount = amount; }
+        public String getDescription() { return description; }
+        public void setDescription(String description) { this.description = description; }
+        public boolean isSuspense() { return suspense; }
+        public void setSuspense(boolean suspense) { this.suspense = suspense; }
+    }
+}
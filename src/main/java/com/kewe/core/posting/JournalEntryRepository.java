@@ -0,0 +1,10 @@
+package com.kewe.core.posting;
+
+import org.springframework.data.mongodb.repository.MongoRepository;
+
+import java.util.List;
+
+public interface JournalEntryRepository extends MongoRepository<JournalEntry, String> {
+
+    List<JournalEntry> findBySourceTypeAndSourceId(String sourceType, String sourceId);
+}
@@ -0,0 +1,51 @@
+package com.kewe.core.posting;
+
+import com.kewe.core.posting.dto.PostingRunRequest;
+import jakarta.validation.Valid;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.ResponseStatus;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.List;
+
+@RestController
+@RequestMapping("/api")
+public class PostingController {
+
+    private final PostingEngine postingEngine;
+    private final JournalEntryRepository journalEntryRepository;
+
+    public PostingController(PostingEngine postingEngine, JournalEntryRepository journalEntryRepository) {
+        this.postingEngine = postingEngine;
+        this.journalEntryRepository = journalEntryRepository;
+    }
+
+    @PostMapping("/posting-runs")
+    @ResponseStatus(HttpStatus.ACCEPTED)
+    public PostingRun startRun(@Valid @RequestBody PostingRunRequest request) {
+        return postingEngine.startRun(request.getAccountingDateTo(), request.getSupplierIds());
+    }
+
+    @GetMapping("/posting-runs/{id}")
+    public PostingRun getRun(@PathVariable String id) {
+        return postingEngine.getRun(id);
+    }
+
+    @PostMapping("/posting-runs/{id}/replay")
+    @ResponseStatus(HttpStatus.ACCEPTED)
+    public PostingRun replay(@PathVariable String id) {
+        return postingEngine.replay(id);
+    }
+
+    @GetMapping("/journal-entries")
+    public List<JournalEntry> journalEntries(@RequestParam(defaultValue = JournalBuilder.SOURCE_SUPPLIER_INVOICE) String sourceType,
+                                             @RequestParam String sourceId) {
+        return journalEntryRepository.findBySourceTypeAndSourceId(sourceType, sourceId);
+    }
+}
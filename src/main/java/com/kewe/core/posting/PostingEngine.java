@@ -0,0 +1,395 @@
+package com.kewe.core.posting;
+
+import com.kewe.core.supplierinvoice.SupplierInvoice;
+import com.mongodb.bulk.BulkWriteError;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.BulkOperationException;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Turns Approved supplier invoices into journals. A period-end run partitions the work by supplier and posts the
+ * suppliers in parallel; each supplier is read in (accountingDate, id) keyset batches, and every batch is one
+ * unordered journal insert plus one updateMany flipping the journaled invoices to Posted. Journals carry an
+ * idempotency key per invoice, so a replayed run or a crash between the two writes never journals an invoice twice.
+ * Runs execute in the background; the caller gets the Running run back and polls it. A run that throws is marked
+ * Failed, and one whose instance died stops heartbeating and can be taken over by a replay once its lease runs out.
+ */
+@Service
+public class PostingEngine {
+
+    private static final Logger log = LoggerFactory.getLogger(PostingEngine.class);
+    private static final String TYPE_POSTING_RUN = "PostingRun";
+    private static final String STATUS_APPROVED = "Approved";
+    private static final String STATUS_POSTED = "Posted";
+    private static final String SYSTEM_USER = "system";
+    private static final int DUPLICATE_KEY_ERROR_CODE = 11000;
+    private static final int MAX_RECORDED_FAILURES = 100;
+
+    private final MongoTemplate mongoTemplate;
+    private final JournalBuilder journalBuilder;
+    private final PostingProperties properties;
+    private final PostingRunRepository runRepository;
+    private final ExecutorService runner;
+    private final ExecutorService workers;
+    private final Counter postedCounter;
+    private final Counter linesCounter;
+    private final Timer batchTimer;
+
+    public PostingEngine(MongoTemplate mongoTemplate,
+                         JournalBuilder journalBuilder,
+                         PostingProperties properties,
+                         PostingRunRepository runRepository,
+                         ObjectProvider<MeterRegistry> meterRegistry) {
+        this.mongoTemplate = mongoTemplate;
+        this.journalBuilder = journalBuilder;
+        this.properties = properties;
+        this.runRepository = runRepository;
+        this.runner = Executors.newCachedThreadPool(Thread.ofPlatform().name("posting-run-", 0).daemon().factory());
+        this.workers = Executors.newFixedThreadPool(Math.max(1, properties.getParallelism()),
+                Thread.ofPlatform().name("posting-", 0).daemon().factory());
+        MeterRegistry registry = meterRegistry.getIfAvailable();
+        this.postedCounter = registry == null ? null : Counter.builder("kewe.posting.invoices").register(registry);
+        this.linesCounter = registry == null ? null : Counter.builder("kewe.posting.journal.lines").register(registry);
+        this.batchTimer = registry == null ? null : Timer.builder("kewe.posting.batch").register(registry);
+    }
+
+    /** Records a Running run and starts it in the background. */
+    public PostingRun startRun(LocalDate accountingDateTo, List<String> supplierIds) {
+        Instant now = Instant.now();
+        PostingRun run = new PostingRun();
+        run.setType(TYPE_POSTING_RUN);
+        run.setStatus(PostingRun.STATUS_RUNNING);
+        run.setAccountingDateTo(accountingDateTo);
+        run.setSupplierIds(supplierIds == null ? List.of() : List.copyOf(new HashSet<>(supplierIds)));
+        run.setAttempts(1);
+        run.setCreatedAt(now);
+        run.setCreatedBy(SYSTEM_USER);
+        run.setUpdatedAt(now);
+        run.setUpdatedBy(SYSTEM_USER);
+        run.setHeartbeatAt(now);
+        PostingRun saved = runRepository.save(run);
+        launch(saved);
+        return saved;
+    }
+
+    /**
+     * Runs a run again in the background with its original parameters, picking up whatever is still Approved. A run
+     * that is still Running is only taken over once its heartbeat is older than the lease.
+     */
+    public PostingRun replay(String runId) {
+        Instant now = Instant.now();
+        Instant leaseExpired = now.minusMillis(properties.getLeaseMs());
+        Criteria claimable = new Criteria().orOperator(
+                Criteria.where("status").ne(PostingRun.STATUS_RUNNING),
+                Criteria.where("heartbeatAt").lt(leaseExpired),
+                Criteria.where("heartbeatAt").exists(false).and("updatedAt").lt(leaseExpired));
+        PostingRun claimed = mongoTemplate.findAndModify(
+                Query.query(new Criteria().andOperator(Criteria.where("id").is(runId), claimable)),
+                new Update().set("status", PostingRun.STATUS_RUNNING).inc("attempts", 1)
+                        .set("heartbeatAt", now).unset("finishedAt")
+                        .set("updatedAt", now).set("updatedBy", SYSTEM_USER),
+                FindAndModifyOptions.options().returnNew(true),
+                PostingRun.class);
+        if (claimed == null) {
+            getRun(runId);
+            throw new ResponseStatusException(HttpStatus.CONFLICT, "Posting run is already running");
+        }
+        launch(claimed);
+        return claimed;
+    }
+
+    public PostingRun getRun(String runId) {
+        return runRepository.findById(runId)
+                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Posting run not found: " + runId));
+    }
+
+    /** Writes the journal for one invoice outside a run; an existing journal for it is left as it is. */
+    public void writeJournal(SupplierInvoice invoice) {
+        JournalEntry journal = journalBuilder.build(invoice, null);
+        try {
+            mongoTemplate.insert(journal);
+            record(1, journal.getLines().size());
+        } catch (DuplicateKeyException ex) {
+            log.info("posting: journal for invoice {} already exists", invoice.getId());
+        }
+    }
+
+    /**
+     * Journals a batch of Approved invoices with one unordered insert and flips the journaled ones to Posted with one
+     * updateMany. Invoices journaled by an earlier attempt count as journaled.
+     */
+    public BatchResult postBatch(String postingRunId, List<SupplierInvoice> invoices) {
+        long started = System.nanoTime();
+        List<JournalEntry> journals = new ArrayList<>(invoices.size());
+        List<PostingRun.Failure> failures = new ArrayList<>();
+        for (SupplierInvoice invoice : invoices) {
+            try {
+                journals.add(journalBuilder.build(invoice, postingRunId));
+            } catch (ResponseStatusException ex) {
+                failures.add(new PostingRun.Failure(invoice.getId(), invoice.getSupplierId(), ex.getReason()));
+            }
+        }
+
+        Set<Integer> failedWrites = new HashSet<>();
+        Set<Integer> duplicates = new HashSet<>();
+        if (!journals.isEmpty()) {
+            BulkOperations bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, JournalEntry.class);
+            bulk.insert(journals);
+            try {
+                bulk.execute();
+            } catch (BulkOperationException ex) {
+                for (BulkWriteError error : ex.getErrors()) {
+                    if (error.getCode() == DUPLICATE_KEY_ERROR_CODE) {
+                        duplicates.add(error.getIndex());
+                    } else {
+                        JournalEntry journal = journals.get(error.getIndex());
+                        failedWrites.add(error.getIndex());
+                        failures.add(new PostingRun.Failure(journal.getSourceId(), journal.getSupplierId(), error.getMessage()));
+                    }
+                }
+            }
+        }
+
+        List<String> journaledIds = new ArrayList<>(journals.size());
+        long linesWritten = 0;
+        for (int i = 0; i < journals.size(); i++) {
+            if (failedWrites.contains(i)) {
+                continue;
+            }
+            journaledIds.add(journals.get(i).getSourceId());
+            if (!duplicates.contains(i)) {
+                linesWritten += journals.get(i).getLines().size();
+            }
+        }
+
+        Instant stamp = Instant.now().truncatedTo(ChronoUnit.MILLIS);
+        long posted = journaledIds.isEmpty() ? 0 : mongoTemplate.updateMulti(
+                Query.query(Criteria.where("id").in(journaledIds).and("status").is(STATUS_APPROVED)),
+                new Update().set("status", STATUS_POSTED)
+                        .set("updatedAt", stamp)
+                        .set("updatedBy", SYSTEM_USER)
+                        .inc("version", 1),
+                SupplierInvoice.class).getModifiedCount();
+
+        record(posted, linesWritten);
+        if (batchTimer != null) {
+            batchTimer.record(Duration.ofNanos(System.nanoTime() - started));
+        }
+        return new BatchResult(journaledIds, posted, linesWritten, duplicates.size(), failures, stamp);
+    }
+
+    private void launch(PostingRun run) {
+        try {
+            runner.execute(() -> {
+                try {
+                    execute(run);
+                } catch (RuntimeException ex) {
+                    log.error("posting-run: id={} attempt={} failed", run.getId(), run.getAttempts(), ex);
+                    markFailed(run, String.valueOf(ex.getMessage()));
+                }
+            });
+        } catch (RejectedExecutionException ex) {
+            markFailed(run, "Shutting down");
+        }
+    }
+
+    /** Marks this attempt Failed, unless a later attempt has taken the run over. */
+    private void markFailed(PostingRun run, String reason) {
+        Instant now = Instant.now();
+        mongoTemplate.updateFirst(currentAttempt(run).addCriteria(Criteria.where("status").is(PostingRun.STATUS_RUNNING)),
+                new Update().set("status", PostingRun.STATUS_FAILED)
+                        .set("finishedAt", now)
+                        .set("failures", List.of(new PostingRun.Failure(null, null, reason)))
+                        .set("updatedAt", now)
+                        .set("updatedBy", SYSTEM_USER),
+                PostingRun.class);
+    }
+
+    /** Extends the run's lease; false once a replay has taken the run over. */
+    private boolean heartbeat(PostingRun run) {
+        return mongoTemplate.updateFirst(currentAttempt(run).addCriteria(Criteria.where("status").is(PostingRun.STATUS_RUNNING)),
+                new Update().set("heartbeatAt", Instant.now()), PostingRun.class).getMatchedCount() == 1;
+    }
+
+    private static Query currentAttempt(PostingRun run) {
+        return Query.query(Criteria.where("id").is(run.getId()).and("attempts").is(run.getAttempts()));
+    }
+
+    private void execute(PostingRun run) {
+        long started = System.nanoTime();
+        run.setStartedAt(Instant.now());
+        RunTotals totals = new RunTotals();
+
+        List<String> suppliers = suppliersToPost(run);
+        List<Future<?>> pending = new ArrayList<>(suppliers.size());
+        for (String supplierId : suppliers) {
+            pending.add(workers.submit(() -> postSupplier(run, supplierId, totals)));
+        }
+        for (int i = 0; i < pending.size(); i++) {
+            try {
+                pending.get(i).get();
+            } catch (ExecutionException ex) {
+                totals.fail(new PostingRun.Failure(null, suppliers.get(i), String.valueOf(ex.getCause().getMessage())));
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                totals.fail(new PostingRun.Failure(null, suppliers.get(i), "Interrupted"));
+            }
+        }
+
+        long elapsedMs = Duration.ofNanos(System.nanoTime() - started).toMillis();
+        run.setStatus(totals.failed.get() == 0 ? PostingRun.STATUS_COMPLETED : PostingRun.STATUS_COMPLETED_WITH_ERRORS);
+        run.setFinishedAt(Instant.now());
+        run.setSuppliers(suppliers.size());
+        run.setBatches(totals.batches.get());
+        run.setInvoicesPosted(totals.posted.get());
+        run.setJournalLinesWritten(totals.lines.get());
+        run.setAlreadyJournaled(totals.alreadyJournaled.get());
+        run.setFailedInvoices(totals.failed.get());
+        run.setFailures(totals.recordedFailures());
+        run.setElapsedMs(elapsedMs);
+        run.setInvoicesPerSecond(elapsedMs == 0 ? totals.posted.get() : totals.posted.get() * 1000.0 / elapsedMs);
+        run.setUpdatedAt(Instant.now());
+        run.setUpdatedBy(SYSTEM_USER);
+        log.info("posting-run: id={} attempt={} suppliers={} batches={} posted={} lines={} alreadyJournaled={} failed={} elapsedMs={}",
+                run.getId(), run.getAttempts(), suppliers.size(), totals.batches.get(), totals.posted.get(), totals.lines.get(),
+                totals.alreadyJournaled.get(), totals.failed.get(), elapsedMs);
+        if (mongoTemplate.findAndReplace(currentAttempt(run), run) == null) {
+            log.warn("posting-run: id={} attempt={} was taken over by a later attempt; result not recorded",
+                    run.getId(), run.getAttempts());
+        }
+    }
+
+    private List<String> suppliersToPost(PostingRun run) {
+        Criteria criteria = Criteria.where("status").is(STATUS_APPROVED).and("accountingDate").lte(run.getAccountingDateTo());
+        if (run.getSupplierIds() != null && !run.getSupplierIds().isEmpty()) {
+            criteria.and("supplierId").in(run.getSupplierIds());
+        }
+        List<String> suppliers = new ArrayList<>(mongoTemplate.findDistinct(Query.query(criteria), "supplierId",
+                SupplierInvoice.class, String.class));
+        Collections.sort(suppliers);
+        return suppliers;
+    }
+
+    /** Posts one supplier's invoices in keyset order over the (supplierId, status, accountingDate, _id) index. */
+    private void postSupplier(PostingRun run, String supplierId, RunTotals totals) {
+        int batchSize = Math.max(1, properties.getBatchSize());
+        LocalDate lastDate = null;
+        String lastId = null;
+        while (true) {
+            Criteria criteria = Criteria.where("supplierId").is(supplierId).and("status").is(STATUS_APPROVED);
+            if (lastId == null) {
+                criteria.and("accountingDate").lte(run.getAccountingDateTo());
+            } else {
+                criteria.andOperator(
+                        Criteria.where("accountingDate").lte(run.getAccountingDateTo()),
+                        new Criteria().orOperator(
+                                Criteria.where("accountingDate").gt(lastDate),
+                                new Criteria().andOperator(Criteria.where("accountingDate").is(lastDate), Criteria.where("id").gt(lastId))));
+            }
+            Query query = new Query(criteria)
+                    .with(Sort.by(Sort.Order.asc("accountingDate"), Sort.Order.asc("id")))
+                    .limit(batchSize);
+            query.fields().exclude("attachmentsMetadata");
+            List<SupplierInvoice> batch = mongoTemplate.find(query, SupplierInvoice.class);
+            if (batch.isEmpty()) {
+                return;
+            }
+
+            BatchResult result = postBatch(run.getId(), batch);
+            totals.add(result);
+            if (!heartbeat(run)) {
+                log.warn("posting-run: id={} attempt={} was taken over; supplier {} stops here",
+                        run.getId(), run.getAttempts(), supplierId);
+                return;
+            }
+
+            SupplierInvoice last = batch.get(batch.size() - 1);
+            lastDate = last.getAccountingDate();
+            lastId = last.getId();
+            if (batch.size() < batchSize) {
+                return;
+            }
+        }
+    }
+
+    private void record(long posted, long lines) {
+        if (postedCounter != null) {
+            postedCounter.increment(posted);
+            linesCounter.increment(lines);
+        }
+    }
+
+    @PreDestroy
+    public void close() {
+        runner.shutdownNow();
+        workers.shutdownNow();
+    }
+
+    /** What one batch did; {@code journaledIds} are the invoices that now have a journal, whether new or earlier. */
+    public record BatchResult(List<String> journaledIds,
+                              long posted,
+                              long linesWritten,
+                              long alreadyJournaled,
+                              List<PostingRun.Failure> failures,
+                              Instant postedAt) {}
+
+    private static final class RunTotals {
+        private final AtomicLong batches = new AtomicLong();
+        private final AtomicLong posted = new AtomicLong();
+        private final AtomicLong lines = new AtomicLong();
+        private final AtomicLong alreadyJournaled = new AtomicLong();
+        private final AtomicLong failed = new AtomicLong();
+        private final List<PostingRun.Failure> failures = new ArrayList<>();
+
+        private void add(BatchResult result) {
+            batches.incrementAndGet();
+            posted.addAndGet(result.posted());
+            lines.addAndGet(result.linesWritten());
+            alreadyJournaled.addAndGet(result.alreadyJournaled());
+            result.failures().forEach(this::fail);
+        }
+
+        private synchronized void fail(PostingRun.Failure failure) {
+            failed.incrementAndGet();
+            if (failures.size() < MAX_RECORDED_FAILURES) {
+                failures.add(failure);
+            }
+        }
+
+        private synchronized List<PostingRun.Failure> recordedFailures() {
+            return List.copyOf(failures);
+        }
+    }
+}
@@ -0,0 +1,23 @@
+package com.kewe.core.posting;
+
+import com.kewe.core.common.MongoIndexes;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.CommandLineRunner;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Creates the indexes declared on {@link JournalEntry}. The unique idempotency key is what keeps a replayed run from
+ * journaling an invoice twice, so it has to exist before the first run.
+ */
+@Configuration
+public class PostingIndexes {
+
+    private static final Logger log = LoggerFactory.getLogger(PostingIndexes.class);
+
+    @Bean
+    CommandLineRunner ensureJournalEntryIndexes(MongoIndexes mongoIndexes) {
+        return args -> log.info("journal-entry-indexes: ensured={}", mongoIndexes.ensure(JournalEntry.class));
+    }
+}
@@ -0,0 +1,30 @@
+package com.kewe.core.posting;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+@Component
+@ConfigurationProperties(prefix = "kewe.posting")
+public class PostingProperties {
+
+    /** Invoices read, journaled and flipped to Posted per round trip. */
+    private int batchSize = 1000;
+    /** Suppliers posted at the same time during a run; one supplier is always posted by a single worker. */
+    private int parallelism = 4;
+    /** How long a Running run may go without a heartbeat before a replay may take it over. */
+    private long leaseMs = 300000;
+    private String accountsPayableLedgerAccount = "ACCOUNTS_PAYABLE";
+    /** Debit account for lines whose item has no ledger mapping, so they can be reclassified later. */
+    private String suspenseLedgerAccount = "SUSPENSE";
+
+    public int getBatchSize() { return batchSize; }
+    public void setBatchSize(int batchSize) { this.batchSize = batchSize; }
+    public int getParallelism() { return parallelism; }
+    public void setParallelism(int parallelism) { this.parallelism = parallelism; }
+    public long getLeaseMs() { return leaseMs; }
+    public void setLeaseMs(long leaseMs) { this.leaseMs = leaseMs; }
+    public String getAccountsPayableLedgerAccount() { return accountsPayableLedgerAccount; }
+    public void setAccountsPayableLedgerAccount(String accountsPayableLedgerAccount) { this.accountsPayableLedgerAccount = accountsPayableLedgerAccount; }
+    public String getSuspenseLedgerAccount() { return suspenseLedgerAccount; }
+    public void setSuspenseLedgerAccount(String suspenseLedgerAccount) { this.suspenseLedgerAccount = suspenseLedgerAccount; }
+}
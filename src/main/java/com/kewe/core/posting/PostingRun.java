@@ -0,0 +1,73 @@
+package com.kewe.core.posting;
+
+import com.kewe.core.common.CanonicalObject;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A period-end posting run: which Approved invoices it covers and what its latest attempt did. Replaying a run
+ * repeats it with the same parameters; journals written by an earlier attempt are recognised by their idempotency
+ * keys and never written twice. A Running run records a heartbeat after every batch; one whose heartbeat is older
+ * than the lease is presumed dead and may be taken over by a replay.
+ */
+@Document(collection = "posting_runs")
+public class PostingRun extends CanonicalObject {
+
+    public static final String STATUS_RUNNING = "Running";
+    public static final String STATUS_COMPLETED = "Completed";
+    public static final String STATUS_COMPLETED_WITH_ERRORS = "CompletedWithErrors";
+    public static final String STATUS_FAILED = "Failed";
+
+    private LocalDate accountingDateTo;
+    private List<String> supplierIds = new ArrayList<>();
+    private int attempts;
+    private Instant startedAt;
+    private Instant finishedAt;
+    private Instant heartbeatAt;
+    private int suppliers;
+    private long batches;
+    private long invoicesPosted;
+    private long journalLinesWritten;
+    private long alreadyJournaled;
+    private long failedInvoices;
+    private long elapsedMs;
+    private double invoicesPerSecond;
+    private List<Failure> failures = new ArrayList<>();
+
+    public LocalDate getAccountingDateTo() { return accountingDateTo; }
+    public void setAccountingDateTo(LocalDate accountingDateTo) { this.accountingDateTo = accountingDateTo; }
+    public List<String> getSupplierIds() { return supplierIds; }
+    public void setSupplierIds(List<String> supplierIds) { this.supplierIds = supplierIds; }
+    public int getAttempts() { return attempts; }
+    public void setAttempts(int attempts) { this.attempts = attempts; }
+    public Instant getStartedAt() { return startedAt; }
+    public void setStartedAt(Instant startedAt) { this.startedAt = startedAt; }
+    public Instant getFinishedAt() { return finishedAt; }
+    public void setFinishedAt(Instant finishedAt) { this.finishedAt = finishedAt; }
+    public Instant getHeartbeatAt() { return heartbeatAt; }
+    public void setHeartbeatAt(Instant heartbeatAt) { this.heartbeatAt = heartbeatAt; }
+    public int getSuppliers() { return suppliers; }
+    public void setSuppliers(int suppliers) { this.suppliers = suppliers; }
+    public long getBatches() { return batches; }
+    public void setBatches(long batches) { this.batches = batches; }
+    public long getInvoicesPosted() { return invoicesPosted; }
+    public void setInvoicesPosted(long invoicesPosted) { this.invoicesPosted = invoicesPosted; }
+    public long getJournalLinesWritten() { return journalLinesWritten; }
+    public void setJournalLinesWritten(long journalLinesWritten) { this.journalLinesWritten = journalLinesWritten; }
+    public long getAlreadyJournaled() { return alreadyJournaled; }
+    public void setAlreadyJournaled(long alreadyJournaled) { this.alreadyJournaled = alreadyJournaled; }
+    public long getFailedInvoices() { return failedInvoices; }
+    public void setFailedInvoices(long failedInvoices) { this.failedInvoices = failedInvoices; }
+    public long getElapsedMs() { return elapsedMs; }
+    public void setElapsedMs(long elapsedMs) { this.elapsedMs = elapsedMs; }
+    public double getInvoicesPerSecond() { return invoicesPerSecond; }
+    public void setInvoicesPerSecond(double invoicesPerSecond) { this.invoicesPerSecond = invoicesPerSecond; }
+    public List<Failure> getFailures() { return failures; }
+    public void setFailures(List<Failure> failures) { this.failures = failures; }
+
+    public record Failure(String invoiceId, String supplierId, String message) {}
+}
@@ -0,0 +1,6 @@
+package com.kewe.core.posting;
+
+import org.springframework.data.mongodb.repository.MongoRepository;
+
+public interface PostingRunRepository extends MongoRepository<PostingRun, String> {
+}
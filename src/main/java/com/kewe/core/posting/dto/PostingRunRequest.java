@@ -0,0 +1,18 @@
+package com.kewe.core.posting.dto;
+
+import jakarta.validation.constraints.NotNull;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+public class PostingRunRequest {
+    @NotNull
+    private LocalDate accountingDateTo;
+    private List<String> supplierIds = new ArrayList<>();
+
+    public LocalDate getAccountingDateTo() { return accountingDateTo; }
+    public void setAccountingDateTo(LocalDate accountingDateTo) { this.accountingDateTo = accountingDateTo; }
+    public List<String> getSupplierIds() { return supplierIds; }
+    public void setSupplierIds(List<String> supplierIds) { this.supplierIds = supplierIds; }
+}
@@ -0,0 +1,54 @@
+package com.kewe.core.requisition;
+
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.index.CompoundIndexes;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.Instant;
+
+/** Funds set aside for one line of a submitted requisition, with the accounting derived for it at submit. */
+@Document(collection = "pre_encumbrances")
+@CompoundIndexes({
+        @CompoundIndex(name = "uk_pe_requisition_line", def = "{'requisitionId': 1, 'lineNumber': 1}", unique = true),
+        @CompoundIndex(name = "idx_pe_dimension_status", def = "{'chargingBusinessDimensionId': 1, 'status': 1}")
+})
+public class PreEncumbrance {
+    public static final String STATUS_OPEN = "OPEN";
+
+    @Id
+    private String id;
+    private String requisitionId;
+    private int lineNumber;
+    private String chargingBusinessDimensionId;
+    private String organizationNodeId;
+    private String fundNodeId;
+    private String functionNodeId;
+    private double amount;
+    private String status;
+    private Instant createdAt;
+    private String createdBy;
+
+    public String getId() { return id; }
+    public void setId(String id) { this.id = id; }
+    public String getRequisitionId() { return requisitionId; }
+    public void setRequisitionId(String requisitionId) { this.requisitionId = requisitionId; }
+    public int getLineNumber() { return lineNumber; }
+    public void setLineNumber(int lineNumber) { this.lineNumber = lineNumber; }
+    public String getChargingBusinessDimensionId() { return chargingBusinessDimensionId; }
+    public void setChargingBusinessDimensionId(String chargingBusinessDimensionId) { this.chargingBusinessDimensionId = chargingBusinessDimensionId; }
+    public String getOrganizationNodeId() { return organizationNodeId; }
+    public void setOrganizationNodeId(String organizationNodeId) { this.organizationNodeId = organizationNodeId; }
+    public String getFundNodeId() { return fundNodeId; }
+    public void setFundNodeId(String fundNodeId) { this.fundNodeId = fundNodeId; }
+    public String getFunctionNodeId() { return functionNodeId; }
+    public void setFunctionNodeId(String functionNodeId) { this.functionNodeId = functionNodeId; }
+    public double getAmount() { return amount; }
+    public void setAmount(double amount) { this.amount = amount; }
+    public String getStatus() { return status; }
+    public void setStatus(String status) { this.status = status; }
+    public Instant getCreatedAt() { return createdAt; }
+    public void setCreatedAt(Instant createdAt) { this.createdAt = createdAt; }
+    public String getCreatedBy() { return createdBy; }
+    public void setCreatedBy(String createdBy) { this.createdBy = createdBy; }
+}
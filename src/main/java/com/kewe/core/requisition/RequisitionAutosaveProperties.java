@@ -0,0 +1,23 @@
+package com.kewe.core.requisition;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+@Component
+@ConfigurationProperties(prefix = "kewe.requisitions.autosave")
+public class RequisitionAutosaveProperties {
+
+    /** Buffer draft PUTs and write them behind; when off every PUT is written before it returns. */
+    private boolean enabled = true;
+    /** Quiet time after the last PUT before a buffered draft is written. */
+    private long debounceMs = 1500;
+    /** Longest a buffered draft waits while PUTs keep arriving. */
+    private long maxDelayMs = 10000;
+
+    public boolean isEnabled() { return enabled; }
+    public void setEnabled(boolean enabled) { this.enabled = enabled; }
+    public long getDebounceMs() { return debounceMs; }
+    public void setDebounceMs(long debounceMs) { this.debounceMs = debounceMs; }
+    public long getMaxDelayMs() { return maxDelayMs; }
+    public void setMaxDelayMs(long maxDelayMs) { this.maxDelayMs = maxDelayMs; }
+}
@@ -1,6 +1,7 @@
 package com.kewe.core.requisition;
 
 import com.kewe.core.common.CanonicalObject;
+import org.springframework.data.annotation.Version;
 import org.springframework.data.mongodb.core.mapping.Document;
 
 import java.time.LocalDate;
@@ -9,6 +10,12 @@ import java.util.List;
 
 @Document(collection = "requisition_drafts")
 public class RequisitionDraft extends CanonicalObject {
+    /**
+     * Statuses whose lines count as bought, for the catalog and matching indexes. Only SUBMITTED exists today; later
+     * workflow statuses (approved, ordered) belong here, cancelled or rejected ones never do.
+     */
+    public static final List<String> PURCHASED_STATUSES = List.of("SUBMITTED");
+
     private String title;
     private String memo;
     private String requesterName;
@@ -19,6 +26,8 @@ public class RequisitionDraft extends CanonicalObject {
     private String chargingBusinessDimensionName;
     private List<RequisitionLine> lines = new ArrayList<>();
     private RequisitionTotals totals = new RequisitionTotals();
+    @Version
+    private Long version;
 
     public String getTitle() { return title; }
     public void setTitle(String title) { this.title = title; }
@@ -40,4 +49,6 @@ public class RequisitionDraft extends CanonicalObject {
     public void setLines(List<RequisitionLine> lines) { this.lines = lines; }
     public RequisitionTotals getTotals() { return totals; }
     public void setTotals(RequisitionTotals totals) { this.totals = totals; }
+    public Long getVersion() { return version; }
+    public void setVersion(Long version) { this.version = version; }
 }
@@ -0,0 +1,315 @@
+package com.kewe.core.requisition;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.bson.Document;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * Write-behind buffer for draft autosaves. Edits to a draft are applied to one in-memory copy, loaded on the first
+ * edit, and written once the draft has been quiet for the debounce (or has waited the max delay), before it is
+ * submitted or edited line by line, and on shutdown. Writes are conditioned on the version the copy was read at;
+ * when another instance wrote in between, the buffered edits are dropped with a 409 rather than written over lines
+ * and totals they never saw, and the next edit starts again from the stored draft.
+ * <p>
+ * A copy with unwritten edits reports the version its write will store, so a PUT answers with the version the
+ * client's edit will have. A client that sends that version back has a stale one rejected up front with a 409
+ * instead of buffered: an older copy cannot be accepted here and later lose, or win, against a newer edit that
+ * reached another instance. Callers always get their own copy of the draft, never the buffered one.
+ */
+@Component
+public class RequisitionDraftBuffer {
+
+    private static final Logger log = LoggerFactory.getLogger(RequisitionDraftBuffer.class);
+    private static final String STATUS_DRAFT = "DRAFT";
+    private static final String SYSTEM_USER = "system";
+
+    private final MongoTemplate mongoTemplate;
+    private final RequisitionAutosaveProperties properties;
+    private final ConcurrentHashMap<String, Pending> pending = new ConcurrentHashMap<>();
+    private final ScheduledExecutorService scheduler;
+    private final Counter editsCounter;
+    private final Counter writesCounter;
+    private final Counter conflictsCounter;
+
+    public RequisitionDraftBuffer(MongoTemplate mongoTemplate,
+                                  RequisitionAutosaveProperties properties,
+                                  ObjectProvider<MeterRegistry> meterRegistry) {
+        this.mongoTemplate = mongoTemplate;
+        this.properties = properties;
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(
+                Thread.ofPlatform().name("requisition-autosave").daemon().factory());
+        MeterRegistry registry = meterRegistry.getIfAvailable();
+        this.editsCounter = registry == null ? null : Counter.builder("kewe.requisitions.autosave.edits").register(registry);
+        this.writesCounter = registry == null ? null : Counter.builder("kewe.requisitions.autosave.writes").register(registry);
+        this.conflictsCounter = registry == null ? null : Counter.builder("kewe.requisitions.autosave.conflicts").register(registry);
+    }
+
+    /**
+     * Applies {@code edit} to the buffered copy of the draft, loading it with {@code loader} when nothing is buffered,
+     * and returns a copy of the result. When {@code expectedVersion} is given it must be the version this instance
+     * reports for the draft. With autosave off the copy is written before returning.
+     */
+    public RequisitionDraft edit(String id, Long expectedVersion, Function<String, RequisitionDraft> loader,
+                                 Consumer<RequisitionDraft> edit) {
+        while (true) {
+            Pending entry = pending.computeIfAbsent(id, Pending::new);
+            synchronized (entry) {
+                if (entry.retired) {
+                    continue;
+                }
+                try {
+                    if (entry.draft == null) {
+                        entry.draft = loader.apply(id);
+                        entry.storedVersion = entry.draft.getVersion();
+                    }
+                    if (expectedVersion != null && !expectedVersion.equals(entry.draft.getVersion())) {
+                        throw new ResponseStatusException(HttpStatus.CONFLICT, "Requisition draft is at version "
+                                + entry.draft.getVersion() + ", not " + expectedVersion + "; reload and retry");
+                    }
+                    edit.accept(entry.draft);
+                } catch (RuntimeException ex) {
+                    if (!entry.dirty) {
+                        retire(entry);
+                    }
+                    throw ex;
+                }
+                if (!entry.dirty) {
+                    entry.draft.setVersion(nextVersion(entry.storedVersion));
+                    entry.dirty = true;
+                }
+                entry.lastEditNanos = System.nanoTime();
+                if (entry.firstEditNanos == 0) {
+                    entry.firstEditNanos = entry.lastEditNanos;
+                }
+                increment(editsCounter);
+                if (!properties.isEnabled()) {
+                    try {
+                        write(entry);
+                    } finally {
+                        retire(entry);
+                    }
+                } else if (!entry.scheduled) {
+                    entry.scheduled = true;
+                    schedule(entry, properties.getDebounceMs());
+                }
+                return copy(entry.draft);
+            }
+        }
+    }
+
+    /** A copy of the buffered draft, if it has edits not yet written. */
+    public Optional<RequisitionDraft> buffered(String id) {
+        Pending entry = pending.get(id);
+        if (entry == null) {
+            return Optional.empty();
+        }
+        synchronized (entry) {
+            return entry.retired || !entry.dirty ? Optional.empty() : Optional.of(copy(entry.draft));
+        }
+    }
+
+    /**
+     * Writes the draft's buffered edits now, if it has any, for callers that go on to read or change the stored
+     * draft. A conflict drops the edits and is rethrown; any other failure is rethrown with the edits kept for the
+     * scheduled retry.
+     */
+    public void flush(String id) {
+        Pending entry = pending.get(id);
+        if (entry == null) {
+            return;
+        }
+        synchronized (entry) {
+            if (entry.retired) {
+                return;
+            }
+            try {
+                if (entry.dirty) {
+                    write(entry);
+                }
+            } catch (ResponseStatusException ex) {
+                retire(entry);
+                throw ex;
+            } catch (RuntimeException ex) {
+                if (!entry.scheduled) {
+                    entry.scheduled = true;
+                    schedule(entry, properties.getDebounceMs());
+                }
+                throw ex;
+            }
+            retire(entry);
+        }
+    }
+
+    @PreDestroy
+    public void flushAll() {
+        scheduler.shutdownNow();
+        int flushed = 0;
+        for (Pending entry : new ArrayList<>(pending.values())) {
+            synchronized (entry) {
+                if (!entry.retired && entry.dirty) {
+                    flushed++;
+                }
+                flushOnShutdown(entry);
+            }
+        }
+        if (flushed > 0) {
+            log.info("requisition-autosave: flushed {} buffered drafts on shutdown", flushed);
+        }
+    }
+
+    private void schedule(Pending entry, long delayMs) {
+        if (scheduler.isShutdown()) {
+            return;
+        }
+        scheduler.schedule(() -> onDue(entry), delayMs, TimeUnit.MILLISECONDS);
+    }
+
+    /** Writes the entry once it has been quiet for the debounce, or has waited the max delay; otherwise checks back. */
+    private void onDue(Pending entry) {
+        synchronized (entry) {
+            if (entry.retired) {
+                return;
+            }
+            long now = System.nanoTime();
+            long quietMs = Duration.ofNanos(now - entry.lastEditNanos).toMillis();
+            long waitedMs = Duration.ofNanos(now - entry.firstEditNanos).toMillis();
+            long untilQuiet = properties.getDebounceMs() - quietMs;
+            long untilMaxDelay = properties.getMaxDelayMs() - waitedMs;
+            if (untilQuiet > 0 && untilMaxDelay > 0) {
+                schedule(entry, Math.min(untilQuiet, untilMaxDelay));
+                return;
+            }
+            try {
+                if (entry.dirty) {
+                    write(entry);
+                }
+                retire(entry);
+            } catch (ResponseStatusException ex) {
+                log.warn("requisition-autosave: dropped buffered edits for draft {}: {}", entry.id, ex.getReason());
+                retire(entry);
+            } catch (RuntimeException ex) {
+                log.warn("requisition-autosave: could not write draft {}, retrying: {}", entry.id, ex.getMessage());
+                schedule(entry, properties.getDebounceMs());
+            }
+        }
+    }
+
+    private void flushOnShutdown(Pending entry) {
+        if (entry.retired) {
+            return;
+        }
+        try {
+            if (entry.dirty) {
+                write(entry);
+            }
+        } catch (ResponseStatusException ex) {
+            log.warn("requisition-autosave: dropped buffered edits for draft {}: {}", entry.id, ex.getReason());
+        } catch (RuntimeException ex) {
+            log.error("requisition-autosave: could not write draft {}; buffered edits dropped", entry.id, ex);
+        } finally {
+            retire(entry);
+        }
+    }
+
+    private void write(Pending entry) {
+        RequisitionDraft draft = entry.draft;
+        Query query = Query.query(Criteria.where("_id").is(entry.id)
+                .and("status").is(STATUS_DRAFT)
+                .and("version").is(entry.storedVersion));
+        if (mongoTemplate.updateFirst(query, editableFields(draft), RequisitionDraft.class).getMatchedCount() == 1) {
+            entry.storedVersion = draft.getVersion();
+            entry.dirty = false;
+            increment(writesCounter);
+            return;
+        }
+        increment(conflictsCounter);
+        Query current = Query.query(Criteria.where("_id").is(entry.id));
+        current.fields().include("status");
+        RequisitionDraft stored = mongoTemplate.findOne(current, RequisitionDraft.class);
+        if (stored == null) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Requisition draft not found");
+        }
+        if (!STATUS_DRAFT.equals(stored.getStatus())) {
+            throw new ResponseStatusException(HttpStatus.CONFLICT, "Only DRAFT requisitions can be edited");
+        }
+        throw new ResponseStatusException(HttpStatus.CONFLICT,
+                "Requisition draft was changed elsewhere; unsaved edits were discarded, reload and retry");
+    }
+
+    private Update editableFields(RequisitionDraft draft) {
+        return new Update()
+                .set("title", draft.getTitle())
+                .set("memo", draft.getMemo())
+                .set("requesterName", draft.getRequesterName())
+                .set("currency", draft.getCurrency())
+                .set("needByDate", draft.getNeedByDate())
+                .set("chargingBusinessDimensionId", draft.getChargingBusinessDimensionId())
+                .set("chargingBusinessDimensionCode", draft.getChargingBusinessDimensionCode())
+                .set("chargingBusinessDimensionName", draft.getChargingBusinessDimensionName())
+                .set("lines", draft.getLines())
+                .set("totals", draft.getTotals())
+                .set("updatedAt", draft.getUpdatedAt())
+                .set("updatedBy", SYSTEM_USER)
+                .set("version", draft.getVersion());
+    }
+
+    private static long nextVersion(Long storedVersion) {
+        return storedVersion == null ? 1 : storedVersion + 1;
+    }
+
+    /** A detached copy, so callers can serialize or change it outside the entry's monitor. */
+    private RequisitionDraft copy(RequisitionDraft draft) {
+        Document document = new Document();
+        mongoTemplate.getConverter().write(draft, document);
+        return mongoTemplate.getConverter().read(RequisitionDraft.class, document);
+    }
+
+    private void retire(Pending entry) {
+        entry.retired = true;
+        pending.remove(entry.id, entry);
+    }
+
+    private void increment(Counter counter) {
+        if (counter != null) {
+            counter.increment();
+        }
+    }
+
+    /** One draft's buffered state; guarded by its own monitor. */
+    private static final class Pending {
+        private final String id;
+        private RequisitionDraft draft;
+        /** The version stored in Mongo that the buffered copy is based on; the copy reports the next one once dirty. */
+        private Long storedVersion;
+        private boolean dirty;
+        private boolean scheduled;
+        private boolean retired;
+        private long firstEditNanos;
+        private long lastEditNanos;
+
+        private Pending(String id) {
+            this.id = id;
+        }
+    }
+}
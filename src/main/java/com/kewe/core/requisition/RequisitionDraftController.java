@@ -3,6 +3,8 @@ package com.kewe.core.requisition;
 import org.springframework.http.HttpStatus;
 import org.springframework.web.bind.annotation.*;
 
+import java.util.List;
+
 @RestController
 @RequestMapping("/api/requisitions/drafts")
 public class RequisitionDraftController {
@@ -19,8 +21,9 @@ public class RequisitionDraftController {
     }
 
     @GetMapping("/{id}")
-    public RequisitionDraft get(@PathVariable String id) {
-        return service.getDraft(id);
+    public RequisitionDraft get(@PathVariable String id,
+                                @RequestParam(defaultValue = "true") boolean includeLines) {
+        return includeLines ? service.getDraft(id) : service.getDraftHeader(id);
     }
 
     @PutMapping("/{id}")
@@ -28,8 +31,37 @@ public class RequisitionDraftController {
         return service.updateDraft(id, payload);
     }
 
+    @GetMapping("/{id}/lines")
+    public RequisitionLinePage lines(@PathVariable String id,
+                                     @RequestParam(defaultValue = "0") int offset,
+                                     @RequestParam(defaultValue = "100") int limit) {
+        return service.getLines(id, offset, limit);
+    }
+
+    @PostMapping("/{id}/lines")
+    @ResponseStatus(HttpStatus.CREATED)
+    public RequisitionLineResult addLine(@PathVariable String id, @RequestBody RequisitionLine line) {
+        return service.addLine(id, line);
+    }
+
+    @PutMapping("/{id}/lines/{lineNumber}")
+    public RequisitionLineResult updateLine(@PathVariable String id, @PathVariable int lineNumber,
+                                            @RequestBody RequisitionLine line) {
+        return service.updateLine(id, lineNumber, line);
+    }
+
+    @DeleteMapping("/{id}/lines/{lineNumber}")
+    public RequisitionLineResult deleteLine(@PathVariable String id, @PathVariable int lineNumber) {
+        return service.deleteLine(id, lineNumber);
+    }
+
     @PostMapping("/{id}/submit")
     public RequisitionDraft submit(@PathVariable String id) {
         return service.submit(id);
     }
+
+    @GetMapping("/{id}/pre-encumbrances")
+    public List<PreEncumbrance> preEncumbrances(@PathVariable String id) {
+        return service.getPreEncumbrances(id);
+    }
 }
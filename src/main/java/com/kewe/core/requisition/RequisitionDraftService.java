@@ -2,21 +2,45 @@ package com.kewe.core.requisition;
 
 import com.kewe.core.businessobjects.BusinessObjectInstance;
 import com.kewe.core.businessobjects.BusinessObjectRepository;
+import org.bson.Document;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.aggregation.ArrayOperators;
+import org.springframework.data.mongodb.core.aggregation.ConditionalOperators;
+import org.springframework.data.mongodb.core.aggregation.TypedAggregation;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
 import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
 import org.springframework.web.server.ResponseStatusException;
 
 import java.time.Instant;
+import java.util.ArrayList;
 import java.util.Comparator;
+import java.util.List;
 
 @Service
 public class RequisitionDraftService {
+    static final int MAX_LINE_PAGE_SIZE = 500;
+    private static final int LINE_WRITE_ATTEMPTS = 3;
+
     private final RequisitionDraftRepository repository;
     private final BusinessObjectRepository businessObjectRepository;
+    private final MongoTemplate mongoTemplate;
+    private final RequisitionSubmitPipeline submitPipeline;
+    private final RequisitionDraftBuffer draftBuffer;
 
-    public RequisitionDraftService(RequisitionDraftRepository repository, BusinessObjectRepository businessObjectRepository) {
+    public RequisitionDraftService(RequisitionDraftRepository repository, BusinessObjectRepository businessObjectRepository,
+                                   MongoTemplate mongoTemplate, RequisitionSubmitPipeline submitPipeline,
+                                   RequisitionDraftBuffer draftBuffer) {
         this.repository = repository;
         this.businessObjectRepository = businessObjectRepository;
+        this.mongoTemplate = mongoTemplate;
+        this.submitPipeline = submitPipeline;
+        this.draftBuffer = draftBuffer;
     }
 
     public RequisitionDraft createDraft() {
@@ -31,42 +55,226 @@ public class RequisitionDraftService {
         return repository.save(draft);
     }
 
+    /** The draft as last saved, or with its buffered autosave edits when this instance holds any. */
     public RequisitionDraft getDraft(String id) {
+        return draftBuffer.buffered(id).orElseGet(() -> loadDraft(id));
+    }
+
+    private RequisitionDraft loadDraft(String id) {
         return repository.findById(id).orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Requisition draft not found"));
     }
 
+    /** The draft without its lines, for callers that page through them with {@link #getLines}. */
+    public RequisitionDraft getDraftHeader(String id) {
+        draftBuffer.flush(id);
+        Query query = new Query(Criteria.where("_id").is(id));
+        query.fields().exclude("lines");
+        RequisitionDraft draft = mongoTemplate.findOne(query, RequisitionDraft.class);
+        if (draft == null) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Requisition draft not found");
+        }
+        return draft;
+    }
+
+    /**
+     * Autosave target. The edit lands in {@link RequisitionDraftBuffer}, so a burst of PUTs costs one read and one
+     * write; the charging dimension is only looked up when its id changes. A {@code version} in the payload must be
+     * the draft's current one.
+     */
     public RequisitionDraft updateDraft(String id, RequisitionDraft payload) {
-        RequisitionDraft current = getDraft(id);
+        return draftBuffer.edit(id, payload.getVersion(), this::loadDraft, current -> applyEdit(current, payload));
+    }
+
+    private void applyEdit(RequisitionDraft current, RequisitionDraft payload) {
         if (!"DRAFT".equals(current.getStatus())) {
             throw new ResponseStatusException(HttpStatus.CONFLICT, "Only DRAFT requisitions can be edited");
         }
 
+        String dimensionId = payload.getChargingBusinessDimensionId();
+        boolean dimensionResolved = dimensionId != null && dimensionId.equals(current.getChargingBusinessDimensionId())
+                && current.getChargingBusinessDimensionCode() != null;
+        if (!dimensionResolved) {
+            BusinessObjectInstance dimension = dimensionId == null ? null
+                    : businessObjectRepository.findById(dimensionId).orElse(null);
+            current.setChargingBusinessDimensionCode(dimension == null ? payload.getChargingBusinessDimensionCode() : dimension.getCode());
+            current.setChargingBusinessDimensionName(dimension == null ? payload.getChargingBusinessDimensionName() : dimension.getName());
+        }
         current.setTitle(payload.getTitle());
         current.setMemo(payload.getMemo());
         current.setRequesterName(payload.getRequesterName());
         current.setCurrency(payload.getCurrency());
         current.setNeedByDate(payload.getNeedByDate());
-        current.setChargingBusinessDimensionId(payload.getChargingBusinessDimensionId());
-        BusinessObjectInstance dimension = payload.getChargingBusinessDimensionId() == null ? null
-                : businessObjectRepository.findById(payload.getChargingBusinessDimensionId()).orElse(null);
-        current.setChargingBusinessDimensionCode(dimension == null ? payload.getChargingBusinessDimensionCode() : dimension.getCode());
-        current.setChargingBusinessDimensionName(dimension == null ? payload.getChargingBusinessDimensionName() : dimension.getName());
-
-        current.setLines(payload.getLines() == null ? java.util.List.of() : payload.getLines().stream()
-                .sorted(Comparator.comparingInt(RequisitionLine::getLineNumber))
-                .toList());
-        RequisitionTotals totals = new RequisitionTotals();
-        totals.setSubtotal(current.getLines().stream().mapToDouble(RequisitionLine::getAmount).sum());
-        current.setTotals(totals);
+        current.setChargingBusinessDimensionId(dimensionId);
+
+        List<RequisitionLine> lines = payload.getLines() == null ? new ArrayList<>() : new ArrayList<>(payload.getLines());
+        lines.sort(Comparator.comparingInt(RequisitionLine::getLineNumber));
+        current.setLines(lines);
+        current.setTotals(totalsOf(lines));
         touchUpdate(current);
-        return repository.save(current);
     }
 
     public RequisitionDraft submit(String id) {
-        RequisitionDraft current = getDraft(id);
-        current.setStatus("SUBMITTED");
-        touchUpdate(current);
-        return repository.save(current);
+        draftBuffer.flush(id);
+        return submitPipeline.submit(loadDraft(id));
+    }
+
+    public List<PreEncumbrance> getPreEncumbrances(String id) {
+        getDraftHeader(id);
+        return submitPipeline.preEncumbrances(id);
+    }
+
+    /**
+     * Lines in line-number order, {@code limit} at a time, sliced on the server so a 1,000-line draft is not read
+     * whole to show one page.
+     */
+    public RequisitionLinePage getLines(String id, int offset, int limit) {
+        if (offset < 0 || limit < 1 || limit > MAX_LINE_PAGE_SIZE) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    "offset must be >= 0 and limit between 1 and " + MAX_LINE_PAGE_SIZE);
+        }
+        draftBuffer.flush(id);
+        ConditionalOperators.IfNull lines = ConditionalOperators.ifNull("lines").then(List.of());
+        TypedAggregation<RequisitionDraft> aggregation = Aggregation.newAggregation(RequisitionDraft.class,
+                Aggregation.match(Criteria.where("_id").is(id)),
+                Aggregation.project()
+                        .and(ArrayOperators.Size.lengthOfArray(lines)).as("total")
+                        .and(ArrayOperators.Slice.sliceArrayOf(lines).offset(offset).itemCount(limit)).as("lines"));
+        Document row = mongoTemplate.aggregate(aggregation, Document.class).getUniqueMappedResult();
+        if (row == null) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Requisition draft not found");
+        }
+        List<Document> documents = row.getList("lines", Document.class, List.of());
+        List<RequisitionLine> page = new ArrayList<>(documents.size());
+        for (Document document : documents) {
+            page.add(mongoTemplate.getConverter().read(RequisitionLine.class, document));
+        }
+        return new RequisitionLinePage(id, row.getInteger("total", 0), offset, limit, page);
+    }
+
+    /**
+     * Inserts one line in line-number order with {@code $push} and {@code $sort}, moving the subtotal by the line's
+     * cents. A line number of zero takes the next one after the current last line.
+     */
+    public RequisitionLineResult addLine(String id, RequisitionLine line) {
+        draftBuffer.flush(id);
+        boolean assigned = line.getLineNumber() <= 0;
+        for (int attempt = 0; attempt < LINE_WRITE_ATTEMPTS; attempt++) {
+            if (assigned) {
+                List<RequisitionLine> last = editableDraft(id, lastLineQuery(id)).getLines();
+                line.setLineNumber(last == null || last.isEmpty() ? 1 : last.get(0).getLineNumber() + 1);
+            }
+            Query query = editableQuery(id).addCriteria(Criteria.where("lines.lineNumber").ne(line.getLineNumber()));
+            Update update = touch(new Update()
+                    .inc("totals.subtotalCents", line.getAmountCents()));
+            update.push("lines").sort(Sort.by("lineNumber")).each(line);
+            RequisitionDraft updated = modify(query, update);
+            if (updated != null) {
+                return new RequisitionLineResult(id, line, updated.getTotals());
+            }
+            editableDraft(id, new Query(Criteria.where("_id").is(id)));
+            if (!assigned) {
+                throw new ResponseStatusException(HttpStatus.CONFLICT, "Line " + line.getLineNumber() + " already exists");
+            }
+        }
+        throw concurrentLineWrite();
+    }
+
+    /**
+     * Replaces one line in place with a positional {@code $set}. The update only applies while the stored line still
+     * has the amount it was read with, so the subtotal moves by exactly the difference even under concurrent edits.
+     */
+    public RequisitionLineResult updateLine(String id, int lineNumber, RequisitionLine line) {
+        draftBuffer.flush(id);
+        line.setLineNumber(lineNumber);
+        for (int attempt = 0; attempt < LINE_WRITE_ATTEMPTS; attempt++) {
+            RequisitionLine stored = storedLine(id, lineNumber);
+            Update update = touch(new Update()
+                    .set("lines.$", line)
+                    .inc("totals.subtotalCents", line.getAmountCents() - stored.getAmountCents()));
+            RequisitionDraft updated = modify(storedLineQuery(id, stored), update);
+            if (updated != null) {
+                return new RequisitionLineResult(id, line, updated.getTotals());
+            }
+        }
+        throw concurrentLineWrite();
+    }
+
+    public RequisitionLineResult deleteLine(String id, int lineNumber) {
+        draftBuffer.flush(id);
+        for (int attempt = 0; attempt < LINE_WRITE_ATTEMPTS; attempt++) {
+            RequisitionLine stored = storedLine(id, lineNumber);
+            Update update = touch(new Update()
+                    .pull("lines", new Document("lineNumber", lineNumber))
+                    .inc("totals.subtotalCents", -stored.getAmountCents()));
+            RequisitionDraft updated = modify(storedLineQuery(id, stored), update);
+            if (updated != null) {
+                return new RequisitionLineResult(id, stored, updated.getTotals());
+            }
+        }
+        throw concurrentLineWrite();
+    }
+
+    private RequisitionLine storedLine(String id, int lineNumber) {
+        Query query = new Query(Criteria.where("_id").is(id));
+        query.fields().include("status").elemMatch("lines", Criteria.where("lineNumber").is(lineNumber));
+        List<RequisitionLine> lines = editableDraft(id, query).getLines();
+        if (lines == null || lines.isEmpty()) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Requisition line not found");
+        }
+        return lines.get(0);
+    }
+
+    private Query lastLineQuery(String id) {
+        Query query = new Query(Criteria.where("_id").is(id));
+        query.fields().include("status").slice("lines", -1);
+        return query;
+    }
+
+    private RequisitionDraft editableDraft(String id, Query query) {
+        RequisitionDraft draft = mongoTemplate.findOne(query, RequisitionDraft.class);
+        if (draft == null) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Requisition draft not found");
+        }
+        if (!"DRAFT".equals(draft.getStatus())) {
+            throw new ResponseStatusException(HttpStatus.CONFLICT, "Only DRAFT requisitions can be edited");
+        }
+        return draft;
+    }
+
+    private Query editableQuery(String id) {
+        return new Query(Criteria.where("_id").is(id).and("status").is("DRAFT"));
+    }
+
+    private Query storedLineQuery(String id, RequisitionLine stored) {
+        return editableQuery(id).addCriteria(Criteria.where("lines").elemMatch(
+                Criteria.where("lineNumber").is(stored.getLineNumber()).and("amountCents").is(stored.getAmountCents())));
+    }
+
+    /** Applies the update and returns only the resulting totals; null when the query no longer matches. */
+    private RequisitionDraft modify(Query query, Update update) {
+        query.fields().include("totals");
+        return mongoTemplate.findAndModify(query, update, FindAndModifyOptions.options().returnNew(true),
+                RequisitionDraft.class);
+    }
+
+    /** Every line write also bumps the version, so a buffered autosave of an older copy is rejected on flush. */
+    private Update touch(Update update) {
+        return update.set("updatedAt", Instant.now()).set("updatedBy", "system").inc("version", 1);
+    }
+
+    private ResponseStatusException concurrentLineWrite() {
+        return new ResponseStatusException(HttpStatus.CONFLICT, "Requisition line was modified concurrently; retry");
+    }
+
+    /** Sums the line amounts in cents, the same arithmetic the line updates apply with {@code $inc}. */
+    static RequisitionTotals totalsOf(List<RequisitionLine> lines) {
+        long subtotalCents = 0;
+        for (RequisitionLine line : lines) {
+            subtotalCents += line.getAmountCents();
+        }
+        RequisitionTotals totals = new RequisitionTotals();
+        totals.setSubtotalCents(subtotalCents);
+        return totals;
     }
 
     private void touchCreate(RequisitionDraft value) {
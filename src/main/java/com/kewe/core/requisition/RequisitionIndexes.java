@@ -0,0 +1,64 @@
+package com.kewe.core.requisition;
+
+import com.kewe.core.common.MigrationMarkers;
+import com.kewe.core.common.MongoIndexes;
+import org.bson.Document;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.CommandLineRunner;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.AggregationUpdate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+import java.util.List;
+
+/**
+ * Creates the indexes declared on {@link PreEncumbrance}: one pre-encumbrance per requisition line, and the budget
+ * check sums the open ones per charging dimension. Requisitions written before the {@code version} field existed
+ * get version 0, otherwise Spring Data would treat them as new and try to insert them again on save. That update
+ * is unindexed, so it runs once and is then recorded in {@link MigrationMarkers}. Drafts written before amounts
+ * were kept in cents get {@code lines.amountCents} and {@code totals.subtotalCents} the same way.
+ */
+@Configuration
+public class RequisitionIndexes {
+
+    private static final Logger log = LoggerFactory.getLogger(RequisitionIndexes.class);
+    private static final String VERSION_MIGRATION = "requisition-version";
+    private static final String CENTS_MIGRATION = "requisition-amount-cents";
+
+    @Bean
+    CommandLineRunner ensurePreEncumbranceIndexes(MongoTemplate mongoTemplate, MongoIndexes mongoIndexes,
+                                                  MigrationMarkers migrations) {
+        return args -> {
+            long versioned = 0;
+            if (!migrations.isComplete(VERSION_MIGRATION)) {
+                versioned = mongoTemplate.updateMulti(Query.query(Criteria.where("version").exists(false)),
+                        new Update().set("version", 0L), RequisitionDraft.class).getModifiedCount();
+                migrations.markComplete(VERSION_MIGRATION);
+            }
+            long centsStamped = 0;
+            if (!migrations.isComplete(CENTS_MIGRATION)) {
+                centsStamped = mongoTemplate.updateMulti(Query.query(Criteria.where("totals.subtotalCents").exists(false)),
+                        centsUpdate(), RequisitionDraft.class).getModifiedCount();
+                migrations.markComplete(CENTS_MIGRATION);
+            }
+            log.info("pre-encumbrance-indexes: ensured={} versionedRequisitions={} centsStampedRequisitions={}",
+                    mongoIndexes.ensure(PreEncumbrance.class), versioned, centsStamped);
+        };
+    }
+
+    /** Rounds each stored line amount to cents, then sums those into the subtotal. */
+    private static AggregationUpdate centsUpdate() {
+        Document amountCents = new Document("$toLong", new Document("$round", List.of(
+                new Document("$multiply", List.of(new Document("$ifNull", List.of("$$this.amount", 0)), 100)), 0)));
+        Document lines = new Document("$map", new Document("input", new Document("$ifNull", List.of("$lines", List.of())))
+                .append("in", new Document("$mergeObjects", List.of("$$this", new Document("amountCents", amountCents)))));
+        return AggregationUpdate.from(List.of(
+                context -> new Document("$set", new Document("lines", lines)),
+                context -> new Document("$set", new Document("totals.subtotalCents", new Document("$sum", "$lines.amountCents")))));
+    }
+}
@@ -1,5 +1,7 @@
 package com.kewe.core.requisition;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
+
 public class RequisitionLine {
     private int lineNumber;
     private String description;
@@ -7,6 +9,8 @@ public class RequisitionLine {
     private String uom;
     private Double unitPrice;
     private double amount;
+    private long amountCents;
+    private String supplierId;
     private String supplierName;
     private String supplierUrl;
     private String supplierSku;
@@ -25,7 +29,15 @@ public class RequisitionLine {
     public Double getUnitPrice() { return unitPrice; }
     public void setUnitPrice(Double unitPrice) { this.unitPrice = unitPrice; }
     public double getAmount() { return amount; }
-    public void setAmount(double amount) { this.amount = amount; }
+    public void setAmount(double amount) {
+        this.amount = amount;
+        this.amountCents = RequisitionTotals.toCents(amount);
+    }
+    /** {@code amount} in whole cents, kept in step by {@link #setAmount}; the draft subtotal is summed from these. */
+    @JsonIgnore
+    public long getAmountCents() { return amountCents; }
+    public String getSupplierId() { return supplierId; }
+    public void setSupplierId(String supplierId) { this.supplierId = supplierId; }
     public String getSupplierName() { return supplierName; }
     public void setSupplierName(String supplierName) { this.supplierName = supplierName; }
     public String getSupplierUrl() { return supplierUrl; }
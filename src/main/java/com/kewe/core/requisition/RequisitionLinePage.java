@@ -0,0 +1,5 @@
+package com.kewe.core.requisition;
+
+import java.util.List;
+
+public record RequisitionLinePage(String draftId, int total, int offset, int limit, List<RequisitionLine> lines) {}
@@ -0,0 +1,4 @@
+package com.kewe.core.requisition;
+
+/** A line written by one of the line endpoints, with the draft totals as they stand after the write. */
+public record RequisitionLineResult(String draftId, RequisitionLine line, RequisitionTotals totals) {}
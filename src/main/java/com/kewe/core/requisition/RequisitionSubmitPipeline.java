@@ -0,0 +1,385 @@
+package com.kewe.core.requisition;
+
+import com.kewe.core.businessobjects.BusinessObjectInstance;
+import com.kewe.core.businessobjects.BusinessObjectRepository;
+import com.kewe.core.common.Violations;
+import com.kewe.core.dimensions.MappingService;
+import com.kewe.core.events.ChangeOperation;
+import com.kewe.core.events.ChangeSource;
+import com.kewe.core.events.EntityChangedEvent;
+import com.kewe.core.funding.FundingService;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.bson.Document;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataAccessException;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.aggregation.TypedAggregation;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.util.StringUtils;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * Submits a requisition draft in five stages, each done once for the whole requisition rather than per line:
+ * validate the lines (one read of every charging dimension they name), derive accounting per line from the
+ * dimension mappings (once per distinct dimension), group the amounts by charging dimension, check every group
+ * against funding availability (a fixed number of queries), and write one pre-encumbrance per line in a single
+ * bulk insert. Each stage is timed under {@code kewe.requisitions.submit.stage}.
+ * <p>
+ * The funds check is made binding with a version per charging dimension in {@code requisition_funds_versions}:
+ * once the pre-encumbrances are written the check is repeated and committed by moving each dimension's version on
+ * from the value read before it. A concurrent submit against the same dimension either committed before that read,
+ * and so is counted, or fails its own commit and checks again, so two submits cannot both spend the same funds.
+ */
+@Service
+public class RequisitionSubmitPipeline {
+
+    private static final Logger log = LoggerFactory.getLogger(RequisitionSubmitPipeline.class);
+    private static final String STATUS_DRAFT = "DRAFT";
+    private static final String STATUS_SUBMITTED = "SUBMITTED";
+    private static final String SYSTEM_USER = "system";
+    private static final String COST_CENTER = "COST_CENTER";
+    private static final String NO_AWARD_DRIVER = "NONE";
+    private static final Set<String> AWARD_DRIVER_TYPES = Set.of("GIFT", "GRANT", "PROJECT", "APPROPRIATION");
+    private static final List<String> STAGES = List.of("validate", "derive", "group", "budget", "encumber");
+    private static final double FUNDS_EPSILON = 0.005;
+    private static final String FUNDS_VERSIONS = "requisition_funds_versions";
+    private static final int FUNDS_COMMIT_ATTEMPTS = 3;
+
+    private final MongoTemplate mongoTemplate;
+    private final BusinessObjectRepository businessObjectRepository;
+    private final MappingService mappingService;
+    private final FundingService fundingService;
+    private final RequisitionSubmitProperties properties;
+    private final ApplicationEventPublisher eventPublisher;
+    private final Map<String, Timer> stageTimers = new HashMap<>();
+
+    public RequisitionSubmitPipeline(MongoTemplate mongoTemplate,
+                                     BusinessObjectRepository businessObjectRepository,
+                                     MappingService mappingService,
+                                     FundingService fundingService,
+                                     RequisitionSubmitProperties properties,
+                                     ApplicationEventPublisher eventPublisher,
+                                     ObjectProvider<MeterRegistry> meterRegistry) {
+        this.mongoTemplate = mongoTemplate;
+        this.businessObjectRepository = businessObjectRepository;
+        this.mappingService = mappingService;
+        this.fundingService = fundingService;
+        this.properties = properties;
+        this.eventPublisher = eventPublisher;
+        MeterRegistry registry = meterRegistry.getIfAvailable();
+        if (registry != null) {
+            for (String stage : STAGES) {
+                stageTimers.put(stage, Timer.builder("kewe.requisitions.submit.stage").tag("stage", stage).register(registry));
+            }
+        }
+    }
+
+    public RequisitionDraft submit(RequisitionDraft draft) {
+        StageClock clock = new StageClock();
+        Map<String, BusinessObjectInstance> dimensions = validate(draft);
+        clock.lap("validate");
+        List<PreEncumbrance> encumbrances = derive(draft, dimensions);
+        clock.lap("derive");
+        Map<String, Double> requested = group(encumbrances);
+        clock.lap("group");
+        checkBudget(draft, requested, dimensions);
+        clock.lap("budget");
+        RequisitionDraft submitted = encumber(draft, encumbrances);
+        if (properties.isEnforceBudget()) {
+            try {
+                commitFunds(draft, requested, dimensions);
+            } catch (RuntimeException ex) {
+                revert(draft.getId());
+                throw ex;
+            }
+        }
+        clock.lap("encumber");
+        log.info("requisition-submit: id={} lines={} dimensions={} stageMs={}",
+                draft.getId(), encumbrances.size(), requested.size(), clock.millis());
+        return submitted;
+    }
+
+    public List<PreEncumbrance> preEncumbrances(String requisitionId) {
+        return mongoTemplate.find(Query.query(Criteria.where("requisitionId").is(requisitionId))
+                .with(Sort.by("lineNumber")), PreEncumbrance.class);
+    }
+
+    /** Status and every line in one pass, then one read for all the charging dimensions named. */
+    private Map<String, BusinessObjectInstance> validate(RequisitionDraft draft) {
+        if (!STATUS_DRAFT.equals(draft.getStatus())) {
+            throw new ResponseStatusException(HttpStatus.CONFLICT, "Only DRAFT requisitions can be submitted");
+        }
+        Violations violations = new Violations();
+        List<RequisitionLine> lines = draft.getLines();
+        Set<String> dimensionIds = new HashSet<>();
+        Set<Integer> lineNumbers = new HashSet<>();
+        if (lines == null || lines.isEmpty()) {
+            violations.add("at least one line is required before submit");
+        } else {
+            for (RequisitionLine line : lines) {
+                if (!lineNumbers.add(line.getLineNumber())) {
+                    violations.addLine(line.getLineNumber(), "appears more than once");
+                }
+                if (!(line.getAmount() > 0)) {
+                    violations.addLine(line.getLineNumber(), "amount must be greater than zero");
+                }
+                String dimensionId = chargingDimensionId(draft, line);
+                if (dimensionId == null) {
+                    violations.addLine(line.getLineNumber(), "chargingBusinessDimensionId is required before submit");
+                } else {
+                    dimensionIds.add(dimensionId);
+                }
+            }
+        }
+
+        Map<String, BusinessObjectInstance> dimensions = new HashMap<>();
+        if (!dimensionIds.isEmpty()) {
+            for (BusinessObjectInstance dimension : businessObjectRepository.findAllById(dimensionIds)) {
+                dimensions.put(dimension.getId(), dimension);
+            }
+            for (String dimensionId : dimensionIds) {
+                if (!dimensions.containsKey(dimensionId)) {
+                    violations.add("charging dimension " + dimensionId + " does not exist");
+                }
+            }
+        }
+        violations.throwIfAny();
+        return dimensions;
+    }
+
+    /** One pre-encumbrance per line; the mappings are consulted once per distinct charging dimension. */
+    private List<PreEncumbrance> derive(RequisitionDraft draft, Map<String, BusinessObjectInstance> dimensions) {
+        Map<String, Accounting> accountingByDimension = new HashMap<>();
+        Instant now = Instant.now();
+        List<PreEncumbrance> encumbrances = new ArrayList<>(draft.getLines().size());
+        for (RequisitionLine line : draft.getLines()) {
+            String dimensionId = chargingDimensionId(draft, line);
+            Accounting accounting = accountingByDimension.computeIfAbsent(dimensionId,
+                    id -> deriveAccounting(dimensions.get(id)));
+            PreEncumbrance encumbrance = new PreEncumbrance();
+            encumbrance.setRequisitionId(draft.getId());
+            encumbrance.setLineNumber(line.getLineNumber());
+            encumbrance.setChargingBusinessDimensionId(dimensionId);
+            encumbrance.setOrganizationNodeId(accounting.organizationNodeId());
+            encumbrance.setFundNodeId(accounting.fundNodeId());
+            encumbrance.setFunctionNodeId(accounting.functionNodeId());
+            encumbrance.setAmount(line.getAmount());
+            encumbrance.setStatus(PreEncumbrance.STATUS_OPEN);
+            encumbrance.setCreatedAt(now);
+            encumbrance.setCreatedBy(SYSTEM_USER);
+            encumbrances.add(encumbrance);
+        }
+        return encumbrances;
+    }
+
+    /**
+     * A cost center maps to its organization; a gift, grant, project or appropriation maps to its fund, anything else
+     * takes the NONE fund mapping; the function defaults from the organization.
+     */
+    private Accounting deriveAccounting(BusinessObjectInstance dimension) {
+        String type = dimension.getTypeCode() == null ? "" : dimension.getTypeCode().trim().toUpperCase(Locale.ROOT);
+        String organization = COST_CENTER.equals(type)
+                ? mappingService.deriveOrganizationFromCostCenter(dimension.getId()).orElse(null)
+                : null;
+        String fund = AWARD_DRIVER_TYPES.contains(type)
+                ? mappingService.deriveFundFromAwardDriver(type, dimension.getId()).orElse(null)
+                : mappingService.deriveFundFromAwardDriver(NO_AWARD_DRIVER, null).orElse(null);
+        String function = mappingService.deriveFunctionDefault(null, organization, null).orElse(null);
+        return new Accounting(organization, fund, function);
+    }
+
+    private Map<String, Double> group(List<PreEncumbrance> encumbrances) {
+        Map<String, Double> requested = new LinkedHashMap<>();
+        for (PreEncumbrance encumbrance : encumbrances) {
+            requested.merge(encumbrance.getChargingBusinessDimensionId(), encumbrance.getAmount(), Double::sum);
+        }
+        return requested;
+    }
+
+    /** One availability check per charging dimension, net of what other requisitions already hold open. */
+    private void checkBudget(RequisitionDraft draft, Map<String, Double> requested,
+                             Map<String, BusinessObjectInstance> dimensions) {
+        Map<String, Double> available = fundingService.availableByDimension(requested.keySet());
+        Map<String, Double> held = openPreEncumbrances(requested.keySet(), draft.getId());
+        List<Shortfall> shortfalls = new ArrayList<>();
+        for (Map.Entry<String, Double> group : requested.entrySet()) {
+            double remaining = available.getOrDefault(group.getKey(), 0.0) - held.getOrDefault(group.getKey(), 0.0);
+            if (group.getValue() > remaining + FUNDS_EPSILON) {
+                shortfalls.add(new Shortfall(group.getKey(), dimensions.get(group.getKey()).getCode(), group.getValue(), remaining));
+            }
+        }
+        if (shortfalls.isEmpty()) {
+            return;
+        }
+        if (!properties.isEnforceBudget()) {
+            log.warn("requisition-submit: id={} submitted over budget: {}", draft.getId(), shortfalls);
+            return;
+        }
+        Shortfall first = shortfalls.get(0);
+        ResponseStatusException ex = new ResponseStatusException(HttpStatus.CONFLICT,
+                "Insufficient funds on " + (first.code() == null ? first.chargingBusinessDimensionId() : first.code())
+                        + (shortfalls.size() > 1 ? " and " + (shortfalls.size() - 1) + " more" : ""));
+        ex.getBody().setProperty("shortfalls", shortfalls);
+        throw ex;
+    }
+
+    /**
+     * Repeats the funds check now that this requisition's pre-encumbrances are written, and commits it by moving every
+     * charging dimension's version on from the value read before the check. A version that moved in between means
+     * another submit committed against the dimension meanwhile, so the check runs again.
+     */
+    private void commitFunds(RequisitionDraft draft, Map<String, Double> requested,
+                             Map<String, BusinessObjectInstance> dimensions) {
+        for (int attempt = 0; attempt < FUNDS_COMMIT_ATTEMPTS; attempt++) {
+            Map<String, Long> versions = fundsVersions(requested.keySet());
+            checkBudget(draft, requested, dimensions);
+            if (advanceFundsVersions(versions)) {
+                return;
+            }
+        }
+        throw new ResponseStatusException(HttpStatus.CONFLICT, "Funding changed while the requisition was being submitted; retry");
+    }
+
+    private Map<String, Long> fundsVersions(Set<String> dimensionIds) {
+        Map<String, Long> versions = new TreeMap<>();
+        for (String dimensionId : dimensionIds) {
+            versions.put(dimensionId, 0L);
+        }
+        for (Document row : mongoTemplate.find(Query.query(Criteria.where("_id").in(dimensionIds)), Document.class, FUNDS_VERSIONS)) {
+            versions.put(row.getString("_id"), ((Number) row.get("version")).longValue());
+        }
+        return versions;
+    }
+
+    /** Moves each version on by one, in id order, as long as it still has the value read; false once one has moved. */
+    private boolean advanceFundsVersions(Map<String, Long> versions) {
+        for (Map.Entry<String, Long> version : versions.entrySet()) {
+            try {
+                // a dimension without a version document yet is read as 0; the upsert creates it at 1
+                mongoTemplate.upsert(Query.query(Criteria.where("_id").is(version.getKey()).and("version").is(version.getValue())),
+                        new Update().inc("version", 1), FUNDS_VERSIONS);
+            } catch (DuplicateKeyException ex) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private Map<String, Double> openPreEncumbrances(Set<String> dimensionIds, String excludeRequisitionId) {
+        TypedAggregation<PreEncumbrance> aggregation = Aggregation.newAggregation(PreEncumbrance.class,
+                Aggregation.match(Criteria.where("chargingBusinessDimensionId").in(dimensionIds)
+                        .and("status").is(PreEncumbrance.STATUS_OPEN)
+                        .and("requisitionId").ne(excludeRequisitionId)),
+                Aggregation.group("chargingBusinessDimensionId").sum("amount").as("amount"));
+        Map<String, Double> held = new HashMap<>();
+        for (Document row : mongoTemplate.aggregate(aggregation, Document.class).getMappedResults()) {
+            held.put(row.getString("_id"), ((Number) row.get("amount")).doubleValue());
+        }
+        return held;
+    }
+
+    /**
+     * Flips the draft to SUBMITTED only if its version is still the one that was read, then replaces whatever an
+     * interrupted earlier attempt left with one unordered insert of the pre-encumbrances. A failed insert puts the
+     * requisition back to DRAFT. Either way the status change is announced, since template writes bypass the
+     * repository events the requisition indexes listen to.
+     */
+    private RequisitionDraft encumber(RequisitionDraft draft, List<PreEncumbrance> encumbrances) {
+        RequisitionDraft submitted = mongoTemplate.findAndModify(
+                Query.query(Criteria.where("_id").is(draft.getId())
+                        .and("status").is(STATUS_DRAFT)
+                        .and("version").is(draft.getVersion())),
+                new Update().set("status", STATUS_SUBMITTED).set("updatedAt", Instant.now()).set("updatedBy", SYSTEM_USER)
+                        .inc("version", 1),
+                FindAndModifyOptions.options().returnNew(true),
+                RequisitionDraft.class);
+        if (submitted == null) {
+            throw new ResponseStatusException(HttpStatus.CONFLICT, "Requisition changed while it was being submitted; retry");
+        }
+
+        Query existing = Query.query(Criteria.where("requisitionId").is(draft.getId()));
+        try {
+            mongoTemplate.remove(existing, PreEncumbrance.class);
+            BulkOperations bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, PreEncumbrance.class);
+            bulk.insert(encumbrances);
+            bulk.execute();
+        } catch (DataAccessException ex) {
+            revert(draft.getId());
+            throw ex;
+        }
+        publishStatusChange(draft.getId(), STATUS_SUBMITTED);
+        return submitted;
+    }
+
+    /** Removes the requisition's pre-encumbrances and puts it back to DRAFT. */
+    private void revert(String requisitionId) {
+        mongoTemplate.remove(Query.query(Criteria.where("requisitionId").is(requisitionId)), PreEncumbrance.class);
+        mongoTemplate.updateFirst(Query.query(Criteria.where("_id").is(requisitionId).and("status").is(STATUS_SUBMITTED)),
+                new Update().set("status", STATUS_DRAFT).set("updatedAt", Instant.now()).set("updatedBy", SYSTEM_USER)
+                        .inc("version", 1),
+                RequisitionDraft.class);
+        publishStatusChange(requisitionId, STATUS_DRAFT);
+    }
+
+    private void publishStatusChange(String requisitionId, String status) {
+        eventPublisher.publishEvent(new EntityChangedEvent(ChangeSource.REQUISITION_DRAFTS, ChangeOperation.UPDATE,
+                requisitionId, status, null, Instant.now()));
+    }
+
+    /** A line without its own charging dimension is charged to the requisition's. */
+    private static String chargingDimensionId(RequisitionDraft draft, RequisitionLine line) {
+        if (StringUtils.hasText(line.getChargingBusinessDimensionId())) {
+            return line.getChargingBusinessDimensionId();
+        }
+        return StringUtils.hasText(draft.getChargingBusinessDimensionId()) ? draft.getChargingBusinessDimensionId() : null;
+    }
+
+    private record Accounting(String organizationNodeId, String fundNodeId, String functionNodeId) {}
+
+    public record Shortfall(String chargingBusinessDimensionId, String code, double requested, double available) {}
+
+    private final class StageClock {
+        private final Map<String, Long> millis = new LinkedHashMap<>();
+        private long lapStarted = System.nanoTime();
+
+        void lap(String stage) {
+            long now = System.nanoTime();
+            long nanos = now - lapStarted;
+            lapStarted = now;
+            millis.put(stage, Duration.ofNanos(nanos).toMillis());
+            Timer timer = stageTimers.get(stage);
+            if (timer != null) {
+                timer.record(Duration.ofNanos(nanos));
+            }
+        }
+
+        Map<String, Long> millis() {
+            return millis;
+        }
+    }
+}
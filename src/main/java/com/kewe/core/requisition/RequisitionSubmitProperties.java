@@ -0,0 +1,15 @@
+package com.kewe.core.requisition;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+@Component
+@ConfigurationProperties(prefix = "kewe.requisitions.submit")
+public class RequisitionSubmitProperties {
+
+    /** Reject a submit when a charging dimension lacks the funds for its lines; when off, shortfalls are only logged. */
+    private boolean enforceBudget = true;
+
+    public boolean isEnforceBudget() { return enforceBudget; }
+    public void setEnforceBudget(boolean enforceBudget) { this.enforceBudget = enforceBudget; }
+}
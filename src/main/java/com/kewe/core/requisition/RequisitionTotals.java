@@ -1,8 +1,27 @@
 package com.kewe.core.requisition;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+/**
+ * Stored as integer cents so line writes can move the subtotal with {@code $inc} without floating-point drift; the
+ * API keeps reading and writing {@code subtotal} in currency units.
+ */
 public class RequisitionTotals {
-    private double subtotal;
+    private long subtotalCents;
+
+    public double getSubtotal() { return BigDecimal.valueOf(subtotalCents, 2).doubleValue(); }
+    public void setSubtotal(double subtotal) { this.subtotalCents = toCents(subtotal); }
+
+    @JsonIgnore
+    public long getSubtotalCents() { return subtotalCents; }
+    @JsonIgnore
+    public void setSubtotalCents(long subtotalCents) { this.subtotalCents = subtotalCents; }
 
-    public double getSubtotal() { return subtotal; }
-    public void setSubtotal(double subtotal) { this.subtotal = subtotal; }
+    /** Rounds an amount to whole cents, half-even, going through its decimal representation (0.1 is 10, not 9). */
+    static long toCents(double amount) {
+        return BigDecimal.valueOf(amount).setScale(2, RoundingMode.HALF_EVEN).unscaledValue().longValueExact();
+    }
 }
@@ -0,0 +1,91 @@
+package com.kewe.core.startup;
+
+import com.kewe.core.agent.AgentSearchProperties;
+import com.kewe.core.agent.AgentSearchService;
+import com.kewe.core.agent.LocalCatalogIndex;
+import com.kewe.core.agent.PromptParser;
+import com.kewe.core.dimensions.DimensionTypeService;
+import com.kewe.core.dimensions.MappingService;
+import com.kewe.core.funding.FundingService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * Preloads reference data and exercises the hot request paths before the instance reports ready.
+ * Spring Boot only flips readiness to ACCEPTING_TRAFFIC once all runners have returned, so running
+ * synchronously here keeps {@code /actuator/health/readiness} DOWN until the caches and JIT are warm.
+ */
+@Component
+@Order(Ordered.LOWEST_PRECEDENCE)
+public class StartupWarmup implements ApplicationRunner {
+    private static final Logger log = LoggerFactory.getLogger(StartupWarmup.class);
+
+    private final WarmupProperties properties;
+    private final DimensionTypeService dimensionTypeService;
+    private final MappingService mappingService;
+    private final FundingService fundingService;
+    private final PromptParser promptParser;
+    private final AgentSearchService agentSearchService;
+    private final AgentSearchProperties agentSearchProperties;
+    private final LocalCatalogIndex localCatalogIndex;
+
+    public StartupWarmup(WarmupProperties properties,
+                         DimensionTypeService dimensionTypeService,
+                         MappingService mappingService,
+                         FundingService fundingService,
+                         PromptParser promptParser,
+                         AgentSearchService agentSearchService,
+                         AgentSearchProperties agentSearchProperties,
+                         LocalCatalogIndex localCatalogIndex) {
+        this.properties = properties;
+        this.dimensionTypeService = dimensionTypeService;
+        this.mappingService = mappingService;
+        this.fundingService = fundingService;
+        this.promptParser = promptParser;
+        this.agentSearchService = agentSearchService;
+        this.agentSearchProperties = agentSearchProperties;
+        this.localCatalogIndex = localCatalogIndex;
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        if (!properties.isEnabled()) {
+            log.info("warm-up: disabled");
+            return;
+        }
+        long started = System.nanoTime();
+        try {
+            int dimensionTypes = dimensionTypeService.preload();
+            int mappings = mappingService.preload();
+            int catalogItems = localCatalogIndex.rebuild();
+            List<FundingService.ChargingLocationDto> chargingLocations = fundingService.findChargingLocations(null);
+            exerciseHotPaths(chargingLocations);
+            log.info("warm-up: completed in {} ms (dimensionTypes={}, mappings={}, catalogItems={}, chargingLocations={}, iterations={})",
+                    (System.nanoTime() - started) / 1_000_000, dimensionTypes, mappings, catalogItems, chargingLocations.size(),
+                    properties.getIterations());
+        } catch (RuntimeException ex) {
+            // a failed warm-up only costs latency; it must never keep the instance from starting
+            log.warn("warm-up: aborted after {} ms", (System.nanoTime() - started) / 1_000_000, ex);
+        }
+    }
+
+    private void exerciseHotPaths(List<FundingService.ChargingLocationDto> chargingLocations) {
+        String chargingId = chargingLocations.isEmpty() ? "warmup-missing" : chargingLocations.get(0).id();
+        // only run the draft when it cannot reach a paid external search API; suppliers are never scraped here
+        boolean runDraft = "none".equalsIgnoreCase(agentSearchProperties.getWebsearchProvider());
+        for (int i = 0; i < properties.getIterations(); i++) {
+            fundingService.fundingSnapshot(chargingId, null, 100.0);
+            promptParser.parse(properties.getSamplePrompt());
+            if (runDraft) {
+                agentSearchService.createDraft(properties.getSamplePrompt(), false, AgentSearchService.DraftListener.NONE);
+            }
+        }
+    }
+}
@@ -0,0 +1,36 @@
+package com.kewe.core.startup;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+@Component
+@ConfigurationProperties(prefix = "kewe.warmup")
+public class WarmupProperties {
+    private boolean enabled = true;
+    private int iterations = 20;
+    private String samplePrompt = "Need 4 boxes of 500 ml glass beakers for the biology lab";
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public int getIterations() {
+        return iterations;
+    }
+
+    public void setIterations(int iterations) {
+        this.iterations = iterations;
+    }
+
+    public String getSamplePrompt() {
+        return samplePrompt;
+    }
+
+    public void setSamplePrompt(String samplePrompt) {
+        this.samplePrompt = samplePrompt;
+    }
+}
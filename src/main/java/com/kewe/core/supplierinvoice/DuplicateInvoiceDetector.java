@@ -0,0 +1,147 @@
+package com.kewe.core.supplierinvoice;
+
+import com.kewe.core.supplierinvoice.dto.PossibleDuplicateDTO;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Exact and near-duplicate detection for supplier invoices. The exact key (supplier, normalized invoice number,
+ * amount, invoice date) is stamped on submit and guarded by a partial unique index. Near duplicates are looked up at
+ * draft time: same supplier, amount within {@link #AMOUNT_BAND} (read off the supplier/amount index), and an
+ * invoice number within a small edit distance of this one.
+ */
+@Component
+public class DuplicateInvoiceDetector {
+
+    static final BigDecimal AMOUNT_BAND = new BigDecimal("0.01");
+    private static final int MAX_CANDIDATES = 200;
+
+    private final MongoTemplate mongoTemplate;
+
+    public DuplicateInvoiceDetector(MongoTemplate mongoTemplate) {
+        this.mongoTemplate = mongoTemplate;
+    }
+
+    /** Fills the derived fields the duplicate lookups and indexes read. */
+    public void stamp(SupplierInvoice invoice) {
+        invoice.setNormalizedInvoiceNumber(normalizeInvoiceNumber(invoice.getInvoiceNumber()));
+        invoice.setAmountCents(toCents(invoice.getInvoiceAmount()));
+    }
+
+    public String duplicateKey(SupplierInvoice invoice) {
+        return normalizeSupplier(invoice.getSupplierId()) + "|" + normalizeInvoiceNumber(invoice.getInvoiceNumber()) + "|"
+                + (invoice.getInvoiceAmount() == null ? "" : invoice.getInvoiceAmount().stripTrailingZeros().toPlainString()) + "|"
+                + (invoice.getInvoiceDate() == null ? "" : invoice.getInvoiceDate());
+    }
+
+    public List<PossibleDuplicateDTO> findNearDuplicates(SupplierInvoice invoice) {
+        String number = normalizeInvoiceNumber(invoice.getInvoiceNumber());
+        Long cents = toCents(invoice.getInvoiceAmount());
+        if (invoice.getSupplierId() == null || number.isEmpty() || cents == null) {
+            return List.of();
+        }
+        long band = Math.max(1, BigDecimal.valueOf(Math.abs(cents)).multiply(AMOUNT_BAND)
+                .setScale(0, RoundingMode.HALF_UP).longValue());
+        Criteria criteria = Criteria.where("supplierId").is(invoice.getSupplierId())
+                .and("amountCents").gte(cents - band).lte(cents + band);
+        if (invoice.getId() != null) {
+            criteria.and("id").ne(invoice.getId());
+        }
+        Query query = new Query(criteria).with(Sort.by("amountCents")).limit(MAX_CANDIDATES);
+        query.fields().include("status", "invoiceNumber", "normalizedInvoiceNumber", "invoiceAmount", "invoiceDate");
+
+        int threshold = number.length() <= 5 ? 1 : 2;
+        List<PossibleDuplicateDTO> matches = new ArrayList<>();
+        for (SupplierInvoice candidate : mongoTemplate.find(query, SupplierInvoice.class)) {
+            String candidateNumber = candidate.getNormalizedInvoiceNumber() != null ? candidate.getNormalizedInvoiceNumber()
+                    : normalizeInvoiceNumber(candidate.getInvoiceNumber());
+            int distance = editDistance(number, candidateNumber, threshold);
+            if (distance <= threshold) {
+                matches.add(new PossibleDuplicateDTO(candidate.getId(), candidate.getStatus(), candidate.getInvoiceNumber(),
+                        candidate.getInvoiceAmount(), candidate.getInvoiceDate(), distance));
+            }
+        }
+        matches.sort(Comparator.comparingInt(PossibleDuplicateDTO::editDistance));
+        return matches;
+    }
+
+    /** Upper-cases, keeps only letters and digits and drops leading zeros of each digit run: "inv-000123" -> "INV123". */
+    static String normalizeInvoiceNumber(String invoiceNumber) {
+        if (invoiceNumber == null) {
+            return "";
+        }
+        StringBuilder normalized = new StringBuilder(invoiceNumber.length());
+        boolean inLeadingZeros = true;
+        for (int i = 0; i < invoiceNumber.length(); i++) {
+            char c = Character.toUpperCase(invoiceNumber.charAt(i));
+            boolean digit = c >= '0' && c <= '9';
+            if (!digit) {
+                inLeadingZeros = true;
+                if (c >= 'A' && c <= 'Z') {
+                    normalized.append(c);
+                }
+                continue;
+            }
+            boolean lastDigitOfRun = i + 1 >= invoiceNumber.length()
+                    || invoiceNumber.charAt(i + 1) < '0' || invoiceNumber.charAt(i + 1) > '9';
+            if (c == '0' && inLeadingZeros && !lastDigitOfRun) {
+                continue;
+            }
+            inLeadingZeros = false;
+            normalized.append(c);
+        }
+        return normalized.toString();
+    }
+
+    /** Optimal string alignment distance (adjacent transpositions count once); stops early past {@code limit}. */
+    static int editDistance(String left, String right, int limit) {
+        if (Math.abs(left.length() - right.length()) > limit) {
+            return limit + 1;
+        }
+        int[] previousPrevious = new int[right.length() + 1];
+        int[] previous = new int[right.length() + 1];
+        int[] current = new int[right.length() + 1];
+        for (int j = 0; j <= right.length(); j++) {
+            previous[j] = j;
+        }
+        for (int i = 1; i <= left.length(); i++) {
+            current[0] = i;
+            int rowMinimum = current[0];
+            for (int j = 1; j <= right.length(); j++) {
+                int cost = left.charAt(i - 1) == right.charAt(j - 1) ? 0 : 1;
+                int value = Math.min(Math.min(previous[j] + 1, current[j - 1] + 1), previous[j - 1] + cost);
+                if (i > 1 && j > 1 && left.charAt(i - 1) == right.charAt(j - 2) && left.charAt(i - 2) == right.charAt(j - 1)) {
+                    value = Math.min(value, previousPrevious[j - 2] + 1);
+                }
+                current[j] = value;
+                rowMinimum = Math.min(rowMinimum, value);
+            }
+            if (rowMinimum > limit) {
+                return limit + 1;
+            }
+            int[] recycled = previousPrevious;
+            previousPrevious = previous;
+            previous = current;
+            current = recycled;
+        }
+        return previous[right.length()];
+    }
+
+    private static String normalizeSupplier(String supplierId) {
+        return supplierId == null ? "" : supplierId.trim().toUpperCase(Locale.ROOT);
+    }
+
+    private static Long toCents(BigDecimal amount) {
+        return amount == null ? null : amount.movePointRight(2).setScale(0, RoundingMode.HALF_UP).longValue();
+    }
+}
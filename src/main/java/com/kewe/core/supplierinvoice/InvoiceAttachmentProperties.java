@@ -0,0 +1,38 @@
+package com.kewe.core.supplierinvoice;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+@Component
+@ConfigurationProperties(prefix = "kewe.attachments")
+public class InvoiceAttachmentProperties {
+
+    /** GridFS bucket; files live in {@code <bucket>.files} and {@code <bucket>.chunks}. */
+    private String bucket = "invoice_attachments";
+    private long maxBytes = 52_428_800;
+    private int chunkSizeBytes = 261_120;
+
+    public String getBucket() {
+        return bucket;
+    }
+
+    public void setBucket(String bucket) {
+        this.bucket = bucket;
+    }
+
+    public long getMaxBytes() {
+        return maxBytes;
+    }
+
+    public void setMaxBytes(long maxBytes) {
+        this.maxBytes = maxBytes;
+    }
+
+    public int getChunkSizeBytes() {
+        return chunkSizeBytes;
+    }
+
+    public void setChunkSizeBytes(int chunkSizeBytes) {
+        this.chunkSizeBytes = chunkSizeBytes;
+    }
+}
@@ -0,0 +1,330 @@
+package com.kewe.core.supplierinvoice;
+
+import com.kewe.core.supplierinvoice.dto.SupplierInvoiceDTO;
+import com.mongodb.MongoException;
+import com.mongodb.client.MongoCollection;
+import com.mongodb.client.gridfs.GridFSBucket;
+import com.mongodb.client.gridfs.GridFSBuckets;
+import com.mongodb.client.gridfs.GridFSUploadStream;
+import com.mongodb.client.gridfs.model.GridFSFile;
+import com.mongodb.client.gridfs.model.GridFSUploadOptions;
+import com.mongodb.client.model.Filters;
+import com.mongodb.client.model.FindOneAndUpdateOptions;
+import com.mongodb.client.model.Indexes;
+import com.mongodb.client.model.ReturnDocument;
+import com.mongodb.client.model.Updates;
+import org.bson.Document;
+import org.bson.types.ObjectId;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.core.io.AbstractResource;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.util.StringUtils;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Instant;
+import java.util.HexFormat;
+import java.util.Locale;
+import java.util.UUID;
+
+/**
+ * Stores supplier invoice attachment bytes in GridFS. Uploads are copied from the request stream in small buffers
+ * while being hashed, so a file is never held in heap whole. Files with the same SHA-256 are stored once and shared
+ * between attachments: each GridFS file carries a {@code metadata.refCount} of the attachments pointing at it, and is
+ * removed by the release that takes the count to zero. A count never rises again from zero, so a file being removed
+ * cannot be picked up by a concurrent upload. The body is always read and hashed before it is matched against stored
+ * files, so an attachment can only reference bytes its uploader actually sent; {@code X-Content-SHA256} is checked
+ * against that hash. The {@code metadata.sha256} index is created by {@link SupplierInvoiceIndexes}. Attachments can
+ * only be added to or removed from Draft invoices.
+ */
+@Service
+public class InvoiceAttachmentService {
+
+    private static final Logger log = LoggerFactory.getLogger(InvoiceAttachmentService.class);
+    private static final int COPY_BUFFER_BYTES = 64 * 1024;
+    private static final String SYSTEM_USER = "system";
+    private static final String STATUS_DRAFT = "Draft";
+
+    private final MongoTemplate mongoTemplate;
+    private final InvoiceAttachmentProperties properties;
+    private final GridFSBucket bucket;
+
+    public InvoiceAttachmentService(MongoTemplate mongoTemplate, InvoiceAttachmentProperties properties) {
+        this.mongoTemplate = mongoTemplate;
+        this.properties = properties;
+        this.bucket = GridFSBuckets.create(mongoTemplate.getDb(), properties.getBucket())
+                .withChunkSizeBytes(properties.getChunkSizeBytes());
+    }
+
+    public SupplierInvoiceDTO.AttachmentMetadataDTO upload(String invoiceId, String fileName, String contentType,
+                                                           String expectedSha256, InputStream content) {
+        if (fileName == null || fileName.isBlank()) {
+            throw badRequest("fileName is required");
+        }
+        requireDraft(invoiceId);
+
+        StoredFile stored = store(fileName, contentType, content);
+        if (StringUtils.hasText(expectedSha256)
+                && !expectedSha256.trim().toLowerCase(Locale.ROOT).equals(stored.sha256())) {
+            release(stored.storageId());
+            throw badRequest("Attachment content does not match X-Content-SHA256");
+        }
+
+        SupplierInvoice.AttachmentMetadata metadata = new SupplierInvoice.AttachmentMetadata();
+        metadata.setAttachmentId(UUID.randomUUID().toString());
+        metadata.setFileName(fileName);
+        metadata.setContentType(contentType);
+        metadata.setSize(stored.size());
+        metadata.setSha256(stored.sha256());
+        metadata.setStorageId(stored.storageId());
+        metadata.setUploadedAt(Instant.now());
+
+        Update update = new Update().push("attachmentsMetadata", metadata)
+                .set("updatedAt", metadata.getUploadedAt())
+                .set("updatedBy", SYSTEM_USER)
+                .inc("version", 1);
+        if (mongoTemplate.updateFirst(draftQuery(invoiceId), update, SupplierInvoice.class).getMatchedCount() == 0) {
+            release(stored.storageId());
+            requireDraft(invoiceId);
+            throw conflict("Supplier invoice was modified concurrently; retry");
+        }
+        return toDTO(metadata);
+    }
+
+    public AttachmentResource open(String invoiceId, String attachmentId) {
+        SupplierInvoice.AttachmentMetadata metadata = findAttachment(invoiceId, attachmentId);
+        GridFSFile file = bucket.find(Filters.eq("_id", new ObjectId(metadata.getStorageId()))).first();
+        if (file == null) {
+            throw notFound("Attachment content not found: " + attachmentId);
+        }
+        return new AttachmentResource(bucket, metadata, file.getLength());
+    }
+
+    public void delete(String invoiceId, String attachmentId) {
+        SupplierInvoice.AttachmentMetadata metadata = findAttachment(invoiceId, attachmentId);
+        Update update = new Update().pull("attachmentsMetadata", Query.query(Criteria.where("attachmentId").is(attachmentId)))
+                .set("updatedAt", Instant.now())
+                .set("updatedBy", SYSTEM_USER)
+                .inc("version", 1);
+        Query query = draftQuery(invoiceId).addCriteria(Criteria.where("attachmentsMetadata.attachmentId").is(attachmentId));
+        if (mongoTemplate.updateFirst(query, update, SupplierInvoice.class).getModifiedCount() == 0) {
+            requireDraft(invoiceId);
+            throw notFound("Attachment not found: " + attachmentId);
+        }
+        release(metadata.getStorageId());
+    }
+
+    /**
+     * Streams {@code content} into GridFS and returns the stored file, or an existing one with the same bytes; either
+     * way the caller holds one reference to it.
+     */
+    private StoredFile store(String fileName, String contentType, InputStream content) {
+        MessageDigest digest = sha256Digest();
+        GridFSUploadOptions options = new GridFSUploadOptions()
+                .metadata(new Document("contentType", contentType));
+        GridFSUploadStream upload = bucket.openUploadStream(fileName, options);
+        long size = 0;
+        boolean closed = false;
+        try {
+            byte[] buffer = new byte[COPY_BUFFER_BYTES];
+            int read;
+            while ((read = content.read(buffer)) != -1) {
+                size += read;
+                if (size > properties.getMaxBytes()) {
+                    throw new ResponseStatusException(HttpStatus.PAYLOAD_TOO_LARGE,
+                            "Attachment exceeds the limit of " + properties.getMaxBytes() + " bytes");
+                }
+                digest.update(buffer, 0, read);
+                upload.write(buffer, 0, read);
+            }
+            upload.close();
+            closed = true;
+        } catch (IOException ex) {
+            throw badRequest("Attachment upload was interrupted");
+        } finally {
+            if (!closed) {
+                // whatever stopped the copy (client, size limit, a failed chunk write), drop the chunks written so far
+                abort(upload);
+            }
+        }
+
+        ObjectId storageId = upload.getObjectId();
+        String sha256 = HexFormat.of().formatHex(digest.digest());
+        StoredFile existing = acquire(sha256);
+        if (existing != null) {
+            bucket.delete(storageId);
+            return existing;
+        }
+        // two first uploads of the same bytes racing here may each keep a copy; both are counted and released correctly
+        files().updateOne(Filters.eq("_id", storageId),
+                Updates.combine(Updates.set("metadata.sha256", sha256), Updates.set("metadata.refCount", 1)));
+        return new StoredFile(storageId.toHexString(), sha256, size);
+    }
+
+    private void abort(GridFSUploadStream upload) {
+        try {
+            upload.abort();
+        } catch (MongoException ex) {
+            log.warn("Could not remove the chunks of an aborted attachment upload {}", upload.getObjectId(), ex);
+        }
+    }
+
+    /** Takes a reference to a live stored file with these bytes, if there is one. */
+    private StoredFile acquire(String sha256) {
+        Document file = files().findOneAndUpdate(
+                Filters.and(Filters.eq("metadata.sha256", sha256), Filters.gte("metadata.refCount", 1)),
+                Updates.inc("metadata.refCount", 1),
+                new FindOneAndUpdateOptions().sort(Indexes.ascending("_id")).returnDocument(ReturnDocument.AFTER));
+        return file == null ? null
+                : new StoredFile(file.getObjectId("_id").toHexString(), sha256, ((Number) file.get("length")).longValue());
+    }
+
+    /** Drops one reference to a stored file, deleting it when that was the last one. */
+    private void release(String storageId) {
+        if (storageId == null) {
+            return;
+        }
+        ObjectId id = new ObjectId(storageId);
+        Document file = files().findOneAndUpdate(
+                Filters.and(Filters.eq("_id", id), Filters.gte("metadata.refCount", 1)),
+                Updates.inc("metadata.refCount", -1),
+                new FindOneAndUpdateOptions().returnDocument(ReturnDocument.AFTER));
+        if (file == null || ((Number) file.get("metadata", Document.class).get("refCount")).intValue() > 0) {
+            return;
+        }
+        try {
+            bucket.delete(id);
+        } catch (MongoException ex) {
+            log.warn("Could not delete unreferenced attachment content {}", storageId, ex);
+        }
+    }
+
+    private void requireDraft(String invoiceId) {
+        Query query = Query.query(Criteria.where("id").is(invoiceId));
+        query.fields().include("status");
+        SupplierInvoice invoice = mongoTemplate.findOne(query, SupplierInvoice.class);
+        if (invoice == null) {
+            throw notFound("Supplier invoice not found: " + invoiceId);
+        }
+        if (!STATUS_DRAFT.equals(invoice.getStatus())) {
+            throw conflict("Attachments can only be changed on Draft invoices");
+        }
+    }
+
+    private static Query draftQuery(String invoiceId) {
+        return Query.query(Criteria.where("id").is(invoiceId).and("status").is(STATUS_DRAFT));
+    }
+
+    private SupplierInvoice.AttachmentMetadata findAttachment(String invoiceId, String attachmentId) {
+        Query query = Query.query(Criteria.where("id").is(invoiceId));
+        query.fields().include("attachmentsMetadata");
+        SupplierInvoice invoice = mongoTemplate.findOne(query, SupplierInvoice.class);
+        if (invoice == null) {
+            throw notFound("Supplier invoice not found: " + invoiceId);
+        }
+        return invoice.getAttachmentsMetadata().stream()
+                .filter(attachment -> attachmentId.equals(attachment.getAttachmentId()) && attachment.getStorageId() != null)
+                .findFirst()
+                .orElseThrow(() -> notFound("Attachment not found: " + attachmentId));
+    }
+
+    private MongoCollection<Document> files() {
+        return mongoTemplate.getCollection(filesCollection());
+    }
+
+    private String filesCollection() {
+        return properties.getBucket() + ".files";
+    }
+
+    static SupplierInvoiceDTO.AttachmentMetadataDTO toDTO(SupplierInvoice.AttachmentMetadata metadata) {
+        SupplierInvoiceDTO.AttachmentMetadataDTO dto = new SupplierInvoiceDTO.AttachmentMetadataDTO();
+        dto.setAttachmentId(metadata.getAttachmentId());
+        dto.setFileName(metadata.getFileName());
+        dto.setContentType(metadata.getContentType());
+        dto.setSize(metadata.getSize());
+        dto.setSha256(metadata.getSha256());
+        dto.setUploadedAt(metadata.getUploadedAt());
+        return dto;
+    }
+
+    private static MessageDigest sha256Digest() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException ex) {
+            throw new IllegalStateException("SHA-256 is not available", ex);
+        }
+    }
+
+    private ResponseStatusException badRequest(String message) {
+        return new ResponseStatusException(HttpStatus.BAD_REQUEST, message);
+    }
+
+    private ResponseStatusException conflict(String message) {
+        return new ResponseStatusException(HttpStatus.CONFLICT, message);
+    }
+
+    private ResponseStatusException notFound(String message) {
+        return new ResponseStatusException(HttpStatus.NOT_FOUND, message);
+    }
+
+    private record StoredFile(String storageId, String sha256, long size) {}
+
+    /**
+     * Attachment content opened lazily from GridFS. Each {@link #getInputStream()} starts a new download stream, and
+     * range requests skip whole chunks without reading them.
+     */
+    public static class AttachmentResource extends AbstractResource {
+        private final GridFSBucket bucket;
+        private final SupplierInvoice.AttachmentMetadata metadata;
+        private final long length;
+
+        AttachmentResource(GridFSBucket bucket, SupplierInvoice.AttachmentMetadata metadata, long length) {
+            this.bucket = bucket;
+            this.metadata = metadata;
+            this.length = length;
+        }
+
+        public SupplierInvoice.AttachmentMetadata getMetadata() {
+            return metadata;
+        }
+
+        @Override
+        public InputStream getInputStream() {
+            return bucket.openDownloadStream(new ObjectId(metadata.getStorageId()));
+        }
+
+        @Override
+        public boolean exists() {
+            return true;
+        }
+
+        @Override
+        public long contentLength() {
+            return length;
+        }
+
+        @Override
+        public long lastModified() {
+            return metadata.getUploadedAt() == null ? 0 : metadata.getUploadedAt().toEpochMilli();
+        }
+
+        @Override
+        public String getFilename() {
+            return metadata.getFileName();
+        }
+
+        @Override
+        public String getDescription() {
+            return "Supplier invoice attachment [" + metadata.getAttachmentId() + "]";
+        }
+    }
+}
@@ -1,14 +1,29 @@
 package com.kewe.core.supplierinvoice;
 
 import com.kewe.core.common.CanonicalObject;
+import org.springframework.data.annotation.Version;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.index.CompoundIndexes;
 import org.springframework.data.mongodb.core.mapping.Document;
 
 import java.math.BigDecimal;
+import java.time.Instant;
 import java.time.LocalDate;
 import java.util.ArrayList;
 import java.util.List;
 
 @Document(collection = "supplier_invoices")
+@CompoundIndexes({
+        @CompoundIndex(name = "idx_si_accounting_date", def = "{'accountingDate': 1, '_id': 1}"),
+        @CompoundIndex(name = "idx_si_status_accounting_date", def = "{'status': 1, 'accountingDate': 1, '_id': 1}"),
+        @CompoundIndex(name = "idx_si_supplier_accounting_date", def = "{'supplierId': 1, 'accountingDate': 1, '_id': 1}"),
+        @CompoundIndex(name = "idx_si_supplier_status_accounting_date",
+                def = "{'supplierId': 1, 'status': 1, 'accountingDate': 1, '_id': 1}"),
+        @CompoundIndex(name = "uk_si_duplicate_key", def = "{'duplicateKey': 1}", unique = true,
+                partialFilter = "{ 'duplicateKey': { '$exists': true } }"),
+        @CompoundIndex(name = "idx_si_supplier_amount", def = "{'supplierId': 1, 'amountCents': 1}"),
+        @CompoundIndex(name = "idx_si_attachment_storage", def = "{'attachmentsMetadata.storageId': 1}", sparse = true)
+})
 public class SupplierInvoice extends CanonicalObject {
 
     private String supplierId;
@@ -20,6 +35,12 @@ public class SupplierInvoice extends CanonicalObject {
     private List<Line> lines = new ArrayList<>();
     private String memo;
     private List<AttachmentMetadata> attachmentsMetadata = new ArrayList<>();
+    private String normalizedInvoiceNumber;
+    private Long amountCents;
+    private String duplicateKey;
+    private String duplicateOf;
+    @Version
+    private Long version;
 
     public String getSupplierId() {
         return supplierId;
@@ -93,9 +114,59 @@ public class SupplierInvoice extends CanonicalObject {
         this.attachmentsMetadata = attachmentsMetadata;
     }
 
+    public String getNormalizedInvoiceNumber() {
+        return normalizedInvoiceNumber;
+    }
+
+    public void setNormalizedInvoiceNumber(String normalizedInvoiceNumber) {
+        this.normalizedInvoiceNumber = normalizedInvoiceNumber;
+    }
+
+    public Long getAmountCents() {
+        return amountCents;
+    }
+
+    public void setAmountCents(Long amountCents) {
+        this.amountCents = amountCents;
+    }
+
+    /** Set on submit only, so drafts never collide on the unique index. */
+    public String getDuplicateKey() {
+        return duplicateKey;
+    }
+
+    public void setDuplicateKey(String duplicateKey) {
+        this.duplicateKey = duplicateKey;
+    }
+
+    /** Legacy submitted invoices only: the earlier invoice that already holds this one's duplicate key. */
+    public String getDuplicateOf() {
+        return duplicateOf;
+    }
+
+    public void setDuplicateOf(String duplicateOf) {
+        this.duplicateOf = duplicateOf;
+    }
+
+    public Long getVersion() {
+        return version;
+    }
+
+    public void setVersion(Long version) {
+        this.version = version;
+    }
+
     public static class Line {
         private String description;
         private BigDecimal amount;
+        private String itemTypeCode;
+        private String itemNodeId;
+        private String costCenterNodeId;
+        private String programNodeId;
+        private String awardDriverTypeCode;
+        private String awardDriverNodeId;
+        private String supplierSku;
+        private BigDecimal unitPrice;
 
         public String getDescription() {
             return description;
@@ -112,12 +183,80 @@ public class SupplierInvoice extends CanonicalObject {
         public void setAmount(BigDecimal amount) {
             this.amount = amount;
         }
+
+        public String getItemTypeCode() {
+            return itemTypeCode;
+        }
+
+        public void setItemTypeCode(String itemTypeCode) {
+            this.itemTypeCode = itemTypeCode;
+        }
+
+        public String getItemNodeId() {
+            return itemNodeId;
+        }
+
+        public void setItemNodeId(String itemNodeId) {
+            this.itemNodeId = itemNodeId;
+        }
+
+        public String getCostCenterNodeId() {
+            return costCenterNodeId;
+        }
+
+        public void setCostCenterNodeId(String costCenterNodeId) {
+            this.costCenterNodeId = costCenterNodeId;
+        }
+
+        public String getProgramNodeId() {
+            return programNodeId;
+        }
+
+        public void setProgramNodeId(String programNodeId) {
+            this.programNodeId = programNodeId;
+        }
+
+        public String getAwardDriverTypeCode() {
+            return awardDriverTypeCode;
+        }
+
+        public void setAwardDriverTypeCode(String awardDriverTypeCode) {
+            this.awardDriverTypeCode = awardDriverTypeCode;
+        }
+
+        public String getAwardDriverNodeId() {
+            return awardDriverNodeId;
+        }
+
+        public void setAwardDriverNodeId(String awardDriverNodeId) {
+            this.awardDriverNodeId = awardDriverNodeId;
+        }
+
+        public String getSupplierSku() {
+            return supplierSku;
+        }
+
+        public void setSupplierSku(String supplierSku) {
+            this.supplierSku = supplierSku;
+        }
+
+        public BigDecimal getUnitPrice() {
+            return unitPrice;
+        }
+
+        public void setUnitPrice(BigDecimal unitPrice) {
+            this.unitPrice = unitPrice;
+        }
     }
 
     public static class AttachmentMetadata {
         private String fileName;
         private String contentType;
         private Long size;
+        private String attachmentId;
+        private String sha256;
+        private String storageId;
+        private Instant uploadedAt;
 
         public String getFileName() {
             return fileName;
@@ -142,5 +281,37 @@ public class SupplierInvoice extends CanonicalObject {
         public void setSize(Long size) {
             this.size = size;
         }
+
+        public String getAttachmentId() {
+            return attachmentId;
+        }
+
+        public void setAttachmentId(String attachmentId) {
+            this.attachmentId = attachmentId;
+        }
+
+        public String getSha256() {
+            return sha256;
+        }
+
+        public void setSha256(String sha256) {
+            this.sha256 = sha256;
+        }
+
+        public String getStorageId() {
+            return storageId;
+        }
+
+        public void setStorageId(String storageId) {
+            this.storageId = storageId;
+        }
+
+        public Instant getUploadedAt() {
+            return uploadedAt;
+        }
+
+        public void setUploadedAt(Instant uploadedAt) {
+            this.uploadedAt = uploadedAt;
+        }
     }
 }
@@ -0,0 +1,39 @@
+package com.kewe.core.supplierinvoice;
+
+import com.kewe.core.supplierinvoice.dto.BulkTransitionRequest;
+import com.kewe.core.supplierinvoice.dto.BulkTransitionResponse;
+import jakarta.validation.Valid;
+import org.springframework.web.bind.annotation.PutMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+/**
+ * Batch status transitions. Mapped from {@code /api} because a class-level {@code /api/supplier-invoices} would
+ * join {@code :approve} with a slash.
+ */
+@RestController
+@RequestMapping("/api")
+public class SupplierInvoiceBulkController {
+
+    private final SupplierInvoiceService service;
+
+    public SupplierInvoiceBulkController(SupplierInvoiceService service) {
+        this.service = service;
+    }
+
+    @PutMapping("/supplier-invoices:submit")
+    public BulkTransitionResponse submitAll(@Valid @RequestBody BulkTransitionRequest request) {
+        return service.submitAll(request.getIds());
+    }
+
+    @PutMapping("/supplier-invoices:approve")
+    public BulkTransitionResponse approveAll(@Valid @RequestBody BulkTransitionRequest request) {
+        return service.approveAll(request.getIds());
+    }
+
+    @PutMapping("/supplier-invoices:post")
+    public BulkTransitionResponse postAll(@Valid @RequestBody BulkTransitionRequest request) {
+        return service.postAll(request.getIds());
+    }
+}
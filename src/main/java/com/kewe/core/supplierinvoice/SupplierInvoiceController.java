@@ -1,12 +1,25 @@
 package com.kewe.core.supplierinvoice;
 
+import com.kewe.core.supplierinvoice.dto.LinePatchRequest;
+import com.kewe.core.supplierinvoice.dto.LinePatchResponse;
+import com.kewe.core.supplierinvoice.dto.PossibleDuplicateDTO;
 import com.kewe.core.supplierinvoice.dto.StatusTransitionResponse;
 import com.kewe.core.supplierinvoice.dto.SupplierInvoiceDTO;
+import com.kewe.core.supplierinvoice.dto.SupplierInvoicePageDTO;
+import jakarta.servlet.http.HttpServletRequest;
 import jakarta.validation.Valid;
+import org.springframework.core.io.Resource;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
-
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
 import java.util.List;
 
 @RestController
@@ -14,16 +27,18 @@ import java.util.List;
 public class SupplierInvoiceController {
 
     private final SupplierInvoiceService service;
+    private final InvoiceAttachmentService attachmentService;
 
-    public SupplierInvoiceController(SupplierInvoiceService service) {
+    public SupplierInvoiceController(SupplierInvoiceService service, InvoiceAttachmentService attachmentService) {
         this.service = service;
+        this.attachmentService = attachmentService;
     }
 
     @PostMapping
     @ResponseStatus(HttpStatus.CREATED)
     public SupplierInvoiceDTO createDraft(@Valid @RequestBody SupplierInvoiceDTO dto) {
         SupplierInvoice created = service.createDraft(dto);
-        return service.mapToDTO(created);
+        return withPossibleDuplicates(created);
     }
 
     @GetMapping
@@ -33,6 +48,19 @@ public class SupplierInvoiceController {
                 .toList();
     }
 
+    @GetMapping("/search")
+    public SupplierInvoicePageDTO search(@RequestParam(required = false) String status,
+                                         @RequestParam(required = false) String supplierId,
+                                         @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate invoiceDateFrom,
+                                         @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate invoiceDateTo,
+                                         @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate accountingDateFrom,
+                                         @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate accountingDateTo,
+                                         @RequestParam(required = false) String after,
+                                         @RequestParam(required = false) Integer limit) {
+        return service.search(new SupplierInvoiceService.SearchFilter(status, supplierId, invoiceDateFrom, invoiceDateTo,
+                accountingDateFrom, accountingDateTo), after, limit);
+    }
+
     @GetMapping("/{id}")
     public SupplierInvoiceDTO getById(@PathVariable String id) {
         return service.mapToDTO(service.getById(id));
@@ -40,7 +68,17 @@ public class SupplierInvoiceController {
 
     @PutMapping("/{id}")
     public SupplierInvoiceDTO updateDraft(@PathVariable String id, @Valid @RequestBody SupplierInvoiceDTO dto) {
-        return service.mapToDTO(service.updateDraft(id, dto));
+        return withPossibleDuplicates(service.updateDraft(id, dto));
+    }
+
+    @PatchMapping("/{id}/lines")
+    public LinePatchResponse patchLines(@PathVariable String id, @Valid @RequestBody LinePatchRequest request) {
+        return service.patchLines(id, request.getLines());
+    }
+
+    @GetMapping("/{id}/possible-duplicates")
+    public List<PossibleDuplicateDTO> possibleDuplicates(@PathVariable String id) {
+        return service.findPossibleDuplicates(service.getById(id));
     }
 
     @PutMapping("/{id}/submit")
@@ -60,4 +98,42 @@ public class SupplierInvoiceController {
         SupplierInvoice invoice = service.post(id);
         return new StatusTransitionResponse(invoice.getId(), invoice.getStatus());
     }
+
+    /** The request body is the raw file (no multipart), streamed straight into storage. */
+    @PostMapping(value = "/{id}/attachments", consumes = MediaType.ALL_VALUE)
+    @ResponseStatus(HttpStatus.CREATED)
+    public SupplierInvoiceDTO.AttachmentMetadataDTO uploadAttachment(@PathVariable String id,
+                                                                     @RequestParam String fileName,
+                                                                     @RequestHeader(value = HttpHeaders.CONTENT_TYPE, required = false) String contentType,
+                                                                     @RequestHeader(value = "X-Content-SHA256", required = false) String sha256,
+                                                                     HttpServletRequest request) throws IOException {
+        String type = contentType == null ? MediaType.APPLICATION_OCTET_STREAM_VALUE : contentType;
+        return attachmentService.upload(id, fileName, type, sha256, request.getInputStream());
+    }
+
+    /** Served as a {@link Resource}, so {@code Range} requests get 206 partial content. */
+    @GetMapping("/{id}/attachments/{attachmentId}")
+    public ResponseEntity<Resource> downloadAttachment(@PathVariable String id, @PathVariable String attachmentId) {
+        InvoiceAttachmentService.AttachmentResource resource = attachmentService.open(id, attachmentId);
+        SupplierInvoice.AttachmentMetadata metadata = resource.getMetadata();
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(metadata.getContentType() == null
+                        ? MediaType.APPLICATION_OCTET_STREAM_VALUE : metadata.getContentType()))
+                .eTag(metadata.getSha256())
+                .header(HttpHeaders.CONTENT_DISPOSITION, ContentDisposition.attachment()
+                        .filename(metadata.getFileName(), StandardCharsets.UTF_8).build().toString())
+                .body(resource);
+    }
+
+    @DeleteMapping("/{id}/attachments/{attachmentId}")
+    @ResponseStatus(HttpStatus.NO_CONTENT)
+    public void deleteAttachment(@PathVariable String id, @PathVariable String attachmentId) {
+        attachmentService.delete(id, attachmentId);
+    }
+
+    private SupplierInvoiceDTO withPossibleDuplicates(SupplierInvoice invoice) {
+        SupplierInvoiceDTO dto = service.mapToDTO(invoice);
+        dto.setPossibleDuplicates(service.findPossibleDuplicates(invoice));
+        return dto;
+    }
 }
@@ -0,0 +1,166 @@
+package com.kewe.core.supplierinvoice;
+
+import com.kewe.core.common.MigrationMarkers;
+import com.kewe.core.common.MongoIndexes;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.CommandLineRunner;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.index.Index;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Creates the indexes declared on {@link SupplierInvoice}. Automatic index creation is off, and the worklist query
+ * and the duplicate checks rely on these to avoid scanning the collection. Runs on every start; existing indexes
+ * are left as they are. Invoices written before the {@code version} field existed get version 0 first, otherwise
+ * Spring Data would treat them as new and try to insert them again on save; everything written since carries a
+ * version, so that unindexed update runs once and is then recorded in {@link MigrationMarkers}. Invoices written before duplicate
+ * detection get its derived fields next, so the near-duplicate lookup and the exact-duplicate index see them too.
+ * That backfill is a one-time migration as well: every invoice saved since is stamped on write. The attachment
+ * bucket's files get the {@code metadata.sha256} index that deduplication looks stored bytes up by.
+ */
+@Configuration
+public class SupplierInvoiceIndexes {
+
+    private static final Logger log = LoggerFactory.getLogger(SupplierInvoiceIndexes.class);
+    private static final String STATUS_DRAFT = "Draft";
+    private static final int BACKFILL_BATCH_SIZE = 500;
+    private static final String VERSION_MIGRATION = "supplier-invoice-version";
+    static final String DUPLICATE_FIELDS_MIGRATION = "supplier-invoice-duplicate-fields";
+
+    @Bean
+    CommandLineRunner ensureSupplierInvoiceIndexes(MongoTemplate mongoTemplate,
+                                                   MongoIndexes mongoIndexes,
+                                                   MigrationMarkers migrations,
+                                                   DuplicateInvoiceDetector duplicateDetector) {
+        return args -> {
+            long versioned = 0;
+            if (!migrations.isComplete(VERSION_MIGRATION)) {
+                versioned = mongoTemplate.updateMulti(Query.query(Criteria.where("version").exists(false)),
+                        new Update().set("version", 0L), SupplierInvoice.class).getModifiedCount();
+                migrations.markComplete(VERSION_MIGRATION);
+            }
+            Backfill backfill = Backfill.NONE;
+            if (!migrations.isComplete(DUPLICATE_FIELDS_MIGRATION)) {
+                backfill = backfillDuplicateFields(mongoTemplate, duplicateDetector);
+                migrations.markComplete(DUPLICATE_FIELDS_MIGRATION);
+            }
+            int ensured = mongoIndexes.ensure(SupplierInvoice.class);
+            log.info("supplier-invoice-indexes: ensured={} versioned={} stamped={} keyed={}",
+                    ensured, versioned, backfill.stamped(), backfill.keyed());
+            if (backfill.duplicates() > 0) {
+                log.warn("supplier-invoice-indexes: {} submitted invoices left without a duplicate key because an "
+                        + "earlier invoice already holds the same one; see their duplicateOf", backfill.duplicates());
+            }
+        };
+    }
+
+    /**
+     * Stamps normalizedInvoiceNumber and amountCents where missing, and the exact duplicate key on non-draft
+     * invoices without one, walking the collection by id in batches. Of several legacy invoices with the same key
+     * only the first gets it; the unique index would reject the rest, which get {@code duplicateOf} instead so they
+     * stop matching. Idempotent: a second run changes nothing.
+     */
+    private Backfill backfillDuplicateFields(MongoTemplate mongoTemplate, DuplicateInvoiceDetector duplicateDetector) {
+        Criteria needsBackfill = new Criteria().orOperator(
+                Criteria.where("normalizedInvoiceNumber").exists(false),
+                Criteria.where("status").ne(STATUS_DRAFT).and("duplicateKey").exists(false)
+                        .and("duplicateOf").exists(false));
+        long stamped = 0;
+        long keyed = 0;
+        long duplicates = 0;
+        String lastId = null;
+        while (true) {
+            Criteria criteria = lastId == null ? needsBackfill
+                    : new Criteria().andOperator(Criteria.where("id").gt(lastId), needsBackfill);
+            Query query = new Query(criteria).with(Sort.by("id")).limit(BACKFILL_BATCH_SIZE);
+            query.fields().include("status", "supplierId", "invoiceNumber", "invoiceAmount", "invoiceDate",
+                    "normalizedInvoiceNumber", "duplicateKey", "duplicateOf");
+            List<SupplierInvoice> batch = mongoTemplate.find(query, SupplierInvoice.class);
+            if (batch.isEmpty()) {
+                return new Backfill(stamped, keyed, duplicates);
+            }
+            lastId = batch.get(batch.size() - 1).getId();
+
+            Map<String, String> idsByKey = new HashMap<>();
+            for (SupplierInvoice invoice : batch) {
+                if (needsDuplicateKey(invoice)) {
+                    idsByKey.putIfAbsent(duplicateDetector.duplicateKey(invoice), invoice.getId());
+                }
+            }
+            Map<String, String> holders = new HashMap<>();
+            if (!idsByKey.isEmpty()) {
+                Query existing = Query.query(Criteria.where("duplicateKey").in(idsByKey.keySet()));
+                existing.fields().include("duplicateKey");
+                mongoTemplate.find(existing, SupplierInvoice.class)
+                        .forEach(invoice -> holders.put(invoice.getDuplicateKey(), invoice.getId()));
+            }
+
+            BulkOperations bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, SupplierInvoice.class);
+            int operations = 0;
+            for (SupplierInvoice invoice : batch) {
+                Update update = new Update();
+                boolean changed = false;
+                if (invoice.getNormalizedInvoiceNumber() == null) {
+                    duplicateDetector.stamp(invoice);
+                    update.set("normalizedInvoiceNumber", invoice.getNormalizedInvoiceNumber())
+                            .set("amountCents", invoice.getAmountCents());
+                    changed = true;
+                    stamped++;
+                }
+                if (needsDuplicateKey(invoice)) {
+                    String key = duplicateDetector.duplicateKey(invoice);
+                    String holder = holders.getOrDefault(key, idsByKey.get(key));
+                    if (invoice.getId().equals(holder)) {
+                        update.set("duplicateKey", key);
+                        keyed++;
+                    } else {
+                        update.set("duplicateOf", holder);
+                        duplicates++;
+                    }
+                    changed = true;
+                }
+                if (changed) {
+                    bulk.updateOne(Query.query(Criteria.where("id").is(invoice.getId())), update);
+                    operations++;
+                }
+            }
+            if (operations > 0) {
+                bulk.execute();
+            }
+        }
+    }
+
+    private static boolean needsDuplicateKey(SupplierInvoice invoice) {
+        return !STATUS_DRAFT.equals(invoice.getStatus()) && invoice.getDuplicateKey() == null
+                && invoice.getDuplicateOf() == null;
+    }
+
+    @Bean
+    CommandLineRunner ensureInvoiceAttachmentIndexes(MongoTemplate mongoTemplate, InvoiceAttachmentProperties properties) {
+        return args -> {
+            String files = properties.getBucket() + ".files";
+            try {
+                mongoTemplate.indexOps(files).ensureIndex(new Index().on("metadata.sha256", Sort.Direction.ASC));
+                log.info("invoice-attachment-indexes: ensured=1 collection={}", files);
+            } catch (DataAccessException ex) {
+                log.warn("Could not ensure the {} hash index; deduplication lookups will scan", files, ex);
+            }
+        };
+    }
+
+    private record Backfill(long stamped, long keyed, long duplicates) {
+        static final Backfill NONE = new Backfill(0, 0, 0);
+    }
+}
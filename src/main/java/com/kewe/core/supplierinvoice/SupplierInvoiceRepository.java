@@ -2,5 +2,9 @@ package com.kewe.core.supplierinvoice;
 
 import org.springframework.data.mongodb.repository.MongoRepository;
 
+import java.util.Optional;
+
 public interface SupplierInvoiceRepository extends MongoRepository<SupplierInvoice, String> {
+
+    Optional<SupplierInvoice> findFirstByDuplicateKey(String duplicateKey);
 }
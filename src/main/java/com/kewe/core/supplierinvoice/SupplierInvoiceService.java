@@ -1,14 +1,46 @@
 package com.kewe.core.supplierinvoice;
 
+import com.kewe.core.common.Violations;
+import com.kewe.core.posting.PostingEngine;
+import com.kewe.core.supplierinvoice.dto.BulkTransitionResponse;
+import com.kewe.core.supplierinvoice.dto.LinePatchRequest;
+import com.kewe.core.supplierinvoice.dto.LinePatchResponse;
+import com.kewe.core.supplierinvoice.dto.PossibleDuplicateDTO;
 import com.kewe.core.supplierinvoice.dto.SupplierInvoiceDTO;
+import com.kewe.core.supplierinvoice.dto.SupplierInvoicePageDTO;
+import com.kewe.core.supplierinvoice.dto.SupplierInvoiceSummaryDTO;
+import com.mongodb.bulk.BulkWriteError;
+import org.bson.Document;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.BulkOperationException;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.aggregation.ArrayOperators;
+import org.springframework.data.mongodb.core.aggregation.ConditionalOperators;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
 import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
 import org.springframework.web.server.ResponseStatusException;
 
 import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
 import java.time.Instant;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.BitSet;
 import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
 
 @Service
 public class SupplierInvoiceService {
@@ -22,10 +54,23 @@ public class SupplierInvoiceService {
 
     private static final String SYSTEM_USER = "system";
 
+    private static final int DEFAULT_PAGE_SIZE = 50;
+    private static final int MAX_PAGE_SIZE = 500;
+    private static final int MAX_BULK_IDS = 5_000;
+    private static final int DUPLICATE_KEY_ERROR_CODE = 11000;
+    private static final int MAX_LINE_PATCHES = 20_000;
+
     private final SupplierInvoiceRepository repository;
+    private final MongoTemplate mongoTemplate;
+    private final DuplicateInvoiceDetector duplicateDetector;
+    private final PostingEngine postingEngine;
 
-    public SupplierInvoiceService(SupplierInvoiceRepository repository) {
+    public SupplierInvoiceService(SupplierInvoiceRepository repository, MongoTemplate mongoTemplate,
+                                  DuplicateInvoiceDetector duplicateDetector, PostingEngine postingEngine) {
         this.repository = repository;
+        this.mongoTemplate = mongoTemplate;
+        this.duplicateDetector = duplicateDetector;
+        this.postingEngine = postingEngine;
     }
 
     // ---- Commands ----
@@ -36,6 +81,7 @@ public class SupplierInvoiceService {
         SupplierInvoice invoice = mapToEntity(dto);
         invoice.setType(TYPE_SUPPLIER_INVOICE);
         invoice.setStatus(STATUS_DRAFT);
+        duplicateDetector.stamp(invoice);
         touchCreate(invoice);
 
         return repository.save(invoice);
@@ -48,9 +94,10 @@ public class SupplierInvoiceService {
         validateDraftFields(dto);
 
         applyUpdatableFields(invoice, dto);
+        duplicateDetector.stamp(invoice);
         touchUpdate(invoice);
 
-        return repository.save(invoice);
+        return saveVersioned(invoice);
     }
 
     public SupplierInvoice submit(String id) {
@@ -59,10 +106,24 @@ public class SupplierInvoiceService {
         requireStatusTransition(invoice, STATUS_DRAFT, STATUS_SUBMITTED);
         validateSubmitRules(invoice);
 
+        String duplicateKey = duplicateDetector.duplicateKey(invoice);
+        repository.findFirstByDuplicateKey(duplicateKey)
+                .filter(existing -> !existing.getId().equals(invoice.getId()))
+                .ifPresent(existing -> {
+                    throw duplicateInvoice(existing.getId());
+                });
+
         invoice.setStatus(STATUS_SUBMITTED);
+        invoice.setDuplicateKey(duplicateKey);
+        duplicateDetector.stamp(invoice);
         touchUpdate(invoice);
 
-        return repository.save(invoice);
+        try {
+            return saveVersioned(invoice);
+        } catch (DuplicateKeyException ex) {
+            // lost a race with a concurrent submit of the same invoice
+            throw duplicateInvoice(null);
+        }
     }
 
     public SupplierInvoice approve(String id) {
@@ -70,7 +131,174 @@ public class SupplierInvoiceService {
     }
 
     public SupplierInvoice post(String id) {
-        return transition(id, STATUS_APPROVED, STATUS_POSTED);
+        SupplierInvoice invoice = getById(id);
+
+        requireStatusTransition(invoice, STATUS_APPROVED, STATUS_POSTED);
+        // journal first: if the status write then fails, posting again finds the journal by its idempotency key
+        postingEngine.writeJournal(invoice);
+
+        invoice.setStatus(STATUS_POSTED);
+        touchUpdate(invoice);
+
+        return saveVersioned(invoice);
+    }
+
+    /**
+     * Applies line patches to a draft in one version-checked update, without loading or re-mapping the other lines.
+     * Only the line count, status and version are read first.
+     */
+    public LinePatchResponse patchLines(String id, List<LinePatchRequest.LinePatch> patches) {
+        if (patches == null || patches.isEmpty()) {
+            throw badRequest("at least one line patch is required");
+        }
+        if (patches.size() > MAX_LINE_PATCHES) {
+            throw badRequest("at most " + MAX_LINE_PATCHES + " line patches are accepted per request");
+        }
+
+        Document state = mongoTemplate.aggregate(Aggregation.newAggregation(SupplierInvoice.class,
+                Aggregation.match(Criteria.where("id").is(id)),
+                Aggregation.project("status", "version")
+                        .and(ArrayOperators.Size.lengthOfArray(ConditionalOperators.ifNull("lines").then(List.of())))
+                        .as("lineCount")), Document.class).getUniqueMappedResult();
+        if (state == null) {
+            throw notFound("Supplier invoice not found: " + id);
+        }
+        if (!STATUS_DRAFT.equals(state.getString("status"))) {
+            throw conflict("Only Draft invoices can be edited");
+        }
+        int lineCount = ((Number) state.get("lineCount")).intValue();
+        long version = state.get("version") == null ? 0L : ((Number) state.get("version")).longValue();
+
+        LineDelta delta = lineDelta(lineCount, patches);
+        delta.update().set("updatedAt", Instant.now())
+                .set("updatedBy", SYSTEM_USER)
+                .inc("version", 1);
+        Query query = Query.query(Criteria.where("id").is(id).and("status").is(STATUS_DRAFT).and("version").is(version));
+        if (mongoTemplate.updateFirst(query, delta.update(), SupplierInvoice.class).getModifiedCount() == 0) {
+            throw conflict("Supplier invoice was modified concurrently; reload and retry");
+        }
+        return new LinePatchResponse(id, version + 1, lineCount + delta.appended(), delta.updated(), delta.appended());
+    }
+
+    // ---- Bulk commands ----
+
+    /**
+     * Submits many drafts with one unordered bulk write. Each draft is checked against the submit rules and for
+     * duplicates (within the batch and against submitted invoices, one query for the whole batch) before the write,
+     * and each update is conditioned on the status and version that were read, so nothing edited in between is
+     * overwritten.
+     */
+    public BulkTransitionResponse submitAll(List<String> ids) {
+        List<String> requested = distinctIds(ids);
+        Map<String, BulkTransitionResponse.Result> results = new HashMap<>();
+        Map<String, SupplierInvoice> found = new HashMap<>();
+        mongoTemplate.find(Query.query(Criteria.where("id").in(requested)), SupplierInvoice.class)
+                .forEach(invoice -> found.put(invoice.getId(), invoice));
+
+        List<SupplierInvoice> ready = new ArrayList<>();
+        Map<String, String> idsByDuplicateKey = new HashMap<>();
+        for (String id : requested) {
+            SupplierInvoice invoice = found.get(id);
+            if (invoice == null) {
+                results.put(id, bulkResult(id, BulkTransitionResponse.Outcome.NOT_FOUND, null, "Supplier invoice not found: " + id));
+                continue;
+            }
+            try {
+                requireStatusTransition(invoice, STATUS_DRAFT, STATUS_SUBMITTED);
+                validateSubmitRules(invoice);
+            } catch (ResponseStatusException ex) {
+                results.put(id, bulkFailure(id, invoice.getStatus(), ex));
+                continue;
+            }
+            String duplicateKey = duplicateDetector.duplicateKey(invoice);
+            String earlier = idsByDuplicateKey.putIfAbsent(duplicateKey, id);
+            if (earlier != null) {
+                results.put(id, bulkResult(id, BulkTransitionResponse.Outcome.CONFLICT, invoice.getStatus(),
+                        "Duplicate invoice: same as " + earlier + " in this batch"));
+                continue;
+            }
+            invoice.setDuplicateKey(duplicateKey);
+            ready.add(invoice);
+        }
+
+        if (!idsByDuplicateKey.isEmpty()) {
+            Query submitted = Query.query(Criteria.where("duplicateKey").in(idsByDuplicateKey.keySet()));
+            submitted.fields().include("duplicateKey");
+            for (SupplierInvoice existing : mongoTemplate.find(submitted, SupplierInvoice.class)) {
+                String id = idsByDuplicateKey.get(existing.getDuplicateKey());
+                results.put(id, bulkResult(id, BulkTransitionResponse.Outcome.CONFLICT, STATUS_DRAFT,
+                        "Duplicate invoice: already submitted as " + existing.getId()));
+            }
+            ready.removeIf(invoice -> results.containsKey(invoice.getId()));
+        }
+
+        if (!ready.isEmpty()) {
+            Instant stamp = Instant.now().truncatedTo(ChronoUnit.MILLIS);
+            BulkOperations bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, SupplierInvoice.class);
+            for (SupplierInvoice invoice : ready) {
+                duplicateDetector.stamp(invoice);
+                bulk.updateOne(Query.query(Criteria.where("id").is(invoice.getId())
+                                .and("status").is(STATUS_DRAFT)
+                                .and("version").is(invoice.getVersion())),
+                        transitionUpdate(STATUS_SUBMITTED, stamp)
+                                .set("duplicateKey", invoice.getDuplicateKey())
+                                .set("normalizedInvoiceNumber", invoice.getNormalizedInvoiceNumber())
+                                .set("amountCents", invoice.getAmountCents()));
+            }
+            long modified;
+            List<String> written = new ArrayList<>(ready.stream().map(SupplierInvoice::getId).toList());
+            try {
+                modified = bulk.execute().getModifiedCount();
+            } catch (BulkOperationException ex) {
+                modified = ex.getResult().getModifiedCount();
+                for (BulkWriteError error : ex.getErrors()) {
+                    String id = ready.get(error.getIndex()).getId();
+                    boolean duplicate = error.getCode() == DUPLICATE_KEY_ERROR_CODE;
+                    results.put(id, bulkResult(id,
+                            duplicate ? BulkTransitionResponse.Outcome.CONFLICT : BulkTransitionResponse.Outcome.INVALID,
+                            STATUS_DRAFT,
+                            duplicate ? "Duplicate invoice: this supplier invoice has already been submitted" : error.getMessage()));
+                    written.remove(id);
+                }
+            }
+            confirmTransitions(written, modified, STATUS_SUBMITTED, stamp, results);
+        }
+        return bulkResponse(STATUS_SUBMITTED, requested, results);
+    }
+
+    public BulkTransitionResponse approveAll(List<String> ids) {
+        return transitionAll(ids, STATUS_SUBMITTED, STATUS_APPROVED);
+    }
+
+    /** Journals and posts many Approved invoices as one posting-engine batch: one journal insert, one updateMany. */
+    public BulkTransitionResponse postAll(List<String> ids) {
+        List<String> requested = distinctIds(ids);
+        Query query = Query.query(Criteria.where("id").in(requested));
+        query.fields().exclude("attachmentsMetadata");
+        Map<String, SupplierInvoice> found = new HashMap<>();
+        mongoTemplate.find(query, SupplierInvoice.class).forEach(invoice -> found.put(invoice.getId(), invoice));
+
+        Map<String, BulkTransitionResponse.Result> results = new HashMap<>();
+        List<SupplierInvoice> approved = new ArrayList<>();
+        for (String id : requested) {
+            SupplierInvoice invoice = found.get(id);
+            if (invoice == null) {
+                results.put(id, bulkResult(id, BulkTransitionResponse.Outcome.NOT_FOUND, null, "Supplier invoice not found: " + id));
+            } else if (!STATUS_APPROVED.equals(invoice.getStatus())) {
+                results.put(id, bulkResult(id, BulkTransitionResponse.Outcome.CONFLICT, invoice.getStatus(),
+                        "Invalid status transition: " + invoice.getStatus() + " -> " + STATUS_POSTED));
+            } else {
+                approved.add(invoice);
+            }
+        }
+
+        if (!approved.isEmpty()) {
+            PostingEngine.BatchResult batch = postingEngine.postBatch(null, approved);
+            batch.failures().forEach(failure -> results.put(failure.invoiceId(), bulkResult(failure.invoiceId(),
+                    BulkTransitionResponse.Outcome.INVALID, STATUS_APPROVED, failure.message())));
+            confirmTransitions(batch.journaledIds(), batch.posted(), STATUS_POSTED, batch.postedAt(), results);
+        }
+        return bulkResponse(STATUS_POSTED, requested, results);
     }
 
     // ---- Queries ----
@@ -80,6 +308,11 @@ public class SupplierInvoiceService {
                 .orElseThrow(() -> notFound("Supplier invoice not found: " + id));
     }
 
+    /** Other invoices from the same supplier with a similar amount and an invoice number a typo or two away. */
+    public List<PossibleDuplicateDTO> findPossibleDuplicates(SupplierInvoice invoice) {
+        return duplicateDetector.findNearDuplicates(invoice);
+    }
+
     /**
      * Canonical query method for "get all" (entities).
      * Controller can map to DTOs via mapToDTO.
@@ -88,6 +321,95 @@ public class SupplierInvoiceService {
         return repository.findAll();
     }
 
+    /**
+     * Worklist query: filters on status, supplier and date ranges, ordered by (accountingDate, id) and paged by
+     * keyset so every page costs the same no matter how deep. Only summary fields are read; lines and attachment
+     * metadata never leave the database.
+     */
+    public SupplierInvoicePageDTO search(SearchFilter filter, String after, Integer limit) {
+        int pageSize = limit == null ? DEFAULT_PAGE_SIZE : Math.max(1, Math.min(MAX_PAGE_SIZE, limit));
+        List<Criteria> criteria = new ArrayList<>();
+        if (!isBlank(filter.status())) {
+            criteria.add(Criteria.where("status").is(filter.status()));
+        }
+        if (!isBlank(filter.supplierId())) {
+            criteria.add(Criteria.where("supplierId").is(filter.supplierId()));
+        }
+        addRange(criteria, "invoiceDate", filter.invoiceDateFrom(), filter.invoiceDateTo());
+        addRange(criteria, "accountingDate", filter.accountingDateFrom(), filter.accountingDateTo());
+        if (!isBlank(after)) {
+            criteria.add(afterCursor(decodeCursor(after)));
+        }
+
+        Query query = new Query();
+        if (!criteria.isEmpty()) {
+            query.addCriteria(new Criteria().andOperator(criteria));
+        }
+        query.with(Sort.by(Sort.Order.asc("accountingDate"), Sort.Order.asc("id"))).limit(pageSize + 1);
+        query.fields().include("status", "supplierId", "invoiceNumber", "invoiceDate", "accountingDate", "currency", "invoiceAmount");
+
+        List<SupplierInvoice> found = mongoTemplate.find(query, SupplierInvoice.class);
+        boolean hasMore = found.size() > pageSize;
+        List<SupplierInvoice> page = hasMore ? found.subList(0, pageSize) : found;
+        String nextCursor = hasMore ? encodeCursor(page.get(page.size() - 1)) : null;
+        return new SupplierInvoicePageDTO(page.stream().map(this::mapToSummaryDTO).toList(), nextCursor);
+    }
+
+    private void addRange(List<Criteria> criteria, String field, LocalDate from, LocalDate to) {
+        if (from != null && to != null && from.isAfter(to)) {
+            throw badRequest(field + " range is empty: " + from + " is after " + to);
+        }
+        if (from != null && to != null) {
+            criteria.add(Criteria.where(field).gte(from).lte(to));
+        } else if (from != null) {
+            criteria.add(Criteria.where(field).gte(from));
+        } else if (to != null) {
+            criteria.add(Criteria.where(field).lte(to));
+        }
+    }
+
+    /** Rows strictly after the cursor in (accountingDate, id) order; a missing accountingDate sorts first. */
+    private Criteria afterCursor(Cursor cursor) {
+        if (cursor.accountingDate() == null) {
+            return new Criteria().orOperator(
+                    new Criteria().andOperator(Criteria.where("accountingDate").is(null), Criteria.where("id").gt(cursor.id())),
+                    Criteria.where("accountingDate").ne(null));
+        }
+        return new Criteria().orOperator(
+                new Criteria().andOperator(Criteria.where("accountingDate").is(cursor.accountingDate()), Criteria.where("id").gt(cursor.id())),
+                Criteria.where("accountingDate").gt(cursor.accountingDate()));
+    }
+
+    private String encodeCursor(SupplierInvoice last) {
+        String raw = (last.getAccountingDate() == null ? "" : last.getAccountingDate().toString()) + "|" + last.getId();
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private Cursor decodeCursor(String cursor) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            int separator = raw.indexOf('|');
+            if (separator < 0 || separator == raw.length() - 1) {
+                throw badRequest("Invalid cursor");
+            }
+            String date = raw.substring(0, separator);
+            return new Cursor(date.isEmpty() ? null : LocalDate.parse(date), raw.substring(separator + 1));
+        } catch (IllegalArgumentException | DateTimeParseException ex) {
+            throw badRequest("Invalid cursor");
+        }
+    }
+
+    public record SearchFilter(String status,
+                               String supplierId,
+                               LocalDate invoiceDateFrom,
+                               LocalDate invoiceDateTo,
+                               LocalDate accountingDateFrom,
+                               LocalDate accountingDateTo) {
+    }
+
+    private record Cursor(LocalDate accountingDate, String id) {
+    }
+
     // ---- Status transitions ----
 
     private SupplierInvoice transition(String id, String fromStatus, String toStatus) {
@@ -98,18 +420,134 @@ public class SupplierInvoiceService {
         invoice.setStatus(toStatus);
         touchUpdate(invoice);
 
-        return repository.save(invoice);
+        return saveVersioned(invoice);
+    }
+
+    /**
+     * Moves every listed invoice that is in {@code fromStatus} to {@code toStatus} with one conditional updateMany.
+     * Missing invoices and invoices in any other status are reported per id and left untouched.
+     */
+    private BulkTransitionResponse transitionAll(List<String> ids, String fromStatus, String toStatus) {
+        List<String> requested = distinctIds(ids);
+        Query current = Query.query(Criteria.where("id").in(requested));
+        current.fields().include("status");
+        Map<String, String> statuses = new HashMap<>();
+        mongoTemplate.find(current, SupplierInvoice.class).forEach(invoice -> statuses.put(invoice.getId(), invoice.getStatus()));
+
+        Map<String, BulkTransitionResponse.Result> results = new HashMap<>();
+        List<String> eligible = new ArrayList<>();
+        for (String id : requested) {
+            String status = statuses.get(id);
+            if (!statuses.containsKey(id)) {
+                results.put(id, bulkResult(id, BulkTransitionResponse.Outcome.NOT_FOUND, null, "Supplier invoice not found: " + id));
+            } else if (!fromStatus.equals(status)) {
+                results.put(id, bulkResult(id, BulkTransitionResponse.Outcome.CONFLICT, status,
+                        "Invalid status transition: " + status + " -> " + toStatus));
+            } else {
+                eligible.add(id);
+            }
+        }
+
+        if (!eligible.isEmpty()) {
+            Instant stamp = Instant.now().truncatedTo(ChronoUnit.MILLIS);
+            long modified = mongoTemplate.updateMulti(
+                    Query.query(Criteria.where("id").in(eligible).and("status").is(fromStatus)),
+                    transitionUpdate(toStatus, stamp), SupplierInvoice.class).getModifiedCount();
+            confirmTransitions(eligible, modified, toStatus, stamp, results);
+        }
+        return bulkResponse(toStatus, requested, results);
+    }
+
+    /**
+     * Records the outcome of a conditional bulk write. When every targeted invoice was modified there is nothing to
+     * check; otherwise some changed status in between, and the targeted invoices are read back to tell which.
+     */
+    private void confirmTransitions(List<String> targeted, long modified, String toStatus, Instant stamp,
+                                    Map<String, BulkTransitionResponse.Result> results) {
+        if (modified == targeted.size()) {
+            targeted.forEach(id -> results.put(id, bulkResult(id, BulkTransitionResponse.Outcome.TRANSITIONED, toStatus, null)));
+            return;
+        }
+        Query readBack = Query.query(Criteria.where("id").in(targeted));
+        readBack.fields().include("status", "updatedAt");
+        Map<String, SupplierInvoice> current = new HashMap<>();
+        mongoTemplate.find(readBack, SupplierInvoice.class).forEach(invoice -> current.put(invoice.getId(), invoice));
+        for (String id : targeted) {
+            SupplierInvoice invoice = current.get(id);
+            if (invoice == null) {
+                results.put(id, bulkResult(id, BulkTransitionResponse.Outcome.NOT_FOUND, null, "Supplier invoice not found: " + id));
+            } else if (toStatus.equals(invoice.getStatus()) && stamp.equals(invoice.getUpdatedAt())) {
+                results.put(id, bulkResult(id, BulkTransitionResponse.Outcome.TRANSITIONED, toStatus, null));
+            } else {
+                results.put(id, bulkResult(id, BulkTransitionResponse.Outcome.CONFLICT, invoice.getStatus(),
+                        "Supplier invoice was modified concurrently"));
+            }
+        }
+    }
+
+    private Update transitionUpdate(String toStatus, Instant stamp) {
+        return new Update()
+                .set("status", toStatus)
+                .set("updatedAt", stamp)
+                .set("updatedBy", SYSTEM_USER)
+                .inc("version", 1);
+    }
+
+    private List<String> distinctIds(List<String> ids) {
+        if (ids == null || ids.isEmpty()) {
+            throw badRequest("ids must not be empty");
+        }
+        if (ids.size() > MAX_BULK_IDS) {
+            throw badRequest("Bulk transitions accept at most " + MAX_BULK_IDS + " ids per request");
+        }
+        LinkedHashSet<String> distinct = new LinkedHashSet<>();
+        for (String id : ids) {
+            if (isBlank(id)) {
+                throw badRequest("ids must not contain blank values");
+            }
+            distinct.add(id.trim());
+        }
+        return List.copyOf(distinct);
+    }
+
+    private BulkTransitionResponse bulkResponse(String toStatus, List<String> requested,
+                                                Map<String, BulkTransitionResponse.Result> results) {
+        List<BulkTransitionResponse.Result> ordered = requested.stream().map(results::get).toList();
+        int transitioned = (int) ordered.stream()
+                .filter(result -> result.outcome() == BulkTransitionResponse.Outcome.TRANSITIONED)
+                .count();
+        return new BulkTransitionResponse(toStatus, requested.size(), transitioned, requested.size() - transitioned, ordered);
+    }
+
+    private BulkTransitionResponse.Result bulkResult(String id, BulkTransitionResponse.Outcome outcome, String status, String message) {
+        return new BulkTransitionResponse.Result(id, outcome, status, message);
+    }
+
+    private BulkTransitionResponse.Result bulkFailure(String id, String status, ResponseStatusException ex) {
+        BulkTransitionResponse.Outcome outcome = ex.getStatusCode().value() == HttpStatus.CONFLICT.value()
+                ? BulkTransitionResponse.Outcome.CONFLICT
+                : BulkTransitionResponse.Outcome.INVALID;
+        return bulkResult(id, outcome, status, ex.getReason());
+    }
+
+    /** Saves with the version check; a concurrent edit since the invoice was read is a 409, not a silent overwrite. */
+    private SupplierInvoice saveVersioned(SupplierInvoice invoice) {
+        try {
+            return repository.save(invoice);
+        } catch (OptimisticLockingFailureException ex) {
+            throw conflict("Supplier invoice was modified concurrently; reload and retry");
+        }
     }
 
     private void requireStatus(SupplierInvoice invoice, String expectedStatus, String messageIfWrong) {
         if (!expectedStatus.equals(invoice.getStatus())) {
-            throw badRequest(messageIfWrong);
+            throw conflict(messageIfWrong);
         }
     }
 
     private void requireStatusTransition(SupplierInvoice invoice, String fromStatus, String toStatus) {
         if (!fromStatus.equals(invoice.getStatus())) {
-            throw badRequest("Invalid status transition: " + invoice.getStatus() + " -> " + toStatus);
+            throw conflict("Invalid status transition: " + invoice.getStatus() + " -> " + toStatus);
         }
     }
 
@@ -124,38 +562,48 @@ public class SupplierInvoiceService {
         }
     }
 
-    private void validateSubmitRules(SupplierInvoice invoice) {
+    /**
+     * Checks every submit rule in one pass over the lines and reports all violations together: the first one is the
+     * error message and the full list (capped at {@link Violations#MAX_REPORTED}) goes in {@code violations}.
+     */
+    void validateSubmitRules(SupplierInvoice invoice) {
+        Violations violations = new Violations();
         if (invoice.getInvoiceDate() == null) {
-            throw badRequest("invoiceDate is required before submit");
+            violations.add("invoiceDate is required before submit");
         }
         if (invoice.getAccountingDate() == null) {
-            throw badRequest("accountingDate is required before submit");
+            violations.add("accountingDate is required before submit");
         }
         if (isBlank(invoice.getCurrency())) {
-            throw badRequest("currency is required before submit");
+            violations.add("currency is required before submit");
         }
         if (invoice.getInvoiceAmount() == null) {
-            throw badRequest("invoiceAmount is required before submit");
-        }
-        if (invoice.getLines() == null || invoice.getLines().isEmpty()) {
-            throw badRequest("at least one line is required before submit");
+            violations.add("invoiceAmount is required before submit");
         }
 
-        BigDecimal lineTotal = BigDecimal.ZERO;
-        for (int i = 0; i < invoice.getLines().size(); i++) {
-            SupplierInvoice.Line line = invoice.getLines().get(i);
-            if (isBlank(line.getDescription())) {
-                throw badRequest("line " + (i + 1) + " description is required before submit");
+        List<SupplierInvoice.Line> lines = invoice.getLines();
+        if (lines == null || lines.isEmpty()) {
+            violations.add("at least one line is required before submit");
+        } else {
+            BigDecimal lineTotal = BigDecimal.ZERO;
+            boolean totalKnown = true;
+            for (int i = 0; i < lines.size(); i++) {
+                SupplierInvoice.Line line = lines.get(i);
+                if (isBlank(line.getDescription())) {
+                    violations.addLine(i + 1, "description is required before submit");
+                }
+                if (line.getAmount() == null) {
+                    violations.addLine(i + 1, "amount is required before submit");
+                    totalKnown = false;
+                } else if (totalKnown) {
+                    lineTotal = lineTotal.add(line.getAmount());
+                }
             }
-            if (line.getAmount() == null) {
-                throw badRequest("line " + (i + 1) + " amount is required before submit");
+            if (totalKnown && invoice.getInvoiceAmount() != null && invoice.getInvoiceAmount().compareTo(lineTotal) != 0) {
+                violations.add("invoiceAmount must equal the sum of all line amounts");
             }
-            lineTotal = lineTotal.add(line.getAmount());
-        }
-
-        if (invoice.getInvoiceAmount().compareTo(lineTotal) != 0) {
-            throw badRequest("invoiceAmount must equal the sum of all line amounts");
         }
+        violations.throwIfAny();
     }
 
     // ---- Mapping ----
@@ -172,24 +620,43 @@ public class SupplierInvoiceService {
         dto.setInvoiceAmount(invoice.getInvoiceAmount());
         dto.setMemo(invoice.getMemo());
 
-        dto.setLines(safeList(invoice.getLines()).stream().map(line -> {
+        List<SupplierInvoice.Line> lines = safeList(invoice.getLines());
+        List<SupplierInvoiceDTO.LineDTO> lineDTOs = new ArrayList<>(lines.size());
+        for (SupplierInvoice.Line line : lines) {
             SupplierInvoiceDTO.LineDTO lineDTO = new SupplierInvoiceDTO.LineDTO();
             lineDTO.setDescription(line.getDescription());
             lineDTO.setAmount(line.getAmount());
-            return lineDTO;
-        }).toList());
+            lineDTO.setItemTypeCode(line.getItemTypeCode());
+            lineDTO.setItemNodeId(line.getItemNodeId());
+            lineDTO.setCostCenterNodeId(line.getCostCenterNodeId());
+            lineDTO.setProgramNodeId(line.getProgramNodeId());
+            lineDTO.setAwardDriverTypeCode(line.getAwardDriverTypeCode());
+            lineDTO.setAwardDriverNodeId(line.getAwardDriverNodeId());
+            lineDTO.setSupplierSku(line.getSupplierSku());
+            lineDTO.setUnitPrice(line.getUnitPrice());
+            lineDTOs.add(lineDTO);
+        }
+        dto.setLines(lineDTOs);
 
         dto.setAttachmentsMetadata(safeList(invoice.getAttachmentsMetadata()).stream().map(attachment -> {
             SupplierInvoiceDTO.AttachmentMetadataDTO attachmentDTO = new SupplierInvoiceDTO.AttachmentMetadataDTO();
             attachmentDTO.setFileName(attachment.getFileName());
             attachmentDTO.setContentType(attachment.getContentType());
             attachmentDTO.setSize(attachment.getSize());
+            attachmentDTO.setAttachmentId(attachment.getAttachmentId());
+            attachmentDTO.setSha256(attachment.getSha256());
+            attachmentDTO.setUploadedAt(attachment.getUploadedAt());
             return attachmentDTO;
         }).toList());
 
         return dto;
     }
 
+    public SupplierInvoiceSummaryDTO mapToSummaryDTO(SupplierInvoice invoice) {
+        return new SupplierInvoiceSummaryDTO(invoice.getId(), invoice.getStatus(), invoice.getSupplierId(),
+                invoice.getInvoiceNumber(), invoice.getInvoiceDate(), invoice.getAccountingDate(),
+                invoice.getCurrency(), invoice.getInvoiceAmount());
+    }
 
     private SupplierInvoice mapToEntity(SupplierInvoiceDTO dto) {
         SupplierInvoice invoice = new SupplierInvoice();
@@ -197,7 +664,8 @@ public class SupplierInvoiceService {
         return invoice;
     }
 
-    private void applyUpdatableFields(SupplierInvoice invoice, SupplierInvoiceDTO dto) {
+    /** PUT semantics: every updatable field is replaced, so a field left out of the payload is cleared. */
+    void applyUpdatableFields(SupplierInvoice invoice, SupplierInvoiceDTO dto) {
         invoice.setSupplierId(dto.getSupplierId());
         invoice.setInvoiceNumber(dto.getInvoiceNumber());
         invoice.setInvoiceDate(dto.getInvoiceDate());
@@ -206,16 +674,123 @@ public class SupplierInvoiceService {
         invoice.setInvoiceAmount(dto.getInvoiceAmount());
         invoice.setMemo(dto.getMemo());
         invoice.setLines(mapLines(dto.getLines()));
-        invoice.setAttachmentsMetadata(mapAttachments(dto.getAttachmentsMetadata()));
+        invoice.setAttachmentsMetadata(mergeAttachments(invoice.getAttachmentsMetadata(), dto.getAttachmentsMetadata()));
+    }
+
+    /**
+     * Builds the update for {@link #patchLines}: {@code $set} on the patched fields of existing lines, and on
+     * {@code lines.<n>} for new lines, which must follow on from the last existing one without gaps. An invoice
+     * without lines gets the whole array, since a positional set on a missing field would create an object.
+     */
+    LineDelta lineDelta(int lineCount, List<LinePatchRequest.LinePatch> patches) {
+        Update update = new Update();
+        SupplierInvoice.Line[] firstLines = lineCount == 0 ? new SupplierInvoice.Line[patches.size()] : null;
+        BitSet seen = new BitSet();
+        int updated = 0;
+        int appended = 0;
+        int lastIndex = -1;
+        for (LinePatchRequest.LinePatch patch : patches) {
+            Integer index = patch.getIndex();
+            if (index == null || index < 0) {
+                throw badRequest("every line patch needs a non-negative index");
+            }
+            if (seen.get(index)) {
+                throw badRequest("line index " + index + " is patched more than once");
+            }
+            seen.set(index);
+            lastIndex = Math.max(lastIndex, index);
+            if (index < lineCount) {
+                if (setLineFields(update, "lines." + index + ".", patch)) {
+                    updated++;
+                }
+            } else if (firstLines != null) {
+                if (index < firstLines.length) {
+                    firstLines[index] = toLine(patch);
+                }
+                appended++;
+            } else {
+                update.set("lines." + index, toLine(patch));
+                appended++;
+            }
+        }
+        if (appended > 0 && seen.nextClearBit(lineCount) <= lastIndex) {
+            throw badRequest("line index " + lastIndex + " is out of range: the invoice has " + lineCount
+                    + " lines and new lines must follow on from the last one");
+        }
+        if (firstLines != null) {
+            update.set("lines", List.of(firstLines));
+        }
+        return new LineDelta(update, updated, appended);
     }
 
+    private boolean setLineFields(Update update, String prefix, LinePatchRequest.LinePatch patch) {
+        boolean changed = setIfPresent(update, prefix + "description", patch.getDescription());
+        changed |= setIfPresent(update, prefix + "amount", patch.getAmount());
+        changed |= setIfPresent(update, prefix + "itemTypeCode", patch.getItemTypeCode());
+        changed |= setIfPresent(update, prefix + "itemNodeId", patch.getItemNodeId());
+        changed |= setIfPresent(update, prefix + "costCenterNodeId", patch.getCostCenterNodeId());
+        changed |= setIfPresent(update, prefix + "programNodeId", patch.getProgramNodeId());
+        changed |= setIfPresent(update, prefix + "awardDriverTypeCode", patch.getAwardDriverTypeCode());
+        changed |= setIfPresent(update, prefix + "awardDriverNodeId", patch.getAwardDriverNodeId());
+        changed |= setIfPresent(update, prefix + "supplierSku", patch.getSupplierSku());
+        changed |= setIfPresent(update, prefix + "unitPrice", patch.getUnitPrice());
+        return changed;
+    }
+
+    private boolean setIfPresent(Update update, String path, Object value) {
+        if (value == null) {
+            return false;
+        }
+        update.set(path, value);
+        return true;
+    }
+
+    private SupplierInvoice.Line toLine(LinePatchRequest.LinePatch patch) {
+        SupplierInvoice.Line line = new SupplierInvoice.Line();
+        line.setDescription(patch.getDescription());
+        line.setAmount(patch.getAmount());
+        line.setItemTypeCode(patch.getItemTypeCode());
+        line.setItemNodeId(patch.getItemNodeId());
+        line.setCostCenterNodeId(patch.getCostCenterNodeId());
+        line.setProgramNodeId(patch.getProgramNodeId());
+        line.setAwardDriverTypeCode(patch.getAwardDriverTypeCode());
+        line.setAwardDriverNodeId(patch.getAwardDriverNodeId());
+        line.setSupplierSku(patch.getSupplierSku());
+        line.setUnitPrice(patch.getUnitPrice());
+        return line;
+    }
+
+    record LineDelta(Update update, int updated, int appended) {}
+
     private List<SupplierInvoice.Line> mapLines(List<SupplierInvoiceDTO.LineDTO> lineDTOs) {
-        return safeList(lineDTOs).stream().map(lineDTO -> {
+        List<SupplierInvoice.Line> lines = new ArrayList<>(lineDTOs.size());
+        for (SupplierInvoiceDTO.LineDTO lineDTO : lineDTOs) {
             SupplierInvoice.Line line = new SupplierInvoice.Line();
             line.setDescription(lineDTO.getDescription());
             line.setAmount(lineDTO.getAmount());
-            return line;
-        }).toList();
+            line.setItemTypeCode(lineDTO.getItemTypeCode());
+            line.setItemNodeId(lineDTO.getItemNodeId());
+            line.setCostCenterNodeId(lineDTO.getCostCenterNodeId());
+            line.setProgramNodeId(lineDTO.getProgramNodeId());
+            line.setAwardDriverTypeCode(lineDTO.getAwardDriverTypeCode());
+            line.setAwardDriverNodeId(lineDTO.getAwardDriverNodeId());
+            line.setSupplierSku(lineDTO.getSupplierSku());
+            line.setUnitPrice(lineDTO.getUnitPrice());
+            lines.add(line);
+        }
+        return lines;
+    }
+
+    /**
+     * Uploaded files are managed through the attachment endpoints only, so they survive an update whatever the
+     * payload says; free-form metadata entries (no attachmentId) are replaced as before.
+     */
+    private List<SupplierInvoice.AttachmentMetadata> mergeAttachments(List<SupplierInvoice.AttachmentMetadata> current,
+                                                                      List<SupplierInvoiceDTO.AttachmentMetadataDTO> attachmentDTOs) {
+        List<SupplierInvoice.AttachmentMetadata> merged = new ArrayList<>();
+        safeList(current).stream().filter(attachment -> attachment.getStorageId() != null).forEach(merged::add);
+        merged.addAll(mapAttachments(safeList(attachmentDTOs).stream().filter(attDTO -> attDTO.getAttachmentId() == null).toList()));
+        return merged;
     }
 
     private List<SupplierInvoice.AttachmentMetadata> mapAttachments(List<SupplierInvoiceDTO.AttachmentMetadataDTO> attachmentDTOs) {
@@ -258,6 +833,16 @@ public class SupplierInvoiceService {
         return new ResponseStatusException(HttpStatus.BAD_REQUEST, message);
     }
 
+    private ResponseStatusException conflict(String message) {
+        return new ResponseStatusException(HttpStatus.CONFLICT, message);
+    }
+
+    private ResponseStatusException duplicateInvoice(String existingId) {
+        return conflict(existingId == null
+                ? "Duplicate invoice: this supplier invoice has already been submitted"
+                : "Duplicate invoice: already submitted as " + existingId);
+    }
+
     private ResponseStatusException notFound(String message) {
         return new ResponseStatusException(HttpStatus.NOT_FOUND, message);
     }
@@ -0,0 +1,15 @@
+package com.kewe.core.supplierinvoice.dto;
+
+import jakarta.validation.constraints.NotNull;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public class BulkTransitionRequest {
+
+    @NotNull
+    private List<String> ids = new ArrayList<>();
+
+    public List<String> getIds() { return ids; }
+    public void setIds(List<String> ids) { this.ids = ids; }
+}
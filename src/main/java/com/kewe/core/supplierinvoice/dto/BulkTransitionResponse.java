@@ -0,0 +1,14 @@
+package com.kewe.core.supplierinvoice.dto;
+
+import java.util.List;
+
+public record BulkTransitionResponse(String targetStatus,
+                                     int requested,
+                                     int transitioned,
+                                     int failed,
+                                     List<Result> results) {
+
+    public enum Outcome { TRANSITIONED, NOT_FOUND, CONFLICT, INVALID }
+
+    public record Result(String id, Outcome outcome, String status, String message) {}
+}
@@ -0,0 +1,63 @@
+package com.kewe.core.supplierinvoice.dto;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.PositiveOrZero;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Line-level changes to a draft invoice. A patch addressing an existing index sets only its non-null fields; patches
+ * addressing the indexes right after the last line append new lines.
+ */
+public class LinePatchRequest {
+
+    @NotEmpty
+    @Valid
+    private List<LinePatch> lines = new ArrayList<>();
+
+    public List<LinePatch> getLines() { return lines; }
+    public void setLines(List<LinePatch> lines) { this.lines = lines; }
+
+    public static class LinePatch {
+        @NotNull
+        @PositiveOrZero
+        private Integer index;
+        private String description;
+        private BigDecimal amount;
+        private String itemTypeCode;
+        private String itemNodeId;
+        private String costCenterNodeId;
+        private String programNodeId;
+        private String awardDriverTypeCode;
+        private String awardDriverNodeId;
+        private String supplierSku;
+        private BigDecimal unitPrice;
+
+        public Integer getIndex() { return index; }
+        public void setIndex(Integer index) { this.index = index; }
+        public String getDescription() { return description; }
+        public void setDescription(String description) { this.description = description; }
+        public BigDecimal getAmount() { return amount; }
+        public void setAmount(BigDecimal amount) { this.amount = amount; }
+        public String getItemTypeCode() { return itemTypeCode; }
+        public void setItemTypeCode(String itemTypeCode) { this.itemTypeCode = itemTypeCode; }
+        public String getItemNodeId() { return itemNodeId; }
+        public void setItemNodeId(String itemNodeId) { this.itemNodeId = itemNodeId; }
+        public String getCostCenterNodeId() { return costCenterNodeId; }
+        public void setCostCenterNodeId(String costCenterNodeId) { this.costCenterNodeId = costCenterNodeId; }
+        public String getProgramNodeId() { return programNodeId; }
+        public void setProgramNodeId(String programNodeId) { this.programNodeId = programNodeId; }
+        public String getAwardDriverTypeCode() { return awardDriverTypeCode; }
+        public void setAwardDriverTypeCode(String awardDriverTypeCode) { this.awardDriverTypeCode = awardDriverTypeCode; }
+        public String getAwardDriverNodeId() { return awardDriverNodeId; }
+        public void setAwardDriverNodeId(String awardDriverNodeId) { this.awardDriverNodeId = awardDriverNodeId; }
+        public String getSupplierSku() { return supplierSku; }
+        public void setSupplierSku(String supplierSku) { this.supplierSku = supplierSku; }
+        public BigDecimal getUnitPrice() { return unitPrice; }
+        public void setUnitPrice(BigDecimal unitPrice) { this.unitPrice = unitPrice; }
+    }
+}
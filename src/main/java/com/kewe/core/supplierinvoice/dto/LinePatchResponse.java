@@ -0,0 +1,7 @@
+package com.kewe.core.supplierinvoice.dto;
+
+public record LinePatchResponse(String id,
+                                Long version,
+                                int lineCount,
+                                int updatedLines,
+                                int appendedLines) {}
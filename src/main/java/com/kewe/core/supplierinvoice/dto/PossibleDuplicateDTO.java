@@ -0,0 +1,12 @@
+package com.kewe.core.supplierinvoice.dto;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+public record PossibleDuplicateDTO(String id,
+                                   String status,
+                                   String invoiceNumber,
+                                   BigDecimal invoiceAmount,
+                                   LocalDate invoiceDate,
+                                   int editDistance) {
+}
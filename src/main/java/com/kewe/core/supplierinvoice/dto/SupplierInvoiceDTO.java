@@ -4,6 +4,7 @@ import jakarta.validation.Valid;
 import jakarta.validation.constraints.NotBlank;
 
 import java.math.BigDecimal;
+import java.time.Instant;
 import java.time.LocalDate;
 import java.util.ArrayList;
 import java.util.List;
@@ -35,6 +36,8 @@ public class SupplierInvoiceDTO {
     @Valid
     private List<AttachmentMetadataDTO> attachmentsMetadata = new ArrayList<>();
 
+    private List<PossibleDuplicateDTO> possibleDuplicates;
+
     public String getId() {
         return id;
     }
@@ -123,10 +126,26 @@ public class SupplierInvoiceDTO {
         this.attachmentsMetadata = attachmentsMetadata;
     }
 
+    public List<PossibleDuplicateDTO> getPossibleDuplicates() {
+        return possibleDuplicates;
+    }
+
+    public void setPossibleDuplicates(List<PossibleDuplicateDTO> possibleDuplicates) {
+        this.possibleDuplicates = possibleDuplicates;
+    }
+
     public static class LineDTO {
         private String description;
 
         private BigDecimal amount;
+        private String itemTypeCode;
+        private String itemNodeId;
+        private String costCenterNodeId;
+        private String programNodeId;
+        private String awardDriverTypeCode;
+        private String awardDriverNodeId;
+        private String supplierSku;
+        private BigDecimal unitPrice;
 
         public String getDescription() {
             return description;
@@ -143,12 +162,79 @@ public class SupplierInvoiceDTO {
         public void setAmount(BigDecimal amount) {
             this.amount = amount;
         }
+
+        public String getItemTypeCode() {
+            return itemTypeCode;
+        }
+
+        public void setItemTypeCode(String itemTypeCode) {
+            this.itemTypeCode = itemTypeCode;
+        }
+
+        public String getItemNodeId() {
+            return itemNodeId;
+        }
+
+        public void setItemNodeId(String itemNodeId) {
+            this.itemNodeId = itemNodeId;
+        }
+
+        public String getCostCenterNodeId() {
+            return costCenterNodeId;
+        }
+
+        public void setCostCenterNodeId(String costCenterNodeId) {
+            this.costCenterNodeId = costCenterNodeId;
+        }
+
+        public String getProgramNodeId() {
+            return programNodeId;
+        }
+
+        public void setProgramNodeId(String programNodeId) {
+            this.programNodeId = programNodeId;
+        }
+
+        public String getAwardDriverTypeCode() {
+            return awardDriverTypeCode;
+        }
+
+        public void setAwardDriverTypeCode(String awardDriverTypeCode) {
+            this.awardDriverTypeCode = awardDriverTypeCode;
+        }
+
+        public String getAwardDriverNodeId() {
+            return awardDriverNodeId;
+        }
+
+        public void setAwardDriverNodeId(String awardDriverNodeId) {
+            this.awardDriverNodeId = awardDriverNodeId;
+        }
+
+        public String getSupplierSku() {
+            return supplierSku;
+        }
+
+        public void setSupplierSku(String supplierSku) {
+            this.supplierSku = supplierSku;
+        }
+
+        public BigDecimal getUnitPrice() {
+            return unitPrice;
+        }
+
+        public void setUnitPrice(BigDecimal unitPrice) {
+            this.unitPrice = unitPrice;
+        }
     }
 
     public static class AttachmentMetadataDTO {
         private String fileName;
         private String contentType;
         private Long size;
+        private String attachmentId;
+        private String sha256;
+        private Instant uploadedAt;
 
         public String getFileName() {
             return fileName;
@@ -173,5 +259,29 @@ public class SupplierInvoiceDTO {
         public void setSize(Long size) {
             this.size = size;
         }
+
+        public String getAttachmentId() {
+            return attachmentId;
+        }
+
+        public void setAttachmentId(String attachmentId) {
+            this.attachmentId = attachmentId;
+        }
+
+        public String getSha256() {
+            return sha256;
+        }
+
+        public void setSha256(String sha256) {
+            this.sha256 = sha256;
+        }
+
+        public Instant getUploadedAt() {
+            return uploadedAt;
+        }
+
+        public void setUploadedAt(Instant uploadedAt) {
+            this.uploadedAt = uploadedAt;
+        }
     }
 }
@@ -0,0 +1,7 @@
+package com.kewe.core.supplierinvoice.dto;
+
+import java.util.List;
+
+/** One page of a worklist; pass {@code nextCursor} as {@code after} to fetch the next page, null on the last page. */
+public record SupplierInvoicePageDTO(List<SupplierInvoiceSummaryDTO> items, String nextCursor) {
+}
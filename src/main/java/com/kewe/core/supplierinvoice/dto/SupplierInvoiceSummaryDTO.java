@@ -0,0 +1,14 @@
+package com.kewe.core.supplierinvoice.dto;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+public record SupplierInvoiceSummaryDTO(String id,
+                                        String status,
+                                        String supplierId,
+                                        String invoiceNumber,
+                                        LocalDate invoiceDate,
+                                        LocalDate accountingDate,
+                                        String currency,
+                                        BigDecimal invoiceAmount) {
+}
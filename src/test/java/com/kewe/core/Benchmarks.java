@@ -0,0 +1,64 @@
+package com.kewe.core;
+
+import java.lang.management.ManagementFactory;
+import java.util.function.IntConsumer;
+
+/**
+ * Timing and printing shared by the {@code @Tag("benchmark")} classes. Allocation is read from the calling thread's
+ * allocated bytes counter, so it only covers work done on that thread.
+ */
+public final class Benchmarks {
+
+    private static final com.sun.management.ThreadMXBean THREADS =
+            (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+    private Benchmarks() {
+    }
+
+    /** Runs {@code op} {@code warmupOps} times unmeasured, then returns the per-op average of {@code measuredOps} runs. */
+    public static Measurement measure(int warmupOps, int measuredOps, IntConsumer op) {
+        warmUp(warmupOps, op);
+        long threadId = Thread.currentThread().threadId();
+        long bytesBefore = THREADS.getThreadAllocatedBytes(threadId);
+        long start = System.nanoTime();
+        for (int i = 0; i < measuredOps; i++) {
+            op.accept(i);
+        }
+        long nanos = System.nanoTime() - start;
+        long bytes = THREADS.getThreadAllocatedBytes(threadId) - bytesBefore;
+        return new Measurement((double) nanos / measuredOps, bytes / measuredOps);
+    }
+
+    public static void warmUp(int ops, IntConsumer op) {
+        for (int i = 0; i < ops; i++) {
+            op.accept(i);
+        }
+    }
+
+    public static void printHeader(String... extraColumns) {
+        StringBuilder header = new StringBuilder(String.format("%-26s %-10s %14s %14s", "operation", "variant", "us/op", "bytes/op"));
+        for (String column : extraColumns) {
+            header.append(String.format(" %12s", column));
+        }
+        System.out.println(header);
+    }
+
+    public static void print(String operation, String variant, Measurement measurement, long... extras) {
+        StringBuilder row = new StringBuilder(String.format("%-26s %-10s %14.3f %14d",
+                operation, variant, measurement.microsPerOp(), measurement.bytesPerOp()));
+        for (long extra : extras) {
+            row.append(String.format(" %12d", extra));
+        }
+        System.out.println(row);
+    }
+
+    public record Measurement(double nanosPerOp, long bytesPerOp) {
+        public double microsPerOp() {
+            return nanosPerOp / 1_000;
+        }
+
+        public double millisPerOp() {
+            return nanosPerOp / 1_000_000;
+        }
+    }
+}
@@ -8,6 +8,9 @@ import com.kewe.core.funding.AllocationRecord;
 import com.kewe.core.funding.AllocationRecordRepository;
 import com.kewe.core.funding.BudgetRecord;
 import com.kewe.core.funding.BudgetRecordRepository;
+import com.kewe.core.requisition.RequisitionDraft;
+import com.kewe.core.requisition.RequisitionDraftRepository;
+import com.kewe.core.requisition.RequisitionLine;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -18,19 +21,27 @@ import org.springframework.http.MediaType;
 import org.springframework.test.context.DynamicPropertyRegistry;
 import org.springframework.test.context.DynamicPropertySource;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 import org.testcontainers.containers.MongoDBContainer;
 import org.testcontainers.junit.jupiter.Container;
 import org.testcontainers.junit.jupiter.Testcontainers;
 
 import java.math.BigDecimal;
+import java.time.Duration;
 import java.util.List;
 
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.awaitility.Awaitility.await;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 @SpringBootTest
@@ -45,6 +56,7 @@ class AgentDraftIntegrationTest {
         registry.add("spring.data.mongodb.uri", mongoDBContainer::getReplicaSetUrl);
         registry.add("kewe.websearch-provider", () -> "serpapi");
         registry.add("kewe.serpapi-key", () -> "test-key");
+        registry.add("kewe.playwright-enabled", () -> "false");
     }
 
     @Autowired private MockMvc mockMvc;
@@ -53,9 +65,12 @@ class AgentDraftIntegrationTest {
     @Autowired private BusinessObjectTypeRepository typeRepository;
     @Autowired private BudgetRecordRepository budgetRepository;
     @Autowired private AllocationRecordRepository allocationRepository;
+    @Autowired private RequisitionDraftRepository requisitionRepository;
+    @Autowired private LocalCatalogIndex localCatalogIndex;
 
     @BeforeEach
     void setup() {
+        requisitionRepository.deleteAll();
         allocationRepository.deleteAll();
         budgetRepository.deleteAll();
         businessObjectRepository.deleteAll();
@@ -84,9 +99,13 @@ class AgentDraftIntegrationTest {
 
     @Test
     void shouldBuildDraftFromPromptAndSupplierResults() throws Exception {
-        mockMvc.perform(post("/api/agent/requisition-draft")
+        MvcResult pending = mockMvc.perform(post("/api/agent/requisition-draft")
                         .contentType(MediaType.APPLICATION_JSON)
                         .content("{\"prompt\":\"I need to purchase 6 5ml glass beakers for biology\"}"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(pending))
                 .andExpect(status().isOk())
                 .andExpect(jsonPath("$.parsed.quantity").value(6))
                 .andExpect(jsonPath("$.suggestedChargingLocation.code").value("CC0001"))
@@ -94,6 +113,69 @@ class AgentDraftIntegrationTest {
                 .andExpect(jsonPath("$.searchLinks.amazon").exists());
     }
 
+    @Test
+    void shouldAnswerRepeatPurchasesFromLocalCatalogWithoutExternalSearch() throws Exception {
+        RequisitionLine line = new RequisitionLine();
+        line.setLineNumber(1);
+        line.setDescription("Nitrile exam gloves, powder-free, box of 100");
+        line.setQuantity(4);
+        line.setUom("BX");
+        line.setUnitPrice(11.49);
+        line.setSupplierName("Fisher Scientific");
+        line.setSupplierUrl("https://www.fishersci.com/shop/products/nitrile-gloves/191301597");
+        line.setSupplierSku("19-130-1597");
+        RequisitionDraft submitted = new RequisitionDraft();
+        submitted.setStatus("SUBMITTED");
+        submitted.setLines(List.of(line));
+        requisitionRepository.save(submitted);
+        await().atMost(Duration.ofSeconds(5)).until(localCatalogIndex::isCurrent);
+        RequisitionDraft draft = new RequisitionDraft();
+        draft.setStatus("DRAFT");
+        draft.setLines(List.of(line));
+        requisitionRepository.save(draft);
+        RequisitionDraft cancelled = new RequisitionDraft();
+        cancelled.setStatus("CANCELLED");
+        cancelled.setLines(List.of(line));
+        requisitionRepository.save(cancelled);
+        // edits to drafts, and requisitions outside the purchased statuses, never touch the catalog
+        assertThat(localCatalogIndex.isCurrent()).isTrue();
+
+        MvcResult pending = mockMvc.perform(post("/api/agent/requisition-draft")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"prompt\":\"I need 3 boxes of nitrile gloves for biology\"}"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(pending))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.results.length()").value(1))
+                .andExpect(jsonPath("$.results[0].supplier").value("Fisher Scientific"))
+                .andExpect(jsonPath("$.results[0].price").value(11.49))
+                .andExpect(jsonPath("$.suggestedChargingLocation.code").value("CC0001"));
+        verify(webSearchProvider, never()).search(any());
+    }
+
+    @Test
+    void shouldStreamDraftEventsInOrder() throws Exception {
+        MvcResult pending = mockMvc.perform(post("/api/agent/requisition-draft/stream")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .accept(MediaType.TEXT_EVENT_STREAM)
+                        .content("{\"prompt\":\"I need to purchase 6 5ml glass beakers for biology\"}"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        pending.getAsyncResult(10_000);
+
+        String body = pending.getResponse().getContentAsString();
+        int parsed = body.indexOf("event:parsed");
+        int charging = body.indexOf("event:charging");
+        int draft = body.indexOf("event:draft");
+        assertThat(parsed).isGreaterThanOrEqualTo(0);
+        assertThat(charging).isGreaterThan(parsed);
+        assertThat(draft).isGreaterThan(charging);
+        assertThat(body.substring(charging, draft)).contains("CC0001");
+        assertThat(body.substring(draft)).contains("Amazon glass beaker");
+    }
+
     @Test
     void shouldRespondToAgentPingAndCapabilities() throws Exception {
         mockMvc.perform(get("/api/agent/ping"))
@@ -101,6 +183,7 @@ class AgentDraftIntegrationTest {
                 .andExpect(content().string("ok"));
         mockMvc.perform(get("/api/agent/capabilities"))
                 .andExpect(status().isOk())
-                .andExpect(jsonPath("$.provider").value("serpapi"));
+                .andExpect(jsonPath("$.provider").value("serpapi"))
+                .andExpect(jsonPath("$.suppliers").isArray());
     }
 }
@@ -22,4 +22,14 @@ class AgentSearchServiceTest {
         assertThat(ranked.getFirst().supplier()).isEqualTo("Amazon");
         assertThat(ranked.getLast().supplier()).isEqualTo("Other");
     }
+
+    @Test
+    void extractsFirstPriceAndSkuFromCardText() {
+        String card = "Fisherbrand Beaker 500 mL Part # FB-100500 was $1,249.50 now $999.00";
+
+        assertThat(AgentSearchService.extractPrice(card)).isEqualByComparingTo("1249.50");
+        assertThat(AgentSearchService.extractSku(card)).isEqualTo("FB-100500");
+        assertThat(AgentSearchService.extractPrice("no price here")).isNull();
+        assertThat(AgentSearchService.extractSku(null)).isNull();
+    }
 }
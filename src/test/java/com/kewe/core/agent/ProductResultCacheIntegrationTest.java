@@ -0,0 +1,148 @@
+package com.kewe.core.agent;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.CommandLineRunner;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.index.IndexInfo;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.testcontainers.containers.MongoDBContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.math.BigDecimal;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.awaitility.Awaitility.await;
+
+@SpringBootTest
+@Testcontainers
+class ProductResultCacheIntegrationTest {
+    @Container
+    static final MongoDBContainer mongoDBContainer = new MongoDBContainer("mongo:7.0.14");
+
+    @DynamicPropertySource
+    static void configureMongo(DynamicPropertyRegistry registry) {
+        registry.add("spring.data.mongodb.uri", mongoDBContainer::getReplicaSetUrl);
+        registry.add("kewe.warmup.enabled", () -> "false");
+    }
+
+    @Autowired private MongoTemplate mongoTemplate;
+    @Autowired private ObjectMapper objectMapper;
+    @Autowired @Qualifier("ensureProductResultCacheIndexes") private CommandLineRunner ensureIndexes;
+
+    private final List<ProductResultCache> caches = new ArrayList<>();
+
+    @BeforeEach
+    void clearCache() throws Exception {
+        mongoTemplate.dropCollection(ProductResultCacheEntry.class);
+        ensureIndexes.run();
+    }
+
+    @AfterEach
+    void closeCaches() {
+        caches.forEach(ProductResultCache::close);
+    }
+
+    @Test
+    void freshEntryIsServedWithoutCallingUpstreamAgain() {
+        ProductResultCache cache = cache(new ProductCacheProperties());
+        AtomicInteger calls = new AtomicInteger();
+
+        WebSearchResponse first = cache.web("Glass  Beaker", () -> webResponse(calls.incrementAndGet()));
+        WebSearchResponse second = cache.web("glass beaker", () -> webResponse(calls.incrementAndGet()));
+
+        assertThat(calls).hasValue(1);
+        assertThat(second.results()).isEqualTo(first.results());
+        ProductResultCacheEntry entry = mongoTemplate.findById("web|glass beaker", ProductResultCacheEntry.class);
+        assertThat(entry).isNotNull();
+        assertThat(entry.getExpiresAt()).isAfter(entry.getFreshUntil());
+        assertThat(mongoTemplate.indexOps(ProductResultCacheEntry.class).getIndexInfo())
+                .extracting(IndexInfo::getName)
+                .contains("expiresAt_ttl");
+    }
+
+    @Test
+    void staleEntryIsServedWhileOneBackgroundRefreshRuns() {
+        ProductCacheProperties properties = new ProductCacheProperties();
+        properties.getTtlSeconds().put("fisher", 0);
+        ProductResultCache cache = cache(properties);
+        AtomicInteger calls = new AtomicInteger();
+
+        cache.supplier("fisher", "beaker", () -> supplierOutcome(calls.incrementAndGet()));
+        SupplierSearchOutcome stale = cache.supplier("fisher", "beaker", () -> supplierOutcome(calls.incrementAndGet()));
+
+        assertThat(stale.results()).extracting(SupplierSearchResult::title).containsExactly("beaker 1");
+        await().atMost(Duration.ofSeconds(5)).untilAsserted(() -> {
+            ProductResultCacheEntry entry = mongoTemplate.findById("fisher|beaker", ProductResultCacheEntry.class);
+            assertThat(entry.getSupplierResults()).extracting(SupplierSearchResult::title).containsExactly("beaker 2");
+        });
+        assertThat(calls).hasValue(2);
+    }
+
+    @Test
+    void failedSupplierSearchIsNotCached() {
+        ProductResultCache cache = cache(new ProductCacheProperties());
+        AtomicInteger calls = new AtomicInteger();
+
+        cache.supplier("amazon", "beaker", () -> {
+            calls.incrementAndGet();
+            return SupplierSearchOutcome.empty(10, true, "blocked");
+        });
+        cache.supplier("amazon", "beaker", () -> supplierOutcome(calls.incrementAndGet()));
+
+        assertThat(calls).hasValue(2);
+        assertThat(mongoTemplate.findById("amazon|beaker", ProductResultCacheEntry.class).getSupplierResults()).hasSize(1);
+    }
+
+    @Test
+    void replayModeServesRecordedFixturesWithoutCallingUpstream() throws Exception {
+        ProductCacheProperties properties = new ProductCacheProperties();
+        properties.setMode(ProductCacheProperties.Mode.REPLAY);
+        properties.setFixtureDir(Path.of(getClass().getResource("/product-cache").toURI()).toString());
+        ProductResultCache cache = cache(properties);
+
+        WebSearchResponse web = cache.web("Glass beaker 500 ml", () -> {
+            throw new AssertionError("upstream called in replay mode");
+        });
+        SupplierSearchOutcome fisher = cache.supplier("fisher", "glass beaker 500 ml", () -> {
+            throw new AssertionError("upstream called in replay mode");
+        });
+        SupplierSearchOutcome amazon = cache.supplier("amazon", "glass beaker 500 ml", () -> {
+            throw new AssertionError("upstream called in replay mode");
+        });
+
+        assertThat(web.results()).extracting(WebSearchResult::domain).containsExactly("www.fishersci.com");
+        assertThat(fisher.results()).extracting(SupplierSearchResult::sku).containsExactly("FB100500");
+        assertThat(amazon.blockedOrFailed()).isTrue();
+        assertThat(mongoTemplate.count(new Query(), ProductResultCacheEntry.class)).isZero();
+    }
+
+    private ProductResultCache cache(ProductCacheProperties properties) {
+        ProductResultCache cache = new ProductResultCache(mongoTemplate, properties, objectMapper);
+        caches.add(cache);
+        return cache;
+    }
+
+    private static WebSearchResponse webResponse(int call) {
+        return new WebSearchResponse(List.of(new WebSearchResult("Beaker " + call, "https://example.com/beaker/" + call,
+                "", "serpapi", "example.com", null, BigDecimal.TEN, "USD")), List.of());
+    }
+
+    private static SupplierSearchOutcome supplierOutcome(int call) {
+        return new SupplierSearchOutcome(List.of(new SupplierSearchResult("Fisher", "beaker " + call,
+                "https://fisher.example.com/p/" + call, BigDecimal.ONE, "SKU-" + call, null)), List.of(), false, 5);
+    }
+}
@@ -24,4 +24,21 @@ class PromptParserTest {
         assertThat(parsed.quantity()).isEqualTo(1);
         assertThat(parsed.orgHint()).isEqualTo("chemistry");
     }
+
+    @Test
+    void dropsBareNumbersAndPunctuationButKeepsMixedTokens() {
+        PromptParser.ParsedPrompt parsed = parser.parse("Need 12 x 500ml Pyrex-beakers (glass), part_42 & 3.5 L jugs; glass again");
+
+        assertThat(parsed.quantity()).isEqualTo(12);
+        assertThat(parsed.keywords()).containsExactly("x", "500ml", "pyrex", "beakers", "glass", "part", "42", "l", "jugs", "again");
+        assertThat(parsed.normalizedQuery()).isEqualTo("x 500ml pyrex beakers glass part 42 l jugs again");
+    }
+
+    @Test
+    void fallsBackToPromptWhenOnlyStopwordsRemain() {
+        PromptParser.ParsedPrompt parsed = parser.parse("  I need 3  ");
+
+        assertThat(parsed.keywords()).isEmpty();
+        assertThat(parsed.item()).isEqualTo("I need 3");
+    }
 }
@@ -0,0 +1,90 @@
+package com.kewe.core.agent;
+
+import com.kewe.core.Benchmarks;
+import com.kewe.core.Benchmarks.Measurement;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Time and heap allocation per prompt parse and per result-card extraction, against the previous regex code that
+ * compiled its patterns on every call (kept below as the baseline).
+ * Run with {@code ./gradlew benchmark}.
+ */
+@Tag("benchmark")
+class PromptParsingBenchmark {
+    private static final int WARMUP_OPS = 200_000;
+    private static final int MEASURED_OPS = 500_000;
+    private static final List<String> PROMPTS = List.of(
+            "I need to purchase 6 500ml glass beakers for biology",
+            "buy 2 boxes of nitrile gloves, size M, powder-free for Chemistry Dept",
+            "Please get 10 x Pyrex-beakers (glass) part_42 & 3.5 L jugs for facilities",
+            "we want 1 cordless drill");
+    private static final List<String> CARDS = List.of(
+            "Fisherbrand Griffin Low-Form Beaker 500 mL Part # FB100500 $9.15 each",
+            "DEWALT 20V MAX Cordless Drill Model DCD771C2 was $1,249.50 now $99.00",
+            "Amazon Basics Nitrile Gloves, Box of 100 | 4.6 out of 5 stars | $12.99",
+            "Sponsored result with no price and no identifier");
+
+    private final PromptParser parser = new PromptParser();
+
+    @Test
+    void precompiledParsingAllocatesLessThanPerCallRegex() {
+        Benchmarks.printHeader();
+        Measurement legacyParse = Benchmarks.measure(WARMUP_OPS, MEASURED_OPS, i -> legacyParse(PROMPTS.get(i % PROMPTS.size())));
+        Measurement parse = Benchmarks.measure(WARMUP_OPS, MEASURED_OPS, i -> parser.parse(PROMPTS.get(i % PROMPTS.size())));
+        Measurement legacyCard = Benchmarks.measure(WARMUP_OPS, MEASURED_OPS, i -> {
+            String card = CARDS.get(i % CARDS.size());
+            legacyExtractPrice(card);
+            legacyExtractSku(card);
+        });
+        Measurement card = Benchmarks.measure(WARMUP_OPS, MEASURED_OPS, i -> {
+            String text = CARDS.get(i % CARDS.size());
+            AgentSearchService.extractPrice(text);
+            AgentSearchService.extractSku(text);
+        });
+        Benchmarks.print("parse", "legacy", legacyParse);
+        Benchmarks.print("parse", "current", parse);
+        Benchmarks.print("card extraction", "legacy", legacyCard);
+        Benchmarks.print("card extraction", "current", card);
+
+        for (String prompt : PROMPTS) {
+            assertThat(parser.parse(prompt).keywords()).isEqualTo(legacyParse(prompt));
+        }
+        assertThat(parse.bytesPerOp()).isLessThan(legacyParse.bytesPerOp());
+        assertThat(card.bytesPerOp()).isLessThan(legacyCard.bytesPerOp());
+    }
+
+    private static final Set<String> STOPWORDS = Set.of("i", "need", "to", "purchase", "buy", "please", "get", "a", "an", "the", "for", "we", "want", "require");
+
+    private static List<String> legacyParse(String prompt) {
+        String cleaned = prompt.trim().toLowerCase();
+        cleaned = cleaned.replaceAll("\\b\\d+\\b", " ");
+        cleaned = cleaned.replaceAll("[^a-z0-9\\s]", " ");
+        return Arrays.stream(cleaned.split("\\s+"))
+                .filter(token -> !token.isBlank())
+                .filter(token -> !STOPWORDS.contains(token))
+                .distinct()
+                .toList();
+    }
+
+    private static BigDecimal legacyExtractPrice(String text) {
+        Matcher matcher = Pattern.compile("\\$(\\d+[\\d,]*(?:\\.\\d{2})?)").matcher(text);
+        if (!matcher.find()) return null;
+        return BigDecimal.valueOf(Double.parseDouble(matcher.group(1).replace(",", "")));
+    }
+
+    private static String legacyExtractSku(String text) {
+        Matcher matcher = Pattern.compile("(?:sku|model|part)[:#\\s]*([A-Za-z0-9-]+)", Pattern.CASE_INSENSITIVE).matcher(text);
+        return matcher.find() ? matcher.group(1) : null;
+    }
+
+}
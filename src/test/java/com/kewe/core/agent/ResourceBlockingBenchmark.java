@@ -0,0 +1,145 @@
+package com.kewe.core.agent;
+
+import com.kewe.core.Benchmarks;
+import com.microsoft.playwright.Page;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Compares full page loads of the saved supplier fixtures with and without resource blocking. A local stub server
+ * serves each fixture with the kind of sub-resources a live results page pulls in (images, fonts, video, tracker
+ * scripts on a second host, one first-party script), each with a small artificial delay.
+ * Run with {@code ./gradlew benchmark}; needs the Playwright Chromium build installed.
+ */
+@Tag("benchmark")
+class ResourceBlockingBenchmark {
+    private static final List<String> FIXTURES = List.of("ddg-amazon-search.html", "fisher-search.html", "homedepot-search.html");
+    private static final int WARMUP_RUNS = 3;
+    private static final int MEASURED_RUNS = 15;
+    private static final int ASSET_BYTES = 64 * 1024;
+    private static final int ASSET_DELAY_MS = 40;
+
+    private static HttpServer server;
+    private static final AtomicLong servedBytes = new AtomicLong();
+    private static final AtomicLong servedRequests = new AtomicLong();
+
+    @BeforeAll
+    static void startStubServer() throws IOException {
+        server = HttpServer.create(new InetSocketAddress(0), 0);
+        server.createContext("/fixtures/", ResourceBlockingBenchmark::serveFixture);
+        server.createContext("/assets/", ResourceBlockingBenchmark::serveAsset);
+        server.setExecutor(Executors.newVirtualThreadPerTaskExecutor());
+        server.start();
+    }
+
+    @AfterAll
+    static void stopStubServer() {
+        server.stop(0);
+    }
+
+    @Test
+    void blockingCutsBytesAndTimePerScrape() {
+        AgentSearchProperties properties = new AgentSearchProperties();
+        properties.setPlaywrightPoolSize(1);
+        PlaywrightBrowserManager manager = new PlaywrightBrowserManager(properties);
+        // the page is served from "localhost"; the stub's second name, 127.0.0.1, plays the tracker host
+        ResourceBlockingPolicy blocking = new ResourceBlockingPolicy(Set.of("localhost"), Set.of(), Set.of("127.0.0.1"));
+        try {
+            Benchmarks.printHeader("requests", "served B");
+            for (String fixture : FIXTURES) {
+                Scrape full = measure(manager, fixture + "-full", ResourceBlockingPolicy.ALLOW_ALL, fixture);
+                Scrape blocked = measure(manager, fixture + "-blocked", blocking, fixture);
+                Benchmarks.print(fixture, "full", full.timing(), full.requestsPerRun(), full.bytesPerRun());
+                Benchmarks.print(fixture, "blocked", blocked.timing(), blocked.requestsPerRun(), blocked.bytesPerRun());
+                assertThat(blocked.bytesPerRun()).isLessThan(full.bytesPerRun());
+                assertThat(blocked.timing().nanosPerOp()).isLessThan(full.timing().nanosPerOp());
+            }
+        } finally {
+            manager.close();
+        }
+    }
+
+    private Scrape measure(PlaywrightBrowserManager manager, String key, ResourceBlockingPolicy policy, String fixture) {
+        String url = "http://localhost:" + server.getAddress().getPort() + "/fixtures/" + fixture;
+        Benchmarks.warmUp(WARMUP_RUNS, i -> load(manager, key, policy, url));
+        long bytesBefore = servedBytes.get();
+        long requestsBefore = servedRequests.get();
+        Benchmarks.Measurement timing = Benchmarks.measure(0, MEASURED_RUNS, i -> load(manager, key, policy, url));
+        return new Scrape(timing,
+                (servedRequests.get() - requestsBefore) / MEASURED_RUNS,
+                (servedBytes.get() - bytesBefore) / MEASURED_RUNS);
+    }
+
+    private void load(PlaywrightBrowserManager manager, String key, ResourceBlockingPolicy policy, String url) {
+        // navigate() waits for the load event, which is what images, fonts and scripts hold up
+        manager.withPage(key, policy, page -> page.navigate(url, new Page.NavigateOptions().setTimeout(30_000)));
+    }
+
+    private static void serveFixture(HttpExchange exchange) throws IOException {
+        String name = exchange.getRequestURI().getPath().substring("/fixtures/".length());
+        String html;
+        try (InputStream in = ResourceBlockingBenchmark.class.getResourceAsStream("/fixtures/" + name)) {
+            if (in == null) {
+                respond(exchange, 404, "text/plain", new byte[0]);
+                return;
+            }
+            html = new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        }
+        int port = server.getAddress().getPort();
+        StringBuilder heavy = new StringBuilder();
+        for (int i = 0; i < 20; i++) {
+            heavy.append("<img src=\"/assets/product-").append(i).append(".jpg\">");
+        }
+        heavy.append("<style>@font-face{font-family:f;src:url(/assets/brand.woff2)}body{font-family:f}</style>")
+                .append("<video src=\"/assets/promo.mp4\" preload=\"auto\"></video>")
+                .append("<script src=\"/assets/app.js\"></script>");
+        for (int i = 0; i < 3; i++) {
+            heavy.append("<script src=\"http://127.0.0.1:").append(port).append("/assets/tracker-").append(i).append(".js\"></script>");
+        }
+        html = html.replace("</body>", heavy + "</body>");
+        respond(exchange, 200, "text/html; charset=utf-8", html.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static void serveAsset(HttpExchange exchange) throws IOException {
+        String path = exchange.getRequestURI().getPath();
+        try {
+            Thread.sleep(ASSET_DELAY_MS);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+        if (path.endsWith(".js")) {
+            respond(exchange, 200, "application/javascript", ("/*" + "x".repeat(ASSET_BYTES) + "*/").getBytes(StandardCharsets.UTF_8));
+        } else {
+            respond(exchange, 200, "application/octet-stream", new byte[ASSET_BYTES]);
+        }
+    }
+
+    private static void respond(HttpExchange exchange, int status, String contentType, byte[] body) throws IOException {
+        servedRequests.incrementAndGet();
+        servedBytes.addAndGet(body.length);
+        exchange.getResponseHeaders().set("Content-Type", contentType);
+        exchange.getResponseHeaders().set("Cache-Control", "no-store");
+        exchange.sendResponseHeaders(status, body.length == 0 ? -1 : body.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(body);
+        }
+    }
+
+    private record Scrape(Benchmarks.Measurement timing, long requestsPerRun, long bytesPerRun) {}
+}
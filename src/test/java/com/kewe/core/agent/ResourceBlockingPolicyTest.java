@@ -0,0 +1,40 @@
+package com.kewe.core.agent;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ResourceBlockingPolicyTest {
+
+    private final ResourceBlockingPolicy policy = ResourceBlockingPolicy.forSupplier(
+            Set.of("homedepot.com", "thdstatic.com"), Set.of("akamaihd.net"));
+
+    @Test
+    void blocksHeavyResourceTypesEvenFromTheSupplier() {
+        assertThat(policy.shouldBlock("image", "https://images.thdstatic.com/p/1.jpg")).isTrue();
+        assertThat(policy.shouldBlock("font", "https://www.homedepot.com/fonts/a.woff2")).isTrue();
+        assertThat(policy.shouldBlock("media", "https://www.homedepot.com/v/promo.mp4")).isTrue();
+    }
+
+    @Test
+    void blocksTrackersAndUnlistedThirdPartyScripts() {
+        assertThat(policy.shouldBlock("script", "https://www.googletagmanager.com/gtm.js")).isTrue();
+        assertThat(policy.shouldBlock("xhr", "https://stats.g.doubleclick.net/collect")).isTrue();
+        assertThat(policy.shouldBlock("script", "https://cdn.example-widgets.com/w.js")).isTrue();
+    }
+
+    @Test
+    void keepsDocumentFirstPartyAndAllowlistedScripts() {
+        assertThat(policy.shouldBlock("document", "https://www.homedepot.com/s/beaker")).isFalse();
+        assertThat(policy.shouldBlock("script", "https://assets.thdstatic.com/app.js")).isFalse();
+        assertThat(policy.shouldBlock("script", "https://a123.akamaihd.net/lib.js")).isFalse();
+        assertThat(policy.shouldBlock("stylesheet", "https://www.homedepot.com/main.css")).isFalse();
+    }
+
+    @Test
+    void allowAllNeverBlocks() {
+        assertThat(ResourceBlockingPolicy.ALLOW_ALL.shouldBlock("image", "https://www.homedepot.com/1.jpg")).isFalse();
+    }
+}
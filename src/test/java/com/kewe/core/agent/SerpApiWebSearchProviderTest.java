@@ -0,0 +1,111 @@
+package com.kewe.core.agent;
+
+import com.sun.net.httpserver.HttpServer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class SerpApiWebSearchProviderTest {
+    private static final String BODY = """
+            {"organic_results":[{"title":"Glass beaker 500 ml","link":"https://www.amazon.com/dp/B0001","snippet":"Borosilicate"}]}
+            """;
+
+    private HttpServer server;
+    private final AtomicInteger upstreamCalls = new AtomicInteger();
+    private volatile int status = 200;
+
+    @BeforeEach
+    void startStub() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/search.json", exchange -> {
+            upstreamCalls.incrementAndGet();
+            try {
+                Thread.sleep(200);
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+            }
+            byte[] body = BODY.getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().set("Content-Type", "application/json");
+            exchange.sendResponseHeaders(status, body.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        });
+        server.setExecutor(Executors.newVirtualThreadPerTaskExecutor());
+        server.start();
+    }
+
+    @AfterEach
+    void stopStub() {
+        server.stop(0);
+    }
+
+    @Test
+    void concurrentIdenticalSearchesShareOneUpstreamCall() throws Exception {
+        SerpApiWebSearchProvider provider = provider(new AgentSearchProperties());
+        WebSearchRequest request = new WebSearchRequest("glass beaker", 10);
+
+        List<Callable<WebSearchResponse>> calls = IntStream.range(0, 8)
+                .<Callable<WebSearchResponse>>mapToObj(i -> () -> provider.search(request))
+                .toList();
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (Future<WebSearchResponse> future : executor.invokeAll(calls)) {
+                assertThat(future.get().results()).hasSize(1);
+            }
+        }
+        provider.search(request);
+
+        assertThat(upstreamCalls.get()).isEqualTo(1);
+        assertThat(provider.cacheStats().missCount()).isEqualTo(1);
+        assertThat(provider.cacheStats().hitCount()).isEqualTo(8);
+        assertThat(provider.cacheWeightBytes()).isPositive();
+    }
+
+    @Test
+    void failedUpstreamCallsAreNotCached() {
+        status = 500;
+        SerpApiWebSearchProvider provider = provider(new AgentSearchProperties());
+        WebSearchRequest request = new WebSearchRequest("glass beaker", 10);
+
+        assertThat(provider.search(request).warnings()).isNotEmpty();
+        status = 200;
+        assertThat(provider.search(request).results()).hasSize(1);
+        assertThat(upstreamCalls.get()).isEqualTo(2);
+    }
+
+    @Test
+    void evictsToStayWithinTheByteBudget() {
+        AgentSearchProperties properties = new AgentSearchProperties();
+        properties.setWebsearchCacheMaxBytes(2_000);
+        SerpApiWebSearchProvider provider = provider(properties);
+
+        for (int i = 0; i < 20; i++) {
+            provider.search(new WebSearchRequest("beaker " + i, 10));
+        }
+
+        assertThat(provider.cacheWeightBytes()).isLessThanOrEqualTo(2_000);
+        assertThat(provider.cacheStats().evictionCount()).isPositive();
+    }
+
+    private SerpApiWebSearchProvider provider(AgentSearchProperties properties) {
+        properties.setWebsearchProvider("serpapi");
+        properties.setSerpapiKey("test-key");
+        return new SerpApiWebSearchProvider(properties, new SimpleMeterRegistry(),
+                "http://127.0.0.1:" + server.getAddress().getPort() + "/search.json");
+    }
+}
@@ -0,0 +1,66 @@
+package com.kewe.core.agent;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class SupplierCircuitBreakerTest {
+
+    private final AtomicLong now = new AtomicLong(1_000_000);
+
+    @Test
+    void opensAfterConsecutiveFailuresAndProbesOnceAfterTheOpenPeriod() {
+        SupplierCircuitBreaker breaker = breaker();
+        for (int i = 0; i < 3; i++) {
+            assertThat(breaker.tryAcquire("amazon")).isTrue();
+            breaker.release("amazon", true, 6000);
+        }
+
+        assertThat(breaker.status("amazon").state()).isEqualTo(SupplierCircuitBreaker.State.OPEN);
+        assertThat(breaker.tryAcquire("amazon")).isFalse();
+        assertThat(breaker.tryAcquire("fisher")).isTrue();
+
+        now.addAndGet(60_000);
+        assertThat(breaker.tryAcquire("amazon")).isTrue();
+        assertThat(breaker.status("amazon").state()).isEqualTo(SupplierCircuitBreaker.State.HALF_OPEN);
+        assertThat(breaker.tryAcquire("amazon")).isFalse();
+
+        breaker.release("amazon", true, 6000);
+        assertThat(breaker.status("amazon").state()).isEqualTo(SupplierCircuitBreaker.State.OPEN);
+        assertThat(breaker.status("amazon").retryInMs()).isEqualTo(60_000);
+
+        now.addAndGet(60_000);
+        assertThat(breaker.tryAcquire("amazon")).isTrue();
+        breaker.release("amazon", false, 800);
+        assertThat(breaker.status("amazon").state()).isEqualTo(SupplierCircuitBreaker.State.CLOSED);
+        assertThat(breaker.status("amazon").consecutiveFailures()).isZero();
+    }
+
+    @Test
+    void concurrencyLimitGrowsAdditivelyAndHalvesOnSlowOrFailedSearches() {
+        SupplierCircuitBreaker breaker = breaker();
+        assertThat(breaker.status("fisher").concurrencyLimit()).isEqualTo(4);
+
+        breaker.tryAcquire("fisher");
+        breaker.release("fisher", false, 9000);
+        assertThat(breaker.status("fisher").concurrencyLimit()).isEqualTo(2);
+
+        assertThat(breaker.tryAcquire("fisher")).isTrue();
+        assertThat(breaker.tryAcquire("fisher")).isTrue();
+        assertThat(breaker.tryAcquire("fisher")).isFalse();
+        breaker.release("fisher", false, 500);
+        breaker.release("fisher", false, 500);
+        assertThat(breaker.status("fisher").concurrencyLimit()).isEqualTo(4);
+
+        breaker.tryAcquire("fisher");
+        breaker.release("fisher", true, 500);
+        assertThat(breaker.status("fisher").concurrencyLimit()).isEqualTo(2);
+        assertThat(breaker.status("fisher").state()).isEqualTo(SupplierCircuitBreaker.State.CLOSED);
+    }
+
+    private SupplierCircuitBreaker breaker() {
+        return new SupplierCircuitBreaker(new AgentSearchProperties(), now::get);
+    }
+}
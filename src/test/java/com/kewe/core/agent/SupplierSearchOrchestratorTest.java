@@ -0,0 +1,133 @@
+package com.kewe.core.agent;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.support.DefaultListableBeanFactory;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class SupplierSearchOrchestratorTest {
+
+    private SupplierSearchOrchestrator orchestrator;
+
+    @AfterEach
+    void tearDown() {
+        if (orchestrator != null) {
+            orchestrator.close();
+        }
+    }
+
+    @Test
+    void waitsForSlowestSupplierWithinDeadlineAndCancelsTheRest() {
+        AgentSearchProperties properties = new AgentSearchProperties();
+        properties.setSupplierSearchDeadlineMs(1000);
+        orchestrator = orchestrator(properties,
+                new FakeClient("fast", 50), new FakeClient("medium", 300), new FakeClient("stuck", 10_000));
+        List<String> completed = new CopyOnWriteArrayList<>();
+
+        long start = System.nanoTime();
+        SupplierSearchOrchestrator.FanOutResult result = orchestrator.search(SupplierSearchQuery.of("beaker"),
+                () -> new WebSearchResponse(List.of(new WebSearchResult("Web beaker", "https://example.com/beaker",
+                        "", "serpapi", "example.com", null, null, null)), List.of()),
+                (key, outcome) -> completed.add(key));
+        long elapsedMs = (System.nanoTime() - start) / 1_000_000;
+
+        assertThat(elapsedMs).isLessThan(3000);
+        assertThat(completed).containsExactly("fast", "medium", "stuck");
+        assertThat(result.supplierOutcomes().get("fast").results()).hasSize(1);
+        assertThat(result.supplierOutcomes().get("medium").results()).hasSize(1);
+        assertThat(result.supplierOutcomes().get("stuck").blockedOrFailed()).isTrue();
+        assertThat(result.webResponse().results()).hasSize(1);
+
+        List<WebSearchResult> merged = AgentSearchService.mergeResults(result);
+        assertThat(merged).extracting(WebSearchResult::url)
+                .containsExactly("https://fast.example.com/p/1", "https://medium.example.com/p/1", "https://example.com/beaker");
+    }
+
+    @Test
+    void skipsSupplierClientsWhenPlaywrightIsDisabled() {
+        AgentSearchProperties properties = new AgentSearchProperties();
+        properties.setPlaywrightEnabled(false);
+        orchestrator = orchestrator(properties, new FakeClient("fast", 0));
+
+        SupplierSearchOrchestrator.FanOutResult result = orchestrator.search(SupplierSearchQuery.of("beaker"),
+                () -> new WebSearchResponse(List.of(), List.of("not configured")), SupplierSearchOrchestrator.Listener.NONE);
+
+        assertThat(result.supplierOutcomes()).isEmpty();
+        assertThat(result.webResponse().warnings()).containsExactly("not configured");
+    }
+
+    @Test
+    void skipsSupplierWithOpenCircuitWithoutCallingIt() {
+        AgentSearchProperties properties = new AgentSearchProperties();
+        properties.setSupplierBreakerFailureThreshold(1);
+        FlakyClient blocked = new FlakyClient();
+        orchestrator = orchestrator(properties, blocked);
+
+        SupplierSearchOrchestrator.FanOutResult first = orchestrator.search(SupplierSearchQuery.of("beaker"),
+                () -> new WebSearchResponse(List.of(), List.of()), SupplierSearchOrchestrator.Listener.NONE);
+        SupplierSearchOrchestrator.FanOutResult second = orchestrator.search(SupplierSearchQuery.of("beaker"),
+                () -> new WebSearchResponse(List.of(), List.of()), SupplierSearchOrchestrator.Listener.NONE);
+
+        assertThat(blocked.calls).hasValue(1);
+        assertThat(first.supplierOutcomes().get("blocked").warnings()).containsExactly("blocked page");
+        assertThat(second.supplierOutcomes().get("blocked").warnings()).singleElement().asString().contains("skipped");
+        assertThat(orchestrator.circuitStatuses()).singleElement()
+                .extracting(SupplierCircuitBreaker.CircuitStatus::state).isEqualTo(SupplierCircuitBreaker.State.OPEN);
+    }
+
+    private static SupplierSearchOrchestrator orchestrator(AgentSearchProperties properties, SupplierSearchClient... clients) {
+        DefaultListableBeanFactory beanFactory = new DefaultListableBeanFactory();
+        for (SupplierSearchClient client : clients) {
+            beanFactory.registerSingleton(client.supplierKey(), client);
+        }
+        return new SupplierSearchOrchestrator(beanFactory.getBeanProvider(SupplierSearchClient.class), properties);
+    }
+
+    private static final class FlakyClient implements SupplierSearchClient {
+        private final AtomicInteger calls = new AtomicInteger();
+
+        @Override
+        public String supplierKey() { return "blocked"; }
+
+        @Override
+        public String supplierName() { return "Blocked"; }
+
+        @Override
+        public String searchLink(String query) { return "https://blocked.example.com/s?q=" + query; }
+
+        @Override
+        public SupplierSearchOutcome search(SupplierSearchQuery query) {
+            calls.incrementAndGet();
+            return SupplierSearchOutcome.empty(5, true, "blocked page");
+        }
+    }
+
+    private record FakeClient(String key, long delayMs) implements SupplierSearchClient {
+        @Override
+        public String supplierKey() { return key; }
+
+        @Override
+        public String supplierName() { return key; }
+
+        @Override
+        public String searchLink(String query) { return "https://" + key + ".example.com/s?q=" + query; }
+
+        @Override
+        public SupplierSearchOutcome search(SupplierSearchQuery query) {
+            try {
+                Thread.sleep(delayMs);
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                return SupplierSearchOutcome.empty(delayMs, true, "interrupted");
+            }
+            return new SupplierSearchOutcome(List.of(new SupplierSearchResult(key, key + " beaker",
+                    "https://" + key + ".example.com/p/1", BigDecimal.TEN, null, null)), List.of(), false, delayMs);
+        }
+    }
+}
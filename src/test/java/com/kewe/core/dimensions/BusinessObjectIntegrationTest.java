@@ -330,4 +330,181 @@ class BusinessObjectIntegrationTest {
                 .andExpect(jsonPath("$.budgetControlEnabled").value(false));
     }
 
+    @Test
+    void shouldBulkUpsertObjectsAndReportRowLevelFailures() throws Exception {
+        mockMvc.perform(post("/api/business-object-types")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("""
+                                {
+                                  "code": "AWARD",
+                                  "name": "Award",
+                                  "objectKind": "Grant",
+                                  "allowInstanceAccountingBudgetOverride": true,
+                                  "accountingBudgetDefaults": {
+                                    "budgetControlLevel": {"defaultValue": "HARD", "allowOverride": true, "overrideReasonRequired": true}
+                                  }
+                                }
+                                """))
+                .andExpect(status().isCreated());
+
+        mockMvc.perform(post("/api/business-object-types/objects")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("""
+                                {
+                                  "typeCode": "AWARD",
+                                  "code": "A-1",
+                                  "name": "Existing Award"
+                                }
+                                """))
+                .andExpect(status().isCreated());
+
+        mockMvc.perform(post("/api/business-object-types/objects/bulk-upsert")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("""
+                                {
+                                  "objects": [
+                                    {"typeCode": "award", "code": "a-1", "name": "Renamed Award"},
+                                    {"typeCode": "AWARD", "code": "A-2", "name": "New Award"},
+                                    {"typeCode": "AWARD", "code": "A-2", "name": "Repeated Award"},
+                                    {"typeCode": "AWARD", "code": "A-3", "name": "Bad Override",
+                                     "accountingBudgetOverride": {"budgetControlLevel": {"value": "SOFT"}}},
+                                    {"typeCode": "MISSING", "code": "X-1", "name": "Unknown Type"}
+                                  ]
+                                }
+                                """))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.received").value(5))
+                .andExpect(jsonPath("$.created").value(1))
+                .andExpect(jsonPath("$.updated").value(1))
+                .andExpect(jsonPath("$.failed").value(3))
+                .andExpect(jsonPath("$.rows[0].outcome").value("UPDATED"))
+                .andExpect(jsonPath("$.rows[1].outcome").value("CREATED"))
+                .andExpect(jsonPath("$.rows[1].id").isNotEmpty())
+                .andExpect(jsonPath("$.rows[2].outcome").value("CONFLICT"))
+                .andExpect(jsonPath("$.rows[3].outcome").value("INVALID"))
+                .andExpect(jsonPath("$.rows[3].message").value("Override reason is required for field: budgetControlLevel"))
+                .andExpect(jsonPath("$.rows[4].outcome").value("INVALID"));
+
+        mockMvc.perform(get("/api/business-object-types/objects").param("typeCode", "AWARD"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(2))
+                .andExpect(jsonPath("$[?(@.code == 'A-1')].name").value("Renamed Award"));
+    }
+
+    @Test
+    void shouldQueryObjectsByOverriddenFieldAndReportDensity() throws Exception {
+        mockMvc.perform(post("/api/business-object-types")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("""
+                                {
+                                  "code": "GIFTS",
+                                  "name": "Gifts",
+                                  "objectKind": "FundingSource",
+                                  "allowInstanceAccountingBudgetOverride": true,
+                                  "accountingBudgetDefaults": {
+                                    "budgetControlLevel": {"defaultValue": "HARD", "allowOverride": true, "overrideReasonRequired": false},
+                                    "allowCarryforward": {"defaultValue": false, "allowOverride": true, "overrideReasonRequired": false}
+                                  }
+                                }
+                                """))
+                .andExpect(status().isCreated());
+
+        mockMvc.perform(post("/api/business-object-types/objects")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("""
+                                {
+                                  "typeCode": "GIFTS",
+                                  "code": "G-1",
+                                  "name": "Soft Gift",
+                                  "accountingBudgetOverride": {
+                                    "budgetControlLevel": {"value": "SOFT", "overrideReason": "Donor terms"},
+                                    "allowCarryforward": {"value": true}
+                                  }
+                                }
+                                """))
+                .andExpect(status().isCreated())
+                .andExpect(jsonPath("$.accountingBudgetOverrides.budgetControlLevel.value").value("SOFT"))
+                .andExpect(jsonPath("$.accountingBudgetOverrides.budgetControlLevel.overrideReason").value("Donor terms"))
+                .andExpect(jsonPath("$.accountingBudgetOverrideEntries").doesNotExist());
+
+        mockMvc.perform(post("/api/business-object-types/objects")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("""
+                                {
+                                  "typeCode": "GIFTS",
+                                  "code": "G-2",
+                                  "name": "Plain Gift"
+                                }
+                                """))
+                .andExpect(status().isCreated());
+
+        mockMvc.perform(get("/api/business-object-types/objects/overrides")
+                        .param("field", "budgetControlLevel")
+                        .param("value", "SOFT"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(1))
+                .andExpect(jsonPath("$[0].code").value("G-1"));
+
+        mockMvc.perform(get("/api/business-object-types/objects/overrides")
+                        .param("field", "allowCarryforward")
+                        .param("value", "true")
+                        .param("typeCode", "gifts"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(1));
+
+        mockMvc.perform(get("/api/business-object-types/objects/overrides/density"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.types[?(@.typeCode == 'GIFTS')].objectCount").value(2))
+                .andExpect(jsonPath("$.types[?(@.typeCode == 'GIFTS')].objectsWithOverrides").value(1))
+                .andExpect(jsonPath("$.types[?(@.typeCode == 'GIFTS')].overrideCount").value(2))
+                .andExpect(jsonPath("$.types[?(@.typeCode == 'GIFTS')].overridesByField.budgetControlLevel").value(1));
+    }
+
+    @Test
+    void shouldRejectDuplicateCodesThroughTheUniqueIndexAndClearOmittedListsOnUpsert() throws Exception {
+        mockMvc.perform(post("/api/business-object-types")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("""
+                                {
+                                  "code": "DEPT",
+                                  "name": "Department",
+                                  "objectKind": "Organization"
+                                }
+                                """))
+                .andExpect(status().isCreated());
+
+        String payload = """
+                {
+                  "typeCode": "DEPT",
+                  "code": "D-1",
+                  "name": "Finance",
+                  "roles": [{"roleCode": "MANAGER", "assigneeId": "person-1"}]
+                }
+                """;
+        mockMvc.perform(post("/api/business-object-types/objects")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(payload))
+                .andExpect(status().isCreated());
+
+        // no pre-check in the create path: only the unique (typeCode, code) index turns this into a 409
+        mockMvc.perform(post("/api/business-object-types/objects")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(payload))
+                .andExpect(status().isConflict());
+
+        mockMvc.perform(post("/api/business-object-types/objects/bulk-upsert")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("""
+                                {"objects": [{"typeCode": "DEPT", "code": "D-1", "name": "Finance Office", "roles": null}]}
+                                """))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.rows[0].outcome").value("UPDATED"));
+
+        mockMvc.perform(get("/api/business-object-types/objects").param("typeCode", "DEPT"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(1))
+                .andExpect(jsonPath("$[0].name").value("Finance Office"))
+                .andExpect(jsonPath("$[0].roles").isEmpty());
+    }
+
 }
@@ -0,0 +1,122 @@
+package com.kewe.core.events;
+
+import com.kewe.core.funding.AllocationRecord;
+import com.kewe.core.funding.AllocationRecordRepository;
+import com.kewe.core.funding.BudgetRecord;
+import com.kewe.core.funding.BudgetRecordRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.testcontainers.containers.MongoDBContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.awaitility.Awaitility.await;
+
+@SpringBootTest
+@Testcontainers
+class ChangeStreamEventIntegrationTest {
+
+    @Container
+    static final MongoDBContainer mongoDBContainer = new MongoDBContainer("mongo:7.0.14");
+
+    @DynamicPropertySource
+    static void configureMongo(DynamicPropertyRegistry registry) {
+        registry.add("spring.data.mongodb.uri", mongoDBContainer::getReplicaSetUrl);
+        registry.add("kewe.change-events.enabled", () -> "true");
+        registry.add("kewe.change-events.max-await-ms", () -> "100");
+    }
+
+    @Autowired private BudgetRecordRepository budgetRepository;
+    @Autowired private AllocationRecordRepository allocationRepository;
+    @Autowired private MongoTemplate mongoTemplate;
+    @Autowired private RecordingListener listener;
+
+    @Test
+    void shouldPublishTypedEventsForWritesWithResumeTokens() throws Exception {
+        Thread.sleep(500);
+        BudgetRecord budget = new BudgetRecord();
+        budget.setBusinessDimensionId("CC-1");
+        budget.setBudgetPlanId("FY26");
+        budget.setAmount(100);
+        budget = budgetRepository.save(budget);
+        budgetRepository.deleteById(budget.getId());
+
+        String budgetId = budget.getId();
+        long deadline = System.currentTimeMillis() + 10_000;
+        while (System.currentTimeMillis() < deadline && budgetEvents(budgetId).size() < 2) {
+            Thread.sleep(50);
+        }
+
+        List<EntityChangedEvent> events = budgetEvents(budgetId);
+        assertThat(events).extracting(EntityChangedEvent::operation)
+                .containsExactly(ChangeOperation.INSERT, ChangeOperation.DELETE);
+        assertThat(events).allSatisfy(event -> {
+            assertThat(event.source()).isEqualTo(ChangeSource.BUDGETS);
+            assertThat(event.resumeToken()).isNotBlank();
+        });
+    }
+
+    @Test
+    void shouldResyncAndKeepWatchingAfterAWatchedCollectionIsDropped() throws Exception {
+        Thread.sleep(500);
+        String before = allocation("FY26-BEFORE").getId();
+        await().atMost(Duration.ofSeconds(10)).until(() -> allocationEvents(before) == 1);
+
+        mongoTemplate.dropCollection(AllocationRecord.class);
+        await().atMost(Duration.ofSeconds(10)).until(() -> listener.events.stream().anyMatch(event ->
+                event.source() == ChangeSource.ALLOCATIONS && event.operation() == ChangeOperation.RESYNC));
+
+        String after = allocation("FY26-AFTER").getId();
+        await().atMost(Duration.ofSeconds(10)).until(() -> allocationEvents(after) == 1);
+    }
+
+    private AllocationRecord allocation(String budgetPlanId) {
+        AllocationRecord allocation = new AllocationRecord();
+        allocation.setBudgetPlanId(budgetPlanId);
+        allocation.setAllocatedFromDimensionId("CC-1");
+        allocation.setAllocatedToDimensionId("GR-1");
+        allocation.setAmount(10);
+        return allocationRepository.save(allocation);
+    }
+
+    private long allocationEvents(String id) {
+        return listener.events.stream()
+                .filter(event -> event.source() == ChangeSource.ALLOCATIONS && id.equals(event.documentId()))
+                .count();
+    }
+
+    private List<EntityChangedEvent> budgetEvents(String id) {
+        return listener.events.stream()
+                .filter(event -> event.affects(ChangeSource.BUDGETS) && id.equals(event.documentId()))
+                .toList();
+    }
+
+    @TestConfiguration
+    static class ListenerConfig {
+        @Bean
+        RecordingListener recordingListener() {
+            return new RecordingListener();
+        }
+    }
+
+    static class RecordingListener {
+        final List<EntityChangedEvent> events = new CopyOnWriteArrayList<>();
+
+        @EventListener
+        void onChange(EntityChangedEvent event) {
+            events.add(event);
+        }
+    }
+}
@@ -0,0 +1,166 @@
+package com.kewe.core.matching;
+
+import com.kewe.core.requisition.RequisitionDraft;
+import com.kewe.core.requisition.RequisitionDraftRepository;
+import com.kewe.core.requisition.RequisitionLine;
+import com.kewe.core.supplierinvoice.SupplierInvoice;
+import com.kewe.core.supplierinvoice.SupplierInvoiceRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.web.servlet.MockMvc;
+import org.testcontainers.containers.MongoDBContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.awaitility.Awaitility.await;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest(properties = "kewe.matching.batch-size=2")
+@AutoConfigureMockMvc
+@Testcontainers
+class MatchingIntegrationTest {
+
+    private static final LocalDate INTAKE_DATE = LocalDate.of(2026, 3, 2);
+    private static final String FISHER_ID = "SUP-0042";
+
+    @Container
+    static final MongoDBContainer mongoDBContainer = new MongoDBContainer("mongo:7.0.14");
+
+    @DynamicPropertySource
+    static void configureMongo(DynamicPropertyRegistry registry) {
+        registry.add("spring.data.mongodb.uri", mongoDBContainer::getReplicaSetUrl);
+    }
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private RequisitionDraftRepository requisitionRepository;
+
+    @Autowired
+    private SupplierInvoiceRepository supplierInvoiceRepository;
+
+    @Autowired
+    private InvoiceMatchRepository invoiceMatchRepository;
+
+    @Autowired
+    private RequisitionLineIndex requisitionLineIndex;
+
+    @BeforeEach
+    void setUp() {
+        invoiceMatchRepository.deleteAll();
+        supplierInvoiceRepository.deleteAll();
+        requisitionRepository.deleteAll();
+
+        RequisitionDraft requisition = new RequisitionDraft();
+        requisition.setStatus("SUBMITTED");
+        requisition.setLines(List.of(
+                requisitionLine(1, "Griffin beaker 500 mL", "FB-100500", 9.15, 10),
+                requisitionLine(2, "Nitrile gloves box", null, 12.99, 5)));
+        requisitionRepository.save(requisition);
+
+        RequisitionDraft draft = new RequisitionDraft();
+        draft.setStatus("DRAFT");
+        draft.setLines(List.of(requisitionLine(1, "Cordless drill", "DCD771C2", 99.00, 1)));
+        requisitionRepository.save(draft);
+        await().atMost(Duration.ofSeconds(5)).until(requisitionLineIndex::isCurrent);
+    }
+
+    @Test
+    void shouldMatchDailyIntakeInBatchesAndPersistExceptions() throws Exception {
+        String matched = invoice(FISHER_ID, INTAKE_DATE,
+                line("Beakers", "fb100500", "9.15", "45.75"),
+                line("Nitrile gloves, box", null, "12.99", "64.95"));
+        String priceVariance = invoice(FISHER_ID, INTAKE_DATE, line("Beakers", "FB-100500", "9.99", "49.95"));
+        String overBilled = invoice(FISHER_ID, INTAKE_DATE, line("Beakers", "FB-100500", "9.15", "45.75"));
+        String unknown = invoice("ACME", INTAKE_DATE, line("Cordless drill", "DCD771C2", "99.00", "99.00"));
+        // the lines carry a supplier id, so an id that merely spells the supplier's name no longer matches
+        String byName = invoice("FISHER-SCIENTIFIC", INTAKE_DATE, line("Beakers", "FB-100500", "9.15", "9.15"));
+        String otherDay = invoice(FISHER_ID, INTAKE_DATE.plusDays(1), line("Beakers", "FB-100500", "9.15", "9.15"));
+
+        for (int attempt = 0; attempt < 2; attempt++) {
+            mockMvc.perform(post("/api/invoice-match-runs")
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .content("{\"accountingDate\": \"" + INTAKE_DATE + "\"}"))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.invoices").value(5))
+                    .andExpect(jsonPath("$.matched").value(1))
+                    .andExpect(jsonPath("$.exceptions").value(4))
+                    .andExpect(jsonPath("$.batches").value(3));
+        }
+        assertThat(invoiceMatchRepository.count()).isEqualTo(5);
+
+        mockMvc.perform(get("/api/invoice-matches/{invoiceId}", matched))
+                .andExpect(jsonPath("$.status").value("MATCHED"))
+                .andExpect(jsonPath("$.lines[0].requisitionLineNumber").value(1))
+                .andExpect(jsonPath("$.lines[1].requisitionLineNumber").value(2))
+                .andExpect(jsonPath("$.lines[1].outcome").value("MATCHED"));
+        mockMvc.perform(get("/api/invoice-matches/{invoiceId}", priceVariance))
+                .andExpect(jsonPath("$.lines[0].outcome").value("PRICE_VARIANCE"));
+        mockMvc.perform(get("/api/invoice-matches/{invoiceId}", overBilled))
+                .andExpect(jsonPath("$.lines[0].outcome").value("OVER_BILLED"))
+                .andExpect(jsonPath("$.lines[0].remainingAmount").value(-4.2));
+        mockMvc.perform(get("/api/invoice-matches/{invoiceId}", unknown))
+                .andExpect(jsonPath("$.lines[0].outcome").value("NO_REQUISITION_LINE"));
+        mockMvc.perform(get("/api/invoice-matches/{invoiceId}", byName))
+                .andExpect(jsonPath("$.lines[0].outcome").value("NO_REQUISITION_LINE"));
+        mockMvc.perform(get("/api/invoice-matches").param("status", "EXCEPTION"))
+                .andExpect(jsonPath("$.length()").value(4));
+        mockMvc.perform(get("/api/invoice-matches/{invoiceId}", otherDay))
+                .andExpect(status().isNotFound());
+
+        mockMvc.perform(post("/api/supplier-invoices/{id}/match", otherDay))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.status").value("EXCEPTION"))
+                .andExpect(jsonPath("$.lines[0].outcome").value("OVER_BILLED"));
+        mockMvc.perform(post("/api/supplier-invoices/{id}/match", "missing"))
+                .andExpect(status().isNotFound());
+    }
+
+    private RequisitionLine requisitionLine(int lineNumber, String description, String sku, double unitPrice, double quantity) {
+        RequisitionLine line = new RequisitionLine();
+        line.setLineNumber(lineNumber);
+        line.setDescription(description);
+        line.setSupplierId(FISHER_ID);
+        line.setSupplierName("Fisher Scientific");
+        line.setSupplierSku(sku);
+        line.setUnitPrice(unitPrice);
+        line.setQuantity(quantity);
+        line.setAmount(BigDecimal.valueOf(unitPrice).multiply(BigDecimal.valueOf(quantity)).doubleValue());
+        return line;
+    }
+
+    private SupplierInvoice.Line line(String description, String sku, String unitPrice, String amount) {
+        SupplierInvoice.Line line = new SupplierInvoice.Line();
+        line.setDescription(description);
+        line.setSupplierSku(sku);
+        line.setUnitPrice(new BigDecimal(unitPrice));
+        line.setAmount(new BigDecimal(amount));
+        return line;
+    }
+
+    private String invoice(String supplierId, LocalDate accountingDate, SupplierInvoice.Line... lines) {
+        SupplierInvoice invoice = new SupplierInvoice();
+        invoice.setStatus("Submitted");
+        invoice.setSupplierId(supplierId);
+        invoice.setInvoiceNumber("INV-" + supplierId + "-" + System.nanoTime());
+        invoice.setAccountingDate(accountingDate);
+        invoice.setLines(List.of(lines));
+        return supplierInvoiceRepository.save(invoice).getId();
+    }
+}
@@ -0,0 +1,254 @@
+package com.kewe.core.posting;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.kewe.core.dimensions.DimensionMapping;
+import com.kewe.core.dimensions.DimensionMappingRepository;
+import com.kewe.core.dimensions.MappingType;
+import com.kewe.core.supplierinvoice.SupplierInvoiceRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.web.servlet.MockMvc;
+import org.testcontainers.containers.MongoDBContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.awaitility.Awaitility.await;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest(properties = "kewe.posting.batch-size=2")
+@AutoConfigureMockMvc
+@Testcontainers
+class PostingIntegrationTest {
+
+    @Container
+    static final MongoDBContainer mongoDBContainer = new MongoDBContainer("mongo:7.0.14");
+
+    @DynamicPropertySource
+    static void configureMongo(DynamicPropertyRegistry registry) {
+        registry.add("spring.data.mongodb.uri", mongoDBContainer::getReplicaSetUrl);
+    }
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Autowired
+    private DimensionMappingRepository mappingRepository;
+
+    @Autowired
+    private SupplierInvoiceRepository supplierInvoiceRepository;
+
+    @Autowired
+    private JournalEntryRepository journalEntryRepository;
+
+    @BeforeEach
+    void setUp() {
+        journalEntryRepository.deleteAll();
+        supplierInvoiceRepository.deleteAll();
+        mappingRepository.deleteAll();
+        mappingRepository.saveAll(List.of(
+                mapping(MappingType.ITEM_TO_LEDGER, "SPEND_ITEM", "ITEM-LAB", null, "LEDGER-6100"),
+                mapping(MappingType.COSTCENTER_TO_ORG, "COST_CENTER", "CC-BIO", null, "ORG-BIO"),
+                mapping(MappingType.AWARDDRIVER_TO_FUND, "NONE", null, "NONE", "FUND-GENERAL"),
+                mapping(MappingType.DEFAULT_FUNCTION, "ORGANIZATION", "ORG-BIO", null, "FUNC-INSTRUCTION")));
+    }
+
+    @Test
+    void shouldPostApprovedInvoicesInBatchesAndReplayWithoutDoubleJournaling() throws Exception {
+        List<String> ids = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            ids.add(approvedInvoice(i % 2 == 0 ? "SUP-POST-A" : "SUP-POST-B", "PR-" + i, "2026-03-0" + (i + 1)));
+        }
+        String afterPeriod = approvedInvoice("SUP-POST-A", "PR-LATE", "2026-04-15");
+
+        JsonNode started = objectMapper.readTree(mockMvc.perform(post("/api/posting-runs")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"accountingDateTo\": \"2026-03-31\"}"))
+                .andExpect(status().isAccepted())
+                .andExpect(jsonPath("$.status").value("Running"))
+                .andReturn().getResponse().getContentAsString());
+        JsonNode run = awaitFinished(started.get("id").asText());
+        assertThat(run.get("status").asText()).isEqualTo("Completed");
+        assertThat(run.get("suppliers").asInt()).isEqualTo(2);
+        assertThat(run.get("invoicesPosted").asLong()).isEqualTo(5);
+        assertThat(run.get("journalLinesWritten").asLong()).isEqualTo(15);
+        assertThat(run.get("batches").asLong()).isEqualTo(3);
+
+        for (String id : ids) {
+            assertThat(supplierInvoiceRepository.findById(id).orElseThrow().getStatus()).isEqualTo("Posted");
+        }
+        assertThat(supplierInvoiceRepository.findById(afterPeriod).orElseThrow().getStatus()).isEqualTo("Approved");
+
+        mockMvc.perform(get("/api/journal-entries").param("sourceId", ids.get(0)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(1))
+                .andExpect(jsonPath("$[0].postingRunId").value(run.get("id").asText()))
+                .andExpect(jsonPath("$[0].lines[0].side").value("DEBIT"))
+                .andExpect(jsonPath("$[0].lines[0].ledgerAccountNodeId").value("LEDGER-6100"))
+                .andExpect(jsonPath("$[0].lines[0].organizationNodeId").value("ORG-BIO"))
+                .andExpect(jsonPath("$[0].lines[0].fundNodeId").value("FUND-GENERAL"))
+                .andExpect(jsonPath("$[0].lines[0].functionNodeId").value("FUNC-INSTRUCTION"))
+                .andExpect(jsonPath("$[0].lines[1].suspense").value(true))
+                .andExpect(jsonPath("$[0].lines[1].ledgerAccountNodeId").value("SUSPENSE"))
+                .andExpect(jsonPath("$[0].lines[2].side").value("CREDIT"))
+                .andExpect(jsonPath("$[0].lines[2].ledgerAccountNodeId").value("ACCOUNTS_PAYABLE"));
+        JournalEntry journal = journalEntryRepository.findBySourceTypeAndSourceId(JournalBuilder.SOURCE_SUPPLIER_INVOICE, ids.get(0)).get(0);
+        assertThat(journal.getTotalDebit()).isEqualByComparingTo(new BigDecimal("150.00"));
+        assertThat(journal.getTotalCredit()).isEqualByComparingTo(journal.getTotalDebit());
+
+        mockMvc.perform(post("/api/posting-runs/{id}/replay", run.get("id").asText()))
+                .andExpect(status().isAccepted())
+                .andExpect(jsonPath("$.attempts").value(2));
+        JsonNode replayed = awaitFinished(run.get("id").asText());
+        assertThat(replayed.get("attempts").asInt()).isEqualTo(2);
+        assertThat(replayed.get("invoicesPosted").asLong()).isEqualTo(0);
+        assertThat(journalEntryRepository.count()).isEqualTo(5);
+    }
+
+    @Test
+    void shouldFlipInvoicesWhoseJournalWasWrittenBeforeACrash() throws Exception {
+        String id = approvedInvoice("SUP-POST-CRASH", "PR-CRASH", "2026-03-10");
+        JournalEntry earlier = new JournalEntry();
+        earlier.setIdempotencyKey(JournalBuilder.idempotencyKey(JournalBuilder.SOURCE_SUPPLIER_INVOICE, id));
+        earlier.setSourceType(JournalBuilder.SOURCE_SUPPLIER_INVOICE);
+        earlier.setSourceId(id);
+        mongoTemplate.insert(earlier);
+
+        String runId = objectMapper.readTree(mockMvc.perform(post("/api/posting-runs")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"accountingDateTo\": \"2026-03-31\", \"supplierIds\": [\"SUP-POST-CRASH\"]}"))
+                .andExpect(status().isAccepted())
+                .andReturn().getResponse().getContentAsString()).get("id").asText();
+        JsonNode run = awaitFinished(runId);
+        assertThat(run.get("invoicesPosted").asLong()).isEqualTo(1);
+        assertThat(run.get("alreadyJournaled").asLong()).isEqualTo(1);
+        assertThat(run.get("journalLinesWritten").asLong()).isEqualTo(0);
+
+        assertThat(supplierInvoiceRepository.findById(id).orElseThrow().getStatus()).isEqualTo("Posted");
+        assertThat(journalEntryRepository.findBySourceTypeAndSourceId(JournalBuilder.SOURCE_SUPPLIER_INVOICE, id)).hasSize(1);
+    }
+
+    @Test
+    void shouldTakeOverARunningRunOnlyOnceItsLeaseHasExpired() throws Exception {
+        String id = approvedInvoice("SUP-POST-STALE", "PR-STALE", "2026-03-20");
+        PostingRun live = runningRun(Instant.now());
+        PostingRun stale = runningRun(Instant.now().minus(Duration.ofHours(1)));
+
+        mockMvc.perform(post("/api/posting-runs/{id}/replay", live.getId()))
+                .andExpect(status().isConflict());
+
+        mockMvc.perform(post("/api/posting-runs/{id}/replay", stale.getId()))
+                .andExpect(status().isAccepted())
+                .andExpect(jsonPath("$.attempts").value(2));
+        JsonNode run = awaitFinished(stale.getId());
+        assertThat(run.get("status").asText()).isEqualTo("Completed");
+        assertThat(run.get("invoicesPosted").asLong()).isEqualTo(1);
+        assertThat(supplierInvoiceRepository.findById(id).orElseThrow().getStatus()).isEqualTo("Posted");
+    }
+
+    @Test
+    void shouldJournalSingleAndBulkPosts() throws Exception {
+        String single = approvedInvoice("SUP-POST-SINGLE", "PR-S1", "2026-03-11");
+        String bulk = approvedInvoice("SUP-POST-SINGLE", "PR-S2", "2026-03-12");
+
+        mockMvc.perform(put("/api/supplier-invoices/{id}/post", single))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.status").value("Posted"));
+        mockMvc.perform(put("/api/supplier-invoices:post")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(Map.of("ids", List.of(single, bulk)))))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.results[0].outcome").value("CONFLICT"))
+                .andExpect(jsonPath("$.results[1].outcome").value("TRANSITIONED"));
+
+        assertThat(journalEntryRepository.findBySourceTypeAndSourceId(JournalBuilder.SOURCE_SUPPLIER_INVOICE, single)).hasSize(1);
+        assertThat(journalEntryRepository.findBySourceTypeAndSourceId(JournalBuilder.SOURCE_SUPPLIER_INVOICE, bulk)).hasSize(1);
+    }
+
+    private String approvedInvoice(String supplierId, String invoiceNumber, String accountingDate) throws Exception {
+        String id = objectMapper.readTree(mockMvc.perform(post("/api/supplier-invoices")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("""
+                                {
+                                  "supplierId": "%s",
+                                  "invoiceNumber": "%s",
+                                  "invoiceDate": "2026-03-01",
+                                  "accountingDate": "%s",
+                                  "currency": "USD",
+                                  "invoiceAmount": 150.00,
+                                  "lines": [
+                                    {"description": "Pipettes", "amount": 100.00, "itemNodeId": "ITEM-LAB", "costCenterNodeId": "CC-BIO"},
+                                    {"description": "Unmapped freight", "amount": 50.00, "itemNodeId": "ITEM-FREIGHT"}
+                                  ]
+                                }
+                                """.formatted(supplierId, invoiceNumber, accountingDate)))
+                .andExpect(status().isCreated())
+                .andReturn().getResponse().getContentAsString()).get("id").asText();
+        mockMvc.perform(put("/api/supplier-invoices/{id}/submit", id)).andExpect(status().isOk());
+        mockMvc.perform(put("/api/supplier-invoices/{id}/approve", id)).andExpect(status().isOk());
+        return id;
+    }
+
+    private JsonNode awaitFinished(String runId) {
+        AtomicReference<JsonNode> finished = new AtomicReference<>();
+        await().atMost(Duration.ofSeconds(30)).until(() -> {
+            JsonNode run = objectMapper.readTree(mockMvc.perform(get("/api/posting-runs/{id}", runId))
+                    .andExpect(status().isOk())
+                    .andReturn().getResponse().getContentAsString());
+            finished.set(run);
+            return !PostingRun.STATUS_RUNNING.equals(run.get("status").asText());
+        });
+        return finished.get();
+    }
+
+    /** A run left Running by an instance that stopped heartbeating at {@code heartbeatAt}. */
+    private PostingRun runningRun(Instant heartbeatAt) {
+        PostingRun run = new PostingRun();
+        run.setType("PostingRun");
+        run.setStatus(PostingRun.STATUS_RUNNING);
+        run.setAccountingDateTo(LocalDate.of(2026, 3, 31));
+        run.setSupplierIds(List.of("SUP-POST-STALE"));
+        run.setAttempts(1);
+        run.setHeartbeatAt(heartbeatAt);
+        run.setUpdatedAt(heartbeatAt);
+        return mongoTemplate.insert(run);
+    }
+
+    private static DimensionMapping mapping(MappingType type, String sourceTypeCode, String sourceNodeId, String sourceKey,
+                                            String targetNodeId) {
+        DimensionMapping mapping = new DimensionMapping();
+        mapping.setMappingType(type);
+        mapping.setSourceTypeCode(sourceTypeCode);
+        mapping.setSourceNodeId(sourceNodeId);
+        mapping.setSourceKey(sourceKey);
+        mapping.setTargetNodeId(targetNodeId);
+        return mapping;
+    }
+}
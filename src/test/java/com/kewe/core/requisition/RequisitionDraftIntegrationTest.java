@@ -0,0 +1,450 @@
+package com.kewe.core.requisition;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.kewe.core.businessobjects.BusinessObjectInstance;
+import com.kewe.core.businessobjects.BusinessObjectRepository;
+import com.kewe.core.funding.AllocationRecord;
+import com.kewe.core.funding.AllocationRecordRepository;
+import com.kewe.core.funding.BudgetRecord;
+import com.kewe.core.funding.BudgetRecordRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.web.server.ResponseStatusException;
+import org.testcontainers.containers.MongoDBContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest(properties = {
+        "kewe.requisitions.autosave.debounce-ms=60000",
+        "kewe.requisitions.autosave.max-delay-ms=120000"
+})
+@AutoConfigureMockMvc
+@Testcontainers
+class RequisitionDraftIntegrationTest {
+
+    @Container
+    static final MongoDBContainer mongoDBContainer = new MongoDBContainer("mongo:7.0.14");
+
+    @DynamicPropertySource
+    static void configureMongo(DynamicPropertyRegistry registry) {
+        registry.add("spring.data.mongodb.uri", mongoDBContainer::getReplicaSetUrl);
+    }
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private RequisitionDraftRepository repository;
+
+    @Autowired
+    private BusinessObjectRepository businessObjectRepository;
+
+    @Autowired
+    private BudgetRecordRepository budgetRepository;
+
+    @Autowired
+    private AllocationRecordRepository allocationRepository;
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Autowired
+    private RequisitionDraftBuffer draftBuffer;
+
+    @BeforeEach
+    void setUp() {
+        repository.deleteAll();
+        budgetRepository.deleteAll();
+        allocationRepository.deleteAll();
+        mongoTemplate.remove(new Query(), PreEncumbrance.class);
+    }
+
+    @Test
+    void shouldEditLinesInPlaceAndKeepSubtotalInStep() throws Exception {
+        String id = createDraft();
+
+        for (int i = 1; i <= 5; i++) {
+            mockMvc.perform(post("/api/requisitions/drafts/{id}/lines", id)
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .content(line(0, "Pipette tips box " + i, 10.0 * i)))
+                    .andExpect(status().isCreated())
+                    .andExpect(jsonPath("$.line.lineNumber").value(i))
+                    .andExpect(jsonPath("$.totals.subtotal").value(5.0 * i * (i + 1)));
+        }
+        mockMvc.perform(post("/api/requisitions/drafts/{id}/lines", id)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(line(3, "Duplicate", 1.0)))
+                .andExpect(status().isConflict());
+
+        mockMvc.perform(put("/api/requisitions/drafts/{id}/lines/{lineNumber}", id, 2)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(line(0, "Pipette tips box 2 (sterile)", 45.0)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.line.lineNumber").value(2))
+                .andExpect(jsonPath("$.totals.subtotal").value(175.0));
+        mockMvc.perform(delete("/api/requisitions/drafts/{id}/lines/{lineNumber}", id, 4))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.line.amount").value(40.0))
+                .andExpect(jsonPath("$.totals.subtotal").value(135.0));
+        mockMvc.perform(delete("/api/requisitions/drafts/{id}/lines/{lineNumber}", id, 4))
+                .andExpect(status().isNotFound());
+        mockMvc.perform(post("/api/requisitions/drafts/{id}/lines", id)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(line(4, "Centrifuge tubes", 15.0)))
+                .andExpect(status().isCreated())
+                .andExpect(jsonPath("$.totals.subtotal").value(150.0));
+
+        mockMvc.perform(get("/api/requisitions/drafts/{id}/lines", id).param("offset", "1").param("limit", "2"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.total").value(5))
+                .andExpect(jsonPath("$.lines.length()").value(2))
+                .andExpect(jsonPath("$.lines[0].description").value("Pipette tips box 2 (sterile)"))
+                .andExpect(jsonPath("$.lines[1].lineNumber").value(3));
+        mockMvc.perform(get("/api/requisitions/drafts/{id}/lines", id).param("offset", "4"))
+                .andExpect(jsonPath("$.lines.length()").value(1))
+                .andExpect(jsonPath("$.lines[0].lineNumber").value(5));
+        mockMvc.perform(get("/api/requisitions/drafts/{id}/lines", id).param("limit", "501"))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(get("/api/requisitions/drafts/{id}", id).param("includeLines", "false"))
+                .andExpect(jsonPath("$.lines").doesNotExist())
+                .andExpect(jsonPath("$.totals.subtotal").value(150.0));
+
+        RequisitionDraft stored = repository.findById(id).orElseThrow();
+        assertThat(stored.getLines()).extracting(RequisitionLine::getLineNumber).containsExactly(1, 2, 3, 4, 5);
+        assertThat(stored.getTotals().getSubtotal()).isEqualTo(RequisitionDraftService.totalsOf(stored.getLines()).getSubtotal());
+
+        stored.setStatus("SUBMITTED");
+        repository.save(stored);
+        mockMvc.perform(put("/api/requisitions/drafts/{id}/lines/{lineNumber}", id, 1)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(line(0, "Too late", 1.0)))
+                .andExpect(status().isConflict());
+        mockMvc.perform(get("/api/requisitions/drafts/{id}/lines", "missing"))
+                .andExpect(status().isNotFound());
+    }
+
+    @Test
+    void shouldKeepSubtotalInCentsWithoutDrift() throws Exception {
+        String id = createDraft();
+
+        for (int i = 1; i <= 10; i++) {
+            mockMvc.perform(post("/api/requisitions/drafts/{id}/lines", id)
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .content(line(0, "Label roll $0.10", 0.1)))
+                    .andExpect(status().isCreated());
+        }
+        mockMvc.perform(put("/api/requisitions/drafts/{id}/lines/{lineNumber}", id, 3)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(line(0, "Label roll $0.20", 0.2)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.totals.subtotal").value(1.1));
+        mockMvc.perform(delete("/api/requisitions/drafts/{id}/lines/{lineNumber}", id, 5))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.totals.subtotal").value(1.0));
+
+        RequisitionDraft stored = repository.findById(id).orElseThrow();
+        assertThat(stored.getLines()).hasSize(9);
+        assertThat(stored.getLines().get(2).getDescription()).isEqualTo("Label roll $0.20");
+        assertThat(stored.getTotals().getSubtotalCents()).isEqualTo(100L)
+                .isEqualTo(RequisitionDraftService.totalsOf(stored.getLines()).getSubtotalCents());
+        assertThat(stored.getTotals().getSubtotal()).isEqualTo(1.0);
+        assertThat(stored.getVersion()).isEqualTo(12L);
+    }
+
+    @Test
+    void shouldSubmitAgainstFundingPerChargingDimensionAndWritePreEncumbrances() throws Exception {
+        String lab = dimension("COST_CENTER", "CC-REQ-LAB");
+        String grant = dimension("GRANT", "GR-REQ-NSF");
+        BudgetRecord budget = new BudgetRecord();
+        budget.setBusinessDimensionId(lab);
+        budget.setBudgetPlanId("FY27");
+        budget.setAmount(1000);
+        budgetRepository.save(budget);
+        AllocationRecord allocation = new AllocationRecord();
+        allocation.setBudgetPlanId("FY27");
+        allocation.setAllocatedFromDimensionId(lab);
+        allocation.setAllocatedToDimensionId(grant);
+        allocation.setAmount(100);
+        allocationRepository.save(allocation);
+
+        RequisitionDraft draft = new RequisitionDraft();
+        draft.setStatus("DRAFT");
+        draft.setChargingBusinessDimensionId(lab);
+        List<RequisitionLine> lines = new ArrayList<>();
+        for (int i = 1; i <= 500; i++) {
+            RequisitionLine line = new RequisitionLine();
+            line.setLineNumber(i);
+            line.setDescription("Reagent " + i);
+            line.setQuantity(1);
+            if (i > 400) {
+                line.setChargingBusinessDimensionId(grant);
+                line.setAmount(1.5);
+            } else {
+                line.setAmount(1.75);
+            }
+            lines.add(line);
+        }
+        draft.setLines(lines);
+        String id = repository.save(draft).getId();
+
+        mockMvc.perform(post("/api/requisitions/drafts/{id}/submit", id))
+                .andExpect(status().isConflict())
+                .andExpect(jsonPath("$.shortfalls.length()").value(1))
+                .andExpect(jsonPath("$.shortfalls[0].chargingBusinessDimensionId").value(grant))
+                .andExpect(jsonPath("$.shortfalls[0].requested").value(150.0))
+                .andExpect(jsonPath("$.shortfalls[0].available").value(100.0));
+        assertThat(repository.findById(id).orElseThrow().getStatus()).isEqualTo("DRAFT");
+
+        RequisitionDraft reduced = repository.findById(id).orElseThrow();
+        reduced.getLines().subList(400, 500).forEach(line -> line.setAmount(1.0));
+        repository.save(reduced);
+        mockMvc.perform(post("/api/requisitions/drafts/{id}/submit", id))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.status").value("SUBMITTED"));
+        mockMvc.perform(get("/api/requisitions/drafts/{id}/pre-encumbrances", id))
+                .andExpect(jsonPath("$.length()").value(500))
+                .andExpect(jsonPath("$[0].chargingBusinessDimensionId").value(lab))
+                .andExpect(jsonPath("$[0].status").value("OPEN"))
+                .andExpect(jsonPath("$[499].chargingBusinessDimensionId").value(grant));
+        mockMvc.perform(post("/api/requisitions/drafts/{id}/submit", id))
+                .andExpect(status().isConflict());
+
+        RequisitionDraft second = new RequisitionDraft();
+        second.setStatus("DRAFT");
+        RequisitionLine over = new RequisitionLine();
+        over.setLineNumber(1);
+        over.setChargingBusinessDimensionId(lab);
+        over.setAmount(300);
+        RequisitionLine unassigned = new RequisitionLine();
+        unassigned.setLineNumber(2);
+        second.setLines(List.of(over));
+        String secondId = repository.save(second).getId();
+        mockMvc.perform(post("/api/requisitions/drafts/{id}/submit", secondId))
+                .andExpect(status().isConflict())
+                .andExpect(jsonPath("$.shortfalls[0].available").value(200.0));
+
+        second.setLines(List.of(over, unassigned));
+        repository.save(second);
+        mockMvc.perform(post("/api/requisitions/drafts/{id}/submit", secondId))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.violationCount").value(2));
+    }
+
+    @Test
+    void shouldNotLetConcurrentSubmitsSpendTheSameFunds() throws Exception {
+        String lab = dimension("COST_CENTER", "CC-REQ-RACE");
+        BudgetRecord budget = new BudgetRecord();
+        budget.setBusinessDimensionId(lab);
+        budget.setBudgetPlanId("FY27");
+        budget.setAmount(100);
+        budgetRepository.save(budget);
+        List<String> ids = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            RequisitionDraft draft = new RequisitionDraft();
+            draft.setStatus("DRAFT");
+            draft.setChargingBusinessDimensionId(lab);
+            RequisitionLine line = new RequisitionLine();
+            line.setLineNumber(1);
+            line.setQuantity(1);
+            line.setAmount(60);
+            draft.setLines(List.of(line));
+            ids.add(repository.save(draft).getId());
+        }
+
+        ExecutorService pool = Executors.newFixedThreadPool(ids.size());
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<Integer>> submits = new ArrayList<>();
+        for (String id : ids) {
+            submits.add(pool.submit(() -> {
+                start.await();
+                return mockMvc.perform(post("/api/requisitions/drafts/{id}/submit", id)).andReturn().getResponse().getStatus();
+            }));
+        }
+        start.countDown();
+        List<Integer> statuses = new ArrayList<>();
+        for (Future<Integer> submit : submits) {
+            statuses.add(submit.get(30, TimeUnit.SECONDS));
+        }
+        pool.shutdown();
+        assertThat(statuses).containsOnly(200, 409);
+        assertThat(statuses).filteredOn(code -> code == 200).hasSizeLessThanOrEqualTo(1);
+
+        // racers that all counted each other's holds back off; submitted one at a time, exactly one still fits
+        for (String id : ids) {
+            if ("DRAFT".equals(repository.findById(id).orElseThrow().getStatus())) {
+                mockMvc.perform(post("/api/requisitions/drafts/{id}/submit", id));
+            }
+        }
+        assertThat(repository.findAllById(ids)).filteredOn(draft -> "SUBMITTED".equals(draft.getStatus())).hasSize(1);
+        assertThat(mongoTemplate.count(new Query(), PreEncumbrance.class)).isEqualTo(1);
+    }
+
+    @Test
+    void shouldCoalesceAutosavesAndWriteThemBehindWithVersionCheck() throws Exception {
+        String id = createDraft();
+        long createdVersion = repository.findById(id).orElseThrow().getVersion();
+
+        for (int i = 0; i < 20; i++) {
+            mockMvc.perform(put("/api/requisitions/drafts/{id}", id)
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .content(draft("Autosave " + i, 10.0 + i)))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.title").value("Autosave " + i));
+        }
+        assertThat(repository.findById(id).orElseThrow().getVersion()).isEqualTo(createdVersion);
+        mockMvc.perform(get("/api/requisitions/drafts/{id}", id))
+                .andExpect(jsonPath("$.title").value("Autosave 19"))
+                .andExpect(jsonPath("$.totals.subtotal").value(29.0));
+
+        mockMvc.perform(get("/api/requisitions/drafts/{id}/lines", id))
+                .andExpect(jsonPath("$.total").value(1))
+                .andExpect(jsonPath("$.lines[0].amount").value(29.0));
+        RequisitionDraft written = repository.findById(id).orElseThrow();
+        assertThat(written.getTitle()).isEqualTo("Autosave 19");
+        assertThat(written.getVersion()).isEqualTo(createdVersion + 1);
+
+        mockMvc.perform(put("/api/requisitions/drafts/{id}", id)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(draft("From this instance", 12.0)))
+                .andExpect(status().isOk());
+        RequisitionDraft elsewhere = repository.findById(id).orElseThrow();
+        elsewhere.setMemo("Written by another instance");
+        elsewhere.getLines().get(0).setAmount(30.0);
+        repository.save(elsewhere);
+        assertThatThrownBy(() -> draftBuffer.flush(id))
+                .isInstanceOfSatisfying(ResponseStatusException.class,
+                        ex -> assertThat(ex.getStatusCode()).isEqualTo(HttpStatus.CONFLICT));
+        assertThat(draftBuffer.buffered(id)).isEmpty();
+        written = repository.findById(id).orElseThrow();
+        assertThat(written.getTitle()).isEqualTo("Autosave 19");
+        assertThat(written.getMemo()).isEqualTo("Written by another instance");
+        assertThat(written.getLines().get(0).getAmount()).isEqualTo(30.0);
+        assertThat(written.getVersion()).isEqualTo(createdVersion + 2);
+
+        mockMvc.perform(put("/api/requisitions/drafts/{id}", id)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(draft("From this instance", 12.0)))
+                .andExpect(status().isOk());
+        draftBuffer.flush(id);
+        written = repository.findById(id).orElseThrow();
+        assertThat(written.getTitle()).isEqualTo("From this instance");
+        assertThat(written.getVersion()).isEqualTo(createdVersion + 3);
+
+        mockMvc.perform(put("/api/requisitions/drafts/{id}", id)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(draft("Too late", 13.0)))
+                .andExpect(status().isOk());
+        RequisitionDraft submitted = repository.findById(id).orElseThrow();
+        submitted.setStatus("SUBMITTED");
+        repository.save(submitted);
+        assertThatThrownBy(() -> draftBuffer.flush(id)).isInstanceOf(ResponseStatusException.class);
+        written = repository.findById(id).orElseThrow();
+        assertThat(written.getTitle()).isEqualTo("From this instance");
+        assertThat(written.getStatus()).isEqualTo("SUBMITTED");
+        mockMvc.perform(put("/api/requisitions/drafts/{id}", id)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(draft("Still too late", 14.0)))
+                .andExpect(status().isConflict());
+    }
+
+    @Test
+    void shouldRejectAutosavesFromAStaleVersionUpFront() throws Exception {
+        String id = createDraft();
+        long createdVersion = repository.findById(id).orElseThrow().getVersion();
+
+        mockMvc.perform(put("/api/requisitions/drafts/{id}", id)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(versioned(draft("First edit", 10.0), createdVersion)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.version").value(createdVersion + 1));
+        mockMvc.perform(put("/api/requisitions/drafts/{id}", id)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(versioned(draft("Second edit", 11.0), createdVersion + 1)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.version").value(createdVersion + 1));
+        mockMvc.perform(put("/api/requisitions/drafts/{id}", id)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(versioned(draft("From an older tab", 99.0), createdVersion)))
+                .andExpect(status().isConflict());
+
+        // callers get a copy; changing it does not reach the buffer
+        draftBuffer.buffered(id).orElseThrow().setTitle("Changed by a caller");
+        assertThat(draftBuffer.buffered(id).orElseThrow().getTitle()).isEqualTo("Second edit");
+
+        draftBuffer.flush(id);
+        RequisitionDraft written = repository.findById(id).orElseThrow();
+        assertThat(written.getTitle()).isEqualTo("Second edit");
+        assertThat(written.getVersion()).isEqualTo(createdVersion + 1);
+
+        mockMvc.perform(put("/api/requisitions/drafts/{id}", id)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(versioned(draft("Third edit", 12.0), createdVersion + 1)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.version").value(createdVersion + 2));
+        draftBuffer.flush(id);
+        assertThat(repository.findById(id).orElseThrow().getVersion()).isEqualTo(createdVersion + 2);
+    }
+
+    private String versioned(String draft, long version) {
+        return draft.replaceFirst("\\{", "{\"version\": " + version + ", ");
+    }
+
+    private String dimension(String typeCode, String code) {
+        BusinessObjectInstance dimension = new BusinessObjectInstance();
+        dimension.setTypeCode(typeCode);
+        dimension.setCode(code + "-" + System.nanoTime());
+        dimension.setName(code);
+        return businessObjectRepository.save(dimension).getId();
+    }
+
+    private String createDraft() throws Exception {
+        String body = mockMvc.perform(post("/api/requisitions/drafts"))
+                .andExpect(status().isCreated())
+                .andReturn().getResponse().getContentAsString();
+        JsonNode draft = objectMapper.readTree(body);
+        return draft.get("id").asText();
+    }
+
+    private String draft(String title, double amount) {
+        return """
+                {"title": "%s", "currency": "USD", "lines": [%s]}
+                """.formatted(title, line(1, "Agar plates", amount));
+    }
+
+    private String line(int lineNumber, String description, double amount) {
+        return """
+                {"lineNumber": %d, "description": "%s", "quantity": 1, "uom": "EA", "unitPrice": %s, "amount": %s}
+                """.formatted(lineNumber, description, amount, amount);
+    }
+}
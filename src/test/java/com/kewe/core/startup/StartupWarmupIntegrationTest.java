@@ -0,0 +1,61 @@
+package com.kewe.core.startup;
+
+import com.kewe.core.dimensions.DimensionType;
+import com.kewe.core.dimensions.DimensionTypeRepository;
+import com.kewe.core.dimensions.DimensionTypeService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.web.servlet.MockMvc;
+import org.testcontainers.containers.MongoDBContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@Testcontainers
+class StartupWarmupIntegrationTest {
+    @Container
+    static final MongoDBContainer mongoDBContainer = new MongoDBContainer("mongo:7.0.14");
+
+    @DynamicPropertySource
+    static void configureMongo(DynamicPropertyRegistry registry) {
+        registry.add("spring.data.mongodb.uri", mongoDBContainer::getReplicaSetUrl);
+        registry.add("kewe.warmup.iterations", () -> "2");
+    }
+
+    @Autowired private MockMvc mockMvc;
+    @Autowired private DimensionTypeService dimensionTypeService;
+    @Autowired private DimensionTypeRepository dimensionTypeRepository;
+
+    @Test
+    void readinessIsUpOnceWarmupHasRun() throws Exception {
+        mockMvc.perform(get("/actuator/health/readiness"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.status").value("UP"));
+    }
+
+    @Test
+    void cachedDimensionTypeIsRefreshedAfterRepositoryWrite() {
+        DimensionType type = new DimensionType();
+        type.setCode("WARMUP_CACHE");
+        type.setName("Before");
+        type.setStatus("Active");
+        type = dimensionTypeRepository.save(type);
+
+        assertThat(dimensionTypeService.getByCode("warmup_cache").getName()).isEqualTo("Before");
+
+        type.setName("After");
+        dimensionTypeRepository.save(type);
+
+        assertThat(dimensionTypeService.getByCode("WARMUP_CACHE").getName()).isEqualTo("After");
+    }
+}
@@ -0,0 +1,49 @@
+package com.kewe.core.supplierinvoice;
+
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class DuplicateInvoiceDetectorTest {
+
+    @Test
+    void normalizesPunctuationCaseAndZeroPadding() {
+        assertThat(DuplicateInvoiceDetector.normalizeInvoiceNumber("inv-000123")).isEqualTo("INV123");
+        assertThat(DuplicateInvoiceDetector.normalizeInvoiceNumber("INV 123")).isEqualTo("INV123");
+        assertThat(DuplicateInvoiceDetector.normalizeInvoiceNumber("A0B00")).isEqualTo("A0B0");
+        assertThat(DuplicateInvoiceDetector.normalizeInvoiceNumber("2026/0007")).isEqualTo("20267");
+        assertThat(DuplicateInvoiceDetector.normalizeInvoiceNumber(null)).isEmpty();
+    }
+
+    @Test
+    void countsTranspositionsAsOneEditAndStopsPastTheLimit() {
+        assertThat(DuplicateInvoiceDetector.editDistance("INV42", "INV24", 2)).isEqualTo(1);
+        assertThat(DuplicateInvoiceDetector.editDistance("INV42", "INV420", 2)).isEqualTo(1);
+        assertThat(DuplicateInvoiceDetector.editDistance("INV42", "INV42", 2)).isZero();
+        assertThat(DuplicateInvoiceDetector.editDistance("ABCDEF", "UVWXYZ", 2)).isEqualTo(3);
+        assertThat(DuplicateInvoiceDetector.editDistance("A", "ABCDEF", 2)).isEqualTo(3);
+    }
+
+    @Test
+    void exactKeyIgnoresAmountScaleAndNumberFormatting() {
+        DuplicateInvoiceDetector detector = new DuplicateInvoiceDetector(null);
+        SupplierInvoice first = invoice(" sup-1 ", "INV-0042", "250.00");
+        SupplierInvoice second = invoice("SUP-1", "inv 42", "250.0");
+        SupplierInvoice otherAmount = invoice("SUP-1", "INV-0042", "250.01");
+
+        assertThat(detector.duplicateKey(first)).isEqualTo(detector.duplicateKey(second));
+        assertThat(detector.duplicateKey(first)).isNotEqualTo(detector.duplicateKey(otherAmount));
+    }
+
+    private static SupplierInvoice invoice(String supplierId, String invoiceNumber, String amount) {
+        SupplierInvoice invoice = new SupplierInvoice();
+        invoice.setSupplierId(supplierId);
+        invoice.setInvoiceNumber(invoiceNumber);
+        invoice.setInvoiceAmount(new BigDecimal(amount));
+        invoice.setInvoiceDate(LocalDate.of(2026, 5, 4));
+        return invoice;
+    }
+}
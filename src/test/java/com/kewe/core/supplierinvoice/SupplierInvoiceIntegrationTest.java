@@ -2,10 +2,17 @@ package com.kewe.core.supplierinvoice;
 
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import org.bson.Document;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.CommandLineRunner;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
 import org.springframework.http.MediaType;
 import org.springframework.test.context.DynamicPropertyRegistry;
 import org.springframework.test.context.DynamicPropertySource;
@@ -14,10 +21,20 @@ import org.testcontainers.containers.MongoDBContainer;
 import org.testcontainers.junit.jupiter.Container;
 import org.testcontainers.junit.jupiter.Testcontainers;
 
+import java.math.BigDecimal;
+import java.security.MessageDigest;
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.HexFormat;
+import java.util.Random;
+
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.patch;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
@@ -40,6 +57,16 @@ class SupplierInvoiceIntegrationTest {
     @Autowired
     private ObjectMapper objectMapper;
 
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Autowired
+    private SupplierInvoiceRepository supplierInvoiceRepository;
+
+    @Autowired
+    @Qualifier("ensureSupplierInvoiceIndexes")
+    private CommandLineRunner ensureSupplierInvoiceIndexes;
+
     @Test
     void shouldRunSupplierInvoiceLifecycleDraftToPosted() throws Exception {
         String draftPayload = validDraftPayload();
@@ -205,6 +232,399 @@ class SupplierInvoiceIntegrationTest {
                 .andExpect(jsonPath("$.path").value("/api/supplier-invoices"));
     }
 
+    @Test
+    void shouldPageFilteredWorklistByAccountingDateWithoutLines() throws Exception {
+        String[] accountingDates = {"2026-03-05", "2026-03-01", "2026-03-03", "2026-03-03", "2026-04-10"};
+        for (int i = 0; i < accountingDates.length; i++) {
+            mockMvc.perform(post("/api/supplier-invoices")
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .content("""
+                                    {
+                                      "supplierId": "SUP-WORKLIST",
+                                      "invoiceNumber": "WL-%d",
+                                      "invoiceDate": "2026-02-15",
+                                      "accountingDate": "%s",
+                                      "invoiceAmount": 10.00,
+                                      "lines": [{"description": "Item", "amount": 10.00}]
+                                    }
+                                    """.formatted(i, accountingDates[i])))
+                    .andExpect(status().isCreated());
+        }
+
+        java.util.List<String> seen = new java.util.ArrayList<>();
+        String cursor = null;
+        int pages = 0;
+        do {
+            var request = get("/api/supplier-invoices/search")
+                    .param("supplierId", "SUP-WORKLIST")
+                    .param("status", "Draft")
+                    .param("accountingDateFrom", "2026-03-01")
+                    .param("accountingDateTo", "2026-03-31")
+                    .param("limit", "2");
+            if (cursor != null) {
+                request.param("after", cursor);
+            }
+            JsonNode page = objectMapper.readTree(mockMvc.perform(request)
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.items[0].lines").doesNotExist())
+                    .andReturn().getResponse().getContentAsString());
+            page.get("items").forEach(item -> seen.add(item.get("accountingDate").asText()));
+            cursor = page.get("nextCursor").isNull() ? null : page.get("nextCursor").asText();
+            pages++;
+        } while (cursor != null);
+
+        assertThat(pages).isEqualTo(2);
+        assertThat(seen).containsExactly("2026-03-01", "2026-03-03", "2026-03-03", "2026-03-05");
+        assertThat(mongoTemplate.indexOps(SupplierInvoice.class).getIndexInfo())
+                .extracting(org.springframework.data.mongodb.core.index.IndexInfo::getName)
+                .contains("idx_si_supplier_status_accounting_date", "idx_si_status_accounting_date");
+    }
+
+    @Test
+    void shouldRejectExactDuplicateOnSubmitAndFlagNearDuplicatesAtDraftTime() throws Exception {
+        String original = duplicatePayload("INV-0042", "250.00");
+        String firstId = objectMapper.readTree(mockMvc.perform(post("/api/supplier-invoices")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(original))
+                .andExpect(status().isCreated())
+                .andExpect(jsonPath("$.possibleDuplicates").isEmpty())
+                .andReturn().getResponse().getContentAsString()).get("id").asText();
+        mockMvc.perform(put("/api/supplier-invoices/{id}/submit", firstId))
+                .andExpect(status().isOk());
+
+        // same invoice keyed in again with different punctuation and padding
+        String exactId = objectMapper.readTree(mockMvc.perform(post("/api/supplier-invoices")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(duplicatePayload("inv 42", "250.0")))
+                .andExpect(status().isCreated())
+                .andExpect(jsonPath("$.possibleDuplicates[0].id").value(firstId))
+                .andExpect(jsonPath("$.possibleDuplicates[0].editDistance").value(0))
+                .andReturn().getResponse().getContentAsString()).get("id").asText();
+        mockMvc.perform(put("/api/supplier-invoices/{id}/submit", exactId))
+                .andExpect(status().isConflict())
+                .andExpect(jsonPath("$.message").value("Duplicate invoice: already submitted as " + firstId));
+
+        // a transposed digit and an amount within the band is only a warning
+        String nearId = objectMapper.readTree(mockMvc.perform(post("/api/supplier-invoices")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(duplicatePayload("INV-0024", "251.00")))
+                .andExpect(status().isCreated())
+                .andReturn().getResponse().getContentAsString()).get("id").asText();
+        mockMvc.perform(get("/api/supplier-invoices/{id}/possible-duplicates", nearId))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[?(@.id == '%s')].editDistance".formatted(firstId)).value(1));
+        mockMvc.perform(put("/api/supplier-invoices/{id}/submit", nearId))
+                .andExpect(status().isOk());
+
+        // far outside the amount band is not a candidate at all
+        mockMvc.perform(post("/api/supplier-invoices")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(duplicatePayload("INV-0042", "900.00")))
+                .andExpect(status().isCreated())
+                .andExpect(jsonPath("$.possibleDuplicates").isEmpty());
+        assertThat(mongoTemplate.indexOps(SupplierInvoice.class).getIndexInfo())
+                .extracting(org.springframework.data.mongodb.core.index.IndexInfo::getName)
+                .contains("uk_si_duplicate_key", "idx_si_supplier_amount");
+    }
+
+    @Test
+    void shouldTransitionInvoicesInBulkWithPerIdOutcomes() throws Exception {
+        java.util.List<String> ids = new java.util.ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            ids.add(objectMapper.readTree(mockMvc.perform(post("/api/supplier-invoices")
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .content("""
+                                    {
+                                      "supplierId": "SUP-BULK",
+                                      "invoiceNumber": "BULK-%d",
+                                      "invoiceDate": "2026-06-01",
+                                      "accountingDate": "2026-06-02",
+                                      "currency": "USD",
+                                      "invoiceAmount": %d.00,
+                                      "lines": [{"description": "Item", "amount": %d.00}]
+                                    }
+                                    """.formatted(i, 100 * (i + 1), 100 * (i + 1))))
+                    .andExpect(status().isCreated())
+                    .andReturn().getResponse().getContentAsString()).get("id").asText());
+        }
+
+        mockMvc.perform(put("/api/supplier-invoices:submit")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(java.util.Map.of("ids", java.util.List.of(ids.get(0), ids.get(1), "missing-id")))))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.requested").value(3))
+                .andExpect(jsonPath("$.transitioned").value(2))
+                .andExpect(jsonPath("$.results[0].outcome").value("TRANSITIONED"))
+                .andExpect(jsonPath("$.results[2].outcome").value("NOT_FOUND"));
+
+        mockMvc.perform(put("/api/supplier-invoices:approve")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(java.util.Map.of("ids", ids))))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.targetStatus").value("Approved"))
+                .andExpect(jsonPath("$.transitioned").value(2))
+                .andExpect(jsonPath("$.failed").value(1))
+                .andExpect(jsonPath("$.results[0].outcome").value("TRANSITIONED"))
+                .andExpect(jsonPath("$.results[1].outcome").value("TRANSITIONED"))
+                .andExpect(jsonPath("$.results[2].outcome").value("CONFLICT"))
+                .andExpect(jsonPath("$.results[2].message").value("Invalid status transition: Draft -> Approved"));
+
+        SupplierInvoice approved = supplierInvoiceRepository.findById(ids.get(0)).orElseThrow();
+        assertThat(approved.getStatus()).isEqualTo("Approved");
+        assertThat(approved.getVersion()).isEqualTo(2L);
+
+        mockMvc.perform(put("/api/supplier-invoices/{id}/approve", ids.get(0)))
+                .andExpect(status().isConflict())
+                .andExpect(jsonPath("$.message").value("Invalid status transition: Approved -> Approved"));
+    }
+
+    @Test
+    void shouldRejectStaleWritesWithVersionCheck() throws Exception {
+        String id = objectMapper.readTree(mockMvc.perform(post("/api/supplier-invoices")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("""
+                                {"supplierId": "SUP-VERSION", "invoiceNumber": "VER-1"}
+                                """))
+                .andExpect(status().isCreated())
+                .andReturn().getResponse().getContentAsString()).get("id").asText();
+
+        SupplierInvoice first = supplierInvoiceRepository.findById(id).orElseThrow();
+        SupplierInvoice second = supplierInvoiceRepository.findById(id).orElseThrow();
+        first.setMemo("first approver");
+        supplierInvoiceRepository.save(first);
+        second.setMemo("second approver");
+
+        org.assertj.core.api.Assertions.assertThatThrownBy(() -> supplierInvoiceRepository.save(second))
+                .isInstanceOf(org.springframework.dao.OptimisticLockingFailureException.class);
+        assertThat(supplierInvoiceRepository.findById(id).orElseThrow().getMemo()).isEqualTo("first approver");
+    }
+
+    @Test
+    void shouldStreamDeduplicateAndServeRangesOfInvoiceAttachments() throws Exception {
+        String first = objectMapper.readTree(mockMvc.perform(post("/api/supplier-invoices")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(validDraftPayload()))
+                .andReturn().getResponse().getContentAsString()).get("id").asText();
+        String second = objectMapper.readTree(mockMvc.perform(post("/api/supplier-invoices")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(validDraftPayload()))
+                .andReturn().getResponse().getContentAsString()).get("id").asText();
+
+        byte[] scan = new byte[3 * 1024 * 1024 + 17];
+        new Random(42).nextBytes(scan);
+        String sha256 = HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(scan));
+
+        JsonNode uploaded = objectMapper.readTree(mockMvc.perform(post("/api/supplier-invoices/{id}/attachments", first)
+                        .param("fileName", "scan.pdf")
+                        .contentType(MediaType.APPLICATION_PDF)
+                        .header("X-Content-SHA256", sha256)
+                        .content(scan))
+                .andExpect(status().isCreated())
+                .andExpect(jsonPath("$.size").value(scan.length))
+                .andExpect(jsonPath("$.sha256").value(sha256))
+                .andReturn().getResponse().getContentAsString());
+        String firstAttachment = uploaded.get("attachmentId").asText();
+
+        String secondAttachment = objectMapper.readTree(mockMvc.perform(post("/api/supplier-invoices/{id}/attachments", second)
+                        .param("fileName", "copy.pdf")
+                        .contentType(MediaType.APPLICATION_PDF)
+                        .content(scan))
+                .andExpect(status().isCreated())
+                .andReturn().getResponse().getContentAsString()).get("attachmentId").asText();
+        assertThat(mongoTemplate.getCollection("invoice_attachments.files").countDocuments()).isEqualTo(1);
+
+        mockMvc.perform(post("/api/supplier-invoices/{id}/attachments", first)
+                        .param("fileName", "tampered.pdf")
+                        .contentType(MediaType.APPLICATION_PDF)
+                        .header("X-Content-SHA256", "0".repeat(64))
+                        .content(new byte[]{1, 2, 3}))
+                .andExpect(status().isBadRequest());
+        assertThat(mongoTemplate.getCollection("invoice_attachments.files").countDocuments()).isEqualTo(1);
+
+        long chunks = mongoTemplate.getCollection("invoice_attachments.chunks").countDocuments();
+        // knowing a stored file's hash is not enough to attach it; the bytes must be sent
+        mockMvc.perform(post("/api/supplier-invoices/{id}/attachments", first)
+                        .param("fileName", "claimed.pdf")
+                        .contentType(MediaType.APPLICATION_PDF)
+                        .header("X-Content-SHA256", sha256)
+                        .content(new byte[0]))
+                .andExpect(status().isBadRequest());
+        String knownAttachment = objectMapper.readTree(mockMvc.perform(post("/api/supplier-invoices/{id}/attachments", first)
+                        .param("fileName", "known.pdf")
+                        .contentType(MediaType.APPLICATION_PDF)
+                        .header("X-Content-SHA256", sha256.toUpperCase())
+                        .content(scan))
+                .andExpect(status().isCreated())
+                .andExpect(jsonPath("$.size").value(scan.length))
+                .andReturn().getResponse().getContentAsString()).get("attachmentId").asText();
+        assertThat(mongoTemplate.getCollection("invoice_attachments.chunks").countDocuments()).isEqualTo(chunks);
+        assertThat(mongoTemplate.getCollection("invoice_attachments.files").find().first()
+                .get("metadata", Document.class).getInteger("refCount")).isEqualTo(3);
+
+        mockMvc.perform(get("/api/supplier-invoices/{id}", first))
+                .andExpect(jsonPath("$.attachmentsMetadata.length()").value(3))
+                .andExpect(jsonPath("$.attachmentsMetadata[1].attachmentId").value(firstAttachment));
+
+        byte[] downloaded = mockMvc.perform(get("/api/supplier-invoices/{id}/attachments/{attachmentId}", first, firstAttachment))
+                .andExpect(status().isOk())
+                .andExpect(header().string("Content-Type", "application/pdf"))
+                .andReturn().getResponse().getContentAsByteArray();
+        assertThat(downloaded).isEqualTo(scan);
+
+        byte[] range = mockMvc.perform(get("/api/supplier-invoices/{id}/attachments/{attachmentId}", second, secondAttachment)
+                        .header("Range", "bytes=100-199"))
+                .andExpect(status().isPartialContent())
+                .andExpect(header().string("Content-Range", "bytes 100-199/" + scan.length))
+                .andReturn().getResponse().getContentAsByteArray();
+        assertThat(range).isEqualTo(Arrays.copyOfRange(scan, 100, 200));
+
+        mockMvc.perform(delete("/api/supplier-invoices/{id}/attachments/{attachmentId}", first, firstAttachment))
+                .andExpect(status().isNoContent());
+        assertThat(mongoTemplate.getCollection("invoice_attachments.files").countDocuments()).isEqualTo(1);
+        mockMvc.perform(get("/api/supplier-invoices/{id}/attachments/{attachmentId}", first, firstAttachment))
+                .andExpect(status().isNotFound());
+        mockMvc.perform(delete("/api/supplier-invoices/{id}/attachments/{attachmentId}", first, knownAttachment))
+                .andExpect(status().isNoContent());
+        assertThat(mongoTemplate.getCollection("invoice_attachments.files").countDocuments()).isEqualTo(1);
+
+        Query secondInvoice = Query.query(Criteria.where("_id").is(second));
+        mongoTemplate.updateFirst(secondInvoice, new Update().set("status", "Approved"), SupplierInvoice.class);
+        mockMvc.perform(delete("/api/supplier-invoices/{id}/attachments/{attachmentId}", second, secondAttachment))
+                .andExpect(status().isConflict());
+        mockMvc.perform(post("/api/supplier-invoices/{id}/attachments", second)
+                        .param("fileName", "late.pdf")
+                        .contentType(MediaType.APPLICATION_PDF)
+                        .header("X-Content-SHA256", sha256)
+                        .content(new byte[0]))
+                .andExpect(status().isConflict());
+        assertThat(mongoTemplate.getCollection("invoice_attachments.files").find().first()
+                .get("metadata", Document.class).getInteger("refCount")).isEqualTo(1);
+
+        mongoTemplate.updateFirst(secondInvoice, new Update().set("status", "Draft"), SupplierInvoice.class);
+        mockMvc.perform(delete("/api/supplier-invoices/{id}/attachments/{attachmentId}", second, secondAttachment))
+                .andExpect(status().isNoContent());
+        assertThat(mongoTemplate.getCollection("invoice_attachments.files").countDocuments()).isZero();
+        assertThat(mongoTemplate.getCollection("invoice_attachments.chunks").countDocuments()).isZero();
+    }
+
+    @Test
+    void shouldPatchLinesByIndexAndReportAllSubmitViolations() throws Exception {
+        String id = objectMapper.readTree(mockMvc.perform(post("/api/supplier-invoices")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(validDraftPayload().replace("INV-2026-001", "INV-2026-PATCH")))
+                .andReturn().getResponse().getContentAsString()).get("id").asText();
+
+        mockMvc.perform(patch("/api/supplier-invoices/{id}/lines", id)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("""
+                                {
+                                  "lines": [
+                                    {"index": 1, "amount": 400.25},
+                                    {"index": 2, "description": "Parking"},
+                                    {"index": 3, "amount": 50.00}
+                                  ]
+                                }
+                                """))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.lineCount").value(4))
+                .andExpect(jsonPath("$.updatedLines").value(1))
+                .andExpect(jsonPath("$.appendedLines").value(2))
+                .andExpect(jsonPath("$.version").value(1));
+
+        mockMvc.perform(get("/api/supplier-invoices/{id}", id))
+                .andExpect(jsonPath("$.lines.length()").value(4))
+                .andExpect(jsonPath("$.lines[1].description").value("Travel reimbursement"))
+                .andExpect(jsonPath("$.lines[1].amount").value(400.25))
+                .andExpect(jsonPath("$.lines[2].description").value("Parking"));
+
+        mockMvc.perform(patch("/api/supplier-invoices/{id}/lines", id)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"lines\": [{\"index\": 6, \"amount\": 1.00}]}"))
+                .andExpect(status().isBadRequest());
+
+        mockMvc.perform(put("/api/supplier-invoices/{id}/submit", id))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.message").value("line 3 amount is required before submit"))
+                .andExpect(jsonPath("$.violationCount").value(2))
+                .andExpect(jsonPath("$.violations[1]").value("line 4 description is required before submit"));
+
+        mockMvc.perform(patch("/api/supplier-invoices/{id}/lines", id)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("""
+                                {
+                                  "lines": [
+                                    {"index": 0, "amount": 1000.00},
+                                    {"index": 2, "amount": 50.00},
+                                    {"index": 3, "description": "Tolls"}
+                                  ]
+                                }
+                                """))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.version").value(2));
+
+        mockMvc.perform(put("/api/supplier-invoices/{id}/submit", id))
+                .andExpect(status().isOk());
+
+        mockMvc.perform(patch("/api/supplier-invoices/{id}/lines", id)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"lines\": [{\"index\": 0, \"amount\": 1.00}]}"))
+                .andExpect(status().isConflict());
+    }
+
+    @Test
+    void shouldRejectMalformedWorklistCursor() throws Exception {
+        mockMvc.perform(get("/api/supplier-invoices/search").param("after", "not-a-cursor"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.message").value("Invalid cursor"));
+    }
+
+    @Test
+    void shouldBackfillDuplicateFieldsOnLegacyInvoicesIdempotently() throws Exception {
+        SupplierInvoice first = mongoTemplate.insert(legacySubmittedInvoice());
+        SupplierInvoice second = mongoTemplate.insert(legacySubmittedInvoice());
+
+        // the backfill ran when the context started; let it run again over the legacy rows inserted above
+        forgetDuplicateFieldsMigration();
+        ensureSupplierInvoiceIndexes.run();
+        SupplierInvoice keyed = mongoTemplate.findById(first.getId(), SupplierInvoice.class);
+        SupplierInvoice duplicate = mongoTemplate.findById(second.getId(), SupplierInvoice.class);
+        assertThat(keyed.getNormalizedInvoiceNumber()).isEqualTo("LEG7");
+        assertThat(keyed.getAmountCents()).isEqualTo(12050L);
+        assertThat(keyed.getDuplicateKey()).isNotNull();
+        assertThat(duplicate.getNormalizedInvoiceNumber()).isEqualTo("LEG7");
+        assertThat(duplicate.getDuplicateKey()).isNull();
+        assertThat(duplicate.getDuplicateOf()).isEqualTo(first.getId());
+
+        forgetDuplicateFieldsMigration();
+        ensureSupplierInvoiceIndexes.run();
+        assertThat(mongoTemplate.findById(first.getId(), SupplierInvoice.class).getDuplicateKey())
+                .isEqualTo(keyed.getDuplicateKey());
+        assertThat(mongoTemplate.findById(second.getId(), SupplierInvoice.class).getDuplicateKey()).isNull();
+        assertThat(mongoTemplate.findById(second.getId(), SupplierInvoice.class).getDuplicateOf()).isEqualTo(first.getId());
+
+        // once recorded, later starts skip the backfill entirely
+        SupplierInvoice late = mongoTemplate.insert(legacySubmittedInvoice());
+        ensureSupplierInvoiceIndexes.run();
+        assertThat(mongoTemplate.findById(late.getId(), SupplierInvoice.class).getNormalizedInvoiceNumber()).isNull();
+        mongoTemplate.remove(late);
+    }
+
+    private void forgetDuplicateFieldsMigration() {
+        mongoTemplate.remove(Query.query(Criteria.where("_id").is(SupplierInvoiceIndexes.DUPLICATE_FIELDS_MIGRATION)),
+                "migrations");
+    }
+
+    private SupplierInvoice legacySubmittedInvoice() {
+        SupplierInvoice invoice = new SupplierInvoice();
+        invoice.setStatus("Submitted");
+        invoice.setSupplierId("SUP-LEGACY");
+        invoice.setInvoiceNumber("leg-0007");
+        invoice.setInvoiceDate(LocalDate.of(2025, 11, 3));
+        invoice.setInvoiceAmount(new BigDecimal("120.50"));
+        invoice.setVersion(0L);
+        return invoice;
+    }
+
     private String validDraftPayload() {
         return """
                 {
@@ -225,4 +645,18 @@ class SupplierInvoiceIntegrationTest {
                 }
                 """;
     }
+
+    private String duplicatePayload(String invoiceNumber, String amount) {
+        return """
+                {
+                  "supplierId": "SUP-DUPLICATES",
+                  "invoiceNumber": "%s",
+                  "invoiceDate": "2026-05-04",
+                  "accountingDate": "2026-05-05",
+                  "currency": "USD",
+                  "invoiceAmount": %s,
+                  "lines": [{"description": "Reagents", "amount": %s}]
+                }
+                """.formatted(invoiceNumber, amount, amount);
+    }
 }
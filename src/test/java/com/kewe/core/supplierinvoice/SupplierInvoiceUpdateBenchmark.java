@@ -0,0 +1,79 @@
+package com.kewe.core.supplierinvoice;
+
+import com.kewe.core.Benchmarks;
+import com.kewe.core.Benchmarks.Measurement;
+import com.kewe.core.supplierinvoice.dto.LinePatchRequest;
+import com.kewe.core.supplierinvoice.dto.SupplierInvoiceDTO;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatCode;
+
+/**
+ * Time and heap allocation for changing one line of a 10k-line draft and validating it for submit: the full PUT
+ * (every line mapped in, then every line mapped back out for the response) against a line patch, which only builds
+ * the update for the changed line.
+ * Run with {@code ./gradlew benchmark}.
+ */
+@Tag("benchmark")
+class SupplierInvoiceUpdateBenchmark {
+    private static final int LINES = 10_000;
+    private static final int WARMUP_OPS = 200;
+    private static final int MEASURED_OPS = 500;
+
+    private final SupplierInvoiceService service = new SupplierInvoiceService(null, null, null, null);
+
+    @Test
+    void linePatchAllocatesFarLessThanFullUpdate() {
+        SupplierInvoiceDTO payload = payload();
+        SupplierInvoice invoice = new SupplierInvoice();
+        service.applyUpdatableFields(invoice, payload);
+        LinePatchRequest.LinePatch patch = new LinePatchRequest.LinePatch();
+        patch.setIndex(LINES / 2);
+        patch.setAmount(new BigDecimal("12.50"));
+        List<LinePatchRequest.LinePatch> patches = List.of(patch);
+
+        Benchmarks.printHeader();
+        Measurement fullUpdate = Benchmarks.measure(WARMUP_OPS, MEASURED_OPS, i -> {
+            service.applyUpdatableFields(invoice, payload);
+            service.mapToDTO(invoice);
+        });
+        Measurement linePatch = Benchmarks.measure(WARMUP_OPS, MEASURED_OPS, i -> service.lineDelta(LINES, patches));
+        Measurement validate = Benchmarks.measure(WARMUP_OPS, MEASURED_OPS, i -> service.validateSubmitRules(invoice));
+        Benchmarks.print("full update", "PUT", fullUpdate);
+        Benchmarks.print("line patch", "PATCH", linePatch);
+        Benchmarks.print("submit validation", "", validate);
+
+        assertThatCode(() -> service.validateSubmitRules(invoice)).doesNotThrowAnyException();
+        assertThat(service.lineDelta(LINES, patches).updated()).isEqualTo(1);
+        assertThat(linePatch.bytesPerOp()).isLessThan(fullUpdate.bytesPerOp() / 100);
+    }
+
+    private SupplierInvoiceDTO payload() {
+        SupplierInvoiceDTO dto = new SupplierInvoiceDTO();
+        dto.setSupplierId("SUP-UTILITY");
+        dto.setInvoiceNumber("UTIL-2026-10");
+        dto.setInvoiceDate(LocalDate.of(2026, 10, 1));
+        dto.setAccountingDate(LocalDate.of(2026, 10, 2));
+        dto.setCurrency("USD");
+        List<SupplierInvoiceDTO.LineDTO> lines = new ArrayList<>(LINES);
+        BigDecimal total = BigDecimal.ZERO;
+        for (int i = 0; i < LINES; i++) {
+            SupplierInvoiceDTO.LineDTO line = new SupplierInvoiceDTO.LineDTO();
+            line.setDescription("Meter " + i);
+            line.setAmount(BigDecimal.valueOf(1_000 + i, 2));
+            line.setCostCenterNodeId("CC-" + (i % 40));
+            lines.add(line);
+            total = total.add(line.getAmount());
+        }
+        dto.setLines(lines);
+        dto.setInvoiceAmount(total);
+        return dto;
+    }
+}